@@ -100,14 +100,25 @@ public class ArtnetConnection implements DmxConnection {
      */
     @Override
     public void sendDmx(byte[] buffer) throws Exception {
+        sendDmx(0, buffer);
+    }
+
+    /**
+     * Sends the data to the given universe. Universes 0-15 are in subnet 0,
+     * 16-31 in subnet 1, and so on.
+     *
+     * {@inheritDoc}
+     *
+     * @see org.openhab.binding.dmx.DmxConnection#sendDmx(int, byte[])
+     */
+    @Override
+    public void sendDmx(int universe, byte[] buffer) throws Exception {
 
         if (!isConnectionClosed) {
 
             ArtDmxPacket dmx = new ArtDmxPacket();
 
-            // Default to universe 0. May need to be changed later to support
-            // multiple universes.
-            dmx.setUniverse(0, 0);
+            dmx.setUniverse(universe >> 4 & 0x0F, universe & 0x0F);
             dmx.setSequenceID(sequenceID % 255);
             dmx.setDMX(buffer, buffer.length);
 
@@ -73,4 +73,16 @@ public class Lib485Connection implements DmxConnection {
         connection.getOutputStream().write(buffer);
     }
 
+    /**
+     * lib485 drives a single universe, data for other universes is dropped.
+     */
+    @Override
+    public void sendDmx(int universe, byte[] buffer) throws Exception {
+        if (universe != 0) {
+            logger.trace("Lib485 only supports universe 0, ignoring data for universe {}", universe);
+            return;
+        }
+        sendDmx(buffer);
+    }
+
 }
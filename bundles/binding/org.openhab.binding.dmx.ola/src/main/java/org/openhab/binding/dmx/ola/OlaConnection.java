@@ -71,7 +71,12 @@ public class OlaConnection implements DmxConnection {
 
     @Override
     public void sendDmx(byte[] arg0) throws Exception {
-        client.streamDmx(0, arg0);
+        sendDmx(0, arg0);
+    }
+
+    @Override
+    public void sendDmx(int universe, byte[] buffer) throws Exception {
+        client.streamDmx(universe, buffer);
     }
 
     /**
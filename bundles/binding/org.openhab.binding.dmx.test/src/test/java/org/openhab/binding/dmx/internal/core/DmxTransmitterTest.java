@@ -0,0 +1,235 @@
+/**
+ * Copyright (c) 2010-2016, openHAB.org and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.dmx.internal.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.openhab.binding.dmx.DmxConnection;
+import org.openhab.binding.dmx.DmxService;
+import org.openhab.binding.dmx.internal.action.FadeAction;
+
+/**
+ * DmxTransmitter tests.
+ *
+ * @author agent
+ * @since 1.9.0
+ */
+public class DmxTransmitterTest {
+
+    private RecordingConnection connection;
+
+    private DmxTransmitter transmitter;
+
+    @Before
+    public void setUp() {
+        connection = new RecordingConnection();
+        DmxService service = Mockito.mock(DmxService.class);
+        Mockito.when(service.getConnection()).thenReturn(connection);
+        transmitter = new DmxTransmitter(service);
+        transmitter.setKeepAlive(0);
+    }
+
+    @Test
+    public void sendsChannelsAbove512ToNextUniverse() {
+
+        transmitter.getChannel(3).setValue(30);
+        transmitter.getChannel(515).setValue(40);
+        transmitter.run();
+
+        assertEquals(2, connection.universes.size());
+        assertEquals(0, (int) connection.universes.get(0));
+        assertEquals(30, connection.frames.get(0)[2]);
+        assertEquals(1, (int) connection.universes.get(1));
+        assertEquals(40, connection.frames.get(1)[2]);
+        assertSame(transmitter.getUniverse(1).getChannel(3), transmitter.getChannel(515));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsUniverseAboveMaximum() {
+        transmitter.getUniverse(DmxTransmitter.MAX_UNIVERSES);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsNegativeUniverse() {
+        transmitter.getUniverse(-1);
+    }
+
+    @Test
+    public void sendsOnlyChangedUniverses() {
+
+        transmitter.getChannel(1).setValue(10);
+        transmitter.getChannel(513).setValue(20);
+        transmitter.run();
+        connection.clear();
+
+        transmitter.run();
+        assertTrue(connection.universes.isEmpty());
+
+        transmitter.getChannel(513).setValue(21);
+        transmitter.run();
+        assertEquals(1, connection.universes.size());
+        assertEquals(1, (int) connection.universes.get(0));
+
+        // setting the same value doesn't change the frame
+        connection.clear();
+        transmitter.getChannel(513).setValue(21);
+        transmitter.run();
+        assertTrue(connection.universes.isEmpty());
+    }
+
+    @Test
+    public void resendsIdleUniversesAfterKeepAlive() throws InterruptedException {
+
+        transmitter.setKeepAlive(50);
+        transmitter.getChannel(1).setValue(10);
+        transmitter.run();
+        connection.clear();
+
+        transmitter.run();
+        assertTrue(connection.universes.isEmpty());
+
+        Thread.sleep(60);
+        transmitter.run();
+        assertEquals(1, connection.universes.size());
+        assertEquals(10, connection.frames.get(0)[0]);
+    }
+
+    @Test
+    public void recalculatesUniverseWhileFading() {
+
+        DmxUniverse universe = transmitter.getUniverse();
+        universe.getChannel(1).setValue(0);
+        byte[] frame = universe.calculateBuffer(1000);
+
+        universe.getChannel(1).setChannelAction(new FadeAction(100, 100, -1));
+        universe.calculateBuffer(1000);
+        assertTrue(universe.getChannel(1).hasRunningActions());
+
+        byte[] fading = universe.calculateBuffer(1050);
+        assertSame(frame, fading);
+        assertTrue(universe.getBufferChanged());
+        assertEquals(50, fading[0]);
+
+        assertEquals(100, universe.calculateBuffer(1100)[0]);
+        universe.getChannel(1).setValue(100);
+        universe.calculateBuffer(1200);
+        universe.calculateBuffer(1300);
+        assertFalse(universe.getBufferChanged());
+    }
+
+    @Test
+    public void calculatesOutputValueLikeBigDecimal() {
+        for (int input = -255; input <= 255; input++) {
+            for (int level = 0; level <= 100; level++) {
+                int expected = BigDecimal.valueOf(input).multiply(BigDecimal.valueOf(level))
+                        .divide(BigDecimal.valueOf(100), 0, BigDecimal.ROUND_UP).intValue();
+                assertEquals(expected, DmxUtil.getOutputValue(input, level));
+            }
+        }
+    }
+
+    @Test
+    public void sendsOnlyFadingUniverses() throws InterruptedException {
+
+        int universes = 8;
+        for (int channel = 1; channel <= universes * DmxUniverse.CHANNELS_PER_UNIVERSE; channel++) {
+            transmitter.getChannel(channel).setValue(channel % 256);
+        }
+        transmitter.run();
+        assertEquals(universes, connection.universes.size());
+        connection.clear();
+
+        transmitter.run();
+        assertTrue(connection.universes.isEmpty());
+
+        // fade the first channel of every other universe
+        for (int u = 0; u < universes; u += 2) {
+            transmitter.getChannel(u * DmxUniverse.CHANNELS_PER_UNIVERSE + 1)
+                    .setChannelAction(new FadeAction(50, 255, 0));
+        }
+        byte[][] lastFrames = new byte[universes][];
+        long timeout = System.currentTimeMillis() + 2000;
+        while (!isFadeComplete(lastFrames) && System.currentTimeMillis() < timeout) {
+            transmitter.run();
+            for (int i = 0; i < connection.universes.size(); i++) {
+                lastFrames[connection.universes.get(i)] = connection.frames.get(i);
+            }
+            Thread.sleep(5);
+        }
+
+        for (int u = 0; u < universes; u++) {
+            if (u % 2 == 0) {
+                assertEquals(255, lastFrames[u][0] & 0xFF);
+                assertEquals(2, lastFrames[u][1] & 0xFF);
+            } else {
+                assertNull(lastFrames[u]);
+            }
+        }
+
+        connection.clear();
+        transmitter.run();
+        assertTrue(connection.universes.isEmpty());
+    }
+
+    private static boolean isFadeComplete(byte[][] lastFrames) {
+        for (int u = 0; u < lastFrames.length; u += 2) {
+            if (lastFrames[u] == null || (lastFrames[u][0] & 0xFF) != 255) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static class RecordingConnection implements DmxConnection {
+
+        private final List<Integer> universes = new ArrayList<Integer>();
+
+        private final List<byte[]> frames = new ArrayList<byte[]>();
+
+        @Override
+        public void sendDmx(byte[] buffer) throws Exception {
+            sendDmx(0, buffer);
+        }
+
+        @Override
+        public void sendDmx(int universe, byte[] buffer) throws Exception {
+            universes.add(universe);
+            frames.add(buffer.clone());
+        }
+
+        @Override
+        public boolean isClosed() {
+            return false;
+        }
+
+        @Override
+        public void open(String connectionString) throws Exception {
+        }
+
+        @Override
+        public void close() {
+        }
+
+        void clear() {
+            universes.clear();
+            frames.clear();
+        }
+    }
+}
@@ -27,6 +27,18 @@ public interface DmxConnection {
      */
     public void sendDmx(byte[] buffer) throws Exception;
 
+    /**
+     * Send the given buffer to a universe of the DMX device. The buffer is
+     * reused by the caller, so it must not be kept after returning.
+     * 
+     * @param universe
+     *            universe number, starting with 0
+     * @param buffer
+     *            buffer containing max 512 DMX values
+     * @throws Exception
+     */
+    public void sendDmx(int universe, byte[] buffer) throws Exception;
+
     /**
      * @return true if the connection is closed.
      */
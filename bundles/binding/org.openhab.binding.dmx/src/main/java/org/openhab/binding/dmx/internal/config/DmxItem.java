@@ -19,6 +19,7 @@ import org.openhab.binding.dmx.DmxStatusUpdateListener;
 import org.openhab.binding.dmx.internal.cmd.DmxCommand;
 import org.openhab.binding.dmx.internal.cmd.DmxFadeCommand;
 import org.openhab.binding.dmx.internal.cmd.DmxSuspendingFadeCommand;
+import org.openhab.binding.dmx.internal.core.DmxTransmitter;
 import org.openhab.core.binding.BindingConfig;
 import org.openhab.core.types.Command;
 import org.openhab.core.types.State;
@@ -46,7 +47,7 @@ public abstract class DmxItem implements BindingConfig, DmxStatusUpdateListener
     /** Minimum status update delay in ms */
     public static int MIN_UPDATE_DELAY = 100;
 
-    /** DMX channel numbers (512 max) */
+    /** DMX channel numbers, channels above 512 are in the following universes */
     protected int[] channels;
 
     /** Minimum number of ms between status updates */
@@ -197,14 +198,14 @@ public abstract class DmxItem implements BindingConfig, DmxStatusUpdateListener
     private int parseChannelNumber(String input) throws BindingConfigParseException {
         try {
             int channel = Integer.parseInt(input);
-            if (channel < 1 || channel > 512) {
-                throw new BindingConfigParseException(
-                        "DMX channel configuration : " + input + " is not a valid dmx channel (1-512)");
+            if (channel < 1 || channel > DmxTransmitter.MAX_CHANNEL) {
+                throw new BindingConfigParseException("DMX channel configuration : " + input
+                        + " is not a valid dmx channel (1-" + DmxTransmitter.MAX_CHANNEL + ")");
             }
             return channel;
         } catch (NumberFormatException e) {
-            throw new BindingConfigParseException(
-                    "DMX channel configuration : " + input + " is not a valid dmx channel (1-512)");
+            throw new BindingConfigParseException("DMX channel configuration : " + input
+                    + " is not a valid dmx channel (1-" + DmxTransmitter.MAX_CHANNEL + ")");
         }
     }
 
@@ -22,6 +22,10 @@ import org.slf4j.LoggerFactory;
  *
  * When the channel is switched on, it will switch on to the last know state.
  *
+ * The output value and whether actions are running are published in volatile
+ * fields, so the transmitter can read idle channels without locking them. Every
+ * change marks the universe of the channel for recalculation.
+ *
  * @author Davy Vanherbergen
  * @since 1.2.0
  */
@@ -31,6 +35,9 @@ public class DmxChannel implements Comparable<DmxChannel> {
 
     private int channelId;
 
+    /** Universe which is recalculated when the channel changes **/
+    private final DmxUniverse universe;
+
     /** Current channel value in the range from 0-255 **/
     private int value;
 
@@ -43,6 +50,12 @@ public class DmxChannel implements Comparable<DmxChannel> {
 
     private int suspendedValue;
 
+    /** Output value as seen by the transmitter, 0 when switched off **/
+    private volatile int output;
+
+    /** true if there are actions in the action list **/
+    private volatile boolean active;
+
     /** Maximum DMX output value **/
     public static int DMX_MAX_VALUE = 255;
 
@@ -56,9 +69,35 @@ public class DmxChannel implements Comparable<DmxChannel> {
      *            DMX channel id.
      */
     public DmxChannel(int channelId) {
+        this(null, channelId);
+    }
+
+    /**
+     * Create new DMX channel in the given universe.
+     * 
+     * @param universe
+     *            universe to mark as changed when the channel changes.
+     * @param channelId
+     *            DMX channel id within the universe.
+     */
+    DmxChannel(DmxUniverse universe, int channelId) {
+        this.universe = universe;
         this.channelId = channelId;
     }
 
+    /**
+     * Publish the current state to the transmitter and mark the universe as
+     * changed. Must be called after every change of the value, the on/off
+     * state or the action list.
+     */
+    private void changed() {
+        active = !actions.isEmpty();
+        output = switchedOn ? value : DMX_MIN_VALUE;
+        if (universe != null) {
+            universe.markChanged();
+        }
+    }
+
     /**
      * Set the channel output to a fixed value. This will stop any active
      * actions on the channel.
@@ -75,6 +114,7 @@ public class DmxChannel implements Comparable<DmxChannel> {
 
         // set value
         this.value = DmxUtil.capDmxValue(value);
+        changed();
     }
 
     /**
@@ -101,7 +141,7 @@ public class DmxChannel implements Comparable<DmxChannel> {
         } else {
             value = DmxUtil.getOutputValue(value, outputlevel.intValue());
         }
-
+        changed();
     }
 
     /**
@@ -109,13 +149,8 @@ public class DmxChannel implements Comparable<DmxChannel> {
      * 
      * @return value 0 - 255.
      */
-    public synchronized int getValue() {
-
-        if (!switchedOn) {
-            return DMX_MIN_VALUE;
-        }
-
-        return value;
+    public int getValue() {
+        return output;
     }
 
     /**
@@ -125,6 +160,7 @@ public class DmxChannel implements Comparable<DmxChannel> {
      */
     public synchronized void switchOn() {
         switchedOn = true;
+        changed();
     }
 
     /**
@@ -134,31 +170,39 @@ public class DmxChannel implements Comparable<DmxChannel> {
     public synchronized void switchOff() {
         switchedOn = false;
         actions.clear();
+        changed();
     }
 
     /**
      * Get the new value for this channel as determined by active actions or the
-     * current value.
+     * current value. Channels without actions are not locked.
      * 
      * @param calculationTime
      * 
      * @return value 0-255
      */
-    public synchronized Integer getNextValue(long calculationTime) {
+    public int getNextValue(long calculationTime) {
 
-        if (!switchedOn) {
-            return DMX_MIN_VALUE;
+        if (!active) {
+            return output;
         }
 
-        if (hasRunningActions()) {
-            BaseAction action = actions.get(0);
-            value = action.getNewValue(this, calculationTime);
-            if (action.isCompleted()) {
-                switchToNextAction();
+        synchronized (this) {
+            if (!switchedOn) {
+                return DMX_MIN_VALUE;
             }
-        }
 
-        return value;
+            if (!actions.isEmpty()) {
+                BaseAction action = actions.get(0);
+                value = action.getNewValue(this, calculationTime);
+                output = value;
+                if (action.isCompleted()) {
+                    switchToNextAction();
+                }
+            }
+
+            return value;
+        }
     }
 
     /**
@@ -175,6 +219,7 @@ public class DmxChannel implements Comparable<DmxChannel> {
         actions.remove(0);
         action.reset();
         actions.add(action);
+        changed();
     }
 
     /**
@@ -190,6 +235,7 @@ public class DmxChannel implements Comparable<DmxChannel> {
         switchedOn = true;
         actions.clear();
         actions.add(channelAction);
+        changed();
     }
 
     /**
@@ -200,6 +246,7 @@ public class DmxChannel implements Comparable<DmxChannel> {
      */
     public synchronized void addChannelAction(BaseAction channelAction) {
         actions.add(channelAction);
+        changed();
     }
 
     /**
@@ -243,6 +290,7 @@ public class DmxChannel implements Comparable<DmxChannel> {
                 a.increase(increment);
             }
         }
+        changed();
     }
 
     /**
@@ -266,20 +314,21 @@ public class DmxChannel implements Comparable<DmxChannel> {
                 a.decrease(decrement);
             }
         }
+        changed();
     }
 
     /**
      * @return true if there are running actions
      */
     public boolean hasRunningActions() {
-        return !actions.isEmpty();
+        return active;
     }
 
     /**
      * Suspend the current actions and value. This will store the values for
      * later resume.
      */
-    public void suspend() {
+    public synchronized void suspend() {
         suspendedValue = value;
         suspendedActions.clear();
         suspendedActions.addAll(actions);
@@ -289,7 +338,7 @@ public class DmxChannel implements Comparable<DmxChannel> {
      * Resume previously suspended actions. If no actions were suspended, the
      * suspended value will be restored.
      */
-    public void resume() {
+    public synchronized void resume() {
         actions.clear();
         if (!suspendedActions.isEmpty()) {
             actions.addAll(suspendedActions);
@@ -297,14 +346,16 @@ public class DmxChannel implements Comparable<DmxChannel> {
         } else {
             setValue(suspendedValue);
         }
+        changed();
     }
 
     /**
      * Add a resume action to the end of the action list to trigger a resume of previously
      * suspended actions.
      */
-    public void addResumeAction() {
+    public synchronized void addResumeAction() {
         actions.add(new ResumeAction());
+        changed();
     }
 
 }
\ No newline at end of file
@@ -44,6 +44,8 @@ public class DmxController implements DmxService, ManagedService {
 
     private String connectionString = "localhost:9010";
 
+    private long keepAlive = DmxTransmitter.DEFAULT_KEEP_ALIVE;
+
     /**
      * {@inheritDoc}
      */
@@ -52,6 +54,7 @@ public class DmxController implements DmxService, ManagedService {
 
         logger.trace("Starting Dmx transmitter ...");
         transmitter = new DmxTransmitter(this);
+        transmitter.setKeepAlive(keepAlive);
         transmitterTimer = new Timer(true);
         transmitterTimer.schedule(transmitter, 0, TRANSMIT_FREQUENCY_MS);
         logger.trace("Dmx transmitter started.");
@@ -114,7 +117,7 @@ public class DmxController implements DmxService, ManagedService {
     @Override
     public void registerStatusListener(DmxStatusUpdateListener listener) {
         logger.trace("Registering listener for channel {}", listener.getChannel());
-        transmitter.getUniverse().addStatusListener(listener);
+        transmitter.addStatusListener(listener);
     }
 
     /**
@@ -123,7 +126,7 @@ public class DmxController implements DmxService, ManagedService {
     @Override
     public void unregisterStatusListener(DmxStatusUpdateListener listener) {
         logger.trace("Unregistering listener for channel {}", listener.getChannel());
-        transmitter.getUniverse().removeStatusListener(listener);
+        transmitter.removeStatusListener(listener);
     }
 
     /**
@@ -297,6 +300,18 @@ public class DmxController implements DmxService, ManagedService {
                 connectionString = configuredConnection;
                 logger.debug("Setting connection from config: {}", connectionString);
             }
+            String configuredKeepAlive = (String) config.get("keepalive");
+            if (StringUtils.isNotBlank(configuredKeepAlive)) {
+                try {
+                    keepAlive = Long.parseLong(configuredKeepAlive.trim());
+                } catch (NumberFormatException e) {
+                    throw new ConfigurationException("keepalive", "Invalid keep alive time: " + configuredKeepAlive);
+                }
+                logger.debug("Setting keep alive from config: {}", keepAlive);
+                if (transmitter != null) {
+                    transmitter.setKeepAlive(keepAlive);
+                }
+            }
         }
     }
 
@@ -8,10 +8,13 @@
  */
 package org.openhab.binding.dmx.internal.core;
 
+import java.util.List;
 import java.util.TimerTask;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import org.openhab.binding.dmx.DmxConnection;
 import org.openhab.binding.dmx.DmxService;
+import org.openhab.binding.dmx.DmxStatusUpdateListener;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -19,6 +22,10 @@ import org.slf4j.LoggerFactory;
  * DmxTransmitter, which is responsible for continuously sending all value
  * changes to the DMX connection.
  *
+ * Channel numbers above 512 address the following universes, e.g. channel 513
+ * is the first channel of universe 1. A universe is sent when its values have
+ * changed, and otherwise every keep alive interval.
+ *
  * This transmitter should always run in a separate thread to allow for smooth
  * transmissions.
  *
@@ -29,13 +36,29 @@ public final class DmxTransmitter extends TimerTask {
 
     private static Logger logger = LoggerFactory.getLogger(DmxTransmitter.class);
 
-    private DmxUniverse universe = new DmxUniverse();
+    /** Maximum number of universes **/
+    public static final int MAX_UNIVERSES = 128;
+
+    /** Highest channel number **/
+    public static final int MAX_CHANNEL = MAX_UNIVERSES * DmxUniverse.CHANNELS_PER_UNIVERSE;
+
+    /** Default time in ms after which unchanged universes are sent again **/
+    public static final long DEFAULT_KEEP_ALIVE = 1000;
+
+    private final DmxUniverse[] universes = new DmxUniverse[MAX_UNIVERSES];
+
+    /** Universes in use. Replaced when a universe is added, so it can be read without locking. **/
+    private volatile DmxUniverse[] activeUniverses = new DmxUniverse[0];
+
+    private List<DmxStatusUpdateListener> updateListeners = new CopyOnWriteArrayList<DmxStatusUpdateListener>();
 
     private DmxService service;
 
-    private boolean running;
+    private volatile long keepAlive = DEFAULT_KEEP_ALIVE;
 
-    private boolean suspended;
+    private volatile boolean running;
+
+    private volatile boolean suspended;
 
     /**
      * Default constructor.
@@ -56,14 +79,29 @@ public final class DmxTransmitter extends TimerTask {
 
         running = true;
         try {
-            byte[] b = universe.calculateBuffer();
-            if (universe.getBufferChanged()) {
-                DmxConnection conn = service.getConnection();
-                if (conn != null) {
-                    conn.sendDmx(b);
-                    universe.notifyStatusListeners();
+            long now = System.currentTimeMillis();
+            boolean transmitted = false;
+            DmxConnection conn = null;
+
+            for (DmxUniverse universe : activeUniverses) {
+                byte[] b = universe.calculateBuffer(now);
+                if (universe.getBufferChanged()
+                        || (keepAlive > 0 && now - universe.getLastTransmitTime() >= keepAlive)) {
+                    if (conn == null) {
+                        conn = service.getConnection();
+                        if (conn == null) {
+                            return;
+                        }
+                    }
+                    conn.sendDmx(universe.getUniverseId(), b);
+                    universe.setLastTransmitTime(now);
+                    transmitted |= universe.getBufferChanged();
                 }
             }
+
+            if (transmitted) {
+                notifyStatusListeners();
+            }
         } catch (Exception e) {
             logger.error("Error sending dmx values.", e);
         } finally {
@@ -80,7 +118,7 @@ public final class DmxTransmitter extends TimerTask {
 
     /**
      * Suspend/resume transmittting.
-     * 
+     *
      * @param suspend
      *            true to suspend
      */
@@ -89,20 +127,104 @@ public final class DmxTransmitter extends TimerTask {
     }
 
     /**
-     * Get the DMX channel in the current universe.
-     * 
+     * Set the time after which universes are sent again, even if their values
+     * haven't changed.
+     *
+     * @param keepAlive
+     *            time in ms, 0 to only send changes
+     */
+    public void setKeepAlive(long keepAlive) {
+        this.keepAlive = keepAlive;
+    }
+
+    /**
+     * Get a DMX channel. Channels above 512 are in the following universes.
+     *
      * @param channel
      *            number
      * @return DMX channel
      */
     public DmxChannel getChannel(int channel) {
-        return universe.getChannel(channel);
+        if (channel < 1 || channel > MAX_CHANNEL) {
+            throw new IllegalArgumentException("Invalid DMX channel " + channel);
+        }
+        int index = channel - 1;
+        return getUniverse(index / DmxUniverse.CHANNELS_PER_UNIVERSE)
+                .getChannel(index % DmxUniverse.CHANNELS_PER_UNIVERSE + 1);
     }
 
     /**
-     * @return DMX universe
+     * @return the first DMX universe
      */
     public DmxUniverse getUniverse() {
+        return getUniverse(0);
+    }
+
+    /**
+     * Get a DMX universe. If it doesn't exist, it is created.
+     *
+     * @param universeId
+     *            universe number, starting with 0
+     * @return DMX universe
+     */
+    public synchronized DmxUniverse getUniverse(int universeId) {
+        if (universeId < 0 || universeId >= MAX_UNIVERSES) {
+            throw new IllegalArgumentException("Invalid DMX universe " + universeId);
+        }
+        DmxUniverse universe = universes[universeId];
+        if (universe == null) {
+            logger.debug("Adding DMX universe {}", universeId);
+            universe = new DmxUniverse(universeId);
+            universes[universeId] = universe;
+
+            DmxUniverse[] newUniverses = new DmxUniverse[activeUniverses.length + 1];
+            int i = 0;
+            for (DmxUniverse u : universes) {
+                if (u != null) {
+                    newUniverses[i++] = u;
+                }
+            }
+            activeUniverses = newUniverses;
+        }
         return universe;
     }
+
+    /**
+     * Add a new status update listener, which can receive values when a channel
+     * is changed.
+     *
+     * @param listener
+     *            status listener to add.
+     */
+    public void addStatusListener(DmxStatusUpdateListener listener) {
+        updateListeners.add(listener);
+    }
+
+    /**
+     * Stop a given status update listener from receiving updates.
+     *
+     * @param listener
+     *            status listener to remove.
+     */
+    public void removeStatusListener(DmxStatusUpdateListener listener) {
+        updateListeners.remove(listener);
+    }
+
+    /**
+     * Broadcast status update to all listeners.
+     */
+    public void notifyStatusListeners() {
+
+        for (DmxStatusUpdateListener listener : updateListeners) {
+
+            if (System.currentTimeMillis() > listener.getLastUpdateTime() + listener.getUpdateDelay()) {
+
+                int values[] = new int[listener.getFootPrint()];
+                for (int i = 0; i < listener.getFootPrint(); i++) {
+                    values[i] = getChannel(listener.getChannel() + i).getValue();
+                }
+                listener.processStatusUpdate(values);
+            }
+        }
+    }
 }
@@ -8,18 +8,18 @@
  */
 package org.openhab.binding.dmx.internal.core;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
-import java.util.Vector;
+import java.util.Arrays;
 
-import org.openhab.binding.dmx.DmxStatusUpdateListener;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
  * DMX Universe. Can contain up to 512 DMX channels.
  *
+ * The universe keeps its frame buffer between calculations. It is only
+ * recalculated after one of its channels was changed or while channels have
+ * running actions, otherwise the previous frame is returned as it is.
+ *
  * @author Davy Vanherbergen
  * @since 1.2.0
  */
@@ -27,68 +27,125 @@ public class DmxUniverse {
 
     private static final Logger logger = LoggerFactory.getLogger(DmxUniverse.class);
 
-    private Vector<DmxChannel> channels = new Vector<DmxChannel>();
+    /** Number of DMX channels in a universe **/
+    public static final int CHANNELS_PER_UNIVERSE = 512;
 
-    private short[] buffer = new short[512];
+    private static final int MINIMUM_BUFFER_SIZE = 32;
 
-    private boolean bufferChanged = false;
+    private final int universeId;
+
+    /** Channels by channel id - 1 **/
+    private final DmxChannel[] channelIndex = new DmxChannel[CHANNELS_PER_UNIVERSE];
+
+    /** Channels sorted by id. Replaced on every change, so it can be read without locking. **/
+    private volatile DmxChannel[] channels = new DmxChannel[0];
+
+    /** Frame buffer, only used by the transmitter thread **/
+    private byte[] buffer = new byte[MINIMUM_BUFFER_SIZE];
+
+    private volatile int minimumBufferSize = MINIMUM_BUFFER_SIZE;
+
+    /** true if a channel was changed since the last calculation **/
+    private volatile boolean changed = false;
 
-    private int minimumBufferSize = 32;
+    private boolean bufferChanged = false;
 
-    private List<DmxStatusUpdateListener> updateListeners = new ArrayList<DmxStatusUpdateListener>();
+    private long lastTransmitTime = 0;
 
     /**
-     * Change the buffer value at the given index.
-     * 
-     * @param index
-     * @param value
+     * Create the first DMX universe.
      */
-    private void setBufferValue(int index, short value) {
+    public DmxUniverse() {
+        this(0);
+    }
 
-        if (buffer[index] == value) {
-            return;
-        } else {
-            buffer[index] = value;
-            bufferChanged = true;
-        }
+    /**
+     * Create a DMX universe.
+     *
+     * @param universeId
+     *            universe number, starting with 0
+     */
+    public DmxUniverse(int universeId) {
+        this.universeId = universeId;
     }
 
     /**
      * Calculate the current DMX buffer state.
-     * 
+     *
      * @return DMX buffer.
      */
     public byte[] calculateBuffer() {
+        return calculateBuffer(System.currentTimeMillis());
+    }
+
+    /**
+     * Calculate the DMX buffer state at the given time. The returned buffer is
+     * reused for the next calculation.
+     *
+     * @param calculationTime
+     *            time to use as current time
+     * @return DMX buffer.
+     */
+    public byte[] calculateBuffer(long calculationTime) {
 
         bufferChanged = false;
-        long calculationTime = System.currentTimeMillis();
 
-        for (DmxChannel channel : channels) {
-            setBufferValue(channel.getChannelId() - 1, channel.getNextValue(calculationTime).shortValue());
+        // the buffer size is raised before a channel is added, so it always
+        // fits the channels read first
+        DmxChannel[] currentChannels = channels;
+        int size = minimumBufferSize;
+        if (buffer.length != size) {
+            buffer = Arrays.copyOf(buffer, size);
+            bufferChanged = true;
         }
 
-        byte[] b = new byte[minimumBufferSize];
-        for (int i = 0; i < minimumBufferSize; i++) {
-            b[i] = (byte) (buffer[i]);
+        if (!changed) {
+            return buffer;
         }
-        return b;
+        // reset before reading the channels, so changes made during the
+        // calculation are picked up by the next one
+        changed = false;
+
+        for (DmxChannel channel : currentChannels) {
+            byte value = (byte) channel.getNextValue(calculationTime);
+            int index = channel.getChannelId() - 1;
+            if (buffer[index] != value) {
+                buffer[index] = value;
+                bufferChanged = true;
+            }
+            if (channel.hasRunningActions()) {
+                changed = true;
+            }
+        }
+        return buffer;
+    }
+
+    /**
+     * Mark the universe to be recalculated.
+     */
+    void markChanged() {
+        changed = true;
     }
 
     /**
      * Add a new DMX channel.
-     * 
+     *
      * @param channel
      *            to add.
      */
-    private synchronized void addChannel(DmxChannel channel) {
+    private void addChannel(DmxChannel channel) {
 
-        logger.trace("Adding channel {}", channel.getChannelId());
-        channels.add(channel);
-        Collections.sort(channels);
+        logger.trace("Adding channel {} to universe {}", channel.getChannelId(), universeId);
+        channelIndex[channel.getChannelId() - 1] = channel;
 
         if (channel.getChannelId() > minimumBufferSize) {
             minimumBufferSize = channel.getChannelId();
         }
+
+        DmxChannel[] newChannels = Arrays.copyOf(channels, channels.length + 1);
+        newChannels[channels.length] = channel;
+        Arrays.sort(newChannels);
+        channels = newChannels;
     }
 
     /**
@@ -99,69 +156,52 @@ public class DmxUniverse {
     }
 
     /**
-     * Find a channel by id. If it doesn't exist, it is created.
-     * 
-     * @param channelId
-     *            int
-     * @return channel
+     * @return time in ms when the buffer was last sent.
      */
-    public DmxChannel getChannel(int channelId) {
-        for (DmxChannel c : channels) {
-            if (c.getChannelId() == channelId) {
-                return c;
-            }
-        }
-        DmxChannel c = new DmxChannel(channelId);
-        addChannel(c);
-        return c;
+    public long getLastTransmitTime() {
+        return lastTransmitTime;
     }
 
     /**
-     * Clear all channel values.
+     * Record that the buffer was sent.
+     *
+     * @param time
+     *            time in ms
      */
-    public void clear() {
-
-        for (DmxChannel c : channels) {
-            c.setValue(0);
-        }
+    public void setLastTransmitTime(long time) {
+        lastTransmitTime = time;
     }
 
     /**
-     * Add a new status update listener, which can receive values when a channel
-     * is changed.
-     * 
-     * @param listener
-     *            status listener to add.
+     * @return universe number, starting with 0
      */
-    public void addStatusListener(DmxStatusUpdateListener listener) {
-        updateListeners.add(listener);
+    public int getUniverseId() {
+        return universeId;
     }
 
     /**
-     * Stop a given status update listener from receiving updates.
-     * 
-     * @param listener
-     *            status listener to remove.
+     * Find a channel by id. If it doesn't exist, it is created.
+     *
+     * @param channelId
+     *            int
+     * @return channel
      */
-    public void removeStatusListener(DmxStatusUpdateListener listener) {
-        updateListeners.remove(listener);
+    public synchronized DmxChannel getChannel(int channelId) {
+        DmxChannel c = channelIndex[channelId - 1];
+        if (c == null) {
+            c = new DmxChannel(this, channelId);
+            addChannel(c);
+        }
+        return c;
     }
 
     /**
-     * Broadcast status update to all listeners.
+     * Clear all channel values.
      */
-    public void notifyStatusListeners() {
-
-        for (DmxStatusUpdateListener listener : updateListeners) {
-
-            if (System.currentTimeMillis() > listener.getLastUpdateTime() + listener.getUpdateDelay()) {
+    public void clear() {
 
-                int values[] = new int[listener.getFootPrint()];
-                for (int i = 0; i < listener.getFootPrint(); i++) {
-                    values[i] = getChannel(listener.getChannel() + i).getValue();
-                }
-                listener.processStatusUpdate(values);
-            }
+        for (DmxChannel c : channels) {
+            c.setValue(0);
         }
     }
 
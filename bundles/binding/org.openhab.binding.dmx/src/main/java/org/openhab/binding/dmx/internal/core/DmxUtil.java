@@ -90,13 +90,14 @@ public class DmxUtil {
     }
 
     /**
-     * Dim the provided input value to the given output level.
+     * Dim the provided input value to the given output level. The result is
+     * rounded away from zero. This is called for every running action in every
+     * frame, so it doesn't use BigDecimal.
      * 
      * @return dimmed value
      */
     public static int getOutputValue(int input, int outputLevel) {
-        BigDecimal value = BigDecimal.valueOf(input);
-        return value.multiply(BigDecimal.valueOf(outputLevel))
-                .divide(PercentType.HUNDRED.toBigDecimal(), 0, BigDecimal.ROUND_UP).intValue();
+        int value = input * outputLevel;
+        return value >= 0 ? (value + 99) / 100 : (value - 99) / 100;
     }
 }
@@ -0,0 +1,145 @@
+/**
+ * Copyright (c) 2010-2016, openHAB.org and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.ebus.internal.parser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.openhab.binding.ebus.internal.configuration.TelegramConfiguration;
+import org.openhab.binding.ebus.internal.utils.EBusUtils;
+
+/**
+ * Tests that the {@link EBusTelegramIndex} finds the same configurations as
+ * matching all filter regexes against the hex string of a telegram.
+ *
+ * @author agent
+ * @since 1.9.0
+ */
+public class EBusTelegramIndexTest {
+
+    private static final String[] FILTERS = {
+            // filter property with placeholders
+            "[0-9A-Z]{2} FE B5 16 08 00 .*",
+            // filter built from command and data
+            "[0-9A-Z]{2} [0-9A-Z]{2} 05 07 [0-9A-Z]{2} .*",
+            // placeholder for the command
+            "10 FE [0-9A-Z]{2} [0-9A-Z]{2} .*",
+            // needs the regex
+            "[0-9A-Z]{2} 08 (B5|B6) 09 .*",
+            // exact length
+            "[0-9A-Z]{2} FE B5 16 03 01 02 03",
+            // second filter with the same command
+            "[0-9A-Z]{2} [0-9A-Z]{2} 05 07 [0-9A-Z]{2} 01 .*" };
+
+    private final List<TelegramConfiguration> configurations = new ArrayList<TelegramConfiguration>();
+
+    private final EBusTelegramIndex index = new EBusTelegramIndex();
+
+    @Before
+    public void setUp() {
+        for (String filter : FILTERS) {
+            TelegramConfiguration configuration = new TelegramConfiguration();
+            configuration.setId(filter);
+            configuration.setFilter(filter);
+            configuration.setFilterPattern(Pattern.compile(filter));
+            configurations.add(configuration);
+            index.add(configuration);
+        }
+    }
+
+    @Test
+    public void testRegexCount() {
+        assertEquals(1, index.getRegexCount());
+    }
+
+    @Test
+    public void testFind() {
+        assertFound("30 FE B5 16 08 00 01 02 03 04 05 06 07 08 00", FILTERS[0]);
+        assertFound("10 FE B5 16 08 00 01 02 03 04 05 06 07 08 00", FILTERS[0], FILTERS[2]);
+        assertFound("30 08 05 07 04 01 02 03 04 AA 00", FILTERS[1], FILTERS[5]);
+        assertFound("30 08 05 07 04 00 02 03 04 AA 00", FILTERS[1]);
+        assertFound("30 08 B6 09 02 0D 00 3C 00", FILTERS[3]);
+        assertFound("30 FE B5 16 03 01 02 03", FILTERS[4]);
+        assertFound("30 FE B5 16 03 01 02 03 04");
+        assertFound("10 FE 07 00 09 00 01 02 03 04 05 06 07 08 00", FILTERS[2]);
+
+        // a filter ending with .* needs at least one more byte
+        assertFound("30 08 05 07");
+        assertFound("30 08");
+    }
+
+    @Test
+    public void testClear() {
+        index.clear();
+        assertEquals(0, index.getRegexCount());
+        assertTrue(index.find(buffer("30 FE B5 16 08 00 01 02 03 04 05 06 07 08 00")).isEmpty());
+    }
+
+    @Test
+    public void testSameResultAsRegex() {
+        Random random = new Random(1);
+        byte[][] prefixes = { { 0x30, (byte) 0xFE, (byte) 0xB5, 0x16 }, { 0x10, 0x08, 0x05, 0x07 },
+                { 0x10, (byte) 0xFE, 0x07, 0x00 }, { 0x30, 0x08, (byte) 0xB5, 0x09 } };
+
+        for (int i = 0; i < 2000; i++) {
+            byte[] telegram = new byte[2 + random.nextInt(14)];
+            random.nextBytes(telegram);
+            byte[] prefix = prefixes[random.nextInt(prefixes.length)];
+            System.arraycopy(prefix, 0, telegram, 0, Math.min(prefix.length, telegram.length));
+            if (telegram.length > 5 && random.nextBoolean()) {
+                telegram[4] = 0x08;
+                telegram[5] = 0x00;
+            }
+
+            ByteBuffer buffer = ByteBuffer.allocate(telegram.length + 8);
+            buffer.put(telegram);
+            String hex = EBusUtils.toHexDumpString(buffer).toString();
+            assertEquals(hex, scan(hex), index.find(buffer));
+        }
+    }
+
+    private void assertFound(String telegram, String... filters) {
+        List<TelegramConfiguration> found = index.find(buffer(telegram));
+        List<String> foundFilters = new ArrayList<String>();
+        for (TelegramConfiguration configuration : found) {
+            foundFilters.add(configuration.getFilter());
+        }
+        assertEquals(telegram, Arrays.asList(filters), foundFilters);
+        assertEquals(telegram, scan(telegram), found);
+    }
+
+    /**
+     * Matches all filters against the hex string of the telegram.
+     */
+    private List<TelegramConfiguration> scan(String telegram) {
+        List<TelegramConfiguration> found = new ArrayList<TelegramConfiguration>();
+        for (TelegramConfiguration configuration : configurations) {
+            if (configuration.getFilterPattern().matcher(telegram).matches()) {
+                found.add(configuration);
+            }
+        }
+        return found;
+    }
+
+    private static ByteBuffer buffer(String telegram) {
+        byte[] data = EBusUtils.toByteArray(telegram);
+        ByteBuffer buffer = ByteBuffer.allocate(data.length + 8);
+        buffer.put(data);
+        return buffer;
+    }
+}
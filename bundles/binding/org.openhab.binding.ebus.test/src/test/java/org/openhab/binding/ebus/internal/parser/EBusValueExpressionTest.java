@@ -0,0 +1,86 @@
+/**
+ * Copyright (c) 2010-2016, openHAB.org and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.ebus.internal.parser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+/**
+ * Tests the compilation and evaluation of simple value scripts.
+ *
+ * @author agent
+ * @since 1.9.0
+ */
+public class EBusValueExpressionTest {
+
+    @Test
+    public void testEvaluate() {
+        Map<String, Object> scope = new HashMap<String, Object>();
+        scope.put("yield_day_h", 12);
+        scope.put("yield_day_l", new BigDecimal("345"));
+        scope.put("thisValue", 4.5d);
+
+        assertEquals(12.345, evaluate("(yield_day_h * 1000 + yield_day_l) / 1000", scope), 1e-9);
+        assertEquals(9.0, evaluate("thisValue * 2", scope), 1e-9);
+        assertEquals(14.0, evaluate("2 + 3 * 4", scope), 1e-9);
+        assertEquals(20.0, evaluate("(2 + 3) * 4", scope), 1e-9);
+        assertEquals(-1.0, evaluate("2 - 3", scope), 1e-9);
+        assertEquals(-0.5, evaluate("-thisValue / 9", scope), 1e-9);
+        assertEquals(5.0, evaluate("10 - 2 - 3", scope), 1e-9);
+        assertEquals(0.25, evaluate(" thisValue / 18 ", scope), 1e-9);
+
+        // like JavaScript
+        assertEquals(Double.POSITIVE_INFINITY, evaluate("thisValue / 0", scope), 0);
+    }
+
+    @Test
+    public void testMissingOrNoNumber() {
+        Map<String, Object> scope = new HashMap<String, Object>();
+        scope.put("thisValue", "on");
+
+        // the script engine has to evaluate these
+        assertNull(EBusValueExpression.compile("thisValue + 1").evaluate(scope));
+        assertNull(EBusValueExpression.compile("otherValue * 2").evaluate(scope));
+        scope.put("otherValue", null);
+        assertNull(EBusValueExpression.compile("otherValue * 2").evaluate(scope));
+    }
+
+    @Test
+    public void testNotCompiled() {
+        String[] scripts = { "thisValue++", "--thisValue", "Math.round(thisValue)", "thisValue > 1 ? 1 : 0",
+                "thisValue % 2", "010 * thisValue", "true", "thisValue +", "(thisValue * 2", "thisValue * 2)",
+                "thisValue = 1", "'a' + thisValue", "thisValue; 1", "" };
+        for (String script : scripts) {
+            assertNull(script, EBusValueExpression.compile(script));
+        }
+    }
+
+    @Test
+    public void testCompiled() {
+        String[] scripts = { "thisValue", "0.5 * thisValue", "(thisValue)", "- - thisValue", "a_1 * $b" };
+        for (String script : scripts) {
+            assertNotNull(script, EBusValueExpression.compile(script));
+        }
+    }
+
+    private static double evaluate(String script, Map<String, Object> scope) {
+        EBusValueExpression expression = EBusValueExpression.compile(script);
+        assertNotNull(script, expression);
+        Double result = expression.evaluate(scope);
+        assertNotNull(script, result);
+        return result;
+    }
+}
@@ -16,6 +16,7 @@ import javax.script.CompiledScript;
 import org.apache.commons.lang.builder.HashCodeBuilder;
 import org.codehaus.jackson.annotate.JsonIgnoreProperties;
 import org.codehaus.jackson.annotate.JsonProperty;
+import org.openhab.binding.ebus.internal.parser.EBusValueExpression;
 
 /**
  * This class stores the values of an eBus bytes telegram.
@@ -29,6 +30,7 @@ public class TelegramValue {
     private Integer bit;
     private CompiledScript csript;
     private String debug;
+    private EBusValueExpression expression;
     private BigDecimal factor;
     private String label;
     private Map<String, String> mapping;
@@ -68,6 +70,15 @@ public class TelegramValue {
         return debug;
     }
 
+    /**
+     * Returns the script compiled to Java if it is a simple arithmetic expression
+     * 
+     * @return
+     */
+    public EBusValueExpression getExpression() {
+        return expression;
+    }
+
     /**
      * Returns factor
      * 
@@ -188,6 +199,13 @@ public class TelegramValue {
         this.debug = debug;
     }
 
+    /**
+     * @param expression
+     */
+    public void setExpression(EBusValueExpression expression) {
+        this.expression = expression;
+    }
+
     /**
      * @param factor
      */
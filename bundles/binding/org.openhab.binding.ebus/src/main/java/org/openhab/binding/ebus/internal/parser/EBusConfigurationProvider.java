@@ -11,6 +11,7 @@ package org.openhab.binding.ebus.internal.parser;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URL;
+import java.nio.ByteBuffer;
 import java.text.ParseException;
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -39,7 +40,8 @@ import org.slf4j.LoggerFactory;
  * The configuration provider reads the vendors specific ebus protocol
  * information from the json configuration files. All placeholders (regex)
  * and javascript snippets will be compiled after loading to improve
- * runtime performance.
+ * runtime performance. Simple arithmetic snippets are compiled to Java, and
+ * the filters are indexed by their command bytes.
  *
  * @author Christian Sowada
  * @since 1.7.0
@@ -60,6 +62,9 @@ public class EBusConfigurationProvider {
     // The registry with all loaded configuration entries
     private ArrayList<TelegramConfiguration> telegramRegistry = new ArrayList<TelegramConfiguration>();
 
+    // The index of all loaded configuration entries
+    private EBusTelegramIndex telegramIndex = new EBusTelegramIndex();
+
     private Map<String, String> loadedFilters = new HashMap<String, String>();
 
     // The script engine if available
@@ -101,6 +106,7 @@ public class EBusConfigurationProvider {
         if (telegramRegistry != null) {
             telegramRegistry.clear();
         }
+        telegramIndex.clear();
     }
 
     /**
@@ -136,6 +142,11 @@ public class EBusConfigurationProvider {
 
         if (loadedTelegramRegistry != null && !loadedTelegramRegistry.isEmpty()) {
             telegramRegistry.addAll(loadedTelegramRegistry);
+            for (TelegramConfiguration configuration : loadedTelegramRegistry) {
+                telegramIndex.add(configuration);
+            }
+            logger.debug("{} of {} telegram filters need a regex", telegramIndex.getRegexCount(),
+                    telegramRegistry.size());
         }
     }
 
@@ -189,6 +200,9 @@ public class EBusConfigurationProvider {
                 if (StringUtils.isNotEmpty(entry.getValue().getScript())) {
                     String script = entry.getValue().getScript();
 
+                    // simple arithmetic expressions don't need the script engine
+                    entry.getValue().setExpression(EBusValueExpression.compile(script));
+
                     // check if engine is available
                     if (StringUtils.isNotEmpty(script) && compEngine != null) {
                         try {
@@ -209,6 +223,9 @@ public class EBusConfigurationProvider {
                 if (StringUtils.isNotEmpty(entry.getValue().getScript())) {
                     String script = entry.getValue().getScript();
 
+                    // simple arithmetic expressions don't need the script engine
+                    entry.getValue().setExpression(EBusValueExpression.compile(script));
+
                     // check if engine is available
                     if (StringUtils.isNotEmpty(script) && compEngine != null) {
                         try {
@@ -246,6 +263,16 @@ public class EBusConfigurationProvider {
         return matchedTelegramRegistry;
     }
 
+    /**
+     * Return all configurations which filter match the telegram
+     * 
+     * @param buffer The telegram to check against all loaded filters
+     * @return All configurations with matching filter
+     */
+    public List<TelegramConfiguration> getCommandsByTelegram(ByteBuffer buffer) {
+        return telegramIndex.find(buffer);
+    }
+
     /**
      * Return all configurations by command id and class
      * 
@@ -0,0 +1,215 @@
+/**
+ * Copyright (c) 2010-2016, openHAB.org and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.ebus.internal.parser;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import org.openhab.binding.ebus.internal.configuration.TelegramConfiguration;
+import org.openhab.binding.ebus.internal.utils.EBusUtils;
+
+/**
+ * An index of the telegram configurations by the primary and secondary
+ * command bytes of their filters.
+ *
+ * Most filters only consist of hex bytes and placeholders like
+ * <code>?? FE B5 16 08 00 .*</code>. These are matched against the bytes of
+ * the telegram directly, and only the filters with the same command bytes
+ * are checked. Filters which use other regular expressions are matched
+ * against the hex string of the telegram as before.
+ *
+ * @author agent
+ * @since 1.9.0
+ */
+public class EBusTelegramIndex {
+
+    // the placeholder ?? is replaced with this regex
+    private static final String ANY_BYTE = "[0-9A-Z]{2}";
+
+    // filter: 00
+    private static final Pattern P_HEX_BYTE = Pattern.compile("[0-9A-F]{2}");
+
+    private static final Comparator<IndexEntry> ORDER = new Comparator<IndexEntry>() {
+        @Override
+        public int compare(IndexEntry e1, IndexEntry e2) {
+            return e1.order < e2.order ? -1 : (e1.order == e2.order ? 0 : 1);
+        }
+    };
+
+    // byte filters by primary and secondary command
+    private final Map<Integer, List<IndexEntry>> commandIndex = new HashMap<Integer, List<IndexEntry>>();
+
+    // byte filters with placeholders for the command
+    private final List<IndexEntry> anyCommandEntries = new ArrayList<IndexEntry>();
+
+    // filters which need the regex
+    private final List<IndexEntry> regexEntries = new ArrayList<IndexEntry>();
+
+    private int size = 0;
+
+    /**
+     * Adds a configuration with compiled filter pattern to the index.
+     *
+     * @param configuration The configuration entry
+     */
+    public void add(TelegramConfiguration configuration) {
+        IndexEntry entry = new IndexEntry(size++, configuration);
+
+        if (!entry.compileBytes(configuration.getFilterPattern().pattern())) {
+            regexEntries.add(entry);
+
+        } else if (entry.values.length >= 4 && !entry.any[2] && !entry.any[3]) {
+            Integer key = commandKey(entry.values[2], entry.values[3]);
+            List<IndexEntry> entries = commandIndex.get(key);
+            if (entries == null) {
+                entries = new ArrayList<IndexEntry>();
+                commandIndex.put(key, entries);
+            }
+            entries.add(entry);
+
+        } else {
+            anyCommandEntries.add(entry);
+        }
+    }
+
+    /**
+     * Removes all configurations
+     */
+    public void clear() {
+        commandIndex.clear();
+        anyCommandEntries.clear();
+        regexEntries.clear();
+        size = 0;
+    }
+
+    /**
+     * Returns the number of filters which need a regex
+     *
+     * @return
+     */
+    public int getRegexCount() {
+        return regexEntries.size();
+    }
+
+    /**
+     * Return all configurations which filter match the telegram, in the order
+     * they have been added.
+     *
+     * @param buffer The telegram, the position marks the end of the data
+     * @return All configurations with matching filter
+     */
+    public List<TelegramConfiguration> find(ByteBuffer buffer) {
+        final int length = buffer.position();
+        final List<IndexEntry> matches = new ArrayList<IndexEntry>();
+
+        if (length >= 4) {
+            List<IndexEntry> entries = commandIndex.get(commandKey(buffer.get(2), buffer.get(3)));
+            if (entries != null) {
+                for (IndexEntry entry : entries) {
+                    if (entry.matches(buffer, length)) {
+                        matches.add(entry);
+                    }
+                }
+            }
+        }
+
+        for (IndexEntry entry : anyCommandEntries) {
+            if (entry.matches(buffer, length)) {
+                matches.add(entry);
+            }
+        }
+
+        if (!regexEntries.isEmpty()) {
+            String bufferString = EBusUtils.toHexDumpString(buffer).toString();
+            for (IndexEntry entry : regexEntries) {
+                if (entry.configuration.getFilterPattern().matcher(bufferString).matches()) {
+                    matches.add(entry);
+                }
+            }
+        }
+
+        if (matches.size() > 1) {
+            Collections.sort(matches, ORDER);
+        }
+
+        final List<TelegramConfiguration> result = new ArrayList<TelegramConfiguration>(matches.size());
+        for (IndexEntry entry : matches) {
+            result.add(entry.configuration);
+        }
+        return result;
+    }
+
+    private static Integer commandKey(byte primary, byte secondary) {
+        return (primary & 0xFF) << 8 | (secondary & 0xFF);
+    }
+
+    private static class IndexEntry {
+        private final int order;
+        private final TelegramConfiguration configuration;
+
+        private byte[] values;
+        private boolean[] any;
+
+        // filter ends with .* and matches longer telegrams
+        private boolean openEnd;
+
+        IndexEntry(int order, TelegramConfiguration configuration) {
+            this.order = order;
+            this.configuration = configuration;
+        }
+
+        /**
+         * Converts a filter regex of hex bytes and placeholders, separated by
+         * single spaces.
+         *
+         * @return false if the filter needs the regex
+         */
+        boolean compileBytes(String filter) {
+            String[] tokens = filter.split(" ", -1);
+            int count = tokens.length;
+
+            openEnd = tokens[count - 1].equals(".*");
+            if (openEnd) {
+                count--;
+            }
+
+            values = new byte[count];
+            any = new boolean[count];
+            for (int i = 0; i < count; i++) {
+                if (tokens[i].equals(ANY_BYTE)) {
+                    any[i] = true;
+                } else if (P_HEX_BYTE.matcher(tokens[i]).matches()) {
+                    values[i] = (byte) Integer.parseInt(tokens[i], 16);
+                } else {
+                    return false;
+                }
+            }
+            return count > 0;
+        }
+
+        boolean matches(ByteBuffer buffer, int length) {
+            // a filter ending with " .*" needs at least one more byte
+            if (openEnd ? length <= values.length : length != values.length) {
+                return false;
+            }
+            for (int i = 0; i < values.length; i++) {
+                if (!any[i] && buffer.get(i) != values[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
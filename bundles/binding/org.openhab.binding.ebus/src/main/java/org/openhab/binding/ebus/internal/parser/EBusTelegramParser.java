@@ -158,8 +158,13 @@ public class EBusTelegramParser {
 
         Object value = null;
 
+        // evaluates simple arithmetic expression without script engine
+        if (entry.getValue().getExpression() != null) {
+            value = entry.getValue().getExpression().evaluate(scopeValues);
+        }
+
         // executes compiled script
-        if (entry.getValue().getCsript() != null) {
+        if (value == null && entry.getValue().getCsript() != null) {
             CompiledScript cscript = entry.getValue().getCsript();
 
             // Add global variables thisValue and keyName to JavaScript context
@@ -267,14 +272,16 @@ public class EBusTelegramParser {
         // Get as byte buffer
         final ByteBuffer byteBuffer = telegram.getBuffer();
 
-        // Get hex string for debugging
-        final String bufferString = EBusUtils.toHexDumpString(byteBuffer).toString();
-
         // queries the configuration provider for matching registry entries
         final List<TelegramConfiguration> matchedTelegramRegistry = configurationProvider
-                .getCommandsByFilter(bufferString);
+                .getCommandsByTelegram(byteBuffer);
 
-        loggerAnalyses.debug(bufferString);
+        // Get hex string for debugging
+        String bufferString = null;
+        if (loggerAnalyses.isDebugEnabled() || loggerBrutforce.isTraceEnabled()) {
+            bufferString = EBusUtils.toHexDumpString(byteBuffer).toString();
+            loggerAnalyses.debug(bufferString);
+        }
 
         // No registry entries found, so this is a unknown telegram
         if (matchedTelegramRegistry.isEmpty()) {
@@ -334,7 +341,7 @@ public class EBusTelegramParser {
                 Object value = getValue(byteBuffer, entry.getValue());
 
                 // If compiled script available for this key, execute it now
-                if (settings.getCsript() != null) {
+                if (settings.getExpression() != null || settings.getCsript() != null) {
                     try {
 
                         // Add global variables thisValue and keyName to JavaScript context
@@ -343,8 +350,12 @@ public class EBusTelegramParser {
                         bindings.put(uniqueKey, value); // full key
                         bindings.put("thisValue", value); // alias thisValue
 
-                        // Evaluates script
-                        value = evaluateScript(entry, bindings);
+                        // Evaluates script, keep the raw value if the expression can't be
+                        // evaluated and there is no compiled script to fall back to
+                        Object result = evaluateScript(entry, bindings);
+                        if (result != null || settings.getCsript() != null) {
+                            value = result;
+                        }
 
                     } catch (ScriptException e) {
                         logger.error("Error on evaluating JavaScript!", e);
@@ -357,7 +368,7 @@ public class EBusTelegramParser {
                 String format = String.format("%-35s%-10s%s", uniqueKey, value, label);
                 String alias = null;
 
-                if (settings.getMapping() != null) {
+                if (settings.getMapping() != null && value != null) {
                     Map<String, String> mapping = settings.getMapping();
                     alias = mapping.get(value.toString());
                 }
@@ -394,6 +405,11 @@ public class EBusTelegramParser {
                 continue;
             }
 
+            // Add all values to script scope
+            HashMap<String, Object> bindings = new HashMap<String, Object>();
+            bindings.putAll(valueRegistryShortKeys);
+            bindings.putAll(valueRegistry);
+
             // post execute the computes_values block
             Map<String, TelegramValue> cvalues = registryEntry.getComputedValues();
             for (Entry<String, TelegramValue> entry : cvalues.entrySet()) {
@@ -401,18 +417,14 @@ public class EBusTelegramParser {
                 String uniqueKey = (classKey != "" ? classKey + "." : "") + (idKey != "" ? idKey + "." : "")
                         + entry.getKey();
 
-                // Add all values to script scope
-                HashMap<String, Object> bindings = new HashMap<String, Object>();
-                bindings.putAll(valueRegistryShortKeys);
-                bindings.putAll(valueRegistry);
-
                 Object value;
                 try {
                     // Evaluates script
                     value = evaluateScript(entry, bindings);
 
-                    // Add result to registry
+                    // Add result to registry and script scope
                     valueRegistry.put(uniqueKey, value);
+                    bindings.put(uniqueKey, value);
 
                     if (debugLevel >= 2) {
                         String label = StringUtils.defaultString(settings.getLabel());
@@ -0,0 +1,267 @@
+/**
+ * Copyright (c) 2010-2016, openHAB.org and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.ebus.internal.parser;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A simple arithmetic expression of a value script, compiled to Java. Scripts
+ * which only use numbers, variables, parentheses and the operators + - * /
+ * are evaluated without the JavaScript engine, e.g.
+ * <code>(yield_day_h * 1000 + yield_day_l) / 1000</code>.
+ *
+ * The expression is calculated with doubles like JavaScript does. If a
+ * variable is missing or not a number, e.g. a string which JavaScript would
+ * concatenate, the expression can't be evaluated and the script has to be
+ * used instead.
+ *
+ * @author agent
+ * @since 1.9.0
+ */
+public class EBusValueExpression {
+
+    // JavaScript literals and keywords which must not be taken as variable names
+    private static final Set<String> RESERVED = new HashSet<String>(Arrays.asList("true", "false", "null",
+            "undefined", "NaN", "Infinity", "this", "new", "typeof", "void", "delete", "in", "instanceof"));
+
+    private final Node root;
+    private final String[] variables;
+
+    private EBusValueExpression(Node root, List<String> variables) {
+        this.root = root;
+        this.variables = variables.toArray(new String[variables.size()]);
+    }
+
+    /**
+     * Compiles a script if it is a simple arithmetic expression.
+     *
+     * @param script The JavaScript snippet
+     * @return The compiled expression or <code>null</code> if the script
+     *         needs the JavaScript engine
+     */
+    public static EBusValueExpression compile(String script) {
+        Parser parser = new Parser(script);
+        try {
+            Node root = parser.parseExpression();
+            if (parser.peek() != 0 || parser.pos != script.length()) {
+                return null;
+            }
+            return new EBusValueExpression(root, parser.variables);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Evaluates the expression.
+     *
+     * @param scope The values of the variables
+     * @return The result as Double or <code>null</code> if a variable is
+     *         missing or not a number
+     */
+    public Double evaluate(Map<String, Object> scope) {
+        double[] values = new double[variables.length];
+        for (int i = 0; i < variables.length; i++) {
+            Object value = scope.get(variables[i]);
+            if (!(value instanceof Number)) {
+                return null;
+            }
+            values[i] = ((Number) value).doubleValue();
+        }
+        return root.eval(values);
+    }
+
+    private static abstract class Node {
+        abstract double eval(double[] values);
+    }
+
+    private static class Constant extends Node {
+        private final double value;
+
+        Constant(double value) {
+            this.value = value;
+        }
+
+        @Override
+        double eval(double[] values) {
+            return value;
+        }
+    }
+
+    private static class Variable extends Node {
+        private final int index;
+
+        Variable(int index) {
+            this.index = index;
+        }
+
+        @Override
+        double eval(double[] values) {
+            return values[index];
+        }
+    }
+
+    private static class Negation extends Node {
+        private final Node operand;
+
+        Negation(Node operand) {
+            this.operand = operand;
+        }
+
+        @Override
+        double eval(double[] values) {
+            return -operand.eval(values);
+        }
+    }
+
+    private static class Operation extends Node {
+        private final char operator;
+        private final Node left;
+        private final Node right;
+
+        Operation(char operator, Node left, Node right) {
+            this.operator = operator;
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        double eval(double[] values) {
+            double l = left.eval(values);
+            double r = right.eval(values);
+            switch (operator) {
+                case '+':
+                    return l + r;
+                case '-':
+                    return l - r;
+                case '*':
+                    return l * r;
+                default:
+                    return l / r;
+            }
+        }
+    }
+
+    /**
+     * A recursive descent parser, throws an IllegalArgumentException on
+     * anything that isn't a simple arithmetic expression.
+     */
+    private static class Parser {
+        private final String script;
+        private final List<String> variables = new ArrayList<String>();
+        private int pos = 0;
+
+        Parser(String script) {
+            this.script = script;
+        }
+
+        Node parseExpression() {
+            Node node = parseTerm();
+            while (peek() == '+' || peek() == '-') {
+                char operator = next();
+                if (pos < script.length() && script.charAt(pos) == operator) {
+                    // increment and decrement operators
+                    throw new IllegalArgumentException("Unsupported operator");
+                }
+                node = new Operation(operator, node, parseTerm());
+            }
+            return node;
+        }
+
+        private Node parseTerm() {
+            Node node = parseFactor();
+            while (peek() == '*' || peek() == '/') {
+                char operator = next();
+                node = new Operation(operator, node, parseFactor());
+            }
+            return node;
+        }
+
+        private Node parseFactor() {
+            char c = peek();
+            if (c == '-') {
+                next();
+                if (pos < script.length() && script.charAt(pos) == '-') {
+                    throw new IllegalArgumentException("Unsupported operator");
+                }
+                return new Negation(parseFactor());
+            }
+            if (c == '(') {
+                next();
+                Node node = parseExpression();
+                if (next() != ')') {
+                    throw new IllegalArgumentException("Missing bracket");
+                }
+                return node;
+            }
+            if (Character.isDigit(c)) {
+                return new Constant(parseNumber());
+            }
+            if (Character.isJavaIdentifierStart(c)) {
+                return parseVariable();
+            }
+            throw new IllegalArgumentException("Unexpected character");
+        }
+
+        private double parseNumber() {
+            int start = pos;
+            while (pos < script.length() && (Character.isDigit(script.charAt(pos)) || script.charAt(pos) == '.')) {
+                pos++;
+            }
+            String number = script.substring(start, pos);
+            // octal and hex numbers are not supported
+            if (number.length() > 1 && number.charAt(0) == '0' && number.charAt(1) != '.') {
+                throw new IllegalArgumentException("Unsupported number");
+            }
+            skipWhitespace();
+            return Double.parseDouble(number);
+        }
+
+        private Node parseVariable() {
+            int start = pos;
+            while (pos < script.length() && Character.isJavaIdentifierPart(script.charAt(pos))) {
+                pos++;
+            }
+            String name = script.substring(start, pos);
+            if (RESERVED.contains(name)) {
+                throw new IllegalArgumentException("Unsupported keyword");
+            }
+            skipWhitespace();
+
+            int index = variables.indexOf(name);
+            if (index < 0) {
+                index = variables.size();
+                variables.add(name);
+            }
+            return new Variable(index);
+        }
+
+        private char peek() {
+            skipWhitespace();
+            return pos < script.length() ? script.charAt(pos) : 0;
+        }
+
+        private char next() {
+            char c = peek();
+            pos++;
+            return c;
+        }
+
+        private void skipWhitespace() {
+            while (pos < script.length() && Character.isWhitespace(script.charAt(pos))) {
+                pos++;
+            }
+        }
+    }
+}
@@ -0,0 +1,95 @@
+/**
+ * Copyright (c) 2010-2016, openHAB.org and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.exec.internal;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.openhab.binding.exec.ExecBindingProvider;
+import org.openhab.core.library.items.NumberItem;
+import org.openhab.core.library.items.StringItem;
+import org.openhab.model.item.binding.BindingConfigParseException;
+
+import junit.framework.Assert;
+
+/**
+ * Tests the scheduling of the in-bindings of the {@link ExecBinding}.
+ *
+ * @author agent
+ * @since 1.9.0
+ */
+public class ExecBindingTest {
+
+    private ExecGenericBindingProvider provider;
+
+    private ExecBinding binding;
+
+    @Before
+    public void init() throws BindingConfigParseException {
+        provider = new ExecGenericBindingProvider();
+        provider.processBindingConfiguration("test", new NumberItem("Temperature"),
+                "<[worker(sensors) temperature:60000:]");
+        provider.processBindingConfiguration("test", new NumberItem("Load"), "<[cat /proc/loadavg:60000:]");
+        provider.processBindingConfiguration("test", new StringItem("Load_Text"), "<[cat /proc/loadavg:60000:]");
+        provider.processBindingConfiguration("test", new StringItem("Echo"), "<[echo %3$s:0:]");
+
+        binding = new ExecBinding();
+        binding.addBindingProvider(provider);
+    }
+
+    @Test
+    public void testSplitWorkerRequest() {
+        Assert.assertTrue(Arrays.equals(new String[] { "sensors", "temperature" },
+                ExecBinding.splitWorkerRequest("worker(sensors) temperature")));
+        Assert.assertTrue(Arrays.equals(new String[] { "sensors", "read 1 2" },
+                ExecBinding.splitWorkerRequest("worker(sensors) read 1 2")));
+        Assert.assertTrue(
+                Arrays.equals(new String[] { "sensors", "" }, ExecBinding.splitWorkerRequest("worker(sensors)")));
+        Assert.assertTrue(Arrays.equals(new String[] { "sensors", "get(1)" },
+                ExecBinding.splitWorkerRequest("worker(sensors) get(1)")));
+
+        Assert.assertNull(ExecBinding.splitWorkerRequest("cat /proc/loadavg"));
+        Assert.assertNull(ExecBinding.splitWorkerRequest("echo worker(sensors) temperature"));
+        Assert.assertNull(ExecBinding.splitWorkerRequest("worker sensors temperature"));
+    }
+
+    @Test
+    public void testItemsAreGroupedByCommandLine() {
+        Map<String, Map<String, ExecBindingProvider>> dueItems = binding.findDueItems(new Date());
+
+        Assert.assertEquals(
+                new HashSet<String>(Arrays.asList("worker(sensors) temperature", "cat /proc/loadavg", "echo Echo")),
+                dueItems.keySet());
+        Assert.assertEquals(new HashSet<String>(Arrays.asList("Load", "Load_Text")),
+                dueItems.get("cat /proc/loadavg").keySet());
+        Assert.assertEquals(Collections.singleton("Temperature"),
+                dueItems.get("worker(sensors) temperature").keySet());
+        Assert.assertSame(provider, dueItems.get("echo Echo").get("Echo"));
+    }
+
+    @Test
+    public void testPendingItemsAreNotScheduledAgain() {
+        Map<String, Map<String, ExecBindingProvider>> dueItems = binding.findDueItems(new Date());
+        Assert.assertEquals(3, dueItems.size());
+
+        // all items are still waiting for their refresh
+        Assert.assertTrue(binding.findDueItems(new Date()).isEmpty());
+
+        // 'Echo' is due again right after its refresh, the others after a minute
+        binding.refreshDone(dueItems.get("echo Echo").keySet());
+        binding.refreshDone(dueItems.get("cat /proc/loadavg").keySet());
+        dueItems = binding.findDueItems(new Date());
+        Assert.assertEquals(Collections.singleton("echo Echo"), dueItems.keySet());
+    }
+}
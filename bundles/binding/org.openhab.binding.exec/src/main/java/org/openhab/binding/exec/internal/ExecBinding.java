@@ -12,10 +12,20 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.util.Arrays;
 import java.util.Calendar;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
 import java.util.Dictionary;
+import java.util.Enumeration;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -51,6 +61,12 @@ import org.slf4j.LoggerFactory;
  * <i>Note</i>: when using 'ssh' you should use private key authorization since
  * the password cannot be read from commandline. The given user should have the
  * necessary permissions.
+ * <p>
+ * In-bindings are refreshed on a pool of threads. Items which are due at the
+ * same time and share a command line are fed by one execution. A command line
+ * <code>worker(&lt;name&gt;) &lt;request&gt;</code> sends the request to the
+ * persistent helper process configured as <code>exec:worker.&lt;name&gt;</code>
+ * instead of starting a new process.
  *
  * @author Thomas.Eichstaedt-Engelen
  * @author Pauli Anttila
@@ -64,17 +80,37 @@ public class ExecBinding extends AbstractActiveBinding<ExecBindingProvider>imple
 
     private static final String CMD_LINE_DELIMITER = "@@";
 
+    protected static final String CONFIG_TIMEOUT = "timeout";
+    protected static final String CONFIG_GRANULARITY = "granularity";
+    protected static final String CONFIG_NUMBER_OF_THREADS = "numberOfThreads";
+    protected static final String CONFIG_WORKER_PREFIX = "worker.";
+
     /** the timeout for executing command (defaults to 60000 milliseconds) */
     private int timeout = 60000;
 
     /** the interval to find new refresh candidates (defaults to 1000 milliseconds) */
     private int granularity = 1000;
 
-    private Map<String, Long> lastUpdateMap = new HashMap<String, Long>();
+    /** the number of parallel threads used to execute in-bindings (defaults to 5) */
+    private int numberOfThreads = 5;
+
+    /** the pool executing the in-binding command lines, created on activation */
+    private ExecutorService refreshExecutor;
+
+    private Map<String, Long> lastUpdateMap = new ConcurrentHashMap<String, Long>();
+
+    /** the items which are currently queued or being refreshed by the {@link #refreshExecutor} */
+    private Set<String> pendingItems = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+    /** the persistent helper processes by name, replaced as a whole when the configuration changes */
+    private volatile Map<String, ExecWorker> workers = Collections.emptyMap();
 
     /** RegEx to extract a parse a function String <code>'(.*?)\((.*)\)'</code> */
     private static final Pattern EXTRACT_FUNCTION_PATTERN = Pattern.compile("(.*?)\\((.*)\\)");
 
+    /** RegEx to extract the worker and request of a command line <code>'worker\((.*?)\) ?(.*)'</code> */
+    private static final Pattern EXTRACT_WORKER_PATTERN = Pattern.compile("worker\\((.*?)\\) ?(.*)");
+
     @Override
     protected long getRefreshInterval() {
         return granularity;
@@ -86,20 +122,50 @@ public class ExecBinding extends AbstractActiveBinding<ExecBindingProvider>imple
     }
 
     @Override
-    public void activate() {
+    public synchronized void activate() {
         super.activate();
+        refreshExecutor = Executors.newFixedThreadPool(numberOfThreads);
         setProperlyConfigured(true);
     }
 
+    @Override
+    public synchronized void deactivate() {
+        if (refreshExecutor != null) {
+            refreshExecutor.shutdownNow();
+            refreshExecutor = null;
+        }
+        pendingItems.clear();
+        for (ExecWorker worker : workers.values()) {
+            worker.stop();
+        }
+        super.deactivate();
+    }
+
     @Override
     public void execute() {
+        Map<String, Map<String, ExecBindingProvider>> dueItems = findDueItems(Calendar.getInstance().getTime());
+        for (Map.Entry<String, Map<String, ExecBindingProvider>> entry : dueItems.entrySet()) {
+            scheduleRefresh(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * Finds the items which are due for a refresh, grouped by their command
+     * line, so that items sharing a command line are fed by one execution. The
+     * items returned are marked as pending until {@link #refreshDone} is called
+     * for them, and are not returned again meanwhile.
+     *
+     * @param now the time to format the command lines with
+     * @return the due items by their provider, by command line
+     */
+    Map<String, Map<String, ExecBindingProvider>> findDueItems(Date now) {
+        Map<String, Map<String, ExecBindingProvider>> dueItems;
+        dueItems = new LinkedHashMap<String, Map<String, ExecBindingProvider>>();
+
         for (ExecBindingProvider provider : providers) {
             for (String itemName : provider.getInBindingItemNames()) {
 
-                String commandLine = provider.getCommandLine(itemName);
-
                 int refreshInterval = provider.getRefreshInterval(itemName);
-                String transformation = provider.getTransformation(itemName);
 
                 Long lastUpdateTimeStamp = lastUpdateMap.get(itemName);
                 if (lastUpdateTimeStamp == null) {
@@ -109,43 +175,133 @@ public class ExecBinding extends AbstractActiveBinding<ExecBindingProvider>imple
                 long age = System.currentTimeMillis() - lastUpdateTimeStamp;
                 boolean needsUpdate = age >= refreshInterval;
 
-                if (needsUpdate) {
+                // an item which is still waiting for (or busy with) its last
+                // refresh must not be queued a second time
+                if (needsUpdate && pendingItems.add(itemName)) {
 
                     logger.debug("item '{}' is about to be refreshed now", itemName);
 
-                    commandLine = String.format(commandLine, Calendar.getInstance().getTime(), "", itemName);
-
-                    String response = executeCommandAndWaitResponse(commandLine);
+                    String commandLine = String.format(provider.getCommandLine(itemName), now, "", itemName);
 
-                    if (response == null) {
-                        logger.error("No response received from command '{}'", commandLine);
-                        lastUpdateMap.put(itemName, System.currentTimeMillis());
-                        continue;
+                    Map<String, ExecBindingProvider> items = dueItems.get(commandLine);
+                    if (items == null) {
+                        items = new LinkedHashMap<String, ExecBindingProvider>();
+                        dueItems.put(commandLine, items);
                     }
+                    items.put(itemName, provider);
+                }
+            }
+        }
+        return dueItems;
+    }
 
-                    String transformedResponse = response;
-                    // If transformation is needed
-                    if (transformation.length() > 0) {
-                        transformedResponse = transformResponse(response, transformation);
-                    }
+    /**
+     * Records that the refresh of <code>itemNames</code> has finished, so
+     * they are due again after their refresh interval.
+     *
+     * @param itemNames the items which have been refreshed
+     */
+    void refreshDone(Collection<String> itemNames) {
+        for (String itemName : itemNames) {
+            lastUpdateMap.put(itemName, System.currentTimeMillis());
+            pendingItems.remove(itemName);
+        }
+    }
 
-                    List<Class<? extends State>> acceptedDataTypes = provider.getAcceptedDataTypes(itemName);
-                    State state = null;
-                    if (acceptedDataTypes != null) {
-                        state = TypeParser.parseState(acceptedDataTypes, transformedResponse);
-                    }
-                    if (state != null) {
-                        eventPublisher.postUpdate(itemName, state);
-                    } else {
-                        logger.debug("Couldn't create state for value '{}'", transformedResponse);
+    /**
+     * Hands the execution of <code>commandLine</code> over to the
+     * {@link #refreshExecutor} so that a slow command doesn't delay the
+     * refresh of any other item.
+     *
+     * @param commandLine the command line to execute
+     * @param items the items to update with the response, by their provider
+     */
+    private synchronized void scheduleRefresh(final String commandLine, final Map<String, ExecBindingProvider> items) {
+        if (refreshExecutor == null) {
+            pendingItems.removeAll(items.keySet());
+            return;
+        }
+        try {
+            refreshExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        refreshItems(commandLine, items);
+                    } catch (Exception e) {
+                        logger.error("Error refreshing items " + items.keySet(), e);
+                    } finally {
+                        refreshDone(items.keySet());
                     }
-
-                    lastUpdateMap.put(itemName, System.currentTimeMillis());
                 }
+            });
+        } catch (RejectedExecutionException ree) {
+            pendingItems.removeAll(items.keySet());
+            logger.debug("refresh of items {} rejected: {}", items.keySet(), ree.getMessage());
+        }
+    }
+
+    /**
+     * Executes <code>commandLine</code> once and updates all
+     * <code>items</code> with the response.
+     *
+     * @param commandLine the command line to execute
+     * @param items the items to update with the response, by their provider
+     */
+    private void refreshItems(String commandLine, Map<String, ExecBindingProvider> items) {
+        String response;
+
+        String[] workerRequest = splitWorkerRequest(commandLine);
+        if (workerRequest != null) {
+            response = executeWorkerRequest(workerRequest[0], workerRequest[1]);
+        } else {
+            response = executeCommandAndWaitResponse(commandLine);
+        }
+
+        if (response == null) {
+            logger.error("No response received from command '{}'", commandLine);
+            return;
+        }
+
+        for (Map.Entry<String, ExecBindingProvider> item : items.entrySet()) {
+            String itemName = item.getKey();
+            ExecBindingProvider provider = item.getValue();
+            String transformation = provider.getTransformation(itemName);
+
+            String transformedResponse = response;
+            // If transformation is needed
+            if (transformation != null && transformation.length() > 0) {
+                transformedResponse = transformResponse(response, transformation);
+            }
+
+            List<Class<? extends State>> acceptedDataTypes = provider.getAcceptedDataTypes(itemName);
+            State state = null;
+            if (acceptedDataTypes != null) {
+                state = TypeParser.parseState(acceptedDataTypes, transformedResponse);
+            }
+            if (state != null) {
+                eventPublisher.postUpdate(itemName, state);
+            } else {
+                logger.debug("Couldn't create state for value '{}'", transformedResponse);
             }
         }
     }
 
+    /**
+     * Splits a command line of the form <code>worker(&lt;name&gt;) &lt;request&gt;</code>
+     * into the name of the worker and the request.
+     *
+     * @param commandLine the command line to split
+     * @return a string array with the worker name and the request, or
+     *         <code>null</code> if the command line isn't addressed to a worker
+     */
+    static String[] splitWorkerRequest(String commandLine) {
+        Matcher matcher = EXTRACT_WORKER_PATTERN.matcher(commandLine);
+        if (!matcher.matches()) {
+            return null;
+        }
+        return new String[] { matcher.group(1), matcher.group(2) };
+    }
+
     protected String transformResponse(String response, String transformation) {
         String transformedResponse;
 
@@ -319,18 +475,7 @@ public class ExecBinding extends AbstractActiveBinding<ExecBindingProvider>imple
     private String executeCommandAndWaitResponse(String commandLine) {
         String retval = null;
 
-        CommandLine cmdLine = null;
-
-        if (commandLine.contains(CMD_LINE_DELIMITER)) {
-            String[] cmdArray = commandLine.split(CMD_LINE_DELIMITER);
-            cmdLine = new CommandLine(cmdArray[0]);
-
-            for (int i = 1; i < cmdArray.length; i++) {
-                cmdLine.addArgument(cmdArray[i], false);
-            }
-        } else {
-            cmdLine = CommandLine.parse(commandLine);
-        }
+        CommandLine cmdLine = parseCommandLine(commandLine);
 
         DefaultExecuteResultHandler resultHandler = new DefaultExecuteResultHandler();
 
@@ -368,24 +513,116 @@ public class ExecBinding extends AbstractActiveBinding<ExecBindingProvider>imple
         return retval;
     }
 
+    /**
+     * Splits <code>commandLine</code> into the executable and its arguments,
+     * either at the special delimiter '<code>@@</code>' or like a shell does.
+     *
+     * @param commandLine the command line to split
+     * @return the parsed command line
+     */
+    private CommandLine parseCommandLine(String commandLine) {
+        CommandLine cmdLine = null;
+
+        if (commandLine.contains(CMD_LINE_DELIMITER)) {
+            String[] cmdArray = commandLine.split(CMD_LINE_DELIMITER);
+            cmdLine = new CommandLine(cmdArray[0]);
+
+            for (int i = 1; i < cmdArray.length; i++) {
+                cmdLine.addArgument(cmdArray[i], false);
+            }
+        } else {
+            cmdLine = CommandLine.parse(commandLine);
+        }
+
+        return cmdLine;
+    }
+
+    /**
+     * Sends <code>request</code> to the persistent helper process
+     * <code>workerName</code> and waits for its response.
+     *
+     * @param workerName the name of the worker as configured in openhab.cfg
+     * @param request the request to write to the worker
+     * @return the response of the worker or <code>null</code> if there is none
+     */
+    private String executeWorkerRequest(String workerName, String request) {
+        ExecWorker worker = workers.get(workerName);
+        if (worker == null) {
+            logger.error("there is no worker '{}' configured (exec:{}{})", workerName, CONFIG_WORKER_PREFIX,
+                    workerName);
+            return null;
+        }
+        return worker.request(request, timeout);
+    }
+
     @Override
     @SuppressWarnings("rawtypes")
     public void updated(Dictionary config) throws ConfigurationException {
 
         if (config != null) {
-            String timeoutString = (String) config.get("timeout");
+            String timeoutString = (String) config.get(CONFIG_TIMEOUT);
             if (StringUtils.isNotBlank(timeoutString)) {
                 timeout = Integer.parseInt(timeoutString);
             }
 
-            String granularityString = (String) config.get("granularity");
+            String granularityString = (String) config.get(CONFIG_GRANULARITY);
             if (StringUtils.isNotBlank(granularityString)) {
                 granularity = Integer.parseInt(granularityString);
             }
+
+            String numberOfThreadsString = (String) config.get(CONFIG_NUMBER_OF_THREADS);
+            if (StringUtils.isNotBlank(numberOfThreadsString)) {
+                setNumberOfThreads(Integer.parseInt(numberOfThreadsString));
+            }
+
+            Map<String, ExecWorker> newWorkers = new HashMap<String, ExecWorker>();
+            Enumeration keys = config.keys();
+            while (keys.hasMoreElements()) {
+                String key = (String) keys.nextElement();
+                if (!key.startsWith(CONFIG_WORKER_PREFIX)) {
+                    continue;
+                }
+
+                String workerName = key.substring(CONFIG_WORKER_PREFIX.length());
+                String commandLine = (String) config.get(key);
+                if (StringUtils.isBlank(workerName) || StringUtils.isBlank(commandLine)) {
+                    throw new ConfigurationException(key, "the worker name and command line must not be empty");
+                }
+                newWorkers.put(workerName, new ExecWorker(workerName, parseCommandLine(commandLine).toStrings()));
+            }
+
+            // the helper processes are restarted with their new command lines, requests
+            // which are still sent to an old worker are dropped
+            Map<String, ExecWorker> oldWorkers = workers;
+            workers = newWorkers;
+            for (ExecWorker worker : oldWorkers.values()) {
+                worker.close();
+            }
         }
 
     }
 
+    /**
+     * Sets the size of the refresh pool and replaces a running pool by one of
+     * the new size.
+     *
+     * @param numberOfThreads the new number of refresh threads
+     * @throws ConfigurationException if <code>numberOfThreads</code> is less than one
+     */
+    private synchronized void setNumberOfThreads(int numberOfThreads) throws ConfigurationException {
+        if (numberOfThreads < 1) {
+            throw new ConfigurationException(CONFIG_NUMBER_OF_THREADS,
+                    "the number of threads must be at least 1 but was " + numberOfThreads);
+        }
+        if (numberOfThreads != this.numberOfThreads) {
+            this.numberOfThreads = numberOfThreads;
+            if (refreshExecutor != null) {
+                refreshExecutor.shutdown();
+                refreshExecutor = Executors.newFixedThreadPool(numberOfThreads);
+            }
+        }
+    }
+
     @Override
     public void addBindingProvider(BindingProvider provider) {
         super.addBindingProvider(provider);
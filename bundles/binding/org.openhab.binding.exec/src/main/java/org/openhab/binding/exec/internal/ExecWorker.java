@@ -0,0 +1,269 @@
+/**
+ * Copyright (c) 2010-2016, openHAB.org and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.exec.internal;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A long-running helper process which answers requests over stdin/stdout
+ * instead of being started for every refresh. Every request is written as one
+ * line to the stdin of the process, and the lines the process writes to
+ * stdout are taken as the responses, in the order of the requests.
+ * <p>
+ * Requests from several threads are written one after the other, but their
+ * responses are awaited concurrently, so the process may work on several
+ * requests at once. The process is started on the first request and
+ * restarted on the next request after it has terminated. If it doesn't answer
+ * within the timeout it is stopped, so that a late response can't be taken
+ * for the answer to a later request.
+ * </p>
+ *
+ * @author agent
+ * @since 1.9.0
+ */
+public class ExecWorker {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExecWorker.class);
+
+    private final String name;
+
+    private final String[] command;
+
+    private Process process;
+
+    private BufferedWriter stdin;
+
+    /** the requests of the running process which wait for their response, in the order they were written */
+    private Queue<PendingRequest> pendingRequests;
+
+    private boolean closed = false;
+
+    /**
+     * @param name the name of the worker as configured in openhab.cfg
+     * @param command the executable and arguments of the helper process
+     */
+    public ExecWorker(String name, String[] command) {
+        this.name = name;
+        this.command = command;
+    }
+
+    /**
+     * Writes <code>request</code> to the helper process and waits for its
+     * response.
+     *
+     * @param request the line to write to the process
+     * @param timeout the time in milliseconds to wait for the response
+     * @return the response line or <code>null</code> if the process couldn't
+     *         be started or didn't answer in time
+     */
+    public String request(String request, long timeout) {
+        PendingRequest pendingRequest = send(request);
+        if (pendingRequest == null) {
+            return null;
+        }
+
+        // wait without holding the lock, so other requests can be written meanwhile
+        try {
+            if (!pendingRequest.await(timeout)) {
+                logger.warn("worker '{}' didn't answer request '{}' within {} ms", name, request, timeout);
+                stop(pendingRequest.process);
+                return null;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+
+        String response = pendingRequest.response;
+        if (response != null) {
+            logger.debug("worker '{}' answered request '{}' with '{}'", name, request, response);
+        }
+        return response;
+    }
+
+    /**
+     * Writes <code>request</code> to the helper process, which is started if
+     * it isn't running.
+     *
+     * @return the request waiting for its response or <code>null</code> if
+     *         the request couldn't be sent
+     */
+    private synchronized PendingRequest send(String request) {
+        if (closed) {
+            logger.debug("worker '{}' is closed, request '{}' is dropped", name, request);
+            return null;
+        }
+        try {
+            if (!isRunning()) {
+                start();
+            }
+
+            // queued before writing, so the response can't arrive first
+            PendingRequest pendingRequest = new PendingRequest(process);
+            pendingRequests.add(pendingRequest);
+            stdin.write(request);
+            stdin.newLine();
+            stdin.flush();
+            return pendingRequest;
+        } catch (IOException e) {
+            logger.error("couldn't send request '" + request + "' to worker '" + name + "'", e);
+            stop();
+            return null;
+        }
+    }
+
+    /**
+     * Stops the helper process. It is started again on the next request.
+     * Requests which are waiting for a response get none.
+     */
+    public synchronized void stop() {
+        if (process != null) {
+            logger.debug("stopping worker '{}'", name);
+            process.destroy();
+            process = null;
+            stdin = null;
+            PendingRequest pendingRequest;
+            while ((pendingRequest = pendingRequests.poll()) != null) {
+                pendingRequest.complete(null);
+            }
+            pendingRequests = null;
+        }
+    }
+
+    /**
+     * Stops the helper process if it is still the given one, and not already
+     * a process started after it.
+     */
+    private synchronized void stop(Process process) {
+        if (this.process == process) {
+            stop();
+        }
+    }
+
+    /**
+     * Stops the helper process for good, e.g. because the worker has been
+     * configured anew.
+     */
+    public synchronized void close() {
+        closed = true;
+        stop();
+    }
+
+    private void start() throws IOException {
+        logger.debug("starting worker '{}' with commandLine '{}'", name, Arrays.asList(command));
+        process = new ProcessBuilder(command).start();
+        stdin = new BufferedWriter(new OutputStreamWriter(process.getOutputStream()));
+        pendingRequests = new ConcurrentLinkedQueue<PendingRequest>();
+        new LineReader(process.getInputStream(), pendingRequests).start();
+        new LineReader(process.getErrorStream(), null).start();
+    }
+
+    private boolean isRunning() {
+        if (process == null) {
+            return false;
+        }
+        try {
+            int exitCode = process.exitValue();
+            logger.debug("worker '{}' terminated with exit code '{}'", name, exitCode);
+            stop();
+            return false;
+        } catch (IllegalThreadStateException e) {
+            return true;
+        }
+    }
+
+    /**
+     * A request which has been written to the helper process
+     */
+    private static class PendingRequest {
+
+        private final Process process;
+
+        private final CountDownLatch answered = new CountDownLatch(1);
+
+        private volatile String response;
+
+        PendingRequest(Process process) {
+            this.process = process;
+        }
+
+        void complete(String response) {
+            this.response = response;
+            answered.countDown();
+        }
+
+        boolean await(long timeout) throws InterruptedException {
+            return answered.await(timeout, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Reads the lines of an output stream of the helper process until the
+     * process terminates. The lines are handed to the waiting requests, or
+     * logged if no requests are given.
+     */
+    private class LineReader extends Thread {
+
+        private final InputStream stream;
+
+        private final Queue<PendingRequest> requests;
+
+        LineReader(InputStream stream, Queue<PendingRequest> requests) {
+            super("Exec Worker " + name);
+            setDaemon(true);
+            this.stream = stream;
+            this.requests = requests;
+        }
+
+        @Override
+        public void run() {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(stream));
+            try {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    PendingRequest request = requests != null ? requests.poll() : null;
+                    if (request != null) {
+                        request.complete(line);
+                    } else {
+                        logger.debug("worker '{}' reported '{}'", name, line);
+                    }
+                }
+            } catch (IOException e) {
+                logger.trace("worker '{}' closed its output: {}", name, e.getMessage());
+            } finally {
+                try {
+                    reader.close();
+                } catch (IOException e) {
+                    // the stream is gone anyway
+                }
+                // the process has terminated, the remaining requests won't be answered
+                if (requests != null) {
+                    PendingRequest request;
+                    while ((request = requests.poll()) != null) {
+                        request.complete(null);
+                    }
+                }
+            }
+        }
+    }
+
+}
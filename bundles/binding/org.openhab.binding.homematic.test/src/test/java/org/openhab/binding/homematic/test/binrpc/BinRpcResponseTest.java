@@ -0,0 +1,233 @@
+/**
+ * Copyright (c) 2010-2016, openHAB.org and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.homematic.test.binrpc;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+import org.openhab.binding.homematic.internal.binrpc.BinRpcRequest;
+import org.openhab.binding.homematic.internal.binrpc.BinRpcResponse;
+
+import junit.framework.Assert;
+
+/**
+ * Testcases for decoding BIN-RPC messages sent by the Homematic server.
+ *
+ * @author agent
+ * @since 1.9.0
+ */
+public class BinRpcResponseTest {
+
+    /**
+     * Frames as sent by the Homematic server, encoded byte by byte from the
+     * BIN-RPC format rather than with {@link BinRpcRequest}.
+     */
+    private static final String EVENT_FRAME = "42696E000000004B000000056576656E74000000040000000300000009426964"
+            + "436F732D5246000000030000000C4C4551303132333435363A31000000030000"
+            + "00054C4556454C000000042F5C28F6FFFFFFFF";
+
+    private static final String MULTICALL_FRAME = "42696E00000001FA0000001073797374656D2E6D756C746963616C6C00000001"
+            + "000001000000000400000101000000020000000A6D6574686F644E616D650000"
+            + "0003000000056576656E7400000006706172616D730000010000000004000000"
+            + "0300000009426964436F732D5246000000030000000C4C455130313233343536"
+            + "3A3100000003000000055354415445000000020100000101000000020000000A"
+            + "6D6574686F644E616D6500000003000000056576656E7400000006706172616D"
+            + "7300000100000000040000000300000009426964436F732D5246000000030000"
+            + "000C4C4551303132333435363A3100000003000000054552524F520000000100"
+            + "00000400000101000000020000000A6D6574686F644E616D6500000003000000"
+            + "056576656E7400000006706172616D7300000100000000040000000300000009"
+            + "426964436F732D5246000000030000000C4B4551303635343332313A32000000"
+            + "030000001241435455414C5F54454D504552415455524500000004CE00000000"
+            + "00000400000101000000020000000A6D6574686F644E616D6500000003000000"
+            + "056576656E7400000006706172616D7300000100000000040000000300000009"
+            + "426964436F732D5246000000030000000C4B4551303635343332313A32000000"
+            + "030000000C434F4E54524F4C5F4D4F444500000003000000094155544F2D4D4F"
+            + "4445";
+
+    private static final String NEW_DEVICES_FRAME = "42696E00000001180000000A6E65774465766963657300000002000000030000"
+            + "0009426964436F732D5246000001000000000100000101000000080000000741"
+            + "444452455353000000030000000A4C455130313233343536000000084348494C"
+            + "4452454E0000010000000002000000030000000C4C4551303132333435363A30"
+            + "000000030000000C4C4551303132333435363A31000000084649524D57415245"
+            + "0000000300000003322E3400000005464C414753000000010000000100000009"
+            + "504152414D53455453000001000000000100000003000000064D415354455200"
+            + "000006504152454E540000000300000000000000045459504500000003000000"
+            + "0C484D2D4C432D426C312D464D0000000756455253494F4E0000000100000017";
+
+    private static byte[] toBytes(String hex) {
+        byte[] bytes = new byte[hex.length() / 2];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) Integer.parseInt(hex.substring(i * 2, i * 2 + 2), 16);
+        }
+        return bytes;
+    }
+
+    private byte[] createEvent(String address, String parameter, Object value) {
+        BinRpcRequest request = new BinRpcRequest("event");
+        request.addArg("openHAB-BidCos-RF");
+        request.addArg(address);
+        request.addArg(parameter);
+        request.addArg(value);
+        return request.createMessage();
+    }
+
+    private byte[] createMulticall(int events) {
+        List<Object> calls = new ArrayList<Object>();
+        for (int i = 0; i < events; i++) {
+            Map<String, Object> call = new HashMap<String, Object>();
+            call.put("methodName", "event");
+            call.put("params", Arrays.<Object> asList("openHAB-BidCos-RF", "KEQ00" + (i % 50) + ":1",
+                    i % 2 == 0 ? "LEVEL" : "STATE", i % 2 == 0 ? (Object) Double.valueOf(0.5) : Boolean.TRUE));
+            calls.add(call);
+        }
+        BinRpcRequest request = new BinRpcRequest("system.multicall");
+        request.addArg(calls);
+        return request.createMessage();
+    }
+
+    @Test
+    public void testDecodeEvent() throws Exception {
+        byte[] message = createEvent("KEQ0012345:1", "LEVEL", 0.25d);
+        BinRpcResponse response = new BinRpcResponse(message, 0, message.length, true);
+
+        Assert.assertEquals("event", response.getMethodName());
+        Object[] data = response.getResponseData();
+        Assert.assertEquals(4, data.length);
+        Assert.assertEquals("openHAB-BidCos-RF", data[0]);
+        Assert.assertEquals("KEQ0012345:1", data[1]);
+        Assert.assertEquals("LEVEL", data[2]);
+        Assert.assertEquals(0.25d, data[3]);
+    }
+
+    @Test
+    public void testDecodeFromReusedBuffer() throws Exception {
+        byte[] buffer = new byte[1024];
+        byte[] first = createEvent("KEQ0012345:1", "STATE", Boolean.TRUE);
+        byte[] second = createEvent("KEQ0054321:2", "PRESS_SHORT", Integer.valueOf(7));
+
+        System.arraycopy(first, 0, buffer, 0, first.length);
+        BinRpcResponse response = new BinRpcResponse(buffer, 0, first.length, true);
+        System.arraycopy(second, 0, buffer, 0, second.length);
+
+        Assert.assertEquals("KEQ0012345:1", response.getResponseData()[1]);
+        Assert.assertEquals(Boolean.TRUE, response.getResponseData()[3]);
+
+        response = new BinRpcResponse(buffer, 0, second.length, true);
+        Assert.assertEquals("KEQ0054321:2", response.getResponseData()[1]);
+        Assert.assertEquals(Integer.valueOf(7), response.getResponseData()[3]);
+    }
+
+    @Test
+    public void testRecurringStringsAreShared() throws Exception {
+        byte[] message = createEvent("KEQ0012345:1", "LEVEL", 0.25d);
+        Object[] first = new BinRpcResponse(message, 0, message.length, true).getResponseData();
+        Object[] second = new BinRpcResponse(message, 0, message.length, true).getResponseData();
+
+        Assert.assertSame(first[1], second[1]);
+        Assert.assertSame(first[2], second[2]);
+    }
+
+    @Test
+    public void testDecodeMulticall() throws Exception {
+        byte[] message = createMulticall(3);
+        BinRpcResponse response = new BinRpcResponse(message, 0, message.length, true);
+
+        Assert.assertEquals("system.multicall", response.getMethodName());
+        Object[] calls = (Object[]) response.getResponseData()[0];
+        Assert.assertEquals(3, calls.length);
+        Map<?, ?> call = (Map<?, ?>) calls[1];
+        Assert.assertEquals("event", call.get("methodName"));
+        Object[] params = (Object[]) call.get("params");
+        Assert.assertEquals("KEQ001:1", params[1]);
+        Assert.assertEquals("STATE", params[2]);
+        Assert.assertEquals(Boolean.TRUE, params[3]);
+    }
+
+    @Test(expected = java.io.EOFException.class)
+    public void testTruncatedMessage() throws Exception {
+        byte[] message = createEvent("KEQ0012345:1", "LEVEL", 0.25d);
+        new BinRpcResponse(message, 0, message.length - 1, true);
+    }
+
+    @Test
+    public void testReplayedEvent() throws Exception {
+        assertDecodes(EVENT_FRAME, "event", "BidCos-RF", "LEQ0123456:1", "LEVEL", 0.37d);
+    }
+
+    @Test
+    public void testReplayedMulticall() throws Exception {
+        Object[] calls = { event("LEQ0123456:1", "STATE", Boolean.TRUE), event("LEQ0123456:1", "ERROR", 4),
+                event("KEQ0654321:2", "ACTUAL_TEMPERATURE", -12.5d),
+                event("KEQ0654321:2", "CONTROL_MODE", "AUTO-MODE") };
+        assertDecodes(MULTICALL_FRAME, "system.multicall", (Object) calls);
+    }
+
+    @Test
+    public void testReplayedNewDevices() throws Exception {
+        Map<String, Object> device = new HashMap<String, Object>();
+        device.put("ADDRESS", "LEQ0123456");
+        device.put("CHILDREN", new Object[] { "LEQ0123456:0", "LEQ0123456:1" });
+        device.put("FIRMWARE", "2.4");
+        device.put("FLAGS", 1);
+        device.put("PARAMSETS", new Object[] { "MASTER" });
+        device.put("PARENT", "");
+        device.put("TYPE", "HM-LC-Bl1-FM");
+        device.put("VERSION", 23);
+        assertDecodes(NEW_DEVICES_FRAME, "newDevices", "BidCos-RF", new Object[] { device });
+    }
+
+    private static Map<String, Object> event(String address, String parameter, Object value) {
+        Map<String, Object> call = new HashMap<String, Object>();
+        call.put("methodName", "event");
+        call.put("params", new Object[] { "BidCos-RF", address, parameter, value });
+        return call;
+    }
+
+    /**
+     * Decodes a replayed frame from a buffer and from a stream and compares
+     * both results with the expected method name and response data.
+     */
+    private static void assertDecodes(String hex, String methodName, Object... responseData) throws Exception {
+        byte[] frame = toBytes(hex);
+        BinRpcResponse fromBuffer = new BinRpcResponse(frame, 0, frame.length, true);
+        BinRpcResponse fromStream = new BinRpcResponse(new ByteArrayInputStream(frame), true);
+
+        Assert.assertEquals(methodName, fromBuffer.getMethodName());
+        Assert.assertEquals(methodName, fromStream.getMethodName());
+        assertDeepEquals(responseData, fromBuffer.getResponseData());
+        assertDeepEquals(responseData, fromStream.getResponseData());
+    }
+
+    private static void assertDeepEquals(Object expected, Object actual) {
+        if (expected instanceof Object[]) {
+            Assert.assertTrue(actual instanceof Object[]);
+            Object[] expectedArray = (Object[]) expected;
+            Object[] actualArray = (Object[]) actual;
+            Assert.assertEquals(expectedArray.length, actualArray.length);
+            for (int i = 0; i < expectedArray.length; i++) {
+                assertDeepEquals(expectedArray[i], actualArray[i]);
+            }
+        } else if (expected instanceof Map) {
+            Assert.assertTrue(actual instanceof Map);
+            Map<?, ?> expectedMap = (Map<?, ?>) expected;
+            Map<?, ?> actualMap = (Map<?, ?>) actual;
+            Assert.assertEquals(expectedMap.keySet(), actualMap.keySet());
+            for (Object key : expectedMap.keySet()) {
+                assertDeepEquals(expectedMap.get(key), actualMap.get(key));
+            }
+        } else {
+            Assert.assertEquals(expected, actual);
+        }
+    }
+}
@@ -13,7 +13,6 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.UnsupportedEncodingException;
 import java.math.BigDecimal;
-import java.math.BigInteger;
 import java.math.RoundingMode;
 import java.text.ParseException;
 import java.util.ArrayList;
@@ -35,8 +34,15 @@ import org.slf4j.LoggerFactory;
 public class BinRpcResponse {
     private final static Logger logger = LoggerFactory.getLogger(BinRpcResponse.class);
 
+    /**
+     * The length of the BIN-RPC header, consisting of the signature and the
+     * size of the data.
+     */
+    public static final int HEADER_LENGTH = 8;
+
     private byte data[];
     private int dataoffset = 0;
+    private int dataend;
     private String methodName;
     private Object[] responseData;
 
@@ -44,43 +50,94 @@ public class BinRpcResponse {
      * Decodes a BIN-RPC message from the given InputStream.
      */
     public BinRpcResponse(InputStream is, boolean methodHeader) throws IOException, ParseException {
-        byte sig[] = new byte[4];
-        int l = is.read(sig);
-        if (l != sig.length) {
-            throw new EOFException("Only " + l + " bytes received reading signature");
+        byte header[] = new byte[HEADER_LENGTH];
+        readFully(is, header, 0, 4, "signature");
+        if (!hasSignature(header, 0)) {
+            throw new UnsupportedEncodingException("No BinX signature");
         }
-        if (sig[0] != 'B' || sig[1] != 'i' || sig[2] != 'n') {
+        readFully(is, header, 4, 4, "length");
+        int datasize = getDataSize(header, 0);
+        if (datasize < 0) {
+            throw new UnsupportedEncodingException("Invalid data size " + datasize);
+        }
+        byte message[] = new byte[datasize];
+        readFully(is, message, 0, datasize, "data");
+        decode(message, 0, datasize, methodHeader);
+    }
+
+    /**
+     * Decodes a BIN-RPC message which has already been read into the given
+     * buffer, starting with the header at <code>offset</code>. The buffer is
+     * not copied and not referenced after decoding, so it can be reused for
+     * the next message.
+     */
+    public BinRpcResponse(byte[] buffer, int offset, int length, boolean methodHeader) throws IOException,
+            ParseException {
+        if (length < HEADER_LENGTH) {
+            throw new EOFException("Only " + length + " bytes received reading header");
+        }
+        if (!hasSignature(buffer, offset)) {
             throw new UnsupportedEncodingException("No BinX signature");
         }
-        l = is.read(sig);
-        if (l != sig.length) {
-            throw new EOFException("Only " + l + " bytes received reading length");
+        int datasize = getDataSize(buffer, offset);
+        if (datasize < 0) {
+            throw new UnsupportedEncodingException("Invalid data size " + datasize);
         }
-        int datasize = (new BigInteger(sig)).intValue();
-        data = new byte[datasize];
-        int offset = 0;
-        while (datasize > 0) {
-            int r = is.read(data, offset, datasize);
+        if (datasize > length - HEADER_LENGTH) {
+            throw new EOFException("EOF while reading data");
+        }
+        decode(buffer, offset + HEADER_LENGTH, datasize, methodHeader);
+    }
+
+    /**
+     * Returns true if the given buffer contains the BIN-RPC signature at
+     * <code>offset</code>.
+     */
+    public static boolean hasSignature(byte[] buffer, int offset) {
+        return buffer[offset] == 'B' && buffer[offset + 1] == 'i' && buffer[offset + 2] == 'n';
+    }
+
+    /**
+     * Returns the size of the data following the BIN-RPC header which starts at
+     * <code>offset</code>.
+     */
+    public static int getDataSize(byte[] buffer, int offset) {
+        return toInt(buffer, offset + 4);
+    }
+
+    private static int toInt(byte[] buffer, int offset) {
+        return (buffer[offset] << 24) | ((buffer[offset + 1] & 0xFF) << 16) | ((buffer[offset + 2] & 0xFF) << 8)
+                | (buffer[offset + 3] & 0xFF);
+    }
+
+    private static void readFully(InputStream is, byte[] buffer, int offset, int length, String part)
+            throws IOException {
+        int read = 0;
+        while (read < length) {
+            int r = is.read(buffer, offset + read, length - read);
             if (r < 1) {
-                throw new EOFException("EOF while reading data");
+                throw new EOFException("Only " + read + " bytes received reading " + part);
             }
-            datasize -= r;
-            offset += r;
+            read += r;
         }
+    }
+
+    private void decode(byte[] buffer, int offset, int length, boolean methodHeader) throws IOException,
+            ParseException {
+        data = buffer;
+        dataoffset = offset;
+        dataend = offset + length;
 
         if (methodHeader) {
-            int slen = readInt();
-            methodName = new String(data, dataoffset, slen, "ISO-8859-1");
-            dataoffset += slen;
+            methodName = readString();
             readInt();
         }
 
         List<Object> values = new ArrayList<Object>();
-        while (dataoffset < data.length) {
+        while (dataoffset < dataend) {
             values.add(readRpcValue());
         }
         responseData = values.toArray();
-        values.clear();
         data = null;
     }
 
@@ -98,24 +155,37 @@ public class BinRpcResponse {
         return responseData;
     }
 
-    private int readInt() {
-        byte bi[] = new byte[4];
-        System.arraycopy(data, dataoffset, bi, 0, 4);
+    private int readInt() throws EOFException {
+        checkAvailable(4);
+        int value = toInt(data, dataoffset);
         dataoffset += 4;
-        return (new BigInteger(bi)).intValue();
+        return value;
+    }
+
+    private String readString() throws EOFException {
+        int len = readInt();
+        checkAvailable(len);
+        String value = BinRpcStringCache.get(data, dataoffset, len);
+        dataoffset += len;
+        return value;
+    }
+
+    private void checkAvailable(int len) throws EOFException {
+        if (len < 0 || dataoffset + len > dataend) {
+            throw new EOFException("EOF while reading data");
+        }
     }
 
-    private Object readRpcValue() throws UnsupportedEncodingException, ParseException {
+    private Object readRpcValue() throws EOFException, ParseException {
         int type = readInt();
         switch (type) {
             case 1:
-                return new Integer(readInt());
+                return Integer.valueOf(readInt());
             case 2:
+                checkAvailable(1);
                 return data[dataoffset++] != 0 ? Boolean.TRUE : Boolean.FALSE;
             case 3:
-                int len = readInt();
-                dataoffset += len;
-                return new String(data, dataoffset - len, len, "ISO-8859-1");
+                return readString();
             case 4:
                 int mantissa = readInt();
                 int exponent = readInt();
@@ -136,15 +206,13 @@ public class BinRpcResponse {
                 numElements = readInt();
                 Map<String, Object> struct = new TreeMap<String, Object>();
                 while (numElements-- > 0) {
-                    int slen = readInt();
-                    String name = new String(data, dataoffset, slen, "ISO-8859-1");
-                    dataoffset += slen;
+                    String name = readString();
                     struct.put(name, readRpcValue());
                 }
                 return struct;
 
             default:
-                for (int x = 0; x < data.length; x++) {
+                for (int x = 0; x < dataend; x++) {
                     logger.info(Integer.toHexString(data[x]) + " " + (char) data[x]);
                 }
                 throw new ParseException("Unknown data type " + type, type);
@@ -0,0 +1,79 @@
+/**
+ * Copyright (c) 2010-2016, openHAB.org and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.homematic.internal.binrpc;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Cache for the short ISO-8859-1 strings which recur in almost every BIN-RPC
+ * message, like method names, interface ids, device addresses and parameter
+ * names. A string found in the cache is returned without creating a new
+ * String instance.
+ * <p>
+ * The cache is a fixed size table indexed by the hash of the bytes, a new
+ * string simply replaces the entry with the same index. Entries are immutable
+ * Strings, so the table may be read and written by several threads without
+ * locking.
+ *
+ * @author agent
+ * @since 1.9.0
+ */
+final class BinRpcStringCache {
+    private static final int SIZE = 2048;
+    static final int MAX_STRING_LENGTH = 64;
+
+    private static final String[] entries = new String[SIZE];
+
+    private BinRpcStringCache() {
+    }
+
+    /**
+     * Returns the ISO-8859-1 decoded string of the given bytes, from the cache
+     * if possible.
+     */
+    static String get(byte[] data, int offset, int length) {
+        if (length == 0) {
+            return "";
+        }
+        if (length > MAX_STRING_LENGTH) {
+            return decode(data, offset, length);
+        }
+
+        int hash = 0;
+        for (int i = offset; i < offset + length; i++) {
+            hash = 31 * hash + (data[i] & 0xFF);
+        }
+        int index = (hash ^ (hash >>> 16)) & (SIZE - 1);
+
+        String cached = entries[index];
+        if (cached != null && equals(cached, data, offset, length)) {
+            return cached;
+        }
+        String decoded = decode(data, offset, length);
+        entries[index] = decoded;
+        return decoded;
+    }
+
+    private static boolean equals(String s, byte[] data, int offset, int length) {
+        if (s.length() != length) {
+            return false;
+        }
+        // ISO-8859-1 maps every byte to the char with the same value
+        for (int i = 0; i < length; i++) {
+            if (s.charAt(i) != (char) (data[offset + i] & 0xFF)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String decode(byte[] data, int offset, int length) {
+        return new String(data, offset, length, StandardCharsets.ISO_8859_1);
+    }
+}
@@ -9,8 +9,8 @@
 package org.openhab.binding.homematic.internal.communicator.server;
 
 import java.io.EOFException;
-import java.io.IOException;
-import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
 import java.util.Map;
 
 import org.openhab.binding.homematic.internal.binrpc.BinRpcResponse;
@@ -19,7 +19,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * Reads a BIN-RPC message from the socket and handles the method call.
+ * Decodes a BIN-RPC message read by the BinRpcNetworkService and handles the
+ * method call.
  *
  * @author Gerhard Riegler
  * @since 1.5.0
@@ -36,38 +37,42 @@ public class BinRpcCallbackHandler implements Runnable {
             0, 0, 3, 0, 0, 0, 16, 's', 'y', 's', 't', 'e', 'm', '.', 'm', 'u', 'l', 't', 'i', 'c', 'a', 'l', 'l', 0, 0,
             0, 3, 0, 0, 0, 5, 'e', 'v', 'e', 'n', 't' };
 
-    private Socket socket;
+    private BinRpcNetworkService networkService;
+    private SelectionKey key;
+    private ByteBuffer buffer;
     private HomematicCallbackReceiver callbackReceiver;
 
-    public BinRpcCallbackHandler(Socket socket, HomematicCallbackReceiver callbackReceiver) {
-        this.socket = socket;
+    public BinRpcCallbackHandler(BinRpcNetworkService networkService, SelectionKey key, ByteBuffer buffer,
+            HomematicCallbackReceiver callbackReceiver) {
+        this.networkService = networkService;
+        this.key = key;
+        this.buffer = buffer;
         this.callbackReceiver = callbackReceiver;
     }
 
     /**
-     * Reads the event from the Homematic server and handles the method call.
+     * Decodes the event from the Homematic server and handles the method call.
      */
     @Override
     public void run() {
+        byte[] returnValue = null;
         try {
-            BinRpcResponse response = new BinRpcResponse(socket.getInputStream(), true);
+            BinRpcResponse response;
+            try {
+                response = new BinRpcResponse(buffer.array(), 0, buffer.position(), true);
+            } finally {
+                networkService.releaseBuffer(buffer);
+            }
             if (TRACE_ENABLED) {
                 logger.trace("Event BinRpcResponse: {}", response.toString());
             }
-            byte[] returnValue = handleMethodCall(response.getMethodName(), response.getResponseData());
-            if (returnValue != null) {
-                socket.getOutputStream().write(returnValue);
-            }
+            returnValue = handleMethodCall(response.getMethodName(), response.getResponseData());
         } catch (EOFException eof) {
             // ignore
         } catch (Exception e) {
             logger.error(e.getMessage(), e);
         } finally {
-            try {
-                socket.close();
-            } catch (IOException ex) {
-                // ignore
-            }
+            networkService.reply(key, returnValue);
         }
     }
 
@@ -9,11 +9,22 @@
 package org.openhab.binding.homematic.internal.communicator.server;
 
 import java.io.IOException;
-import java.net.ServerSocket;
-import java.net.Socket;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
+import org.openhab.binding.homematic.internal.binrpc.BinRpcResponse;
 import org.openhab.binding.homematic.internal.common.HomematicConfig;
 import org.openhab.binding.homematic.internal.common.HomematicContext;
 import org.openhab.binding.homematic.internal.communicator.HomematicCallbackReceiver;
@@ -21,8 +32,14 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * Waits for a message from the Homematic server and starts the
- * BinRpcCallbackHandler to handle the message.
+ * Waits for messages from the Homematic server and starts the
+ * BinRpcCallbackHandler to handle them.
+ * <p>
+ * All connections are served by a single selector thread which reads each
+ * message into a pooled buffer. Complete messages are decoded and handled by
+ * a bounded pool of handler threads, the selector thread handles a message
+ * itself if all handlers are busy, which slows down reading during bursts of
+ * events instead of starting more threads.
  *
  * @author Gerhard Riegler
  * @since 1.5.0
@@ -30,9 +47,18 @@ import org.slf4j.LoggerFactory;
 public class BinRpcNetworkService implements Runnable {
     private static final Logger logger = LoggerFactory.getLogger(BinRpcNetworkService.class);
 
-    private ServerSocket serverSocket;
-    private final ExecutorService pool = Executors.newCachedThreadPool();
-    private boolean accept = true;
+    private static final int HANDLER_THREADS = 4;
+    private static final int HANDLER_QUEUE_SIZE = 64;
+    private static final int BUFFER_SIZE = 8192;
+    private static final int MAX_POOLED_BUFFER_SIZE = 65536;
+
+    private final ServerSocketChannel serverChannel;
+    private final Selector selector;
+    private final ThreadPoolExecutor pool;
+    private final BlockingQueue<ByteBuffer> bufferPool = new ArrayBlockingQueue<ByteBuffer>(HANDLER_THREADS
+            + HANDLER_QUEUE_SIZE);
+    private final Queue<SelectionKey> pendingReplies = new ConcurrentLinkedQueue<SelectionKey>();
+    private volatile boolean accept = true;
     private HomematicCallbackReceiver callbackReceiver;
 
     /**
@@ -42,8 +68,17 @@ public class BinRpcNetworkService implements Runnable {
         this.callbackReceiver = callbackReceiver;
 
         HomematicConfig config = HomematicContext.getInstance().getConfig();
-        serverSocket = new ServerSocket(config.getCallbackPort());
-        serverSocket.setReuseAddress(true);
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.socket().setReuseAddress(true);
+        serverChannel.socket().bind(new InetSocketAddress(config.getCallbackPort()));
+        serverChannel.configureBlocking(false);
+
+        selector = Selector.open();
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+
+        pool = new ThreadPoolExecutor(HANDLER_THREADS, HANDLER_THREADS, 60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<Runnable>(HANDLER_QUEUE_SIZE), new ThreadPoolExecutor.CallerRunsPolicy());
+        pool.allowCoreThreadTimeOut(true);
     }
 
     /**
@@ -51,29 +86,202 @@ public class BinRpcNetworkService implements Runnable {
      */
     @Override
     public void run() {
-        while (accept) {
-            try {
-                Socket cs = serverSocket.accept();
-                BinRpcCallbackHandler rpcHandler = new BinRpcCallbackHandler(cs, callbackReceiver);
-                pool.execute(rpcHandler);
-            } catch (IOException ex) {
-                // ignore
+        try {
+            while (accept) {
+                selector.select();
+                processPendingReplies();
+
+                Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+                while (it.hasNext()) {
+                    SelectionKey key = it.next();
+                    it.remove();
+                    try {
+                        if (!key.isValid()) {
+                            continue;
+                        }
+                        if (key.isAcceptable()) {
+                            acceptConnection();
+                        } else if (key.isReadable()) {
+                            readMessage(key);
+                        } else if (key.isWritable()) {
+                            writeReply(key);
+                        }
+                    } catch (IOException ex) {
+                        logger.debug("Error on BIN-RPC callback connection: {}", ex.getMessage());
+                        closeConnection(key);
+                    }
+                }
             }
+        } catch (ClosedSelectorException ex) {
+            // shutdown
+        } catch (IOException ex) {
+            logger.error(ex.getMessage(), ex);
+        } finally {
+            close();
         }
     }
 
     /**
-     * Stops the listening.
+     * Accepts a new connection from the Homematic server.
      */
-    public void shutdown() {
-        logger.debug("Shutting down {}", this.getClass().getSimpleName());
-        accept = false;
+    private void acceptConnection() throws IOException {
+        SocketChannel channel = serverChannel.accept();
+        if (channel != null) {
+            channel.configureBlocking(false);
+            channel.register(selector, SelectionKey.OP_READ, new Connection());
+        }
+    }
+
+    /**
+     * Reads the available data of a connection and hands the message to a
+     * BinRpcCallbackHandler as soon as it is complete.
+     */
+    private void readMessage(SelectionKey key) throws IOException {
+        Connection connection = (Connection) key.attachment();
+        if (connection.buffer == null) {
+            connection.buffer = acquireBuffer();
+        }
+        ByteBuffer buffer = connection.buffer;
+        if (((SocketChannel) key.channel()).read(buffer) < 0) {
+            closeConnection(key);
+            return;
+        }
+        if (buffer.position() < BinRpcResponse.HEADER_LENGTH) {
+            return;
+        }
+
+        byte[] data = buffer.array();
+        if (!BinRpcResponse.hasSignature(data, 0)) {
+            logger.warn("Received message without BIN-RPC signature, closing connection");
+            closeConnection(key);
+            return;
+        }
+        int datasize = BinRpcResponse.getDataSize(data, 0);
+        if (datasize < 0) {
+            logger.warn("Received BIN-RPC message with invalid size {}, closing connection", datasize);
+            closeConnection(key);
+            return;
+        }
+        int messageLength = BinRpcResponse.HEADER_LENGTH + datasize;
+        if (messageLength > buffer.capacity()) {
+            ByteBuffer larger = ByteBuffer.allocate(messageLength);
+            buffer.flip();
+            larger.put(buffer);
+            releaseBuffer(buffer);
+            connection.buffer = larger;
+            return;
+        }
+
+        if (buffer.position() >= messageLength) {
+            // the handler owns the buffer now, stop reading until the reply is sent
+            key.interestOps(0);
+            connection.buffer = null;
+            pool.execute(new BinRpcCallbackHandler(this, key, buffer, callbackReceiver));
+        }
+    }
+
+    /**
+     * Writes the reply of the handler and closes the connection when done.
+     */
+    private void writeReply(SelectionKey key) throws IOException {
+        Connection connection = (Connection) key.attachment();
+        ((SocketChannel) key.channel()).write(connection.reply);
+        if (!connection.reply.hasRemaining()) {
+            closeConnection(key);
+        }
+    }
+
+    /**
+     * Registers the connections with a reply of a handler for writing.
+     */
+    private void processPendingReplies() {
+        SelectionKey key;
+        while ((key = pendingReplies.poll()) != null) {
+            Connection connection = (Connection) key.attachment();
+            if (connection.reply == null) {
+                closeConnection(key);
+            } else if (key.isValid()) {
+                key.interestOps(SelectionKey.OP_WRITE);
+            }
+        }
+    }
+
+    /**
+     * Called by the BinRpcCallbackHandler when the message has been handled.
+     * The reply is sent by the selector thread, if it is null the connection
+     * is closed.
+     */
+    void reply(SelectionKey key, byte[] returnValue) {
+        Connection connection = (Connection) key.attachment();
+        connection.reply = returnValue == null ? null : ByteBuffer.wrap(returnValue);
+        pendingReplies.add(key);
+        selector.wakeup();
+    }
+
+    /**
+     * Returns a buffer from the pool or a new one if the pool is empty.
+     */
+    private ByteBuffer acquireBuffer() {
+        ByteBuffer buffer = bufferPool.poll();
+        return buffer != null ? buffer : ByteBuffer.allocate(BUFFER_SIZE);
+    }
+
+    /**
+     * Returns a buffer to the pool for reading the next message.
+     */
+    void releaseBuffer(ByteBuffer buffer) {
+        if (buffer.capacity() <= MAX_POOLED_BUFFER_SIZE) {
+            buffer.clear();
+            bufferPool.offer(buffer);
+        }
+    }
+
+    private void closeConnection(SelectionKey key) {
+        key.cancel();
+        Connection connection = (Connection) key.attachment();
+        if (connection != null && connection.buffer != null) {
+            releaseBuffer(connection.buffer);
+            connection.buffer = null;
+        }
         try {
-            serverSocket.close();
+            key.channel().close();
+        } catch (IOException ex) {
+            // ignore
+        }
+    }
+
+    private void close() {
+        try {
+            for (SelectionKey key : selector.keys()) {
+                key.channel().close();
+            }
+            selector.close();
+        } catch (Exception ex) {
+            // ignore
+        }
+        try {
+            serverChannel.close();
         } catch (IOException ioe) {
             // ignore
         }
+    }
+
+    /**
+     * Stops the listening.
+     */
+    public void shutdown() {
+        logger.debug("Shutting down {}", this.getClass().getSimpleName());
+        accept = false;
+        selector.wakeup();
         pool.shutdownNow();
     }
 
+    /**
+     * The state of a connection from the Homematic server.
+     */
+    private static class Connection {
+        private ByteBuffer buffer;
+        private volatile ByteBuffer reply;
+    }
+
 }
@@ -0,0 +1,65 @@
+/**
+ * Copyright (c) 2010-2016, openHAB.org and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.http.internal;
+
+import java.util.Properties;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import junit.framework.Assert;
+
+/**
+ * @author agent
+ * @since 1.9.0
+ */
+public class HttpBindingTest {
+
+    private static final String URL = "http://localhost/status";
+
+    private HttpBinding binding;
+
+    @Before
+    public void init() {
+        binding = new HttpBinding();
+    }
+
+    @Test
+    public void testItemsShareResourceOfSameUrlAndHeaders() {
+        HttpResource resource = binding.getItemResource("item1", URL, headers("Accept", "text/plain"));
+
+        Assert.assertSame(resource, binding.getItemResource("item2", URL, headers("Accept", "text/plain")));
+        Assert.assertSame(resource, binding.getItemResource("item1", URL, headers("Accept", "text/plain")));
+        Assert.assertNotSame(resource, binding.getItemResource("item3", URL, headers("Accept", "text/xml")));
+        Assert.assertNotSame(resource, binding.getItemResource("item4", URL, null));
+        Assert.assertNotSame(resource, binding.getItemResource("item5", URL + "?all", headers("Accept", "text/plain")));
+    }
+
+    @Test
+    public void testUnusedResourceIsDropped() {
+        HttpResource resource = binding.getItemResource("item1", URL, null);
+        binding.getItemResource("item2", URL, null);
+
+        // item1 moves to another url, item2 still uses the resource
+        binding.getItemResource("item1", URL + "?all", null);
+        Assert.assertSame(resource, binding.getItemResource("item1", URL, null));
+
+        // nobody uses the resource anymore, so a new one is created
+        binding.getItemResource("item1", URL + "?all", null);
+        binding.getItemResource("item2", URL + "?all", null);
+        Assert.assertNotSame(resource, binding.getItemResource("item1", URL, null));
+    }
+
+    private static Properties headers(String name, String value) {
+        Properties headers = new Properties();
+        headers.setProperty(name, value);
+        return headers;
+    }
+
+}
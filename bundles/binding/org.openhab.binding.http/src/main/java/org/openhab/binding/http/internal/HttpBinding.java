@@ -11,18 +11,27 @@ package org.openhab.binding.http.internal;
 import static org.apache.commons.lang.StringUtils.isNotBlank;
 import static org.openhab.binding.http.internal.HttpGenericBindingProvider.CHANGED_COMMAND_KEY;
 
+import java.util.Arrays;
 import java.util.Calendar;
+import java.util.Collections;
 import java.util.Dictionary;
 import java.util.Enumeration;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import org.apache.commons.lang.StringUtils;
 import org.openhab.binding.http.HttpBindingProvider;
 import org.openhab.core.binding.AbstractActiveBinding;
+import org.openhab.core.binding.BindingProvider;
 import org.openhab.core.items.Item;
 import org.openhab.core.library.items.ContactItem;
 import org.openhab.core.library.items.DateTimeItem;
@@ -63,6 +72,7 @@ public class HttpBinding extends AbstractActiveBinding<HttpBindingProvider>imple
 
     protected static final String CONFIG_TIMEOUT = "timeout";
     protected static final String CONFIG_GRANULARITY = "granularity";
+    protected static final String CONFIG_NUMBER_OF_THREADS = "numberOfThreads";
 
     /** the timeout to use for connecting to a given host (defaults to 5000 milliseconds) */
     private int timeout = 5000;
@@ -70,7 +80,30 @@ public class HttpBinding extends AbstractActiveBinding<HttpBindingProvider>imple
     /** the interval to find new refresh candidates (defaults to 1000 milliseconds) */
     private int granularity = 1000;
 
-    private Map<String, Long> lastUpdateMap = new HashMap<String, Long>();
+    /** the number of parallel threads used to refresh items (defaults to 5) */
+    private int numberOfThreads = 5;
+
+    /** the pool executing the item refreshes, created on activation */
+    private ExecutorService refreshExecutor;
+
+    private Map<String, Long> lastUpdateMap = new ConcurrentHashMap<String, Long>();
+
+    /** the items which are currently queued or being refreshed by the {@link #refreshExecutor} */
+    private Set<String> pendingItems = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+    /**
+     * the resources which are requested directly (rather than through the cache), keyed by their
+     * url and headers, so that all items requesting the same resource share it
+     */
+    private Map<List<Object>, HttpResource> resources = new HashMap<List<Object>, HttpResource>();
+
+    /** the resource which each item has used for its last refresh */
+    private Map<String, HttpResource> itemResources = new HashMap<String, HttpResource>();
+    private Object resourcesLock = new Object();
+
+    /** the last response per item and the state which has been created from it */
+    private Map<String, String> lastResponseMap = new ConcurrentHashMap<String, String>();
+    private Map<String, State> lastStateMap = new ConcurrentHashMap<String, State>();
 
     /** RegEx to extract a parse a function String <code>'(.*?)\((.*)\)'</code> */
     private static final Pattern EXTRACT_FUNCTION_PATTERN = Pattern.compile("(.*?)\\((.*)\\)");
@@ -102,11 +135,22 @@ public class HttpBinding extends AbstractActiveBinding<HttpBindingProvider>imple
     }
 
     @Override
-    public void activate() {
+    public synchronized void activate() {
         super.activate();
+        refreshExecutor = Executors.newFixedThreadPool(numberOfThreads);
         setProperlyConfigured(true);
     }
 
+    @Override
+    public synchronized void deactivate() {
+        if (refreshExecutor != null) {
+            refreshExecutor.shutdownNow();
+            refreshExecutor = null;
+        }
+        pendingItems.clear();
+        super.deactivate();
+    }
+
     protected void addBindingProvider(HttpBindingProvider bindingProvider) {
         super.addBindingProvider(bindingProvider);
     }
@@ -115,6 +159,43 @@ public class HttpBinding extends AbstractActiveBinding<HttpBindingProvider>imple
         super.removeBindingProvider(bindingProvider);
     }
 
+    /**
+     * @{inheritDoc}
+     */
+    @Override
+    public void bindingChanged(BindingProvider provider, String itemName) {
+        super.bindingChanged(provider, itemName);
+        forgetItem(itemName);
+    }
+
+    /**
+     * @{inheritDoc}
+     */
+    @Override
+    public void allBindingsChanged(BindingProvider provider) {
+        super.allBindingsChanged(provider);
+        synchronized (resourcesLock) {
+            resources.clear();
+            itemResources.clear();
+        }
+        lastResponseMap.clear();
+        lastStateMap.clear();
+    }
+
+    /**
+     * Drops the remembered resource, response and state of
+     * <code>itemName</code> so that its next refresh starts from scratch.
+     *
+     * @param itemName the item to forget
+     */
+    private void forgetItem(String itemName) {
+        synchronized (resourcesLock) {
+            releaseResource(itemResources.remove(itemName));
+        }
+        lastResponseMap.remove(itemName);
+        lastStateMap.remove(itemName);
+    }
+
     /**
      * @{inheritDoc}
      */
@@ -140,81 +221,185 @@ public class HttpBinding extends AbstractActiveBinding<HttpBindingProvider>imple
         for (HttpBindingProvider provider : providers) {
             for (String itemName : provider.getInBindingItemNames()) {
 
-                String url = provider.getUrl(itemName);
-                url = String.format(url, Calendar.getInstance().getTime());
-
-                Properties headers = provider.getHttpHeaders(itemName);
-                int refreshInterval = provider.getRefreshInterval(itemName);
-                String transformation = provider.getTransformation(itemName);
-
                 Long lastUpdateTimeStamp = lastUpdateMap.get(itemName);
                 if (lastUpdateTimeStamp == null) {
                     lastUpdateTimeStamp = 0L;
                 }
 
                 long age = System.currentTimeMillis() - lastUpdateTimeStamp;
-                boolean needsUpdate = age >= refreshInterval;
-
-                if (needsUpdate) {
+                boolean needsUpdate = age >= provider.getRefreshInterval(itemName);
 
-                    String response = null;
+                // an item which is still waiting for (or busy with) its last
+                // refresh must not be queued a second time
+                if (needsUpdate && pendingItems.add(itemName)) {
+                    scheduleRefresh(provider, itemName);
+                }
+            }
+        }
+    }
 
-                    // check if special URL is used and data should get from
-                    // cache rather than directly from server
-                    if (isCacheConfig(url)) {
-                        logger.debug("item '{}' is fetched from cache", itemName);
-                        response = getCacheData(url);
-                    } else if (isValidUrl(url)) {
-                        logger.debug("item '{}' is about to be refreshed now", itemName);
-                        response = HttpUtil.executeUrl("GET", url, headers, null, null, timeout);
-                    } else {
-                        logger.debug("item '{}' is not a valid URL or is a cache id yet to be initialised ({})",
-                                itemName, url);
-                        continue;
+    /**
+     * Hands the refresh of <code>itemName</code> over to the
+     * {@link #refreshExecutor} so that a slow endpoint doesn't delay the
+     * refresh of any other item.
+     *
+     * @param provider the provider which holds the binding of the item
+     * @param itemName the item to refresh
+     */
+    private synchronized void scheduleRefresh(final HttpBindingProvider provider, final String itemName) {
+        if (refreshExecutor == null) {
+            pendingItems.remove(itemName);
+            return;
+        }
+        try {
+            refreshExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        refreshItem(provider, itemName);
+                    } catch (Exception e) {
+                        logger.error("Error refreshing item '" + itemName + "'", e);
+                    } finally {
+                        lastUpdateMap.put(itemName, System.currentTimeMillis());
+                        pendingItems.remove(itemName);
                     }
+                }
+            });
+        } catch (RejectedExecutionException ree) {
+            pendingItems.remove(itemName);
+            logger.debug("refresh of item '{}' rejected: {}", itemName, ree.getMessage());
+        }
+    }
 
-                    if (response == null) {
-                        logger.error("No response received from '{}'", url);
-                    } else {
-                        String transformedResponse;
-                        try {
-                            String[] parts = splitTransformationConfig(transformation);
-                            String transformationType = parts[0];
-                            String transformationFunction = parts[1];
-
-                            TransformationService transformationService = TransformationHelper
-                                    .getTransformationService(HttpActivator.getContext(), transformationType);
-                            if (transformationService != null) {
-                                transformedResponse = transformationService.transform(transformationFunction, response);
-                            } else {
-                                transformedResponse = response;
-                                logger.warn(
-                                        "couldn't transform response because transformationService of type '{}' is unavailable",
-                                        transformationType);
-                            }
-                        } catch (TransformationException te) {
-                            logger.error("transformation throws exception [transformation=" + transformation
-                                    + ", response=" + response + "]", te);
-
-                            // in case of an error we return the response without any
-                            // transformation
-                            transformedResponse = response;
-                        }
+    /**
+     * Requests the URL of <code>itemName</code> (directly or through the
+     * cache), transforms the response and posts the resulting state. The
+     * transformation is skipped if the response didn't change since the last
+     * refresh of the item.
+     *
+     * @param provider the provider which holds the binding of the item
+     * @param itemName the item to refresh
+     */
+    private void refreshItem(HttpBindingProvider provider, String itemName) {
+        String url = provider.getUrl(itemName);
+        url = String.format(url, Calendar.getInstance().getTime());
+
+        Properties headers = provider.getHttpHeaders(itemName);
+        String transformation = provider.getTransformation(itemName);
+
+        String response = null;
+
+        // check if special URL is used and data should get from
+        // cache rather than directly from server
+        if (isCacheConfig(url)) {
+            logger.debug("item '{}' is fetched from cache", itemName);
+            response = getCacheData(url);
+        } else if (isValidUrl(url)) {
+            logger.debug("item '{}' is about to be refreshed now", itemName);
+            response = getItemResource(itemName, url, headers).getBody(0, timeout);
+        } else {
+            logger.debug("item '{}' is not a valid URL or is a cache id yet to be initialised ({})", itemName,
+                    url);
+            return;
+        }
 
-                        logger.debug("transformed response is '{}'", transformedResponse);
+        if (response == null) {
+            logger.error("No response received from '{}'", url);
+            return;
+        }
 
-                        Class<? extends Item> itemType = provider.getItemType(itemName);
-                        State state = createState(itemType, transformedResponse);
+        State state;
+        if (response == lastResponseMap.get(itemName) && lastStateMap.containsKey(itemName)) {
+            logger.debug("response for item '{}' is unchanged, reusing the last state", itemName);
+            state = lastStateMap.get(itemName);
+        } else {
+            String transformedResponse;
+            try {
+                String[] parts = splitTransformationConfig(transformation);
+                String transformationType = parts[0];
+                String transformationFunction = parts[1];
+
+                TransformationService transformationService = TransformationHelper
+                        .getTransformationService(HttpActivator.getContext(), transformationType);
+                if (transformationService != null) {
+                    transformedResponse = transformationService.transform(transformationFunction, response);
+                } else {
+                    transformedResponse = response;
+                    logger.warn("couldn't transform response because transformationService of type '{}' is unavailable",
+                            transformationType);
+                }
+            } catch (TransformationException te) {
+                logger.error("transformation throws exception [transformation=" + transformation + ", response="
+                        + response + "]", te);
 
-                        if (state != null) {
-                            eventPublisher.postUpdate(itemName, state);
-                        }
-                    }
+                // in case of an error we return the response without any
+                // transformation
+                transformedResponse = response;
+            }
 
-                    lastUpdateMap.put(itemName, System.currentTimeMillis());
-                }
+            logger.debug("transformed response is '{}'", transformedResponse);
+
+            Class<? extends Item> itemType = provider.getItemType(itemName);
+            state = createState(itemType, transformedResponse);
+
+            lastResponseMap.put(itemName, response);
+            if (state != null) {
+                lastStateMap.put(itemName, state);
+            } else {
+                lastStateMap.remove(itemName);
             }
         }
+
+        if (state != null) {
+            eventPublisher.postUpdate(itemName, state);
+        }
+    }
+
+    /**
+     * Returns the {@link HttpResource} used to request <code>url</code> for
+     * <code>itemName</code>. Items which request the same (formatted) url with
+     * the same headers share one resource, so that their refreshes share one
+     * request and its conditional GET state. A resource which isn't used by
+     * any item anymore is dropped.
+     *
+     * @param itemName the item to return the resource for
+     * @param url the formatted url of the item
+     * @param headers the http headers of the item
+     * @return the resource of the item
+     */
+    HttpResource getItemResource(String itemName, String url, Properties headers) {
+        List<Object> key = resourceKey(url, headers);
+        synchronized (resourcesLock) {
+            HttpResource current = itemResources.get(itemName);
+            if (current != null && resourceKey(current.getUrl(), current.getHeaders()).equals(key)) {
+                return current;
+            }
+            HttpResource resource = resources.get(key);
+            if (resource == null) {
+                resource = new HttpResource(url, headers);
+                resources.put(key, resource);
+            }
+            itemResources.put(itemName, resource);
+            releaseResource(current);
+            return resource;
+        }
+    }
+
+    /**
+     * Drops <code>resource</code> if no item uses it anymore. Must be called
+     * while holding the {@link #resourcesLock}.
+     *
+     * @param resource the resource an item has stopped using, may be <code>null</code>
+     */
+    private void releaseResource(HttpResource resource) {
+        if (resource != null && !itemResources.containsValue(resource)) {
+            resources.remove(resourceKey(resource.getUrl(), resource.getHeaders()));
+        }
+    }
+
+    private static List<Object> resourceKey(String url, Properties headers) {
+        // Properties compare by content, so equal headers give equal keys
+        return Arrays.<Object> asList(url, headers);
     }
 
     /**
@@ -355,40 +540,29 @@ public class HttpBinding extends AbstractActiveBinding<HttpBindingProvider>imple
     }
 
     /**
-     * Synchronized access to the item cache. Checks the <code>cacheId</code>
-     * is a cached item and returns the cached value. If the cache has
-     * expired, refresh the cache value by making a new HTTP request.
+     * Checks the <code>cacheId</code> is a cached item and returns the cached
+     * value. If the cache has expired, refresh the cache value by making a new
+     * HTTP request. The item cache lock is only held for the lookup, the
+     * request itself is serialized per cache item only, so a slow endpoint
+     * doesn't block the other cache items.
      *
      * @param cacheId
      * @return the cached (or refreshed) dats
      */
     private String getCacheData(String cacheId) {
+        CacheConfig cacheConfig;
         synchronized (itemCacheLock) {
             // check again in case the cache was cleared in between taking
             // the lock when checking in isCacheConfig() and now
-            if (!itemCache.containsKey(cacheId)) {
-                return null;
-            }
-
-            CacheConfig cacheConfig = itemCache.get(cacheId);
-
-            long cacheAge = System.currentTimeMillis() - cacheConfig.lastUpdate;
-            boolean cacheNeedsUpdate = cacheAge >= cacheConfig.updateInterval;
-
-            if (cacheNeedsUpdate) {
-
-                // update and store data on cache
-                logger.debug("updating cache for '{}' ('{}')", cacheId, cacheConfig.url);
-                cacheConfig.data = HttpUtil.executeUrl("GET", cacheConfig.url, cacheConfig.headers, null, null,
-                        timeout);
-
-                if (cacheConfig.data != null) {
-                    cacheConfig.lastUpdate = System.currentTimeMillis();
-                }
-            }
+            cacheConfig = itemCache.get(cacheId);
+        }
 
-            return cacheConfig.data;
+        if (cacheConfig == null || cacheConfig.resource == null) {
+            return null;
         }
+
+        logger.debug("reading cache for '{}' ('{}')", cacheId, cacheConfig.url);
+        return cacheConfig.resource.getBody(cacheConfig.updateInterval, timeout);
     }
 
     /**
@@ -412,6 +586,11 @@ public class HttpBinding extends AbstractActiveBinding<HttpBindingProvider>imple
                     granularity = Integer.parseInt(granularityString);
                 }
 
+                String numberOfThreadsString = (String) config.get(CONFIG_NUMBER_OF_THREADS);
+                if (StringUtils.isNotBlank(numberOfThreadsString)) {
+                    setNumberOfThreads(Integer.parseInt(numberOfThreadsString));
+                }
+
                 // Parse page cache config
 
                 @SuppressWarnings("unchecked")
@@ -422,7 +601,8 @@ public class HttpBinding extends AbstractActiveBinding<HttpBindingProvider>imple
 
                     // the config-key enumeration contains additional keys that we
                     // don't want to process here ...
-                    if (CONFIG_TIMEOUT.equals(key) || CONFIG_GRANULARITY.equals(key) || "service.pid".equals(key)) {
+                    if (CONFIG_TIMEOUT.equals(key) || CONFIG_GRANULARITY.equals(key)
+                            || CONFIG_NUMBER_OF_THREADS.equals(key) || "service.pid".equals(key)) {
                         continue;
                     }
 
@@ -457,6 +637,7 @@ public class HttpBinding extends AbstractActiveBinding<HttpBindingProvider>imple
                         }
                         cacheConfig.url = matcher.group(1);
                         cacheConfig.headers = parseHttpHeaders(matcher.group(2));
+                        cacheConfig.resource = new HttpResource(cacheConfig.url, cacheConfig.headers);
                     } else if ("updateInterval".equals(configKey)) {
                         cacheConfig.updateInterval = Integer.valueOf(value);
                     } else {
@@ -468,6 +649,27 @@ public class HttpBinding extends AbstractActiveBinding<HttpBindingProvider>imple
         }
     }
 
+    /**
+     * Sets the size of the refresh pool and replaces a running pool by one of
+     * the new size.
+     *
+     * @param numberOfThreads the new number of refresh threads
+     * @throws ConfigurationException if <code>numberOfThreads</code> is less than one
+     */
+    private synchronized void setNumberOfThreads(int numberOfThreads) throws ConfigurationException {
+        if (numberOfThreads < 1) {
+            throw new ConfigurationException(CONFIG_NUMBER_OF_THREADS,
+                    "the number of threads must be at least 1 but was " + numberOfThreads);
+        }
+        if (numberOfThreads != this.numberOfThreads) {
+            this.numberOfThreads = numberOfThreads;
+            if (refreshExecutor != null) {
+                refreshExecutor.shutdown();
+                refreshExecutor = Executors.newFixedThreadPool(numberOfThreads);
+            }
+        }
+    }
+
     private Properties parseHttpHeaders(String group) {
         Properties headers = new Properties();
         if (group != null && group.length() > 0) {
@@ -506,11 +708,8 @@ public class HttpBinding extends AbstractActiveBinding<HttpBindingProvider>imple
         /** Update interval for cache */
         int updateInterval = 0;
 
-        /** Variable to store cached data */
-        String data;
-
-        /** Last time when data is updated */
-        long lastUpdate;
+        /** The resource which requests and holds the cached data */
+        HttpResource resource;
 
         public CacheConfig(String id) {
             this.id = id;
@@ -0,0 +1,188 @@
+/**
+ * Copyright (c) 2010-2016, openHAB.org and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.http.internal;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Properties;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import org.apache.commons.httpclient.DefaultHttpMethodRetryHandler;
+import org.apache.commons.httpclient.Header;
+import org.apache.commons.httpclient.HeaderElement;
+import org.apache.commons.httpclient.HttpException;
+import org.apache.commons.httpclient.HttpStatus;
+import org.apache.commons.httpclient.methods.GetMethod;
+import org.apache.commons.httpclient.params.HttpMethodParams;
+import org.apache.commons.io.IOUtils;
+import org.openhab.io.net.http.HttpUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A remote resource which is polled by the {@link HttpBinding}. It remembers
+ * the last response body together with its <code>ETag</code> and
+ * <code>Last-Modified</code> validators and refreshes itself by conditional
+ * GET requests, so that an unchanged resource is neither transferred nor
+ * handed out as a new body again.
+ * <p>
+ * All fetches of one resource are serialized: callers arriving while a request
+ * is in flight wait for it and reuse its result (single-flight). Different
+ * resources never block each other.
+ *
+ * @author agent
+ * @since 1.9.0
+ */
+class HttpResource {
+
+    private static final Logger logger = LoggerFactory.getLogger(HttpResource.class);
+
+    private final String url;
+
+    private final Properties headers;
+
+    /** last body received, the same instance is returned as long as the resource is unchanged */
+    private String body;
+
+    /** value of the last <code>ETag</code> response header */
+    private String etag;
+
+    /** value of the last <code>Last-Modified</code> response header */
+    private String lastModified;
+
+    /** time of the last successful request */
+    private long lastUpdate;
+
+    /** time at which the last request completed, successful or not */
+    private long lastFetch;
+
+    HttpResource(String url, Properties headers) {
+        this.url = url;
+        this.headers = headers;
+    }
+
+    String getUrl() {
+        return url;
+    }
+
+    Properties getHeaders() {
+        return headers;
+    }
+
+    /**
+     * Returns the body of this resource. A new request is only sent if the
+     * last successful one is older than <code>maxAge</code> milliseconds and
+     * has not completed while this call was waiting for it.
+     *
+     * @param maxAge the maximum age of the stored body in milliseconds
+     * @param timeout the socket timeout in milliseconds
+     * @return the (possibly unchanged) body or <code>null</code> if the
+     *         last request failed or returned no content
+     */
+    String getBody(long maxAge, int timeout) {
+        long requested = System.currentTimeMillis();
+        synchronized (this) {
+            // a request which completed after this call arrived was in flight while we waited
+            boolean joined = lastFetch >= requested;
+            if (!joined && (body == null || requested - lastUpdate >= maxAge)) {
+                fetch(timeout);
+            }
+            return body;
+        }
+    }
+
+    private void fetch(int timeout) {
+        GetMethod method = new GetMethod(url);
+        method.getParams().setSoTimeout(timeout);
+        method.getParams().setParameter(HttpMethodParams.RETRY_HANDLER, new DefaultHttpMethodRetryHandler(3, false));
+        if (headers != null) {
+            for (String httpHeaderKey : headers.stringPropertyNames()) {
+                method.addRequestHeader(new Header(httpHeaderKey, headers.getProperty(httpHeaderKey)));
+            }
+        }
+        if (body != null) {
+            if (etag != null) {
+                method.addRequestHeader("If-None-Match", etag);
+            }
+            if (lastModified != null) {
+                method.addRequestHeader("If-Modified-Since", lastModified);
+            }
+        }
+
+        try {
+            int statusCode = HttpUtil.createHttpClient(url).executeMethod(method);
+            if (statusCode == HttpStatus.SC_NOT_MODIFIED) {
+                logger.trace("'{}' has not been modified", url);
+                lastUpdate = System.currentTimeMillis();
+                return;
+            }
+            if (statusCode == HttpStatus.SC_NO_CONTENT || statusCode == HttpStatus.SC_ACCEPTED) {
+                // perfectly fine but we cannot expect any answer...
+                clear();
+                return;
+            }
+            if (statusCode != HttpStatus.SC_OK) {
+                logger.warn("Method failed: {}", method.getStatusLine());
+            }
+
+            String responseBody = IOUtils.toString(getResponseStream(method));
+            if (!responseBody.equals(body)) {
+                body = responseBody;
+            }
+            etag = getHeaderValue(method, "ETag");
+            lastModified = getHeaderValue(method, "Last-Modified");
+            lastUpdate = System.currentTimeMillis();
+        } catch (HttpException he) {
+            logger.error("Fatal protocol violation: {}", he.toString());
+            clear();
+        } catch (IOException ioe) {
+            logger.error("Fatal transport error: {}", ioe.toString());
+            clear();
+        } finally {
+            method.releaseConnection();
+            lastFetch = System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * Forgets the last body and its validators, so that a failed request
+     * doesn't hand out the previous body as if it was current.
+     */
+    private void clear() {
+        body = null;
+        etag = null;
+        lastModified = null;
+    }
+
+    private static InputStream getResponseStream(GetMethod method) throws IOException {
+        InputStream responseStream = method.getResponseBodyAsStream();
+        Header encodingHeader = method.getResponseHeader("Content-Encoding");
+        if (encodingHeader != null) {
+            for (HeaderElement ehElem : encodingHeader.getElements()) {
+                if (ehElem.toString().matches(".*gzip.*")) {
+                    responseStream = new GZIPInputStream(responseStream);
+                } else if (ehElem.toString().matches(".*deflate.*")) {
+                    responseStream = new InflaterInputStream(responseStream);
+                }
+            }
+        }
+        return responseStream;
+    }
+
+    private static String getHeaderValue(GetMethod method, String name) {
+        Header header = method.getResponseHeader(name);
+        return header != null ? header.getValue() : null;
+    }
+
+    @Override
+    public String toString() {
+        return "HttpResource [url=" + url + ", etag=" + etag + ", lastModified=" + lastModified + "]";
+    }
+}
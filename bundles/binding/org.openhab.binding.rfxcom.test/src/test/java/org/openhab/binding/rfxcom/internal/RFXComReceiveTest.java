@@ -0,0 +1,162 @@
+/**
+ * Copyright (c) 2010-2016, openHAB.org and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.rfxcom.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import javax.xml.bind.DatatypeConverter;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.openhab.binding.rfxcom.RFXComBindingProvider;
+import org.openhab.binding.rfxcom.internal.messages.RFXComHumidityMessage;
+import org.openhab.binding.rfxcom.internal.messages.RFXComLighting1Message;
+import org.openhab.binding.rfxcom.internal.messages.RFXComLighting2Message;
+import org.openhab.binding.rfxcom.internal.messages.RFXComMessageFactory;
+import org.openhab.binding.rfxcom.internal.messages.RFXComMessageInterface;
+import org.openhab.binding.rfxcom.internal.messages.RFXComTemperatureHumidityMessage;
+import org.openhab.binding.rfxcom.internal.messages.RFXComTemperatureMessage;
+import org.openhab.core.library.items.NumberItem;
+import org.openhab.core.library.items.SwitchItem;
+import org.openhab.model.item.binding.BindingConfigParseException;
+
+/**
+ * Tests the decoding of received packets and the lookup of the items bound to
+ * the sending devices.
+ *
+ * @author agent
+ * @since 1.9.0
+ */
+public class RFXComReceiveTest {
+
+    /**
+     * Packets as received from a RFXtrx433 in a residential area, most of them
+     * from devices of the neighbours.
+     */
+    private static final String[] CAPTURED_PACKETS = { "0A520100A10200D7350269", "0A520102A20580C3410159",
+            "0850010BA20100C869", "0B1100000125A76E01010F60", "0710010041010170", "085101003B0337016A",
+            "0A5201030A4F00E12F0279", "0B11000301B0C2F203000070", "0850010C19D2001479", "0A520104C3210115280359",
+            "085101010C2245004A", "0710010142030070" };
+
+    private RFXComGenericBindingProvider provider;
+
+    @Before
+    public void setUp() throws BindingConfigParseException {
+        provider = new RFXComGenericBindingProvider();
+        provider.processBindingConfiguration("test", new NumberItem("Outside_Temperature"), "<41218:Temperature");
+        provider.processBindingConfiguration("test", new NumberItem("Outside_Humidity"), "<41218:Humidity");
+        provider.processBindingConfiguration("test", new NumberItem("Garage_Temperature"), "<41473:Temperature");
+        provider.processBindingConfiguration("test", new SwitchItem("Hall_Light"), "<19244910.1:Command");
+        provider.processBindingConfiguration("test", new SwitchItem("Hall_Light_Out"),
+                ">19244910.1:LIGHTING2.AC:Command");
+    }
+
+    @Test
+    public void testDecodeCapturedPackets() throws RFXComException {
+        assertDecoded(CAPTURED_PACKETS[0], RFXComTemperatureHumidityMessage.class, "41218");
+        assertDecoded(CAPTURED_PACKETS[2], RFXComTemperatureMessage.class, "41473");
+        assertDecoded(CAPTURED_PACKETS[3], RFXComLighting2Message.class, "19244910.1");
+        assertDecoded(CAPTURED_PACKETS[4], RFXComLighting1Message.class, "A.1");
+        assertDecoded(CAPTURED_PACKETS[5], RFXComHumidityMessage.class, "15107");
+
+        RFXComTemperatureHumidityMessage outside = (RFXComTemperatureHumidityMessage) RFXComMessageFactory
+                .getMessageInterface(DatatypeConverter.parseHexBinary(CAPTURED_PACKETS[0]));
+        assertEquals(21.5, outside.temperature, 0.001);
+        assertEquals(53, outside.humidity);
+        RFXComTemperatureMessage garage = (RFXComTemperatureMessage) RFXComMessageFactory
+                .getMessageInterface(DatatypeConverter.parseHexBinary(CAPTURED_PACKETS[2]));
+        assertEquals(20.0, garage.temperature, 0.001);
+    }
+
+    @Test
+    public void testUnknownPacketType() {
+        try {
+            // weight scales are not implemented, 0x77 is no packet type at all
+            RFXComMessageFactory.getMessageInterface(DatatypeConverter.parseHexBinary("085D0100010200650069"));
+            fail("Weight message decoded");
+        } catch (RFXComException e) {
+        }
+        try {
+            RFXComMessageFactory.getMessageInterface(DatatypeConverter.parseHexBinary("0877010001020065"));
+            fail("Unknown message decoded");
+        } catch (RFXComException e) {
+        }
+    }
+
+    @Test
+    public void testInBindingItemNames() throws BindingConfigParseException {
+        List<String> itemNames = new ArrayList<String>(provider.getInBindingItemNames("41218"));
+        Collections.sort(itemNames);
+        assertEquals(Arrays.asList("Outside_Humidity", "Outside_Temperature"), itemNames);
+        assertEquals(Arrays.asList("Hall_Light"), provider.getInBindingItemNames("19244910.1"));
+        assertTrue(provider.getInBindingItemNames("6464").isEmpty());
+
+        // the index follows changes of the configuration
+        provider.processBindingConfiguration("other", new NumberItem("Cellar_Temperature"), "<6464:Temperature");
+        assertEquals(Arrays.asList("Cellar_Temperature"), provider.getInBindingItemNames("6464"));
+        provider.removeConfigurations("test");
+        assertTrue(provider.getInBindingItemNames("41218").isEmpty());
+        assertEquals(Arrays.asList("Cellar_Temperature"), provider.getInBindingItemNames("6464"));
+    }
+
+    /**
+     * Replays the captured packets against 400 bound items. The items found in
+     * the device id index must be the same as those found by scanning all items.
+     */
+    @Test
+    public void testReplayCapturedPackets() throws RFXComException, BindingConfigParseException {
+        for (int i = 0; i < 200; i++) {
+            provider.processBindingConfiguration("bulk", new NumberItem("Temperature_" + i),
+                    "<" + (20000 + i) + ":Temperature");
+            provider.processBindingConfiguration("bulk", new NumberItem("Humidity_" + i),
+                    "<" + (20000 + i) + ":Humidity");
+        }
+
+        int matches = 0;
+        for (String packet : CAPTURED_PACKETS) {
+            RFXComMessageInterface message = RFXComMessageFactory.getMessageInterface(DatatypeConverter
+                    .parseHexBinary(packet));
+            List<String> itemNames = new ArrayList<String>(provider.getInBindingItemNames(message
+                    .generateDeviceId()));
+            Collections.sort(itemNames);
+            assertEquals(packet, scanItems(provider, message.generateDeviceId()), itemNames);
+            matches += itemNames.size();
+        }
+        // the two items of the outside sensor, the garage sensor and the hall light
+        assertEquals(4, matches);
+    }
+
+    private void assertDecoded(String packet, Class<?> messageClass, String deviceId) throws RFXComException {
+        RFXComMessageInterface message = RFXComMessageFactory.getMessageInterface(DatatypeConverter
+                .parseHexBinary(packet));
+        assertEquals(messageClass, message.getClass());
+        assertEquals(deviceId, message.generateDeviceId());
+    }
+
+    /**
+     * Finds the items of a device by scanning all items of the provider.
+     */
+    private static List<String> scanItems(RFXComBindingProvider provider, String deviceId) {
+        List<String> itemNames = new ArrayList<String>();
+        for (String itemName : provider.getItemNames()) {
+            if (provider.getId(itemName).equals(deviceId) && provider.isInBinding(itemName)) {
+                itemNames.add(itemName);
+            }
+        }
+        Collections.sort(itemNames);
+        return itemNames;
+    }
+}
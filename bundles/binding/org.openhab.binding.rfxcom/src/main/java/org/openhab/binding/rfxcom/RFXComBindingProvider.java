@@ -8,6 +8,8 @@
  */
 package org.openhab.binding.rfxcom;
 
+import java.util.List;
+
 import org.openhab.binding.rfxcom.internal.messages.RFXComBaseMessage.PacketType;
 import org.openhab.core.autoupdate.AutoUpdateBindingProvider;
 
@@ -77,4 +79,15 @@ public interface RFXComBindingProvider extends AutoUpdateBindingProvider {
      */
     public Object getSubType(String itemName);
 
+    /**
+     * Returns the names of the in binding items of the given device.
+     * 
+     * @param id
+     *            the device id of a received message.
+     * 
+     * @return the names of the items, an empty list if no item is bound to
+     *         the device.
+     */
+    public List<String> getInBindingItemNames(String id);
+
 }
@@ -246,22 +246,16 @@ public class RFXComBinding extends AbstractBinding<RFXComBindingProvider> {
                     if (supportedValueSelectors != null) {
 
                         for (RFXComBindingProvider provider : providers) {
-                            for (String itemName : provider.getItemNames()) {
+                            for (String itemName : provider.getInBindingItemNames(deviceId)) {
 
-                                String id1 = provider.getId(itemName);
-                                boolean inBinding = provider.isInBinding(itemName);
+                                RFXComValueSelector valueSelector = provider.getValueSelector(itemName);
 
-                                if (id1.equals(deviceId) && inBinding) {
-
-                                    RFXComValueSelector valueSelector = provider.getValueSelector(itemName);
-
-                                    if (supportedValueSelectors.contains(valueSelector)) {
-                                        try {
-                                            State value = obj.convertToState(valueSelector);
-                                            eventPublisher.postUpdate(itemName, value);
-                                        } catch (RFXComException e) {
-                                            logger.warn("Data conversion error", e);
-                                        }
+                                if (supportedValueSelectors.contains(valueSelector)) {
+                                    try {
+                                        State value = obj.convertToState(valueSelector);
+                                        eventPublisher.postUpdate(itemName, value);
+                                    } catch (RFXComException e) {
+                                        logger.warn("Data conversion error", e);
                                     }
                                 }
 
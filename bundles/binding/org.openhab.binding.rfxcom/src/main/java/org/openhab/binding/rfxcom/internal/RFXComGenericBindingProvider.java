@@ -9,6 +9,11 @@
 package org.openhab.binding.rfxcom.internal;
 
 import java.io.InvalidClassException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 import org.openhab.binding.rfxcom.RFXComBindingProvider;
 import org.openhab.binding.rfxcom.RFXComValueSelector;
@@ -52,6 +57,12 @@ import org.openhab.model.item.binding.BindingConfigParseException;
  */
 public class RFXComGenericBindingProvider extends AbstractGenericBindingProvider implements RFXComBindingProvider {
 
+    /**
+     * The names of the in binding items by device id. The index is rebuilt on
+     * first use after the binding configurations have changed.
+     */
+    private volatile Map<String, List<String>> inBindingItems = null;
+
     /**
      * {@inheritDoc}
      */
@@ -141,6 +152,39 @@ public class RFXComGenericBindingProvider extends AbstractGenericBindingProvider
         }
 
         addBindingConfig(item, config);
+        invalidateIndex();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void removeConfigurations(String context) {
+        super.removeConfigurations(context);
+        invalidateIndex();
+    }
+
+    private synchronized void invalidateIndex() {
+        inBindingItems = null;
+    }
+
+    private synchronized Map<String, List<String>> buildIndex() {
+        if (inBindingItems == null) {
+            Map<String, List<String>> index = new HashMap<String, List<String>>();
+            for (Map.Entry<String, BindingConfig> entry : bindingConfigs.entrySet()) {
+                RFXComBindingConfig config = (RFXComBindingConfig) entry.getValue();
+                if (config.inBinding) {
+                    List<String> itemNames = index.get(config.id);
+                    if (itemNames == null) {
+                        itemNames = new ArrayList<String>();
+                        index.put(config.id, itemNames);
+                    }
+                    itemNames.add(entry.getKey());
+                }
+            }
+            inBindingItems = index;
+        }
+        return inBindingItems;
     }
 
     static class RFXComBindingConfig implements BindingConfig {
@@ -185,6 +229,16 @@ public class RFXComGenericBindingProvider extends AbstractGenericBindingProvider
         return config != null ? config.subType : null;
     }
 
+    @Override
+    public List<String> getInBindingItemNames(String id) {
+        Map<String, List<String>> index = inBindingItems;
+        if (index == null) {
+            index = buildIndex();
+        }
+        List<String> itemNames = index.get(id);
+        return itemNames != null ? Collections.unmodifiableList(itemNames) : Collections.<String> emptyList();
+    }
+
     @Override
     public Boolean autoUpdate(final String itemName) {
         if (!providesBindingFor(itemName)) {
@@ -102,15 +102,8 @@ public abstract class RFXComBaseMessage implements RFXComMessageInterface {
 
         rawMessage = data;
 
-        packetType = PacketType.UNKNOWN;
         packetId = data[1];
-
-        for (PacketType pt : PacketType.values()) {
-            if (pt.toByte() == data[1]) {
-                packetType = pt;
-                break;
-            }
-        }
+        packetType = RFXComMessageFactory.getPacketType(data[1]);
 
         subType = data[2];
         seqNbr = data[3];
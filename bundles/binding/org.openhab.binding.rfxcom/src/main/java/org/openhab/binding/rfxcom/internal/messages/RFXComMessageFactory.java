@@ -10,6 +10,7 @@ package org.openhab.binding.rfxcom.internal.messages;
 
 import java.lang.reflect.Constructor;
 import java.util.Collections;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -70,6 +71,43 @@ public class RFXComMessageFactory {
                 }
             });
 
+    /**
+     * Packet types by their byte value, to look up the type of a received packet.
+     */
+    private static final PacketType[] packetTypes = new PacketType[256];
+
+    /**
+     * Constructors of the implemented messages, resolved once so that decoding
+     * a received packet needs no class lookup.
+     */
+    private static final Map<PacketType, Constructor<? extends RFXComMessageInterface>> messageConstructors;
+    private static final Map<PacketType, Constructor<? extends RFXComMessageInterface>> packetConstructors;
+
+    static {
+        messageConstructors = new EnumMap<PacketType, Constructor<? extends RFXComMessageInterface>>(PacketType.class);
+        packetConstructors = new EnumMap<PacketType, Constructor<? extends RFXComMessageInterface>>(PacketType.class);
+
+        for (PacketType p : PacketType.values()) {
+            int index = p.toByte() & 0xFF;
+            if (packetTypes[index] == null) {
+                packetTypes[index] = p;
+            }
+        }
+
+        for (Map.Entry<PacketType, String> entry : messageClasses.entrySet()) {
+            try {
+                Class<? extends RFXComMessageInterface> cl = Class.forName(classUrl + entry.getValue())
+                        .asSubclass(RFXComMessageInterface.class);
+                messageConstructors.put(entry.getKey(), cl.getConstructor());
+                packetConstructors.put(entry.getKey(), cl.getConstructor(byte[].class));
+            } catch (ClassNotFoundException e) {
+                // message not implemented
+            } catch (NoSuchMethodException e) {
+                throw new IllegalStateException("Message " + entry.getValue() + " has no suitable constructor", e);
+            }
+        }
+    }
+
     /**
      * Command to reset RFXCOM controller.
      * 
@@ -93,13 +131,13 @@ public class RFXComMessageFactory {
 
     public static RFXComMessageInterface getMessageInterface(PacketType packetType) throws RFXComException {
 
-        try {
-            String className = messageClasses.get(packetType);
-            Class<?> cl = Class.forName(classUrl + className);
-            return (RFXComMessageInterface) cl.newInstance();
+        Constructor<? extends RFXComMessageInterface> c = messageConstructors.get(packetType);
+        if (c == null) {
+            throw new RFXComException("Message " + packetType + " not implemented");
+        }
 
-        } catch (ClassNotFoundException e) {
-            throw new RFXComException("Message " + packetType + " not implemented", e);
+        try {
+            return c.newInstance();
 
         } catch (Exception e) {
             throw new RFXComException(e);
@@ -110,14 +148,13 @@ public class RFXComMessageFactory {
 
         PacketType packetType = getPacketType(packet[1]);
 
-        try {
-            String className = messageClasses.get(packetType);
-            Class<?> cl = Class.forName(classUrl + className);
-            Constructor<?> c = cl.getConstructor(byte[].class);
-            return (RFXComMessageInterface) c.newInstance(packet);
+        Constructor<? extends RFXComMessageInterface> c = packetConstructors.get(packetType);
+        if (c == null) {
+            throw new RFXComException("Message " + packetType + " not implemented");
+        }
 
-        } catch (ClassNotFoundException e) {
-            throw new RFXComException("Message " + packetType + " not implemented", e);
+        try {
+            return c.newInstance(packet);
 
         } catch (Exception e) {
             throw new RFXComException(e);
@@ -135,13 +172,8 @@ public class RFXComMessageFactory {
         throw new IllegalArgumentException("Unknown packet type " + packetType);
     }
 
-    private static PacketType getPacketType(byte packetType) {
-        for (PacketType p : PacketType.values()) {
-            if (p.toByte() == packetType) {
-                return p;
-            }
-        }
-
-        return PacketType.UNKNOWN;
+    static PacketType getPacketType(byte packetType) {
+        PacketType p = packetTypes[packetType & 0xFF];
+        return p != null ? p : PacketType.UNKNOWN;
     }
 }
@@ -9,7 +9,10 @@
 package org.openhab.binding.sonos;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.apache.commons.lang.StringUtils;
 import org.openhab.binding.sonos.internal.Direction;
@@ -719,14 +722,27 @@ public enum SonosCommandType {
                 + "' with direction '" + direction.toString() + "'");
     }
 
-    public static List<SonosCommandType> getCommandByVariable(String stateVariable) {
-        List<SonosCommandType> result = new ArrayList<SonosCommandType>();
+    /**
+     * Command types by state variable, built once as events look them up for every variable they carry
+     */
+    private static final Map<String, List<SonosCommandType>> commandsByVariable = new HashMap<String, List<SonosCommandType>>();
+
+    static {
         for (SonosCommandType c : SonosCommandType.values()) {
-            if (c.getVariable() != null && c.getVariable().equals(stateVariable)) {
-                result.add(c);
+            if (c.getVariable() != null) {
+                List<SonosCommandType> commands = commandsByVariable.get(c.getVariable());
+                if (commands == null) {
+                    commands = new ArrayList<SonosCommandType>();
+                    commandsByVariable.put(c.getVariable(), commands);
+                }
+                commands.add(c);
             }
         }
-        return result;
+    }
+
+    public static List<SonosCommandType> getCommandByVariable(String stateVariable) {
+        List<SonosCommandType> result = commandsByVariable.get(stateVariable);
+        return result != null ? Collections.unmodifiableList(result) : Collections.<SonosCommandType> emptyList();
     }
 
 }
\ No newline at end of file
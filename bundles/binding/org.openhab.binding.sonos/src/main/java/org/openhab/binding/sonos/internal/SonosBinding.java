@@ -18,6 +18,7 @@ import java.util.Dictionary;
 import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.regex.Matcher;
@@ -388,6 +389,9 @@ public class SonosBinding extends AbstractActiveBinding<SonosBindingProvider>imp
                 return;
             }
 
+            String playerId = associatedPlayer.getId();
+            String playerUdn = associatedPlayer.getUdn().getIdentifierString();
+
             for (String stateVariable : values.keySet()) {
 
                 // find all the CommandTypes that are defined for each
@@ -398,6 +402,34 @@ public class SonosBinding extends AbstractActiveBinding<SonosBindingProvider>imp
 
                 for (SonosCommandType sonosCommandType : supportedCommands) {
 
+                    // collect the items bound to this player and command
+                    // first, so that no State is created for variables
+                    // without any item
+                    Map<SonosBindingProvider, List<String>> qualifiedItemsByProvider = null;
+                    for (SonosBindingProvider provider : providers) {
+                        List<String> qualifiedItems = provider.getItemNames(playerId,
+                                sonosCommandType.getSonosCommand());
+                        List<String> qualifiedItemsByUDN = provider.getItemNames(playerUdn,
+                                sonosCommandType.getSonosCommand());
+
+                        for (String item : qualifiedItemsByUDN) {
+                            if (!qualifiedItems.contains(item)) {
+                                qualifiedItems.add(item);
+                            }
+                        }
+
+                        if (!qualifiedItems.isEmpty()) {
+                            if (qualifiedItemsByProvider == null) {
+                                qualifiedItemsByProvider = new LinkedHashMap<SonosBindingProvider, List<String>>();
+                            }
+                            qualifiedItemsByProvider.put(provider, qualifiedItems);
+                        }
+                    }
+
+                    if (qualifiedItemsByProvider == null) {
+                        continue;
+                    }
+
                     // create a new State based on the type of Sonos Command and
                     // the status value in the map
                     Type newState = null;
@@ -409,24 +441,10 @@ public class SonosBinding extends AbstractActiveBinding<SonosBindingProvider>imp
                                 sonosCommandType.getTypeClass().toString());
                     }
 
-                    for (SonosBindingProvider provider : providers) {
-                        List<String> qualifiedItems = provider.getItemNames(
-                                sonosZonePlayerCache.getByDevice(device).getId(), sonosCommandType.getSonosCommand());
-                        List<String> qualifiedItemsByUDN = provider.getItemNames(
-                                sonosZonePlayerCache.getByDevice(device).getUdn().getIdentifierString(),
-                                sonosCommandType.getSonosCommand());
-
-                        for (String item : qualifiedItemsByUDN) {
-                            if (!qualifiedItems.contains(item)) {
-                                qualifiedItems.add(item);
-                            }
-                        }
-
-                        for (String anItem : qualifiedItems) {
-                            // get the openHAB commands attached to each Item at
-                            // this given Provider
-                            List<Command> commands = provider.getCommands(anItem, sonosCommandType.getSonosCommand());
+                    for (Map.Entry<SonosBindingProvider, List<String>> entry : qualifiedItemsByProvider.entrySet()) {
+                        SonosBindingProvider provider = entry.getKey();
 
+                        for (String anItem : entry.getValue()) {
                             if (provider.getAcceptedDataTypes(anItem).contains(sonosCommandType.getTypeClass())) {
                                 if (newState != null) {
                                     eventPublisher.postUpdate(anItem, (State) newState);
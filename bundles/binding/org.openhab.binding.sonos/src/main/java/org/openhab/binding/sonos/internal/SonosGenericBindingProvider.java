@@ -13,6 +13,7 @@ import java.util.Collection;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -57,6 +58,12 @@ public class SonosGenericBindingProvider extends AbstractGenericBindingProvider
 
     static int counter = 0;
 
+    /**
+     * Index of the item names by Sonos id and Sonos command. It is rebuilt on the first lookup after the binding
+     * configurations have changed, and is <code>null</code> until then.
+     */
+    private volatile Map<String, Map<String, List<String>>> itemIndex;
+
     @Override
     public String getBindingType() {
         return "sonos";
@@ -75,13 +82,31 @@ public class SonosGenericBindingProvider extends AbstractGenericBindingProvider
             throws BindingConfigParseException {
         super.processBindingConfiguration(context, item, bindingConfig);
 
-        if (bindingConfig != null) {
-            parseAndAddBindingConfig(item, bindingConfig);
-        } else {
-            logger.warn("bindingConfig is NULL (item=" + item + ") -> processing bindingConfig aborted!");
+        try {
+            if (bindingConfig != null) {
+                parseAndAddBindingConfig(item, bindingConfig);
+            } else {
+                logger.warn("bindingConfig is NULL (item=" + item + ") -> processing bindingConfig aborted!");
+            }
+        } finally {
+            // a failing config may have been added partially
+            invalidateItemIndex();
         }
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void removeConfigurations(String context) {
+        super.removeConfigurations(context);
+        invalidateItemIndex();
+    }
+
+    private synchronized void invalidateItemIndex() {
+        itemIndex = null;
+    }
+
     private void parseAndAddBindingConfig(Item item, String bindingConfigs) throws BindingConfigParseException {
 
         String bindingConfig = StringUtils.substringBefore(bindingConfigs, ",");
@@ -275,19 +300,48 @@ public class SonosGenericBindingProvider extends AbstractGenericBindingProvider
 
     @Override
     public List<String> getItemNames(String sonosID, String sonosCommand) {
-        List<String> result = new ArrayList<String>();
-        Collection<String> items = getItemNames();
-        for (String anItem : items) {
-            SonosBindingConfig aBindingConfig = (SonosBindingConfig) bindingConfigs.get(anItem);
-            for (Command command : aBindingConfig.keySet()) {
-                SonosBindingConfigElement anElement = aBindingConfig.get(command);
-                if (anElement.getSonosCommand().equals(sonosCommand) && anElement.getSonosID().equals(sonosID)
-                        && !result.contains(anItem)) {
-                    result.add(anItem);
+        Map<String, List<String>> itemsByCommand = getItemIndex().get(sonosID);
+        List<String> items = itemsByCommand != null ? itemsByCommand.get(sonosCommand) : null;
+        return items != null ? new ArrayList<String>(items) : new ArrayList<String>();
+    }
+
+    /**
+     * Returns the index of the item names by Sonos id and Sonos command, and builds it if the binding
+     * configurations have changed since it was last built.
+     */
+    private Map<String, Map<String, List<String>>> getItemIndex() {
+        Map<String, Map<String, List<String>>> index = itemIndex;
+        return index != null ? index : buildItemIndex();
+    }
+
+    private synchronized Map<String, Map<String, List<String>>> buildItemIndex() {
+        Map<String, Map<String, List<String>>> index = itemIndex;
+        if (index == null) {
+            index = new HashMap<String, Map<String, List<String>>>();
+            for (String anItem : getItemNames()) {
+                SonosBindingConfig aBindingConfig = (SonosBindingConfig) bindingConfigs.get(anItem);
+                if (aBindingConfig == null) {
+                    continue;
+                }
+                for (SonosBindingConfigElement anElement : aBindingConfig.values()) {
+                    Map<String, List<String>> itemsByCommand = index.get(anElement.getSonosID());
+                    if (itemsByCommand == null) {
+                        itemsByCommand = new HashMap<String, List<String>>();
+                        index.put(anElement.getSonosID(), itemsByCommand);
+                    }
+                    List<String> items = itemsByCommand.get(anElement.getSonosCommand());
+                    if (items == null) {
+                        items = new ArrayList<String>();
+                        itemsByCommand.put(anElement.getSonosCommand(), items);
+                    }
+                    if (!items.contains(anItem)) {
+                        items.add(anItem);
+                    }
                 }
             }
+            itemIndex = index;
         }
-        return result;
+        return index;
     }
 
     @Override
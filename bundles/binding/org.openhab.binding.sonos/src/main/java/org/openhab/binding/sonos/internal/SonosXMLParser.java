@@ -47,6 +47,7 @@ import org.teleal.cling.model.meta.StateVariableTypeDetails;
 import org.teleal.cling.model.state.StateVariableValue;
 import org.teleal.cling.model.types.StringDatatype;
 import org.xml.sax.Attributes;
+import org.xml.sax.ContentHandler;
 import org.xml.sax.InputSource;
 import org.xml.sax.SAXException;
 import org.xml.sax.XMLReader;
@@ -101,6 +102,31 @@ public class SonosXMLParser {
         desc;
     }
 
+    /**
+     * Readers which are not in use, one per thread. A reader is taken out while it parses, so that a handler
+     * which parses embedded xml gets a reader of its own.
+     */
+    private static final ThreadLocal<XMLReader> idleReader = new ThreadLocal<XMLReader>();
+
+    /**
+     * Parses the xml string with a reader of the current thread, instead of looking up and creating a new reader
+     * for every event.
+     */
+    private static void parse(String xml, ContentHandler handler) throws SAXException, IOException {
+        XMLReader reader = idleReader.get();
+        if (reader == null) {
+            reader = XMLReaderFactory.createXMLReader();
+        } else {
+            idleReader.remove();
+        }
+        try {
+            reader.setContentHandler(handler);
+            reader.parse(new InputSource(new StringReader(xml)));
+        } finally {
+            idleReader.set(reader);
+        }
+    }
+
     /**
      * @param xml
      * @return a list of alarms from the given xml string.
@@ -108,11 +134,9 @@ public class SonosXMLParser {
      * @throws SAXException
      */
     public static List<SonosAlarm> getAlarmsFromStringResult(String xml) throws SAXException {
-        XMLReader reader = XMLReaderFactory.createXMLReader();
         AlarmHandler handler = new AlarmHandler();
-        reader.setContentHandler(handler);
         try {
-            reader.parse(new InputSource(new StringReader(xml)));
+            parse(xml, handler);
         } catch (IOException e) {
             logger.error("Could not parse Alarms from String {}", xml);
         }
@@ -126,11 +150,9 @@ public class SonosXMLParser {
      * @throws SAXException
      */
     public static List<SonosEntry> getEntriesFromString(String xml) throws SAXException {
-        XMLReader reader = XMLReaderFactory.createXMLReader();
         EntryHandler handler = new EntryHandler();
-        reader.setContentHandler(handler);
         try {
-            reader.parse(new InputSource(new StringReader(xml)));
+            parse(xml, handler);
         } catch (IOException e) {
             logger.error("Could not parse Entries from String {}", xml);
         }
@@ -146,11 +168,9 @@ public class SonosXMLParser {
      * @throws SAXException
      */
     public static SonosResourceMetaData getEmbededMetaDataFromResource(String xml) throws SAXException {
-        XMLReader reader = XMLReaderFactory.createXMLReader();
         EmbededMetaDataHandler handler = new EmbededMetaDataHandler();
-        reader.setContentHandler(handler);
         try {
-            reader.parse(new InputSource(new StringReader(xml)));
+            parse(xml, handler);
         } catch (IOException e) {
             logger.error("Could not parse Entries from String {}", xml);
         }
@@ -165,11 +185,9 @@ public class SonosXMLParser {
      * @throws SAXException
      */
     public static List<SonosZoneGroup> getZoneGroupFromXML(String xml) throws SAXException {
-        XMLReader reader = XMLReaderFactory.createXMLReader();
         ZoneGroupHandler handler = new ZoneGroupHandler();
-        reader.setContentHandler(handler);
         try {
-            reader.parse(new InputSource(new StringReader(xml)));
+            parse(xml, handler);
         } catch (IOException e) {
             // This should never happen - we're not performing I/O!
             logger.error("Could not parse ZoneGroup from String {}", xml);
@@ -180,11 +198,9 @@ public class SonosXMLParser {
     }
 
     public static List<String> getRadioTimeFromXML(String xml) throws SAXException {
-        XMLReader reader = XMLReaderFactory.createXMLReader();
         OpmlHandler handler = new OpmlHandler();
-        reader.setContentHandler(handler);
         try {
-            reader.parse(new InputSource(new StringReader(xml)));
+            parse(xml, handler);
         } catch (IOException e) {
             // This should never happen - we're not performing I/O!
             logger.error("Could not parse RadioTime from String {}", xml);
@@ -195,11 +211,9 @@ public class SonosXMLParser {
     }
 
     public static Map<String, StateVariableValue> getRenderingControlFromXML(String xml) throws SAXException {
-        XMLReader reader = XMLReaderFactory.createXMLReader();
         RenderingControlEventHandler handler = new RenderingControlEventHandler();
-        reader.setContentHandler(handler);
         try {
-            reader.parse(new InputSource(new StringReader(xml)));
+            parse(xml, handler);
         } catch (IOException e) {
             // This should never happen - we're not performing I/O!
             logger.debug("Could not parse Rendering Control event: {}", e);
@@ -208,11 +222,9 @@ public class SonosXMLParser {
     }
 
     public static Map<String, StateVariableValue> getAVTransportFromXML(String xml) throws SAXException {
-        XMLReader reader = XMLReaderFactory.createXMLReader();
         AVTransportEventHandler handler = new AVTransportEventHandler();
-        reader.setContentHandler(handler);
         try {
-            reader.parse(new InputSource(new StringReader(xml)));
+            parse(xml, handler);
         } catch (IOException e) {
             // This should never happen - we're not performing I/O!
             logger.error("Could not parse AV Transport Event: {}", e);
@@ -221,12 +233,10 @@ public class SonosXMLParser {
     }
 
     public static SonosMetaData getMetaDataFromXML(String xml) throws SAXException {
-        XMLReader reader = XMLReaderFactory.createXMLReader();
         // logger.debug("getTrackFromXML {}",xml);
         MetaDataHandler handler = new MetaDataHandler();
-        reader.setContentHandler(handler);
         try {
-            reader.parse(new InputSource(new StringReader(xml)));
+            parse(xml, handler);
         } catch (IOException e) {
             // This should never happen - we're not performing I/O!
             logger.error("Could not parse AV Transport Event: {}", e);
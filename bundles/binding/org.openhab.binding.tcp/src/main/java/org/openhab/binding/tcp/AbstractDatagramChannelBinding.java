@@ -16,6 +16,7 @@ import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.nio.ByteBuffer;
 import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ClosedSelectorException;
 import java.nio.channels.DatagramChannel;
 import java.nio.channels.NotYetConnectedException;
 import java.nio.channels.SelectionKey;
@@ -29,6 +30,7 @@ import java.util.List;
 
 import org.apache.commons.lang.StringUtils;
 import org.openhab.core.binding.AbstractActiveBinding;
+import org.openhab.core.binding.BindingProvider;
 import org.openhab.core.library.types.StringType;
 import org.openhab.core.types.Command;
 import org.openhab.core.types.State;
@@ -83,6 +85,8 @@ public abstract class AbstractDatagramChannelBinding<P extends ChannelBindingPro
     protected boolean useAddressMask = true;
     // refresh interval for the worker thread
     protected long refreshInterval = 250;
+    // flag to indicate that the channels of the items have to be set up by the worker thread
+    private volatile boolean channelSetupRequired = true;
 
     protected DatagramChannel listenerChannel = null;
     protected SelectionKey listenerKey = null;
@@ -93,6 +97,12 @@ public abstract class AbstractDatagramChannelBinding<P extends ChannelBindingPro
     // Simple datastructure to track the state of Channels
     protected ChannelTracker<Channel> channels = new ChannelTracker<Channel>();
 
+    // Thread that blocks on the selector and processes the events of all channels
+    private SelectorThread selectorThread;
+
+    // Buffer that is reused for all read operations, it is only accessed by the selector thread
+    private ByteBuffer directReadBuffer;
+
     /**
      * Datastructure to represent that state of a communications channel
      * 
@@ -690,7 +700,7 @@ public abstract class AbstractDatagramChannelBinding<P extends ChannelBindingPro
             synchronized (selector) {
                 selector.wakeup();
                 try {
-                    listenerKey = listenerChannel.register(selector, listenerChannel.validOps());
+                    listenerKey = listenerChannel.register(selector, SelectionKey.OP_READ);
                 } catch (ClosedChannelException e1) {
                     logger.error("An exception occurred while registering a selector: {}", e1.getMessage());
                 }
@@ -712,7 +722,11 @@ public abstract class AbstractDatagramChannelBinding<P extends ChannelBindingPro
             selector = Selector.open();
         } catch (IOException e) {
             logger.error("An exception occurred while registering the selector: {}", e.getMessage());
+            return;
         }
+
+        selectorThread = new SelectorThread(getName());
+        selectorThread.start();
     }
 
     /**
@@ -721,18 +735,128 @@ public abstract class AbstractDatagramChannelBinding<P extends ChannelBindingPro
     @Override
     public void deactivate() {
 
+        if (selectorThread != null) {
+            selectorThread.interrupt();
+            selectorThread = null;
+        }
+
         try {
+            // closing the selector also wakes up the selector thread
             selector.close();
         } catch (IOException e) {
             logger.error("An exception occurred while closing the selector: {}", e.getMessage());
         }
 
-        try {
-            listenerChannel.close();
-        } catch (IOException e) {
-            logger.error("An exception occurred while closing the Listener Channel on port number {} ({})",
-                    listenerPort, e.getMessage());
+        if (listenerChannel != null) {
+            try {
+                listenerChannel.close();
+            } catch (IOException e) {
+                logger.error("An exception occurred while closing the Listener Channel on port number {} ({})",
+                        listenerPort, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Thread that waits on the selector for events of the registered channels and processes them as soon as they
+     * occur. Threads that register channels or queue data to be written wake it up.
+     * 
+     * @author Karel Goderis
+     * @since 1.9.0
+     *
+     */
+    private class SelectorThread extends Thread {
+
+        public SelectorThread(String bindingName) {
+            super(bindingName + " Selector");
+            setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            while (!isInterrupted() && selector.isOpen()) {
+                try {
+                    // let a thread that woke us up to register a channel finish its registration first
+                    synchronized (selector) {
+                        updateWriteInterest();
+                    }
+
+                    selector.select();
+                    processSelectedKeys();
+                } catch (ClosedSelectorException e) {
+                    break;
+                } catch (IOException e) {
+                    logger.error("An exception occurred while Selecting ({})", e.getMessage());
+                } catch (RuntimeException e) {
+                    logger.error("An exception occurred while processing the selected keys", e);
+                }
+            }
+            logger.debug("The selector thread {} has stopped", getName());
+        }
+    }
+
+    /**
+     * Adds the write operation to the interest set of all channels that have data queued and are not waiting for the
+     * response to a blocking write operation. Channels without pending data are not selected for writing, so that the
+     * selector does not return immediately for every connected channel.
+     */
+    private void updateWriteInterest() {
+        synchronized (writeQueue) {
+            for (WriteBufferElement anElement : writeQueue) {
+                DatagramChannel theDatagramChannel = anElement.channel.channel;
+                if (theDatagramChannel != null && !channels.isBlocking(theDatagramChannel)) {
+                    SelectionKey selKey = theDatagramChannel.keyFor(selector);
+                    if (selKey != null && selKey.isValid()) {
+                        selKey.interestOps(selKey.interestOps() | SelectionKey.OP_WRITE);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the cleared buffer to read data from a channel into. The same direct buffer is reused for all read
+     * operations.
+     */
+    private ByteBuffer getReadBuffer() {
+        if (directReadBuffer == null || directReadBuffer.capacity() != maximumBufferSize) {
+            directReadBuffer = ByteBuffer.allocateDirect(maximumBufferSize);
         }
+        directReadBuffer.clear();
+        return directReadBuffer;
+    }
+
+    /**
+     * Copies the data read into the given buffer into a new heap buffer of exactly the size of that data, which can
+     * be handed out to the implementing binding.
+     *
+     * @param readBuffer the buffer that data has been read into
+     * @return a flipped ByteBuffer, backed by an array, with the data read
+     */
+    private ByteBuffer copyReadBuffer(ByteBuffer readBuffer) {
+        readBuffer.flip();
+        ByteBuffer copy = ByteBuffer.allocate(readBuffer.remaining());
+        copy.put(readBuffer);
+        copy.flip();
+        return copy;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void bindingChanged(BindingProvider provider, String itemName) {
+        channelSetupRequired = true;
+        super.bindingChanged(provider, itemName);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void allBindingsChanged(BindingProvider provider) {
+        channelSetupRequired = true;
+        super.allBindingsChanged(provider);
     }
 
     /**
@@ -1040,23 +1164,32 @@ public abstract class AbstractDatagramChannelBinding<P extends ChannelBindingPro
 
             if (theBuffer != null) {
                 writeQueue.add(new WriteBufferElement(theChannel, theBuffer, true));
+                selector.wakeup();
 
-                long currentElapsedTimeMillis = System.currentTimeMillis();
-
-                while (theChannel.buffer == null && (System.currentTimeMillis() - currentElapsedTimeMillis) < timeOut) {
-                    try {
-                        Thread.sleep(50);
-                    } catch (InterruptedException e) {
-                        logger.warn("An Exception occurred while waiting waiting during a blocking buffer write");
+                ByteBuffer responseBuffer = null;
+                synchronized (theChannel) {
+                    // the selector thread notifies us as soon as the response has been read
+                    long deadline = System.currentTimeMillis() + timeOut;
+                    long remaining = timeOut;
+                    while (theChannel.buffer == null && remaining > 0) {
+                        try {
+                            theChannel.wait(remaining);
+                        } catch (InterruptedException e) {
+                            logger.warn("An Exception occurred while waiting waiting during a blocking buffer write");
+                            Thread.currentThread().interrupt();
+                            break;
+                        }
+                        remaining = deadline - System.currentTimeMillis();
                     }
-                }
 
-                ByteBuffer responseBuffer = null;
-                synchronized (this) {
                     responseBuffer = theChannel.buffer;
                     theChannel.buffer = null;
                     theChannel.isBlocking = false;
                 }
+                if (responseBuffer == null) {
+                    // timed out, let the selector thread pick up the channel as a normal one again
+                    selector.wakeup();
+                }
                 return responseBuffer;
             } else {
                 return theBuffer;
@@ -1066,6 +1199,7 @@ public abstract class AbstractDatagramChannelBinding<P extends ChannelBindingPro
 
             if (theBuffer != null) {
                 writeQueue.add(new WriteBufferElement(theChannel, theBuffer, false));
+                selector.wakeup();
             }
 
             return theBuffer;
@@ -1125,7 +1259,7 @@ public abstract class AbstractDatagramChannelBinding<P extends ChannelBindingPro
                             theBinding.selector.wakeup();
                             try {
                                 if (theChannel.channel != null) {
-                                    theChannel.channel.register(theBinding.selector, theChannel.channel.validOps());
+                                    theChannel.channel.register(theBinding.selector, SelectionKey.OP_READ);
                                 }
                             } catch (ClosedChannelException e1) {
                                 logger.error("An exception occurred while registering a selector: {}", e1.getMessage());
@@ -1200,6 +1334,13 @@ public abstract class AbstractDatagramChannelBinding<P extends ChannelBindingPro
     @Override
     protected void execute() {
 
+        // Channels only have to be set up after the bindings have changed, all network events are handled by the
+        // selector thread
+        if (!channelSetupRequired) {
+            return;
+        }
+        channelSetupRequired = false;
+
         // Cycle through the Items and setup channels if required
         for (P provider : providers) {
             for (String itemName : provider.getItemNames()) {
@@ -1352,7 +1493,7 @@ public abstract class AbstractDatagramChannelBinding<P extends ChannelBindingPro
                                         synchronized (selector) {
                                             selector.wakeup();
                                             try {
-                                                newDatagramChannel.register(selector, newDatagramChannel.validOps());
+                                                newDatagramChannel.register(selector, SelectionKey.OP_READ);
                                             } catch (ClosedChannelException e1) {
                                                 logger.error("An exception occurred while registering a selector: {}",
                                                         e1.getMessage());
@@ -1381,15 +1522,12 @@ public abstract class AbstractDatagramChannelBinding<P extends ChannelBindingPro
             }
         }
 
-        // Check on channels for which we have to process data
-        synchronized (selector) {
-            try {
-                // Wait for an event
-                selector.selectNow();
-            } catch (IOException e) {
-                logger.error("An exception occurred while Selecting ({})", e.getMessage());
-            }
-        }
+    }
+
+    /**
+     * Processes the events of the channels selected by the selector thread
+     */
+    private void processSelectedKeys() {
 
         // Get list of selection keys with pending events
         Iterator<SelectionKey> it = selector.selectedKeys().iterator();
@@ -1405,16 +1543,17 @@ public abstract class AbstractDatagramChannelBinding<P extends ChannelBindingPro
 
                 if (selKey.isReadable()) {
                     InetSocketAddress clientAddress = null;
-                    ByteBuffer readBuffer = ByteBuffer.allocate(maximumBufferSize);
+                    ByteBuffer readBuffer = getReadBuffer();
                     int numberBytesRead = 0;
                     boolean error = false;
 
                     if (selKey == listenerKey) {
                         try {
                             clientAddress = (InetSocketAddress) theDatagramChannel.receive(readBuffer);
+                            readBuffer = copyReadBuffer(readBuffer);
                             logger.debug("Received {} on the listener port from {}", new String(readBuffer.array()),
                                     clientAddress);
-                            numberBytesRead = readBuffer.position();
+                            numberBytesRead = readBuffer.limit();
                         } catch (Exception e) {
                             error = true;
                         }
@@ -1427,6 +1566,7 @@ public abstract class AbstractDatagramChannelBinding<P extends ChannelBindingPro
                             // for example, the buffer needs to be split based on a special character like line feed or
                             // carriage return
                             numberBytesRead = theDatagramChannel.read(readBuffer);
+                            readBuffer = copyReadBuffer(readBuffer);
                             logger.debug("Received {} bytes ({}) on the channel {}->{}",
                                     new Object[] { numberBytesRead, new String(readBuffer.array()),
                                             theDatagramChannel.getLocalAddress(),
@@ -1476,6 +1616,9 @@ public abstract class AbstractDatagramChannelBinding<P extends ChannelBindingPro
                     if (error) {
                         if (selKey != listenerKey) {
 
+                            // the channel will be replaced by the reconnect job, stop selecting it in the meantime
+                            selKey.cancel();
+
                             Scheduler scheduler = null;
                             try {
                                 scheduler = StdSchedulerFactory.getDefaultScheduler();
@@ -1531,8 +1674,6 @@ public abstract class AbstractDatagramChannelBinding<P extends ChannelBindingPro
 
                         if (channelsToServe.size() > 0) {
 
-                            readBuffer.flip();
-
                             if (channels.isBlocking(theDatagramChannel)) {
                                 // if we are in a blocking operation, we get are now finished and we have to reset the
                                 // flag. The read buffer will be returned to the instance
@@ -1540,7 +1681,10 @@ public abstract class AbstractDatagramChannelBinding<P extends ChannelBindingPro
 
                                 // find the Channel with this DGC that is holding a Blocking flag
                                 theChannel = channels.getBlocking(theDatagramChannel);
-                                theChannel.buffer = readBuffer;
+                                synchronized (theChannel) {
+                                    theChannel.buffer = readBuffer;
+                                    theChannel.notifyAll();
+                                }
 
                             } else {
                                 for (Channel aChannel : channelsToServe) {
@@ -1571,6 +1715,9 @@ public abstract class AbstractDatagramChannelBinding<P extends ChannelBindingPro
                     }
                 } else if (selKey.isWritable()) {
 
+                    // the selector thread sets the write interest again as long as data is queued
+                    selKey.interestOps(selKey.interestOps() & ~SelectionKey.OP_WRITE);
+
                     WriteBufferElement theElement = null;
 
                     if (selKey == listenerKey) {
@@ -17,6 +17,7 @@ import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.nio.ByteBuffer;
 import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ClosedSelectorException;
 import java.nio.channels.NoConnectionPendingException;
 import java.nio.channels.NotYetConnectedException;
 import java.nio.channels.SelectionKey;
@@ -31,6 +32,7 @@ import java.util.List;
 
 import org.apache.commons.lang.StringUtils;
 import org.openhab.core.binding.AbstractActiveBinding;
+import org.openhab.core.binding.BindingProvider;
 import org.openhab.core.library.types.StringType;
 import org.openhab.core.types.Command;
 import org.openhab.core.types.State;
@@ -87,6 +89,8 @@ public abstract class AbstractSocketChannelBinding<P extends ChannelBindingProvi
     protected boolean useAddressMask = true;
     // refresh interval for the worker thread
     protected long refreshInterval = 250;
+    // flag to indicate that the channels of the items have to be set up by the worker thread
+    private volatile boolean channelSetupRequired = true;
 
     protected ServerSocketChannel listenerChannel = null;
     protected SelectionKey listenerKey = null;
@@ -97,6 +101,12 @@ public abstract class AbstractSocketChannelBinding<P extends ChannelBindingProvi
     // Simple datastructure to track the state of Channels
     protected ChannelTracker<Channel> channels = new ChannelTracker<Channel>();
 
+    // Thread that blocks on the selector and processes the events of all channels
+    private SelectorThread selectorThread;
+
+    // Buffer that is reused for all read operations, it is only accessed by the selector thread
+    private ByteBuffer directReadBuffer;
+
     /**
      * Datastructure to represent that state of a communications channel
      * 
@@ -708,7 +718,11 @@ public abstract class AbstractSocketChannelBinding<P extends ChannelBindingProvi
             selector = Selector.open();
         } catch (IOException e) {
             logger.error("An exception occurred while registering the selector: {}", e.getMessage());
+            return;
         }
+
+        selectorThread = new SelectorThread(getName());
+        selectorThread.start();
     }
 
     /**
@@ -717,19 +731,129 @@ public abstract class AbstractSocketChannelBinding<P extends ChannelBindingProvi
     @Override
     public void deactivate() {
 
+        if (selectorThread != null) {
+            selectorThread.interrupt();
+            selectorThread = null;
+        }
+
         try {
+            // closing the selector also wakes up the selector thread
             selector.close();
         } catch (IOException e) {
             logger.error("An exception occurred while closing the selector: {}", e.getMessage());
         }
 
-        try {
-            listenerChannel.close();
-        } catch (IOException e) {
-            logger.error("An exception occurred while closing the Listener Channel on port number {} ({})",
-                    listenerPort, e.getMessage());
+        if (listenerChannel != null) {
+            try {
+                listenerChannel.close();
+            } catch (IOException e) {
+                logger.error("An exception occurred while closing the Listener Channel on port number {} ({})",
+                        listenerPort, e.getMessage());
+
+            }
+        }
+    }
+
+    /**
+     * Thread that waits on the selector for events of the registered channels and processes them as soon as they
+     * occur. Threads that register channels or queue data to be written wake it up.
+     * 
+     * @author Karel Goderis
+     * @since 1.9.0
+     *
+     */
+    private class SelectorThread extends Thread {
+
+        public SelectorThread(String bindingName) {
+            super(bindingName + " Selector");
+            setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            while (!isInterrupted() && selector.isOpen()) {
+                try {
+                    // let a thread that woke us up to register a channel finish its registration first
+                    synchronized (selector) {
+                        updateWriteInterest();
+                    }
+
+                    selector.select();
+                    processSelectedKeys();
+                } catch (ClosedSelectorException e) {
+                    break;
+                } catch (IOException e) {
+                    logger.error("An exception occurred while Selecting ({})", e.getMessage());
+                } catch (RuntimeException e) {
+                    logger.error("An exception occurred while processing the selected keys", e);
+                }
+            }
+            logger.debug("The selector thread {} has stopped", getName());
+        }
+    }
 
+    /**
+     * Adds the write operation to the interest set of all channels that have data queued and are not waiting for the
+     * response to a blocking write operation. Channels without pending data are not selected for writing, so that the
+     * selector does not return immediately for every connected channel.
+     */
+    private void updateWriteInterest() {
+        synchronized (writeQueue) {
+            for (WriteBufferElement anElement : writeQueue) {
+                SocketChannel theSocketChannel = anElement.channel.channel;
+                if (theSocketChannel != null && !channels.isBlocking(theSocketChannel)) {
+                    SelectionKey selKey = theSocketChannel.keyFor(selector);
+                    if (selKey != null && selKey.isValid()) {
+                        selKey.interestOps(selKey.interestOps() | SelectionKey.OP_WRITE);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the cleared buffer to read data from a channel into. The same direct buffer is reused for all read
+     * operations.
+     */
+    private ByteBuffer getReadBuffer() {
+        if (directReadBuffer == null || directReadBuffer.capacity() != maximumBufferSize) {
+            directReadBuffer = ByteBuffer.allocateDirect(maximumBufferSize);
         }
+        directReadBuffer.clear();
+        return directReadBuffer;
+    }
+
+    /**
+     * Copies the data read into the given buffer into a new heap buffer of exactly the size of that data, which can
+     * be handed out to the implementing binding.
+     *
+     * @param readBuffer the buffer that data has been read into
+     * @return a flipped ByteBuffer, backed by an array, with the data read
+     */
+    private ByteBuffer copyReadBuffer(ByteBuffer readBuffer) {
+        readBuffer.flip();
+        ByteBuffer copy = ByteBuffer.allocate(readBuffer.remaining());
+        copy.put(readBuffer);
+        copy.flip();
+        return copy;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void bindingChanged(BindingProvider provider, String itemName) {
+        channelSetupRequired = true;
+        super.bindingChanged(provider, itemName);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void allBindingsChanged(BindingProvider provider) {
+        channelSetupRequired = true;
+        super.allBindingsChanged(provider);
     }
 
     /**
@@ -1059,24 +1183,33 @@ public abstract class AbstractSocketChannelBinding<P extends ChannelBindingProvi
             if (theBuffer != null) {
                 if (theSocketChannel.isConnected() || queueUntilConnected) {
                     writeQueue.add(new WriteBufferElement(theChannel, theBuffer, true));
+                    selector.wakeup();
                 }
 
-                long currentElapsedTimeMillis = System.currentTimeMillis();
-
-                while (theChannel.buffer == null && (System.currentTimeMillis() - currentElapsedTimeMillis) < timeOut) {
-                    try {
-                        Thread.sleep(100);
-                    } catch (InterruptedException e) {
-                        logger.warn("Exception occurred while waiting waiting during a blocking buffer write");
+                ByteBuffer responseBuffer = null;
+                synchronized (theChannel) {
+                    // the selector thread notifies us as soon as the response has been read
+                    long deadline = System.currentTimeMillis() + timeOut;
+                    long remaining = timeOut;
+                    while (theChannel.buffer == null && remaining > 0) {
+                        try {
+                            theChannel.wait(remaining);
+                        } catch (InterruptedException e) {
+                            logger.warn("Exception occurred while waiting waiting during a blocking buffer write");
+                            Thread.currentThread().interrupt();
+                            break;
+                        }
+                        remaining = deadline - System.currentTimeMillis();
                     }
-                }
 
-                ByteBuffer responseBuffer = null;
-                synchronized (this) {
                     responseBuffer = theChannel.buffer;
                     theChannel.buffer = null;
                     theChannel.isBlocking = false;
                 }
+                if (responseBuffer == null) {
+                    // timed out, let the selector thread pick up the channel as a normal one again
+                    selector.wakeup();
+                }
                 return responseBuffer;
             } else {
                 return theBuffer;
@@ -1087,6 +1220,7 @@ public abstract class AbstractSocketChannelBinding<P extends ChannelBindingProvi
             if (theBuffer != null) {
                 if (theSocketChannel.isConnected() || queueUntilConnected) {
                     writeQueue.add(new WriteBufferElement(theChannel, theBuffer, false));
+                    selector.wakeup();
                 }
             }
 
@@ -1144,7 +1278,7 @@ public abstract class AbstractSocketChannelBinding<P extends ChannelBindingProvi
 
                     synchronized (theBinding.selector) {
                         theBinding.selector.wakeup();
-                        int interestSet = SelectionKey.OP_READ | SelectionKey.OP_WRITE | SelectionKey.OP_CONNECT;
+                        int interestSet = SelectionKey.OP_READ | SelectionKey.OP_CONNECT;
                         try {
                             if (theChannel.channel != null) {
                                 theChannel.channel.register(theBinding.selector, interestSet);
@@ -1200,6 +1334,13 @@ public abstract class AbstractSocketChannelBinding<P extends ChannelBindingProvi
     @Override
     protected void execute() {
 
+        // Channels only have to be set up after the bindings have changed, all network events are handled by the
+        // selector thread
+        if (!channelSetupRequired) {
+            return;
+        }
+        channelSetupRequired = false;
+
         // Cycle through the Items and setup channels if required
         for (P provider : providers) {
             for (String itemName : provider.getItemNames()) {
@@ -1342,8 +1483,7 @@ public abstract class AbstractSocketChannelBinding<P extends ChannelBindingProvi
 
                                             synchronized (selector) {
                                                 selector.wakeup();
-                                                int interestSet = SelectionKey.OP_READ | SelectionKey.OP_WRITE
-                                                        | SelectionKey.OP_CONNECT;
+                                                int interestSet = SelectionKey.OP_READ | SelectionKey.OP_CONNECT;
                                                 try {
                                                     newSocketChannel.register(selector, interestSet);
                                                 } catch (ClosedChannelException e1) {
@@ -1376,15 +1516,12 @@ public abstract class AbstractSocketChannelBinding<P extends ChannelBindingProvi
             }
         }
 
-        // Check on channels for which we have to process data
-        synchronized (selector) {
-            try {
-                // Wait for an event
-                selector.selectNow();
-            } catch (IOException e) {
-                logger.error("An exception occurred while Selecting ({})", e.getMessage());
-            }
-        }
+    }
+
+    /**
+     * Processes the events of the channels selected by the selector thread
+     */
+    private void processSelectedKeys() {
 
         // Get list of selection keys with pending events
         Iterator<SelectionKey> it = selector.selectedKeys().iterator();
@@ -1453,7 +1590,7 @@ public abstract class AbstractSocketChannelBinding<P extends ChannelBindingProvi
                                         synchronized (selector) {
                                             selector.wakeup();
                                             try {
-                                                newChannel.register(selector, newChannel.validOps());
+                                                newChannel.register(selector, SelectionKey.OP_READ);
                                             } catch (ClosedChannelException e1) {
                                                 logger.error("An exception occurred while registering a selector: {}",
                                                         e1.getMessage());
@@ -1548,6 +1685,9 @@ public abstract class AbstractSocketChannelBinding<P extends ChannelBindingProvi
 
                         if (error) {
 
+                            // the channel will be replaced by the reconnect job, stop selecting it in the meantime
+                            selKey.cancel();
+
                             Scheduler scheduler = null;
                             try {
                                 scheduler = StdSchedulerFactory.getDefaultScheduler();
@@ -1585,6 +1725,8 @@ public abstract class AbstractSocketChannelBinding<P extends ChannelBindingProvi
 
                         } else {
                             if (result) {
+                                selKey.interestOps(selKey.interestOps() & ~SelectionKey.OP_CONNECT);
+
                                 InetSocketAddress remote = null;
                                 try {
                                     remote = (InetSocketAddress) theSocketChannel.getRemoteAddress();
@@ -1664,7 +1806,7 @@ public abstract class AbstractSocketChannelBinding<P extends ChannelBindingProvi
 
                     } else if (selKey.isReadable()) {
 
-                        ByteBuffer readBuffer = ByteBuffer.allocate(maximumBufferSize);
+                        ByteBuffer readBuffer = getReadBuffer();
                         int numberBytesRead = 0;
                         boolean error = false;
 
@@ -1674,6 +1816,7 @@ public abstract class AbstractSocketChannelBinding<P extends ChannelBindingProvi
                             // for example, the buffer needs to be split based on a special character like line feed or
                             // carriage return
                             numberBytesRead = theSocketChannel.read(readBuffer);
+                            readBuffer = copyReadBuffer(readBuffer);
                         } catch (NotYetConnectedException e) {
                             logger.warn("The channel for {} has no connection pending ({})", theChannel.remote,
                                     e.getMessage());
@@ -1697,6 +1840,8 @@ public abstract class AbstractSocketChannelBinding<P extends ChannelBindingProvi
                         }
 
                         if (error) {
+                            selKey.cancel();
+
                             if (theChannel.direction == Direction.OUT) {
 
                                 Scheduler scheduler = null;
@@ -1747,8 +1892,6 @@ public abstract class AbstractSocketChannelBinding<P extends ChannelBindingProvi
 
                             if (channelsToServe.size() > 0) {
 
-                                readBuffer.flip();
-
                                 boolean isBlocking = channels.isBlocking(theSocketChannel);
 
                                 if (isBlocking) {
@@ -1757,8 +1900,11 @@ public abstract class AbstractSocketChannelBinding<P extends ChannelBindingProvi
                                     // that initiated the write opreation - it has to parse the buffer itself
 
                                     theChannel = channels.getBlocking(theSocketChannel);
-                                    theChannel.buffer = readBuffer;
-                                    theChannel.isBlocking = false;
+                                    synchronized (theChannel) {
+                                        theChannel.buffer = readBuffer;
+                                        theChannel.isBlocking = false;
+                                        theChannel.notifyAll();
+                                    }
 
                                 } else {
                                     for (Channel aChannel : channelsToServe) {
@@ -1781,6 +1927,9 @@ public abstract class AbstractSocketChannelBinding<P extends ChannelBindingProvi
 
                     } else if (selKey.isWritable()) {
 
+                        // the selector thread sets the write interest again as long as data is queued
+                        selKey.interestOps(selKey.interestOps() & ~SelectionKey.OP_WRITE);
+
                         boolean isBlocking = channels.isBlocking(theSocketChannel);
 
                         if (isBlocking) {
@@ -14,6 +14,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.lang.StringUtils;
 import org.openhab.binding.weather.internal.annotation.Forecast;
@@ -39,9 +40,13 @@ public class MetadataHandler {
     private static final Logger logger = LoggerFactory.getLogger(MetadataHandler.class);
 
     private static final String PACKAGE_TO_SCAN = StringUtils.substringBeforeLast(Weather.class.getName(), ".");
+    private static final ProviderMappingInfo NO_MAPPING = new ProviderMappingInfo(null, null, null);
     private Map<ProviderName, Map<String, ProviderMappingInfo>> providerMappings = new HashMap<ProviderName, Map<String, ProviderMappingInfo>>();
     private Map<ProviderName, List<String>> forecastMappings = new HashMap<ProviderName, List<String>>();
 
+    // mappings by the full property name of the parsed data, including unmapped properties
+    private Map<ProviderName, Map<String, ProviderMappingInfo>> resolvedMappings = new ConcurrentHashMap<ProviderName, Map<String, ProviderMappingInfo>>();
+
     private static MetadataHandler instance;
 
     private MetadataHandler() {
@@ -64,6 +69,7 @@ public class MetadataHandler {
         if (clazz == null) {
             return;
         }
+        resolvedMappings.clear();
 
         for (Field field : clazz.getDeclaredFields()) {
             if (field.getType().getName().startsWith(PACKAGE_TO_SCAN) && !field.isEnumConstant()) {
@@ -118,14 +124,36 @@ public class MetadataHandler {
     }
 
     /**
-     * Returns the MappingInfo for the specified provider and property.
+     * Returns the MappingInfo for the specified provider and property. The
+     * result is cached, as the same properties are looked up on every refresh.
      */
     public ProviderMappingInfo getProviderMappingInfo(ProviderName provider, String property) {
-        Map<String, ProviderMappingInfo> mapping = providerMappings.get(provider);
-        if (mapping == null) {
+        if (provider == null || property == null) {
             return null;
         }
+        Map<String, ProviderMappingInfo> resolved = resolvedMappings.get(provider);
+        if (resolved == null) {
+            Map<String, ProviderMappingInfo> mapping = providerMappings.get(provider);
+            if (mapping == null) {
+                return null;
+            }
+            resolved = new ConcurrentHashMap<String, ProviderMappingInfo>();
+            resolvedMappings.put(provider, resolved);
+        }
+
+        ProviderMappingInfo provMapping = resolved.get(property);
+        if (provMapping == null) {
+            provMapping = resolveProviderMappingInfo(providerMappings.get(provider), property);
+            resolved.put(property, provMapping == null ? NO_MAPPING : provMapping);
+        }
+        return provMapping == NO_MAPPING ? null : provMapping;
+    }
 
+    /**
+     * Finds the mapping of the property or of its nested properties.
+     */
+    private ProviderMappingInfo resolveProviderMappingInfo(Map<String, ProviderMappingInfo> mapping,
+            String property) {
         ProviderMappingInfo provMapping = mapping.get(property);
 
         String nestedProperty = property;
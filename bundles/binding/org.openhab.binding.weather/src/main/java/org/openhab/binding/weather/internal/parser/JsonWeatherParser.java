@@ -28,12 +28,14 @@ import com.fasterxml.jackson.core.JsonToken;
 public class JsonWeatherParser extends AbstractWeatherParser {
     private static final Logger logger = LoggerFactory.getLogger(JsonWeatherParser.class);
 
+    // the factory is thread-safe and caches its symbol tables across parsers
+    private static final JsonFactory jsonFactory = new JsonFactory();
+
     /**
      * {@inheritDoc}
      */
     @Override
     public void parseInto(InputStream is, Weather weather) throws Exception {
-        JsonFactory jsonFactory = new JsonFactory();
         JsonParser jp = jsonFactory.createParser(is);
 
         jp.nextValue();
@@ -0,0 +1,143 @@
+/**
+ * Copyright (c) 2010-2016, openHAB.org and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.weather.internal.utils;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.lang.reflect.FieldUtils;
+import org.apache.commons.lang.reflect.MethodUtils;
+
+/**
+ * Accessor for a (nested) property of a class. The fields and the getter method
+ * are looked up once, so reading and writing a property doesn't need to search
+ * the class hierarchy again.
+ *
+ * @author agent
+ * @since 1.9.0
+ */
+public class PropertyAccessor {
+    private final String property;
+    private final Field[] path;
+    private final Field field;
+    private final Method getter;
+    private final String error;
+
+    /**
+     * Resolves the property of the class. If the property can't be resolved,
+     * all access methods throw an exception.
+     */
+    PropertyAccessor(Class<?> clazz, String property) {
+        this.property = property;
+
+        List<Field> fields = new ArrayList<Field>();
+        Class<?> objectClass = clazz;
+        String error = null;
+        if (!PropertyUtils.isWeatherProperty(property)) {
+            String propertyName = property;
+            while (PropertyResolver.hasNested(propertyName)) {
+                Field nested = FieldUtils.getField(objectClass, PropertyResolver.first(propertyName), true);
+                if (nested == null) {
+                    error = "Cannot locate field " + PropertyResolver.first(propertyName) + " on " + objectClass;
+                    break;
+                }
+                fields.add(nested);
+                objectClass = nested.getType();
+                propertyName = PropertyResolver.removeFirst(propertyName);
+            }
+        }
+
+        String last = PropertyResolver.last(property);
+        if (error == null && last.isEmpty()) {
+            error = "Property " + property + " is not nested";
+        }
+        if (error == null) {
+            this.field = FieldUtils.getField(objectClass, last, true);
+            this.getter = MethodUtils.getAccessibleMethod(objectClass, toGetterString(last), new Class[0]);
+        } else {
+            this.field = null;
+            this.getter = null;
+        }
+        this.path = fields.toArray(new Field[fields.size()]);
+        this.error = error;
+    }
+
+    /**
+     * Returns the object which holds the property.
+     */
+    public Object getNestedObject(Object instance) throws IllegalAccessException {
+        checkResolved();
+        for (Field nested : path) {
+            if (instance == null) {
+                throw new IllegalArgumentException("Nested object of property " + property + " is null");
+            }
+            instance = nested.get(instance);
+        }
+        return instance;
+    }
+
+    /**
+     * Returns true, if the property has a getter method.
+     */
+    public boolean hasGetter() {
+        return error == null && getter != null;
+    }
+
+    /**
+     * Returns the type of the property field.
+     */
+    public Class<?> getType() {
+        checkField();
+        return field.getType();
+    }
+
+    /**
+     * Returns the value of the property through its getter method.
+     */
+    public Object getValue(Object instance) throws Exception {
+        if (!hasGetter()) {
+            throw new NoSuchMethodException("No getter for property " + property);
+        }
+        return getter.invoke(getNestedObject(instance));
+    }
+
+    /**
+     * Writes the value into the property field.
+     */
+    public void setValue(Object instance, Object value) throws IllegalAccessException {
+        checkField();
+        field.set(getNestedObject(instance), value);
+    }
+
+    private void checkResolved() {
+        if (error != null) {
+            throw new IllegalArgumentException(error);
+        }
+    }
+
+    private void checkField() {
+        checkResolved();
+        if (field == null) {
+            throw new IllegalArgumentException("Cannot locate field for property " + property);
+        }
+    }
+
+    /**
+     * Converts the string to a getter property.
+     */
+    private static String toGetterString(String str) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("get");
+        sb.append(Character.toTitleCase(str.charAt(0)));
+        sb.append(str.substring(1));
+        return sb.toString();
+    }
+}
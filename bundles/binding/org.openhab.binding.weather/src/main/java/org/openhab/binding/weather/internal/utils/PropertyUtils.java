@@ -8,15 +8,16 @@
  */
 package org.openhab.binding.weather.internal.utils;
 
-import java.lang.reflect.Field;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.apache.commons.lang.StringUtils;
-import org.apache.commons.lang.reflect.FieldUtils;
-import org.apache.commons.lang.reflect.MethodUtils;
 import org.openhab.binding.weather.internal.model.Weather;
 
 /**
  * Methods to get the value from a property or a getter method of an object.
+ * The fields and methods of a property are resolved once per class and cached.
  *
  * @author Gerhard Riegler
  * @since 1.6.0
@@ -24,6 +25,29 @@ import org.openhab.binding.weather.internal.model.Weather;
 public class PropertyUtils {
     private static final String WEATHER_PROPERTY = Weather.class.getSimpleName().toLowerCase() + ".";
 
+    private static final ConcurrentMap<Class<?>, Map<String, PropertyAccessor>> accessors = new ConcurrentHashMap<Class<?>, Map<String, PropertyAccessor>>();
+
+    /**
+     * Returns the cached accessor for the property of the class.
+     */
+    public static PropertyAccessor getAccessor(Class<?> clazz, String propertyName) {
+        Map<String, PropertyAccessor> classAccessors = accessors.get(clazz);
+        if (classAccessors == null) {
+            classAccessors = new ConcurrentHashMap<String, PropertyAccessor>();
+            Map<String, PropertyAccessor> existing = accessors.putIfAbsent(clazz, classAccessors);
+            if (existing != null) {
+                classAccessors = existing;
+            }
+        }
+
+        PropertyAccessor accessor = classAccessors.get(propertyName);
+        if (accessor == null) {
+            accessor = new PropertyAccessor(clazz, propertyName);
+            classAccessors.put(propertyName, accessor);
+        }
+        return accessor;
+    }
+
     /**
      * Returns the object of the (nested) property.
      */
@@ -31,12 +55,7 @@ public class PropertyUtils {
         if (PropertyUtils.isWeatherProperty(propertyName)) {
             return instance;
         }
-
-        while (PropertyResolver.hasNested(propertyName)) {
-            instance = FieldUtils.readField(instance, PropertyResolver.first(propertyName), true);
-            propertyName = PropertyResolver.removeFirst(propertyName);
-        }
-        return instance;
+        return getAccessor(instance.getClass(), propertyName).getNestedObject(instance);
     }
 
     /**
@@ -62,9 +81,7 @@ public class PropertyUtils {
      * Returns the type name of the property of the instance.
      */
     public static String getPropertyTypeName(Object instance, String property) throws IllegalAccessException {
-        Object object = getNestedObject(instance, property);
-        Field field = FieldUtils.getField(object.getClass(), PropertyResolver.last(property), true);
-        return field.getType().getCanonicalName();
+        return getAccessor(instance.getClass(), property).getType().getCanonicalName();
     }
 
     /**
@@ -73,20 +90,15 @@ public class PropertyUtils {
      * methods getTemperature().getCurrent() are called.
      */
     public static Object getPropertyValue(Object instance, String property) throws Exception {
-        Object object = getNestedObject(instance, property);
-        String getMethod = toGetterString(PropertyResolver.last(property));
-        return MethodUtils.invokeMethod(object, getMethod, null);
+        return getAccessor(instance.getClass(), property).getValue(instance);
     }
 
     /**
-     * Converts the string to a getter property.
+     * Writes the value into the field of the object instance, nested properties
+     * are possible.
      */
-    private static String toGetterString(String str) {
-        StringBuilder sb = new StringBuilder();
-        sb.append("get");
-        sb.append(Character.toTitleCase(str.charAt(0)));
-        sb.append(str.substring(1));
-        return sb.toString();
+    public static void setPropertyValue(Object instance, String property, Object value) throws IllegalAccessException {
+        getAccessor(instance.getClass(), property).setValue(instance, value);
     }
 
 }
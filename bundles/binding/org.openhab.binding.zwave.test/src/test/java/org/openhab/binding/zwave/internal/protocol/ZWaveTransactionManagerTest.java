@@ -0,0 +1,224 @@
+/**
+ * Copyright (c) 2010-2016, openHAB.org and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.zwave.internal.protocol;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.PriorityBlockingQueue;
+
+import org.junit.Test;
+import org.openhab.binding.zwave.internal.protocol.SerialMessage.SerialMessageClass;
+import org.openhab.binding.zwave.internal.protocol.SerialMessage.SerialMessagePriority;
+import org.openhab.binding.zwave.internal.protocol.SerialMessage.SerialMessageType;
+
+/**
+ * Tests which messages the {@link ZWaveTransactionManager} lets through while
+ * transactions are in progress, and how incoming messages are matched to them.
+ *
+ * @author agent
+ * @since 1.9.0
+ */
+public class ZWaveTransactionManagerTest {
+
+    /** a transaction timeout for tests where a message must not be sent */
+    private static final long SHORT_TIMEOUT = 100;
+
+    /** a transaction timeout for tests where a message must be sent right away */
+    private static final long LONG_TIMEOUT = 5000;
+
+    private final PriorityBlockingQueue<SerialMessage> sendQueue = new PriorityBlockingQueue<SerialMessage>(11,
+            new Comparator<SerialMessage>() {
+                @Override
+                public int compare(SerialMessage arg0, SerialMessage arg1) {
+                    return arg0.getPriority().compareTo(arg1.getPriority());
+                }
+            });
+
+    private SerialMessage sendData(int nodeId, int callbackId, SerialMessagePriority priority) {
+        SerialMessage message = new SerialMessage(nodeId, SerialMessageClass.SendData, SerialMessageType.Request,
+                SerialMessageClass.ApplicationCommandHandler, priority);
+        message.setCallbackId(callbackId);
+        message.setAckRequired();
+        return message;
+    }
+
+    private SerialMessage incoming(SerialMessageClass messageClass, SerialMessageType messageType, int... payload) {
+        SerialMessage message = new SerialMessage(messageClass, messageType, null, SerialMessagePriority.High);
+        byte[] bytes = new byte[payload.length];
+        for (int i = 0; i < payload.length; i++) {
+            bytes[i] = (byte) payload[i];
+        }
+        message.setMessagePayload(bytes);
+        return message;
+    }
+
+    /**
+     * Takes and starts the next message, as the send thread of the controller does.
+     */
+    private SerialMessage send(ZWaveTransactionManager manager) throws InterruptedException {
+        List<SerialMessage> timedOut = new ArrayList<SerialMessage>();
+        SerialMessage message = manager.takeNext(timedOut);
+        assertNotNull("no message could be sent, timed out: " + timedOut.size(), message);
+        manager.start(message);
+        return message;
+    }
+
+    /**
+     * Lets the controller accept and transmit a SendData request.
+     */
+    private void transmit(ZWaveTransactionManager manager, SerialMessage message) {
+        assertSame(message, manager
+                .getTransactionMessage(incoming(SerialMessageClass.SendData, SerialMessageType.Response, 1)));
+        assertSame(message, manager.getTransactionMessage(
+                incoming(SerialMessageClass.SendData, SerialMessageType.Request, message.getCallbackId(), 0)));
+        message.setTransactionAcked();
+    }
+
+    @Test
+    public void testRequestWaitsForResponseOfPrevious() throws Exception {
+        ZWaveTransactionManager manager = new ZWaveTransactionManager(sendQueue, SHORT_TIMEOUT);
+        SerialMessage first = sendData(2, 1, SerialMessagePriority.High);
+        SerialMessage second = sendData(3, 2, SerialMessagePriority.Set);
+        sendQueue.add(first);
+        sendQueue.add(second);
+
+        assertSame(first, send(manager));
+
+        // the controller hasn't returned the RESPONSE, so the first transaction times out instead
+        List<SerialMessage> timedOut = new ArrayList<SerialMessage>();
+        assertNull(manager.takeNext(timedOut));
+        assertEquals(1, timedOut.size());
+        assertSame(first, timedOut.get(0));
+        assertEquals(1, manager.getStatistics(2).getTimeoutCount());
+
+        assertSame(second, send(manager));
+    }
+
+    @Test
+    public void testOtherNodeIsServedAfterCallback() throws Exception {
+        ZWaveTransactionManager manager = new ZWaveTransactionManager(sendQueue, LONG_TIMEOUT);
+        SerialMessage slow = sendData(2, 1, SerialMessagePriority.High);
+        SerialMessage other = sendData(3, 2, SerialMessagePriority.Set);
+        sendQueue.add(slow);
+        sendQueue.add(other);
+
+        assertSame(slow, send(manager));
+        transmit(manager, slow);
+
+        // the first node hasn't replied yet, but the radio is free for the other node
+        assertSame(other, send(manager));
+        assertEquals(2, manager.getTransactionCount());
+    }
+
+    @Test
+    public void testMessageForBusyNodeIsParked() throws Exception {
+        ZWaveTransactionManager manager = new ZWaveTransactionManager(sendQueue, LONG_TIMEOUT);
+        SerialMessage first = sendData(2, 1, SerialMessagePriority.High);
+        sendQueue.add(first);
+        assertSame(first, send(manager));
+        transmit(manager, first);
+
+        SerialMessage sameNode = sendData(2, 2, SerialMessagePriority.Set);
+        SerialMessage otherNode = sendData(3, 3, SerialMessagePriority.Get);
+        sendQueue.add(sameNode);
+        sendQueue.add(otherNode);
+
+        assertSame(otherNode, send(manager));
+        assertEquals(1, manager.getParkedCount());
+        transmit(manager, otherNode);
+
+        // the reply of node 2 completes its transaction and releases the parked message
+        assertSame(first, manager.getTransactionMessage(
+                incoming(SerialMessageClass.ApplicationCommandHandler, SerialMessageType.Request, 0, 2, 2, 0x25, 3)));
+        assertTrue(manager.complete(first) >= 0);
+        assertEquals(0, manager.getParkedCount());
+        assertSame(sameNode, send(manager));
+        assertEquals(1, manager.getStatistics(2).getResponseCount());
+    }
+
+    @Test
+    public void testReplyIsMatchedByNode() throws Exception {
+        ZWaveTransactionManager manager = new ZWaveTransactionManager(sendQueue, LONG_TIMEOUT);
+        SerialMessage first = sendData(2, 1, SerialMessagePriority.High);
+        SerialMessage second = sendData(3, 2, SerialMessagePriority.Set);
+        sendQueue.add(first);
+        sendQueue.add(second);
+        assertSame(first, send(manager));
+        transmit(manager, first);
+        assertSame(second, send(manager));
+        transmit(manager, second);
+
+        assertSame(second, manager.getTransactionMessage(
+                incoming(SerialMessageClass.ApplicationCommandHandler, SerialMessageType.Request, 0, 3, 2, 0x25, 3)));
+        assertSame(first, manager.getTransactionMessage(
+                incoming(SerialMessageClass.ApplicationCommandHandler, SerialMessageType.Request, 0, 2, 2, 0x25, 3)));
+    }
+
+    @Test
+    public void testControllerCommandIsExclusive() throws Exception {
+        ZWaveTransactionManager manager = new ZWaveTransactionManager(sendQueue, SHORT_TIMEOUT);
+        SerialMessage addNode = new SerialMessage(SerialMessageClass.AddNodeToNetwork, SerialMessageType.Request,
+                SerialMessageClass.AddNodeToNetwork, SerialMessagePriority.High);
+        SerialMessage getVersion = new SerialMessage(SerialMessageClass.GetVersion, SerialMessageType.Request,
+                SerialMessageClass.GetVersion, SerialMessagePriority.Set);
+        sendQueue.add(addNode);
+        sendQueue.add(getVersion);
+
+        assertSame(addNode, send(manager));
+        assertSame(addNode, manager.getTransactionMessage(
+                incoming(SerialMessageClass.AddNodeToNetwork, SerialMessageType.Response, 1)));
+
+        // nothing else is sent until the exclusive command has completed or timed out
+        List<SerialMessage> timedOut = new ArrayList<SerialMessage>();
+        assertNull(manager.takeNext(timedOut));
+        assertSame(addNode, timedOut.get(0));
+        assertEquals(1, manager.getStatistics(255).getTimeoutCount());
+
+        assertSame(getVersion, send(manager));
+    }
+
+    @Test
+    public void testResponseOnlyCommandsInterleave() throws Exception {
+        ZWaveTransactionManager manager = new ZWaveTransactionManager(sendQueue, LONG_TIMEOUT);
+        SerialMessage slow = sendData(2, 1, SerialMessagePriority.High);
+        SerialMessage routingInfo = new SerialMessage(SerialMessageClass.GetRoutingInfo, SerialMessageType.Request,
+                SerialMessageClass.GetRoutingInfo, SerialMessagePriority.Set);
+        sendQueue.add(slow);
+        sendQueue.add(routingInfo);
+
+        assertSame(slow, send(manager));
+        transmit(manager, slow);
+        assertSame(routingInfo, send(manager));
+
+        // the RESPONSE of the controller command belongs to the command, not to the SendData
+        assertSame(routingInfo, manager.getTransactionMessage(
+                incoming(SerialMessageClass.GetRoutingInfo, SerialMessageType.Response, 0)));
+        assertTrue(manager.complete(routingInfo) >= 0);
+        assertEquals(-1, manager.complete(routingInfo));
+        assertEquals(1, manager.getTransactionCount());
+    }
+
+    @Test
+    public void testCancelPendingResponse() throws Exception {
+        ZWaveTransactionManager manager = new ZWaveTransactionManager(sendQueue, LONG_TIMEOUT);
+        SerialMessage first = sendData(2, 1, SerialMessagePriority.High);
+        SerialMessage second = sendData(3, 2, SerialMessagePriority.Set);
+        sendQueue.add(first);
+        sendQueue.add(second);
+
+        assertSame(first, send(manager));
+        // e.g. the controller has answered with a CAN
+        assertSame(first, manager.cancelPendingResponse());
+        assertNull(manager.cancelPendingResponse());
+        assertSame(second, send(manager));
+    }
+}
@@ -8,10 +8,7 @@
  */
 package org.openhab.binding.zwave.internal;
 
-import java.util.ArrayList;
 import java.util.Dictionary;
-import java.util.Iterator;
-import java.util.List;
 
 import org.apache.commons.lang.StringUtils;
 import org.openhab.binding.zwave.ZWaveBindingConfig;
@@ -21,11 +18,10 @@ import org.openhab.binding.zwave.internal.converter.ZWaveConverterHandler;
 import org.openhab.binding.zwave.internal.protocol.SerialInterfaceException;
 import org.openhab.binding.zwave.internal.protocol.ZWaveController;
 import org.openhab.binding.zwave.internal.protocol.ZWaveEventListener;
-import org.openhab.binding.zwave.internal.protocol.ZWaveNode;
 import org.openhab.binding.zwave.internal.protocol.event.ZWaveCommandClassValueEvent;
 import org.openhab.binding.zwave.internal.protocol.event.ZWaveEvent;
 import org.openhab.binding.zwave.internal.protocol.event.ZWaveInitializationCompletedEvent;
-import org.openhab.binding.zwave.internal.protocol.initialization.ZWaveNodeInitStage;
+import org.openhab.binding.zwave.internal.protocol.initialization.ZWaveNodeSerializer;
 import org.openhab.core.binding.AbstractActiveBinding;
 import org.openhab.core.binding.BindingProvider;
 import org.openhab.core.types.Command;
@@ -64,9 +60,7 @@ public class ZWaveActiveBinding extends AbstractActiveBinding<ZWaveBindingProvid
     private Integer timeout = null;
     private volatile ZWaveController zController;
     private volatile ZWaveConverterHandler converterHandler;
-
-    private Iterator<ZWavePollItem> pollingIterator = null;
-    private List<ZWavePollItem> pollingList = new ArrayList<ZWavePollItem>();
+    private volatile ZWavePollScheduler pollScheduler;
 
     // Configuration Service
     ZWaveConfiguration zConfigurationService;
@@ -92,7 +86,7 @@ public class ZWaveActiveBinding extends AbstractActiveBinding<ZWaveBindingProvid
 
     /**
      * Working method that executes refreshing of the bound items. The method is executed
-     * at every refresh interval. The nodes are polled only every 6 refreshes.
+     * at every refresh interval. The items which are due are polled by the poll scheduler.
      */
     @Override
     protected void execute() {
@@ -101,26 +95,13 @@ public class ZWaveActiveBinding extends AbstractActiveBinding<ZWaveBindingProvid
             networkMonitor.execute();
         }
 
-        // If we're not currently in a poll cycle, restart the polling table
-        if (pollingIterator == null) {
-            pollingIterator = pollingList.iterator();
-        }
-
-        // Loop through the polling list. We only allow a certain number of messages
+        // Poll the items which are due. We only allow a certain number of messages
         // into the send queue at a time to avoid congestion within the system.
         // Basically, we don't want the polling to slow down 'important' stuff.
-        // The queue ensures all nodes get a chance - if we always started at the top
-        // then the last items might never get polled.
-        while (pollingIterator.hasNext()) {
-            if (zController.getSendQueueLength() >= pollingQueue) {
-                logger.trace("Polling queue full!");
-                break;
-            }
-            ZWavePollItem poll = pollingIterator.next();
-            converterHandler.executeRefresh(poll.provider, poll.item, false);
-        }
-        if (pollingIterator.hasNext() == false) {
-            pollingIterator = null;
+        // Items which can't be polled now stay due, and are polled first next time.
+        ZWavePollScheduler scheduler = this.pollScheduler;
+        if (scheduler != null) {
+            scheduler.execute(pollingQueue);
         }
     }
 
@@ -164,51 +145,19 @@ public class ZWaveActiveBinding extends AbstractActiveBinding<ZWaveBindingProvid
     }
 
     /**
-     * This method rebuilds the polling table. The polling table is a list of items that have
-     * polling enabled (ie a refresh interval is set). This list is then checked periodically
-     * and any item that has passed its polling interval will be polled.
+     * This method rebuilds the polling table. The polling table contains the items that have
+     * polling enabled (ie a refresh interval is set). It is checked periodically and any
+     * item that has passed its polling interval will be polled.
      */
     private void rebuildPollingTable() {
-        // Rebuild the polling table
-        pollingList.clear();
-
-        if (converterHandler == null) {
+        ZWavePollScheduler scheduler = this.pollScheduler;
+        if (converterHandler == null || scheduler == null) {
             logger.debug("ConverterHandler not initialised. Polling disabled.");
 
             return;
         }
 
-        // Loop all binding providers for the Z-wave binding.
-        for (ZWaveBindingProvider eachProvider : providers) {
-            // Loop all bound items for this provider
-            for (String name : eachProvider.getItemNames()) {
-                // Find the node and check if it's completed initialisation.
-                ZWaveBindingConfig cfg = eachProvider.getZwaveBindingConfig(name);
-                ZWaveNode node = this.zController.getNode(cfg.getNodeId());
-                if (node == null) {
-                    logger.debug("NODE {}: Polling list: can't get node for item {}", cfg.getNodeId(), name);
-                    continue;
-                }
-                if (node.getNodeInitializationStage() != ZWaveNodeInitStage.DONE) {
-                    logger.debug("NODE {}: Polling list: item {} is not completed initialisation", cfg.getNodeId(),
-                            name);
-                    continue;
-                }
-
-                logger.trace("Polling list: Checking {} == {}", name,
-                        converterHandler.getRefreshInterval(eachProvider, name));
-
-                // If this binding is configured to poll - add it to the list
-                if (converterHandler.getRefreshInterval(eachProvider, name) > 0) {
-                    ZWavePollItem item = new ZWavePollItem();
-                    item.item = name;
-                    item.provider = eachProvider;
-                    pollingList.add(item);
-                    logger.trace("Polling list added {}", name);
-                }
-            }
-        }
-        pollingIterator = null;
+        scheduler.rebuild(providers);
     }
 
     /**
@@ -258,6 +207,7 @@ public class ZWaveActiveBinding extends AbstractActiveBinding<ZWaveBindingProvid
      */
     @Override
     public void deactivate() {
+        this.pollScheduler = null;
         if (this.converterHandler != null) {
             this.converterHandler = null;
         }
@@ -288,6 +238,8 @@ public class ZWaveActiveBinding extends AbstractActiveBinding<ZWaveBindingProvid
             this.deactivate();
             this.zController = new ZWaveController(masterController, isSUC, port, timeout, softReset);
             this.converterHandler = new ZWaveConverterHandler(this.zController, this.eventPublisher);
+            this.pollScheduler = new ZWavePollScheduler(this.zController, this.converterHandler);
+            this.converterHandler.setPollScheduler(this.pollScheduler);
             zController.addEventListener(this);
 
             // The network monitor service needs to know the controller...
@@ -401,6 +353,11 @@ public class ZWaveActiveBinding extends AbstractActiveBinding<ZWaveBindingProvid
                 logger.error("Error parsing 'masterController'. This must be boolean.");
             }
         }
+        if (StringUtils.isNotBlank((String) config.get("xmlExport"))) {
+            boolean xmlExport = Boolean.parseBoolean((String) config.get("xmlExport"));
+            logger.info("Update config, xmlExport = {}", xmlExport);
+            ZWaveNodeSerializer.getInstance().setXmlExport(xmlExport);
+        }
 
         // Now that we've read ALL the configuration, initialise the binding.
         initialise();
@@ -473,15 +430,16 @@ public class ZWaveActiveBinding extends AbstractActiveBinding<ZWaveBindingProvid
             }
         }
 
+        // Values reported by the node don't need to be polled
+        ZWavePollScheduler scheduler = this.pollScheduler;
+        if (scheduler != null) {
+            scheduler.valueReported(event);
+        }
+
         if (!handled) {
             logger.warn("NODE {}: No item bound for event, endpoint = {}, command class = {}, value = {}, ignoring.",
                     new Object[] { event.getNodeId(), event.getEndpoint(), event.getCommandClass().getLabel(),
                             event.getValue() });
         }
     }
-
-    class ZWavePollItem {
-        ZWaveBindingProvider provider;
-        String item;
-    }
 }
@@ -0,0 +1,376 @@
+/**
+ * Copyright (c) 2010-2016, openHAB.org and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.zwave.internal;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+import org.openhab.binding.zwave.ZWaveBindingConfig;
+import org.openhab.binding.zwave.ZWaveBindingProvider;
+import org.openhab.binding.zwave.internal.converter.ZWaveConverterHandler;
+import org.openhab.binding.zwave.internal.protocol.ZWaveController;
+import org.openhab.binding.zwave.internal.protocol.ZWaveNode;
+import org.openhab.binding.zwave.internal.protocol.commandclass.ZWaveBinarySensorCommandClass;
+import org.openhab.binding.zwave.internal.protocol.commandclass.ZWaveBinarySensorCommandClass.ZWaveBinarySensorValueEvent;
+import org.openhab.binding.zwave.internal.protocol.commandclass.ZWaveCommandClass.CommandClass;
+import org.openhab.binding.zwave.internal.protocol.commandclass.ZWaveMeterCommandClass.MeterScale;
+import org.openhab.binding.zwave.internal.protocol.commandclass.ZWaveMeterCommandClass.ZWaveMeterValueEvent;
+import org.openhab.binding.zwave.internal.protocol.commandclass.ZWaveMultiLevelSensorCommandClass.SensorType;
+import org.openhab.binding.zwave.internal.protocol.commandclass.ZWaveMultiLevelSensorCommandClass.ZWaveMultiLevelSensorValueEvent;
+import org.openhab.binding.zwave.internal.protocol.event.ZWaveCommandClassValueEvent;
+import org.openhab.binding.zwave.internal.protocol.initialization.ZWaveNodeInitStage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Schedules the polling of the items bound to Z-Wave nodes.
+ * <p>
+ * Each item is polled when its refresh interval has passed. The items are kept in
+ * a queue ordered by the time of their next poll, so only items that are due are
+ * looked at. The scheduler also avoids polls that aren't needed -:
+ * <ul>
+ * <li>If the node has reported the value of an item by itself within the refresh
+ * interval, the poll is skipped and the next poll is scheduled one interval after
+ * the report. A report only counts for the items bound to the reported sensor type
+ * or meter scale. The first report after a poll is taken as the reply to the poll,
+ * unless it arrives more than {@value #POLL_REPLY_TIMEOUT} ms after the poll.</li>
+ * <li>When an item of a battery device is polled, the other items of the device
+ * which are due within half of their interval are polled as well, so that all
+ * messages are sent in the same wake-up period.</li>
+ * <li>If the controller responds slowly, the polling intervals are stretched by
+ * up to a factor of {@value #MAX_SLOWDOWN}.</li>
+ * </ul>
+ *
+ * @author agent
+ * @since 1.9.0
+ */
+public class ZWavePollScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(ZWavePollScheduler.class);
+
+    /**
+     * Polling intervals are stretched when the response time of the controller exceeds this time (in ms)
+     */
+    private static final long TARGET_RESPONSE_TIME = 1000;
+
+    /**
+     * The maximum factor the polling intervals are stretched by
+     */
+    private static final int MAX_SLOWDOWN = 4;
+
+    /**
+     * A report which arrives later than this time (in ms) after a poll isn't taken
+     * as the reply to the poll, as the poll is lost after all retries have timed out
+     */
+    private static final long POLL_REPLY_TIMEOUT = 30000;
+
+    private final ZWaveController controller;
+    private final ZWaveConverterHandler converterHandler;
+
+    private final PriorityQueue<PollEntry> schedule = new PriorityQueue<PollEntry>();
+    private final Map<String, PollEntry> itemEntries = new HashMap<String, PollEntry>();
+    private final Map<Integer, List<PollEntry>> nodeEntries = new HashMap<Integer, List<PollEntry>>();
+
+    private long pollCount = 0;
+    private long skippedCount = 0;
+    private long batchedCount = 0;
+    private int slowdown = 1;
+
+    /**
+     * Constructor. Creates a new instance of the poll scheduler.
+     *
+     * @param controller the controller to send the polls to
+     * @param converterHandler the converter handler which creates the polls
+     */
+    public ZWavePollScheduler(ZWaveController controller, ZWaveConverterHandler converterHandler) {
+        this.controller = controller;
+        this.converterHandler = converterHandler;
+    }
+
+    /**
+     * Rebuilds the schedule for the items of the given providers. The times of
+     * the next polls of items that were already scheduled are kept.
+     *
+     * @param providers the binding providers of the Z-Wave binding
+     */
+    public synchronized void rebuild(Iterable<ZWaveBindingProvider> providers) {
+        Map<String, PollEntry> oldEntries = new HashMap<String, PollEntry>(itemEntries);
+        schedule.clear();
+        itemEntries.clear();
+        nodeEntries.clear();
+
+        long now = System.currentTimeMillis();
+        for (ZWaveBindingProvider provider : providers) {
+            for (String name : provider.getItemNames()) {
+                ZWaveBindingConfig cfg = provider.getZwaveBindingConfig(name);
+                ZWaveNode node = controller.getNode(cfg.getNodeId());
+                if (node == null) {
+                    logger.debug("NODE {}: Polling list: can't get node for item {}", cfg.getNodeId(), name);
+                    continue;
+                }
+                if (node.getNodeInitializationStage() != ZWaveNodeInitStage.DONE) {
+                    logger.debug("NODE {}: Polling list: item {} is not completed initialisation", cfg.getNodeId(),
+                            name);
+                    continue;
+                }
+
+                // If this binding is configured to poll - add it to the schedule
+                Integer refreshInterval = converterHandler.getRefreshInterval(provider, name);
+                logger.trace("Polling list: Checking {} == {}", name, refreshInterval);
+                if (refreshInterval == null || refreshInterval <= 0) {
+                    continue;
+                }
+
+                PollEntry entry = new PollEntry(provider, name, cfg.getNodeId(), cfg.getEndpoint(),
+                        converterHandler.getRefreshCommandClass(provider, name), cfg.getArguments(),
+                        refreshInterval * 1000L);
+                PollEntry oldEntry = oldEntries.get(name);
+                if (oldEntry != null && oldEntry.nodeId == entry.nodeId) {
+                    entry.nextPoll = oldEntry.nextPoll;
+                    entry.lastUpdate = oldEntry.lastUpdate;
+                    entry.pollPending = oldEntry.pollPending;
+                    entry.pollTime = oldEntry.pollTime;
+                } else if (cfg.getLastRefreshed() != null) {
+                    entry.nextPoll = cfg.getLastRefreshed().getTime() + entry.interval;
+                } else {
+                    entry.nextPoll = now;
+                }
+                add(entry);
+                logger.trace("Polling list added {}", name);
+            }
+        }
+    }
+
+    private void add(PollEntry entry) {
+        schedule.add(entry);
+        itemEntries.put(entry.itemName, entry);
+        List<PollEntry> entries = nodeEntries.get(entry.nodeId);
+        if (entries == null) {
+            entries = new ArrayList<PollEntry>();
+            nodeEntries.put(entry.nodeId, entries);
+        }
+        entries.add(entry);
+    }
+
+    /**
+     * Records that a node has reported a value, so the items bound to this value
+     * don't need to be polled within their refresh interval.
+     *
+     * @param event the value event of the node
+     */
+    public synchronized void valueReported(ZWaveCommandClassValueEvent event) {
+        List<PollEntry> entries = nodeEntries.get(event.getNodeId());
+        if (entries == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        for (PollEntry entry : entries) {
+            if (entry.matches(event)) {
+                if (entry.pollPending && now - entry.pollTime > POLL_REPLY_TIMEOUT) {
+                    logger.debug("NODE {}: Poll of item {} has not been answered in time", entry.nodeId,
+                            entry.itemName);
+                    entry.pollPending = false;
+                }
+                if (entry.pollPending) {
+                    // This is the reply to our own poll
+                    entry.pollPending = false;
+                } else {
+                    entry.lastUpdate = now;
+                }
+            }
+        }
+    }
+
+    /**
+     * Polls the items that are due. No more polls are sent once the send queue of
+     * the controller contains the given number of messages, the remaining items are
+     * polled on the next call.
+     *
+     * @param queueLimit the maximum length of the send queue
+     */
+    public synchronized void execute(int queueLimit) {
+        updateSlowdown();
+
+        long now = System.currentTimeMillis();
+        while (!schedule.isEmpty() && schedule.peek().nextPoll <= now) {
+            if (controller.getSendQueueLength() >= queueLimit) {
+                logger.trace("Polling queue full!");
+                break;
+            }
+
+            PollEntry entry = schedule.poll();
+            if (entry.isFresh(now, slowdown)) {
+                logger.trace("NODE {}: Item {} has been updated recently, skipping poll", entry.nodeId,
+                        entry.itemName);
+                entry.nextPoll = entry.lastUpdate + entry.interval * slowdown;
+                schedule.add(entry);
+                skippedCount++;
+                continue;
+            }
+            poll(entry, now);
+
+            // Poll the other items of a battery device in the same wake-up period
+            ZWaveNode node = controller.getNode(entry.nodeId);
+            if (node != null && !node.isListening() && !node.isFrequentlyListening()) {
+                for (PollEntry other : nodeEntries.get(entry.nodeId)) {
+                    if (other != entry && other.nextPoll - now <= other.interval / 2
+                            && !other.isFresh(now, slowdown)) {
+                        logger.trace("NODE {}: Polling item {} together with item {}", entry.nodeId,
+                                other.itemName, entry.itemName);
+                        if (other.nextPoll > now) {
+                            batchedCount++;
+                        }
+                        schedule.remove(other);
+                        poll(other, now);
+                    }
+                }
+            }
+        }
+    }
+
+    private void poll(PollEntry entry, long now) {
+        // The refresh is forced, as it's the scheduler that decides when an item is polled
+        converterHandler.executeRefresh(entry.provider, entry.itemName, true);
+        entry.pollPending = entry.commandClass != null;
+        entry.pollTime = now;
+        entry.nextPoll = now + entry.interval * slowdown;
+        schedule.add(entry);
+        pollCount++;
+    }
+
+    /**
+     * Stretches the polling intervals if the controller responds slowly.
+     */
+    private void updateSlowdown() {
+        long responseTime = controller.getTransactionStatistics().getRecentResponseTime();
+        int newSlowdown = (int) Math.max(1, Math.min(MAX_SLOWDOWN, responseTime / TARGET_RESPONSE_TIME));
+        if (newSlowdown != slowdown) {
+            logger.debug("Controller response time is {}ms, polling intervals are stretched by factor {}",
+                    responseTime, newSlowdown);
+            slowdown = newSlowdown;
+        }
+    }
+
+    /**
+     * Returns the number of polls that have been sent.
+     */
+    public synchronized long getPollCount() {
+        return pollCount;
+    }
+
+    /**
+     * Returns the number of polls that have been skipped as the node has reported the value.
+     */
+    public synchronized long getSkippedCount() {
+        return skippedCount;
+    }
+
+    /**
+     * Returns the number of polls that have been sent early, together with another
+     * poll of the same battery device.
+     */
+    public synchronized long getBatchedCount() {
+        return batchedCount;
+    }
+
+    /**
+     * Returns the factor the polling intervals are currently stretched by.
+     */
+    public synchronized int getSlowdown() {
+        return slowdown;
+    }
+
+    /**
+     * An item in the polling schedule
+     */
+    private static class PollEntry implements Comparable<PollEntry> {
+        private final ZWaveBindingProvider provider;
+        private final String itemName;
+        private final int nodeId;
+        private final int endpoint;
+        private final CommandClass commandClass;
+        /** the sensor types and meter scale the item is bound to, null if it isn't restricted */
+        private final ZWaveBinarySensorCommandClass.SensorType binarySensorType;
+        private final SensorType multiLevelSensorType;
+        private final MeterScale meterScale;
+        private final long interval;
+        private long nextPoll = 0;
+        private long lastUpdate = 0;
+        private long pollTime = 0;
+        private boolean pollPending = false;
+
+        PollEntry(ZWaveBindingProvider provider, String itemName, int nodeId, int endpoint,
+                CommandClass commandClass, Map<String, String> arguments, long interval) {
+            this.provider = provider;
+            this.itemName = itemName;
+            this.nodeId = nodeId;
+            this.endpoint = endpoint;
+            this.commandClass = commandClass;
+            this.interval = interval;
+
+            Integer sensorType = null;
+            String sensorTypeArgument = arguments.get("sensor_type");
+            if (sensorTypeArgument != null) {
+                try {
+                    sensorType = Integer.valueOf(sensorTypeArgument);
+                } catch (NumberFormatException e) {
+                    logger.warn("Item {} has an invalid sensor_type '{}', polling ignores it", itemName,
+                            sensorTypeArgument);
+                }
+            }
+            this.binarySensorType = sensorType != null
+                    ? ZWaveBinarySensorCommandClass.SensorType.getSensorType(sensorType) : null;
+            this.multiLevelSensorType = sensorType != null ? SensorType.getSensorType(sensorType) : null;
+
+            String meterScaleArgument = arguments.get("meter_scale");
+            this.meterScale = meterScaleArgument != null ? MeterScale.getMeterScale(meterScaleArgument) : null;
+            if (meterScaleArgument != null && meterScale == null) {
+                logger.warn("Item {} has an invalid meter_scale '{}', polling ignores it", itemName,
+                        meterScaleArgument);
+            }
+        }
+
+        /**
+         * Checks if the event reports the value the item is bound to. Sensor and
+         * meter reports only match the items bound to their sensor type or meter scale.
+         */
+        boolean matches(ZWaveCommandClassValueEvent event) {
+            if (commandClass == null || endpoint != event.getEndpoint() || commandClass != event.getCommandClass()) {
+                return false;
+            }
+            if (event instanceof ZWaveBinarySensorValueEvent) {
+                return binarySensorType == null
+                        || binarySensorType == ((ZWaveBinarySensorValueEvent) event).getSensorType();
+            }
+            if (event instanceof ZWaveMultiLevelSensorValueEvent) {
+                return multiLevelSensorType == null
+                        || multiLevelSensorType == ((ZWaveMultiLevelSensorValueEvent) event).getSensorType();
+            }
+            if (event instanceof ZWaveMeterValueEvent) {
+                return meterScale == null || meterScale == ((ZWaveMeterValueEvent) event).getMeterScale();
+            }
+            return true;
+        }
+
+        /**
+         * Checks if the value of the item has been reported within its (stretched) interval.
+         */
+        boolean isFresh(long now, int slowdown) {
+            return commandClass != null && now - lastUpdate < interval * slowdown;
+        }
+
+        @Override
+        public int compareTo(PollEntry other) {
+            return nextPoll < other.nextPoll ? -1 : (nextPoll == other.nextPoll ? 0 : 1);
+        }
+    }
+}
@@ -12,7 +12,11 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.net.URL;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.osgi.framework.FrameworkUtil;
 import org.slf4j.Logger;
@@ -27,6 +31,11 @@ import com.thoughtworks.xstream.io.xml.StaxDriver;
  * includes helper functions to manipulate the database and facilitate access to
  * the database.
  *
+ * The database is only parsed once and shared by all instances as an index
+ * keyed by manufacturer, product type and product id. The product files are
+ * cached as well once they have been read. Instances only hold the current
+ * selection, so they are cheap to create.
+ *
  * @author Chris Jackson
  * @since 1.4.0
  *
@@ -34,7 +43,12 @@ import com.thoughtworks.xstream.io.xml.StaxDriver;
 public class ZWaveProductDatabase {
     private static final Logger logger = LoggerFactory.getLogger(ZWaveProductDatabase.class);
 
-    ZWaveDbRoot database = null;
+    private static final Object loadLock = new Object();
+    private static volatile ZWaveDbIndex sharedIndex = null;
+    private static volatile XStream productFileXStream = null;
+    private static final ConcurrentMap<String, ZWaveDbProductFile> productFiles = new ConcurrentHashMap<String, ZWaveDbProductFile>();
+
+    ZWaveDbIndex database = null;
     Languages language = Languages.ENGLISH;
 
     ZWaveDbManufacturer selManufacturer = null;
@@ -44,7 +58,7 @@ public class ZWaveProductDatabase {
     String productVersion;
 
     public ZWaveProductDatabase() {
-        loadDatabase();
+        database = getIndex();
     }
 
     /**
@@ -55,7 +69,7 @@ public class ZWaveProductDatabase {
      */
     public ZWaveProductDatabase(Languages Language) {
         language = Language;
-        loadDatabase();
+        database = getIndex();
     }
 
     /**
@@ -66,15 +80,34 @@ public class ZWaveProductDatabase {
      */
     public ZWaveProductDatabase(String Language) {
         language = Languages.fromString(Language);
-        loadDatabase();
+        database = getIndex();
     }
 
-    private void loadDatabase() {
+    /**
+     * Returns the shared index of the database and loads it on first use.
+     * If the database can't be loaded, loading is retried on the next call.
+     * 
+     * @return the index, or null if the database is not available
+     */
+    private static ZWaveDbIndex getIndex() {
+        ZWaveDbIndex index = sharedIndex;
+        if (index == null) {
+            synchronized (loadLock) {
+                index = sharedIndex;
+                if (index == null) {
+                    index = loadDatabase();
+                    sharedIndex = index;
+                }
+            }
+        }
+        return index;
+    }
+
+    private static ZWaveDbIndex loadDatabase() {
         URL entry = FrameworkUtil.getBundle(ZWaveProductDatabase.class).getEntry("database/products.xml");
         if (entry == null) {
-            database = null;
             logger.error("Unable to load ZWave product database!");
-            return;
+            return null;
         }
 
         XStream xstream = new XStream(new StaxDriver());
@@ -86,14 +119,23 @@ public class ZWaveProductDatabase {
         xstream.processAnnotations(ZWaveDbRoot.class);
 
         try {
-            // this.Manufacturer = (ZWaveDbManufacturer)
+            long start = System.currentTimeMillis();
             InputStream x = entry.openStream();
-            database = (ZWaveDbRoot) xstream.fromXML(x);
-            if (database == null) {
-                return;
+            try {
+                ZWaveDbRoot root = (ZWaveDbRoot) xstream.fromXML(x);
+                if (root == null || root.Manufacturer == null) {
+                    return null;
+                }
+                ZWaveDbIndex index = new ZWaveDbIndex(root);
+                logger.debug("Loaded ZWave product database with {} products in {}ms", index.products.size(),
+                        System.currentTimeMillis() - start);
+                return index;
+            } finally {
+                x.close();
             }
         } catch (IOException e) {
-            e.printStackTrace();
+            logger.error("Unable to load ZWave product database : {}", e.toString());
+            return null;
         }
     }
 
@@ -119,38 +161,65 @@ public class ZWaveProductDatabase {
             return null;
         }
 
+        productFile = productFiles.get(cfgFile);
+        if (productFile == null) {
+            productFile = readProductFile(cfgFile);
+            if (productFile != null) {
+                ZWaveDbProductFile cached = productFiles.putIfAbsent(cfgFile, productFile);
+                if (cached != null) {
+                    productFile = cached;
+                }
+            }
+        }
+
+        return productFile;
+    }
+
+    private static ZWaveDbProductFile readProductFile(String cfgFile) {
         URL entry = FrameworkUtil.getBundle(ZWaveProductDatabase.class).getEntry("database/" + cfgFile);
         if (entry == null) {
-            database = null;
             logger.error("Unable to load ZWave product file: '{}'", cfgFile);
             return null;
         }
 
-        XStream xstream = new XStream(new StaxDriver());
-        xstream.alias("Product", ZWaveDbProductFile.class);
-        xstream.alias("Configuration", ZWaveDbProductFile.ZWaveDbConfiguration.class);
-        xstream.alias("Parameter", ZWaveDbConfigurationParameter.class);
-        xstream.alias("Item", ZWaveDbConfigurationListItem.class);
-        xstream.alias("Associations", ZWaveDbProductFile.ZWaveDbAssociation.class);
-        xstream.alias("Group", ZWaveDbAssociationGroup.class);
-        xstream.alias("CommandClass", ZWaveDbProductFile.ZWaveDbCommandClassList.class);
-        xstream.alias("Class", ZWaveDbCommandClass.class);
-
-        xstream.processAnnotations(ZWaveDbProductFile.class);
-
         try {
-            // this.Manufacturer = (ZWaveDbManufacturer)
             InputStream x = entry.openStream();
-            productFile = (ZWaveDbProductFile) xstream.fromXML(x);
+            try {
+                return (ZWaveDbProductFile) getProductFileXStream().fromXML(x);
+            } finally {
+                x.close();
+            }
         } catch (IOException e) {
             logger.error("Unable to load ZWave product file '{}' : {}", cfgFile, e.toString());
+            return null;
         }
+    }
 
-        return productFile;
+    /**
+     * XStream instances are thread safe once they are configured, so the
+     * product files are all read with the same instance.
+     */
+    private static XStream getProductFileXStream() {
+        XStream xstream = productFileXStream;
+        if (xstream == null) {
+            xstream = new XStream(new StaxDriver());
+            xstream.alias("Product", ZWaveDbProductFile.class);
+            xstream.alias("Configuration", ZWaveDbProductFile.ZWaveDbConfiguration.class);
+            xstream.alias("Parameter", ZWaveDbConfigurationParameter.class);
+            xstream.alias("Item", ZWaveDbConfigurationListItem.class);
+            xstream.alias("Associations", ZWaveDbProductFile.ZWaveDbAssociation.class);
+            xstream.alias("Group", ZWaveDbAssociationGroup.class);
+            xstream.alias("CommandClass", ZWaveDbProductFile.ZWaveDbCommandClassList.class);
+            xstream.alias("Class", ZWaveDbCommandClass.class);
+
+            xstream.processAnnotations(ZWaveDbProductFile.class);
+            productFileXStream = xstream;
+        }
+        return xstream;
     }
 
     public List<ZWaveDbManufacturer> GetManufacturers() {
-        return database.Manufacturer;
+        return database.manufacturerList;
     }
 
     public List<ZWaveDbProduct> GetProducts() {
@@ -176,13 +245,8 @@ public class ZWaveProductDatabase {
         selProduct = null;
         productFile = null;
 
-        for (ZWaveDbManufacturer manufacturer : database.Manufacturer) {
-            if (manufacturer.Id == manufacturerId) {
-                selManufacturer = manufacturer;
-                return true;
-            }
-        }
-        return false;
+        selManufacturer = database.manufacturers.get(manufacturerId);
+        return selManufacturer != null;
     }
 
     /**
@@ -220,15 +284,12 @@ public class ZWaveProductDatabase {
         }
         productVersion = version;
 
-        for (ZWaveDbProduct product : selManufacturer.Product) {
-            for (ZWaveDbProductReference reference : product.Reference) {
-                if (reference.Type == productType && reference.Id == productId) {
-                    selProduct = product;
-                    return true;
-                }
-            }
+        ZWaveDbProduct product = database.products.get(ZWaveDbIndex.getKey(selManufacturer.Id, productType, productId));
+        if (product == null) {
+            return false;
         }
-        return false;
+        selProduct = product;
+        return true;
     }
 
     /**
@@ -376,6 +437,47 @@ public class ZWaveProductDatabase {
         List<ZWaveDbManufacturer> Manufacturer;
     }
 
+    /**
+     * The immutable index of the product database. If the database contains
+     * duplicates, the first entry wins, as it did when searching the lists.
+     */
+    static class ZWaveDbIndex {
+        final List<ZWaveDbManufacturer> manufacturerList;
+        final Map<Integer, ZWaveDbManufacturer> manufacturers = new HashMap<Integer, ZWaveDbManufacturer>();
+        final Map<Long, ZWaveDbProduct> products = new HashMap<Long, ZWaveDbProduct>();
+
+        private ZWaveDbIndex(ZWaveDbRoot root) {
+            manufacturerList = Collections.unmodifiableList(root.Manufacturer);
+            for (ZWaveDbManufacturer manufacturer : root.Manufacturer) {
+                if (manufacturer.Id == null || manufacturers.containsKey(manufacturer.Id)) {
+                    continue;
+                }
+                manufacturers.put(manufacturer.Id, manufacturer);
+                if (manufacturer.Product == null) {
+                    continue;
+                }
+                for (ZWaveDbProduct product : manufacturer.Product) {
+                    if (product.Reference == null) {
+                        continue;
+                    }
+                    for (ZWaveDbProductReference reference : product.Reference) {
+                        if (reference.Type == null || reference.Id == null) {
+                            continue;
+                        }
+                        Long key = getKey(manufacturer.Id, reference.Type, reference.Id);
+                        if (!products.containsKey(key)) {
+                            products.put(key, product);
+                        }
+                    }
+                }
+            }
+        }
+
+        static long getKey(int manufacturerId, int productType, int productId) {
+            return ((long) manufacturerId << 32) | ((productType & 0xffffL) << 16) | (productId & 0xffffL);
+        }
+    }
+
     /**
      * Helper function to find the label associated with the specified database
      * language If no language is defined, or if the label cant be found in the
@@ -14,6 +14,7 @@ import java.util.Map;
 
 import org.openhab.binding.zwave.ZWaveBindingConfig;
 import org.openhab.binding.zwave.ZWaveBindingProvider;
+import org.openhab.binding.zwave.internal.ZWavePollScheduler;
 import org.openhab.binding.zwave.internal.protocol.SerialMessage;
 import org.openhab.binding.zwave.internal.protocol.SerialMessage.SerialMessagePriority;
 import org.openhab.binding.zwave.internal.protocol.ZWaveController;
@@ -334,6 +335,57 @@ public class ZWaveConverterHandler {
         return bindingConfiguration.getRefreshInterval();
     }
 
+    /**
+     * Get the command class which is polled for an item binding
+     * 
+     * @param provider
+     *            the {@link ZWaveBindingProvider} that provides the item
+     * @param itemName
+     *            the name of the item to poll.
+     * @return the {@link CommandClass}, or null for report items and items
+     *         that can't be polled.
+     */
+    public CommandClass getRefreshCommandClass(ZWaveBindingProvider provider, String itemName) {
+        ZWaveBindingConfig bindingConfiguration = provider.getZwaveBindingConfig(itemName);
+        ZWaveCommandClass commandClass;
+        String commandClassName = bindingConfiguration.getArguments().get("command");
+
+        ZWaveNode node = this.controller.getNode(bindingConfiguration.getNodeId());
+
+        // ignore nodes that are not initialized.
+        if (node == null) {
+            return null;
+        }
+
+        if (commandClassName != null) {
+            // this is a report item, it isn't polled from the node.
+            if (commandClassName.equalsIgnoreCase("info")) {
+                return null;
+            }
+
+            commandClass = node.resolveCommandClass(CommandClass.getCommandClass(commandClassName),
+                    bindingConfiguration.getEndpoint());
+        } else {
+            commandClass = resolveConverter(provider.getItem(itemName), node, bindingConfiguration.getEndpoint());
+        }
+
+        if (commandClass == null) {
+            return null;
+        }
+
+        return commandClass.getCommandClass();
+    }
+
+    /**
+     * Sets the poll scheduler, which provides the polling statistics to report items.
+     * 
+     * @param pollScheduler
+     *            the {@link ZWavePollScheduler} of the binding.
+     */
+    public void setPollScheduler(ZWavePollScheduler pollScheduler) {
+        infoConverter.setPollScheduler(pollScheduler);
+    }
+
     /**
      * Handles an incoming {@link ZWaveCommandClassValueEvent}. Implement this
      * message in derived classes to convert the value and post an update on the
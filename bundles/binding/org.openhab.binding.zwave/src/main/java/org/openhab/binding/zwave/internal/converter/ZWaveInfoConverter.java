@@ -11,6 +11,7 @@ package org.openhab.binding.zwave.internal.converter;
 import java.util.HashMap;
 import java.util.Map;
 
+import org.openhab.binding.zwave.internal.ZWavePollScheduler;
 import org.openhab.binding.zwave.internal.converter.state.BooleanOnOffTypeConverter;
 import org.openhab.binding.zwave.internal.converter.state.BooleanOpenClosedTypeConverter;
 import org.openhab.binding.zwave.internal.converter.state.DateDateTimeTypeConverter;
@@ -39,6 +40,8 @@ public class ZWaveInfoConverter extends ZWaveConverterBase {
     private static final Logger logger = LoggerFactory.getLogger(ZWaveInfoConverter.class);
     private static final int REFRESH_INTERVAL = 10; // refresh interval in seconds
 
+    private ZWavePollScheduler pollScheduler = null;
+
     /**
      * Constructor. Creates a new instance of the {@link ZWaveConverterBase}
      * class.
@@ -104,6 +107,15 @@ public class ZWaveInfoConverter extends ZWaveConverterBase {
         this.getEventPublisher().postUpdate(item.getName(), state);
     }
 
+    /**
+     * Sets the poll scheduler of the binding to report the polling statistics.
+     * 
+     * @param pollScheduler the {@link ZWavePollScheduler} of the binding.
+     */
+    void setPollScheduler(ZWavePollScheduler pollScheduler) {
+        this.pollScheduler = pollScheduler;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -160,6 +172,18 @@ public class ZWaveInfoConverter extends ZWaveConverterBase {
                 return this.getController().getTimeOutCount();
             case REPORT_TX_QUEUE:
                 return this.getController().getSendQueueLength();
+            case REPORT_NODE_TIME_OUT:
+                return this.getController().getTransactionStatistics(node.getNodeId()).getTimeoutCount();
+            case REPORT_NODE_RESPONSE_TIME:
+                return (int) this.getController().getTransactionStatistics(node.getNodeId()).getAverageResponseTime();
+            case REPORT_NODE_RESPONSE_TIME_MAX:
+                return (int) this.getController().getTransactionStatistics(node.getNodeId()).getLongestResponseTime();
+            case REPORT_POLLS:
+                return pollScheduler == null ? null : (int) pollScheduler.getPollCount();
+            case REPORT_POLLS_SKIPPED:
+                return pollScheduler == null ? null : (int) pollScheduler.getSkippedCount();
+            case REPORT_POLLS_BATCHED:
+                return pollScheduler == null ? null : (int) pollScheduler.getBatchedCount();
         }
 
         return null;
@@ -288,7 +312,37 @@ public class ZWaveInfoConverter extends ZWaveConverterBase {
         /**
          * Reports the total number of frames in the transmit queue(s)
          */
-        REPORT_TX_QUEUE("TX_QUEUE");
+        REPORT_TX_QUEUE("TX_QUEUE"),
+
+        /**
+         * Reports the number of timed out transactions with this node.
+         */
+        REPORT_NODE_TIME_OUT("NODE_TIME_OUT"),
+
+        /**
+         * Reports the average response time of the transactions with this node (in ms).
+         */
+        REPORT_NODE_RESPONSE_TIME("NODE_RESPONSE_TIME"),
+
+        /**
+         * Reports the longest response time of the transactions with this node (in ms).
+         */
+        REPORT_NODE_RESPONSE_TIME_MAX("NODE_RESPONSE_TIME_MAX"),
+
+        /**
+         * Reports the number of polls sent by the binding.
+         */
+        REPORT_POLLS("POLLS"),
+
+        /**
+         * Reports the number of polls skipped as the nodes reported the values by themselves.
+         */
+        REPORT_POLLS_SKIPPED("POLLS_SKIPPED"),
+
+        /**
+         * Reports the number of polls sent early to battery devices to share a wake-up period.
+         */
+        REPORT_POLLS_BATCHED("POLLS_BATCHED");
 
         private String label;
         private static Map<String, ZWaveInformationItem> labelToZWaveInfoItemMapping;
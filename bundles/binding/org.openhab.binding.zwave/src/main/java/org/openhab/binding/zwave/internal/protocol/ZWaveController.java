@@ -12,6 +12,7 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Enumeration;
+import java.util.List;
 import java.util.Timer;
 import java.util.TimerTask;
 import java.util.TooManyListenersException;
@@ -106,10 +107,8 @@ public class ZWaveController {
     private ZWaveInputThread inputThread;
 
     private final Semaphore sendAllowed = new Semaphore(1);
-    private final Semaphore transactionCompleted = new Semaphore(1);
+    private final ZWaveTransactionManager transactionManager;
     private volatile SerialMessage lastSentMessage = null;
-    private long lastMessageStartTime = 0;
-    private long longestResponseTime = 0;
     private SerialPort serialPort;
     private int zWaveResponseTimeout = ZWAVE_RESPONSE_TIMEOUT;
     private Timer watchdog;
@@ -158,6 +157,7 @@ public class ZWaveController {
             zWaveResponseTimeout = timeout;
         }
         logger.info("Z-Wave timeout is set to {}ms. Soft reset is {}.", zWaveResponseTimeout, reset);
+        this.transactionManager = new ZWaveTransactionManager(sendQueue, zWaveResponseTimeout);
         connect(serialPortName);
         this.watchdog = new Timer(true);
         this.watchdog.schedule(new WatchDogTimerTask(serialPortName), WATCHDOG_TIMER_PERIOD, WATCHDOG_TIMER_PERIOD);
@@ -203,6 +203,40 @@ public class ZWaveController {
             default:
                 logger.warn("Unsupported incomingMessageType: {}", incomingMessage.getMessageType());
         }
+
+        // The message may have freed the controller or a node for the next transaction
+        transactionManager.notifyChanged();
+    }
+
+    /**
+     * Gets the message of the transaction an incoming message belongs to.
+     * If no transaction in progress matches, the last message sent is used.
+     *
+     * @param incomingMessage the incoming message
+     * @return the message of the transaction
+     */
+    private SerialMessage getTransactionMessage(SerialMessage incomingMessage) {
+        SerialMessage transactionMessage = transactionManager.getTransactionMessage(incomingMessage);
+        if (transactionMessage == null) {
+            return lastSentMessage;
+        }
+        return transactionMessage;
+    }
+
+    /**
+     * Completes the transaction of a message and notifies the event listeners.
+     *
+     * @param transactionMessage the message of the transaction
+     * @param result the result of the transaction
+     */
+    private void completeTransaction(SerialMessage transactionMessage, boolean result) {
+        long responseTime = transactionManager.complete(transactionMessage);
+        if (responseTime >= 0) {
+            int nodeId = transactionMessage.getMessageNode();
+            logger.debug("NODE {}: Response processed after {}ms/{}ms.", nodeId, responseTime,
+                    getTransactionStatistics(nodeId).getLongestResponseTime());
+        }
+        notifyEventListeners(new ZWaveTransactionCompletedEvent(transactionMessage, result));
     }
 
     /**
@@ -222,11 +256,10 @@ public class ZWaveController {
             return;
         }
 
-        boolean result = processor.handleRequest(this, lastSentMessage, incomingMessage);
+        SerialMessage transactionMessage = getTransactionMessage(incomingMessage);
+        boolean result = processor.handleRequest(this, transactionMessage, incomingMessage);
         if (processor.isTransactionComplete()) {
-            notifyEventListeners(new ZWaveTransactionCompletedEvent(this.lastSentMessage, result));
-            transactionCompleted.release();
-            logger.trace("Released. Transaction completed permit count -> {}", transactionCompleted.availablePermits());
+            completeTransaction(transactionMessage, result);
         }
     }
 
@@ -257,11 +290,10 @@ public class ZWaveController {
             return;
         }
 
-        boolean result = processor.handleResponse(this, lastSentMessage, incomingMessage);
+        SerialMessage transactionMessage = getTransactionMessage(incomingMessage);
+        boolean result = processor.handleResponse(this, transactionMessage, incomingMessage);
         if (processor.isTransactionComplete()) {
-            notifyEventListeners(new ZWaveTransactionCompletedEvent(this.lastSentMessage, result));
-            transactionCompleted.release();
-            logger.trace("Released. Transaction completed permit count -> {}", transactionCompleted.availablePermits());
+            completeTransaction(transactionMessage, result);
         }
 
         switch (incomingMessage.getMessageClass()) {
@@ -386,6 +418,7 @@ public class ZWaveController {
         this.zwaveNodes.clear();
         this.sendQueue.clear();
         this.recvQueue.clear();
+        this.transactionManager.clear();
 
         logger.info("Stopped Z-Wave controller");
     }
@@ -421,11 +454,8 @@ public class ZWaveController {
             }
             inputThread = null;
         }
-        if (transactionCompleted.availablePermits() < 0) {
-            transactionCompleted.release(transactionCompleted.availablePermits());
-        }
-
-        transactionCompleted.drainPermits();
+        // Transactions in progress can't be completed after reconnecting
+        transactionManager.clear();
         if (this.serialPort != null) {
             this.serialPort.close();
             this.serialPort = null;
@@ -513,7 +543,7 @@ public class ZWaveController {
 
             ZWaveNode node = null;
             try {
-                ZWaveNodeSerializer nodeSerializer = new ZWaveNodeSerializer();
+                ZWaveNodeSerializer nodeSerializer = ZWaveNodeSerializer.getInstance();
                 node = nodeSerializer.DeserializeNode(nodeId);
             } catch (Exception e) {
                 logger.error("NODE {}: Restore from config: Error deserialising XML file. {}", nodeId, e.toString());
@@ -629,14 +659,35 @@ public class ZWaveController {
 
         // Add the message to the queue
         this.sendQueue.add(serialMessage);
+        this.transactionManager.notifyChanged();
         logger.debug("Enqueueing message. Queue length = {}", this.sendQueue.size());
     }
 
     /**
-     * Returns the size of the send queue.
+     * Returns the size of the send queue, including the messages which are
+     * parked until the transaction with their node has completed.
      */
     public int getSendQueueLength() {
-        return this.sendQueue.size();
+        return this.sendQueue.size() + this.transactionManager.getParkedCount();
+    }
+
+    /**
+     * Returns the response time and time-out statistics of the transactions with a node.
+     *
+     * @param nodeId the node ID, 255 for messages to the controller
+     * @return the transaction statistics
+     */
+    public ZWaveTransactionManager.TransactionStatistics getTransactionStatistics(int nodeId) {
+        return this.transactionManager.getStatistics(nodeId);
+    }
+
+    /**
+     * Returns the response time and time-out statistics of all transactions.
+     *
+     * @return the transaction statistics
+     */
+    public ZWaveTransactionManager.TransactionStatistics getTransactionStatistics() {
+        return this.transactionManager.getStatistics();
     }
 
     /**
@@ -677,7 +728,7 @@ public class ZWaveController {
                     this.zwaveNodes.remove(incEvent.getNodeId());
 
                     // Remove the XML file
-                    ZWaveNodeSerializer nodeSerializer = new ZWaveNodeSerializer();
+                    ZWaveNodeSerializer nodeSerializer = ZWaveNodeSerializer.getInstance();
                     nodeSerializer.DeleteNode(event.getNodeId());
                     break;
                 default:
@@ -694,7 +745,7 @@ public class ZWaveController {
                     this.zwaveNodes.remove(networkEvent.getNodeId());
 
                     // Remove the XML file
-                    ZWaveNodeSerializer nodeSerializer = new ZWaveNodeSerializer();
+                    ZWaveNodeSerializer nodeSerializer = ZWaveNodeSerializer.getInstance();
                     nodeSerializer.DeleteNode(event.getNodeId());
                     break;
                 default:
@@ -873,6 +924,7 @@ public class ZWaveController {
         // If we're resetting, there's no point in queuing messages!
         sendQueue.clear();
         recvQueue.clear();
+        transactionManager.clear();
 
         // Hard reset the stick - everything will be reset to factory default
         SerialMessage msg = new ControllerSetDefaultMessageClass().doRequest();
@@ -1209,7 +1261,8 @@ public class ZWaveController {
 
     /**
      * Z-Wave controller Send Thread. Takes care of sending all messages.
-     * It uses a semaphore to synchronize communication with the receiving thread.
+     * It uses a semaphore to synchronize communication with the receiving thread,
+     * and the {@link ZWaveTransactionManager} to decide which message can be sent next.
      *
      * @author Jan-Willem Spuij
      * @author Chris Jackson
@@ -1235,22 +1288,34 @@ public class ZWaveController {
                     }
                     sendAllowed.release();
 
-                    // Take the next message from the send queue
+                    // Take the next message that can be sent. This waits until the controller
+                    // and the node of the message are free, or until transactions have timed out.
+                    List<SerialMessage> timedOut = new ArrayList<SerialMessage>();
+                    SerialMessage message;
                     try {
-                        lastSentMessage = sendQueue.take();
-                        logger.debug("Took message from queue for sending. Queue length = {}", sendQueue.size());
+                        message = transactionManager.takeNext(timedOut);
                     } catch (InterruptedException e1) {
                         logger.error("InterruptedException during Z-Wave thread: sendQueue.take {}", e1);
                         break;
                     }
 
-                    // Check we got a message
-                    if (lastSentMessage == null) {
+                    // Handle the transactions which haven't been completed in time
+                    if (message == null) {
+                        try {
+                            for (SerialMessage timedOutMessage : timedOut) {
+                                handleTimeout(timedOutMessage);
+                            }
+                        } catch (IOException e) {
+                            logger.error("Got I/O exception {} during sending. exiting thread.",
+                                    e.getLocalizedMessage());
+                            break;
+                        }
                         continue;
                     }
+                    logger.debug("Took message from queue for sending. Queue length = {}", sendQueue.size());
 
                     // Get the node for this message
-                    ZWaveNode node = getNode(lastSentMessage.getMessageNode());
+                    ZWaveNode node = getNode(message.getMessageNode());
 
                     // If it's a battery device, it needs to be awake, or we queue the frame until it is.
                     if (node != null && !node.isListening() && !node.isFrequentlyListening()) {
@@ -1258,8 +1323,7 @@ public class ZWaveController {
                                 .getCommandClass(CommandClass.WAKE_UP);
 
                         // If it's a battery operated device, check if it's awake or place in wake-up queue.
-                        if (wakeUpCommandClass != null
-                                && !wakeUpCommandClass.processOutgoingWakeupMessage(lastSentMessage)) {
+                        if (wakeUpCommandClass != null && !wakeUpCommandClass.processOutgoingWakeupMessage(message)) {
                             continue;
                         }
                     }
@@ -1282,7 +1346,7 @@ public class ZWaveController {
                     // However, for some messages, there may not be a further REQUEST
                     // so the transaction is terminated at step 2. This is handled
                     // by the serial message class processor by setting
-                    // transactionCompleted.
+                    // transactionComplete.
                     //
                     // It seems that some of these steps may occur out of order. For
                     // example, the requested message at step 4 may be received before
@@ -1292,15 +1356,17 @@ public class ZWaveController {
                     // the ACK is received.
                     // We cover this by setting an 'AckPending' flag in the sent message.
                     // This needs to be cleared before the transacion is completed.
-
-                    // Clear the semaphore used to acknowledge the completed transaction.
-                    transactionCompleted.drainPermits();
+                    //
+                    // Once step 3 is complete for a SendData, the controller is free again
+                    // while we wait for the device. The transaction manager then lets
+                    // messages to other nodes through, so the transactions are interleaved.
 
                     // Send the REQUEST message TO the controller
-                    byte[] buffer = lastSentMessage.getMessageBuffer();
-                    logger.debug("NODE {}: Sending REQUEST Message = {}", lastSentMessage.getMessageNode(),
+                    lastSentMessage = message;
+                    transactionManager.start(message);
+                    byte[] buffer = message.getMessageBuffer();
+                    logger.debug("NODE {}: Sending REQUEST Message = {}", message.getMessageNode(),
                             SerialMessage.bb2hex(buffer));
-                    lastMessageStartTime = System.currentTimeMillis();
                     try {
                         synchronized (serialPort.getOutputStream()) {
                             serialPort.getOutputStream().write(buffer);
@@ -1312,69 +1378,52 @@ public class ZWaveController {
                         break;
                     }
 
-                    // Now wait for the RESPONSE, or REQUEST message FROM the controller
-                    // This will terminate when the transactionCompleted flag gets set
-                    // So, this might complete on a RESPONSE if there's an error (or no further REQUEST expected)
-                    // or it might complete on a subsequent REQUEST.
-                    try {
-                        if (!transactionCompleted.tryAcquire(1, zWaveResponseTimeout, TimeUnit.MILLISECONDS)) {
-                            timeOutCount.incrementAndGet();
-                            // If this is a SendData message, then we need to abort
-                            // This should only be sent if we didn't get the initial ACK!!!
-                            // So we need to check the ACK flag and only abort if it's not set
-                            if (lastSentMessage.getMessageClass() == SerialMessageClass.SendData
-                                    && lastSentMessage.isAckPending()) {
-                                buffer = new SerialMessage(SerialMessageClass.SendDataAbort, SerialMessageType.Request,
-                                        SerialMessageClass.SendData, SerialMessagePriority.Immediate)
-                                                .getMessageBuffer();
-                                logger.debug("NODE {}: Sending ABORT Message = {}", lastSentMessage.getMessageNode(),
-                                        SerialMessage.bb2hex(buffer));
-                                try {
-                                    synchronized (serialPort.getOutputStream()) {
-                                        serialPort.getOutputStream().write(buffer);
-                                        serialPort.getOutputStream().flush();
-                                    }
-                                } catch (IOException e) {
-                                    logger.error("Got I/O exception {} during sending. exiting thread.",
-                                            e.getLocalizedMessage());
-                                    break;
-                                }
-                            }
-
-                            // Check if we've exceeded the number of retries.
-                            // Requeue if we're ok, otherwise discard the message
-                            if (--lastSentMessage.attempts >= 0) {
-                                logger.error("NODE {}: Timeout while sending message. Requeueing - {} attempts left!",
-                                        lastSentMessage.getMessageNode(), lastSentMessage.attempts);
-                                if (lastSentMessage.getMessageClass() == SerialMessageClass.SendData) {
-                                    handleFailedSendDataRequest(lastSentMessage);
-                                } else {
-                                    enqueue(lastSentMessage);
-                                }
-                            } else {
-                                logger.warn("NODE {}: Too many retries. Discarding message: {}",
-                                        lastSentMessage.getMessageNode(), lastSentMessage.toString());
-                            }
-                            continue;
-                        }
-                        long responseTime = System.currentTimeMillis() - lastMessageStartTime;
-                        if (responseTime > longestResponseTime) {
-                            longestResponseTime = responseTime;
-                        }
-                        logger.debug("NODE {}: Response processed after {}ms/{}ms.", lastSentMessage.getMessageNode(),
-                                responseTime, longestResponseTime);
-                        logger.trace("Acquired. Transaction completed permit count -> {}",
-                                transactionCompleted.availablePermits());
-                    } catch (InterruptedException e) {
-                        logger.error("InterruptedException during Z-Wave thread: tryAcquire", e);
-                        break;
-                    }
+                    // The transaction is completed by the input thread when the RESPONSE, or REQUEST
+                    // message FROM the controller has been processed, or it times out in takeNext.
                 }
             } catch (Exception e) {
                 logger.error("Exception during Z-Wave thread: Send", e);
             }
             logger.debug("Stopped Z-Wave thread: Send");
         }
+
+        /**
+         * Handles a transaction which hasn't been completed in time.
+         *
+         * @param message the message of the transaction
+         * @throws IOException if the abort message can't be sent
+         */
+        private void handleTimeout(SerialMessage message) throws IOException {
+            timeOutCount.incrementAndGet();
+            // If this is a SendData message, then we need to abort
+            // This should only be sent if we didn't get the initial ACK!!!
+            // So we need to check the ACK flag and only abort if it's not set
+            if (message.getMessageClass() == SerialMessageClass.SendData && message.isAckPending()) {
+                byte[] buffer = new SerialMessage(SerialMessageClass.SendDataAbort, SerialMessageType.Request,
+                        SerialMessageClass.SendData, SerialMessagePriority.Immediate).getMessageBuffer();
+                logger.debug("NODE {}: Sending ABORT Message = {}", message.getMessageNode(),
+                        SerialMessage.bb2hex(buffer));
+                synchronized (serialPort.getOutputStream()) {
+                    serialPort.getOutputStream().write(buffer);
+                    serialPort.getOutputStream().flush();
+                }
+            }
+
+            // Check if we've exceeded the number of retries.
+            // Requeue if we're ok, otherwise discard the message
+            if (--message.attempts >= 0) {
+                logger.error("NODE {}: Timeout while sending message. Requeueing - {} attempts left!",
+                        message.getMessageNode(), message.attempts);
+                if (message.getMessageClass() == SerialMessageClass.SendData) {
+                    handleFailedSendDataRequest(message);
+                } else {
+                    enqueue(message);
+                }
+            } else {
+                logger.warn("NODE {}: Too many retries. Discarding message: {}", message.getMessageNode(),
+                        message.toString());
+            }
+        }
     }
 
     /**
@@ -1537,9 +1586,7 @@ public class ZWaveController {
                         case NAK:
                             NAKCount++;
                             logger.error("Protocol error (NAK), discarding");
-                            transactionCompleted.release();
-                            logger.trace("Released. Transaction completed permit count -> {}",
-                                    transactionCompleted.availablePermits());
+                            transactionManager.cancelPendingResponse();
                             break;
                         case CAN:
                             CANCount++;
@@ -1549,10 +1596,10 @@ public class ZWaveController {
                             } catch (InterruptedException e) {
                                 break;
                             }
-                            enqueue(lastSentMessage);
-                            transactionCompleted.release();
-                            logger.trace("Released. Transaction completed permit count -> {}",
-                                    transactionCompleted.availablePermits());
+                            SerialMessage canceledMessage = transactionManager.cancelPendingResponse();
+                            if (canceledMessage != null) {
+                                enqueue(canceledMessage);
+                            }
                             break;
                         default:
                             OOFCount++;
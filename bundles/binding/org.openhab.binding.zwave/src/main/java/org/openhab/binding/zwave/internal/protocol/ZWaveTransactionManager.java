@@ -0,0 +1,523 @@
+/**
+ * Copyright (c) 2010-2016, openHAB.org and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.zwave.internal.protocol;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.openhab.binding.zwave.internal.protocol.SerialMessage.SerialMessageClass;
+import org.openhab.binding.zwave.internal.protocol.SerialMessage.SerialMessageType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps track of the transactions that are in progress on the controller.
+ * <p>
+ * The serial API only accepts a new request once the controller has sent the
+ * RESPONSE to the previous one, and the controller only handles a single
+ * SendData at a time until it has reported the callback of the transmission.
+ * Once the callback has been received, the radio is free again, even though
+ * the transaction is still waiting for the reply of the node. This class allows
+ * further requests to be sent in this state -:
+ * <ul>
+ * <li>SendData requests to other nodes, so that a slow or dead node does not
+ * stall all other nodes until the transaction times out.</li>
+ * <li>Controller commands which are completed by their RESPONSE.</li>
+ * </ul>
+ * All other controller commands are exclusive, they are only sent when no other
+ * transaction is in progress, and nothing is sent while they are in progress.
+ * <p>
+ * There is only a single transaction per node. Messages for a node which is busy
+ * are parked in a queue for the node and moved back into the send queue once its
+ * transaction has completed.
+ *
+ * @author agent
+ * @since 1.9.0
+ */
+public class ZWaveTransactionManager {
+
+    private static final Logger logger = LoggerFactory.getLogger(ZWaveTransactionManager.class);
+
+    /**
+     * Controller commands which are completed by their RESPONSE
+     */
+    private static final Set<SerialMessageClass> RESPONSE_ONLY = EnumSet.of(SerialMessageClass.GetVersion,
+            SerialMessageClass.MemoryGetId, SerialMessageClass.SerialApiGetInitData,
+            SerialMessageClass.SerialApiGetCapabilities, SerialMessageClass.SerialApiSetTimeouts,
+            SerialMessageClass.GetSucNodeId, SerialMessageClass.GetControllerCapabilities,
+            SerialMessageClass.GetRoutingInfo, SerialMessageClass.IdentifyNode, SerialMessageClass.IsFailedNodeID);
+
+    private final PriorityBlockingQueue<SerialMessage> sendQueue;
+    private final long timeout;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+
+    // Guarded by lock
+    private final List<Transaction> transactions = new ArrayList<Transaction>();
+    private final Map<Integer, Deque<SerialMessage>> parkedMessages = new HashMap<Integer, Deque<SerialMessage>>();
+    private int parkedCount = 0;
+
+    private final ConcurrentHashMap<Integer, TransactionStatistics> statistics;
+    private final TransactionStatistics totalStatistics = new TransactionStatistics();
+
+    /**
+     * Constructor. Creates a new instance of the transaction manager.
+     *
+     * @param sendQueue the send queue of the controller
+     * @param timeout the time in milliseconds after which a transaction times out
+     */
+    public ZWaveTransactionManager(PriorityBlockingQueue<SerialMessage> sendQueue, long timeout) {
+        this.sendQueue = sendQueue;
+        this.timeout = timeout;
+        this.statistics = new ConcurrentHashMap<Integer, TransactionStatistics>();
+    }
+
+    /**
+     * Takes the next message that can be sent from the send queue. Waits until
+     * a message can be sent, or until one or more transactions have timed out.
+     * A message that is returned has to be started with {@link #start} before
+     * it is sent.
+     *
+     * @param timedOut receives the messages of the timed out transactions
+     * @return the next message to send, or null if transactions have timed out
+     * @throws InterruptedException if the thread has been interrupted while waiting
+     */
+    public SerialMessage takeNext(List<SerialMessage> timedOut) throws InterruptedException {
+        lock.lock();
+        try {
+            while (true) {
+                long now = System.currentTimeMillis();
+                long nextTimeout = Long.MAX_VALUE;
+
+                Iterator<Transaction> iterator = transactions.iterator();
+                while (iterator.hasNext()) {
+                    Transaction transaction = iterator.next();
+                    long remaining = transaction.startTime + timeout - now;
+                    if (remaining <= 0) {
+                        iterator.remove();
+                        getStatistics(transaction.nodeId).recordTimeout();
+                        totalStatistics.recordTimeout();
+                        unpark(transaction.nodeId);
+                        timedOut.add(transaction.message);
+                    } else if (remaining < nextTimeout) {
+                        nextTimeout = remaining;
+                    }
+                }
+                if (!timedOut.isEmpty()) {
+                    return null;
+                }
+
+                SerialMessage message = pollSendable();
+                if (message != null) {
+                    return message;
+                }
+
+                if (nextTimeout == Long.MAX_VALUE) {
+                    changed.await();
+                } else {
+                    changed.await(nextTimeout, TimeUnit.MILLISECONDS);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Takes the first message from the send queue if it can be sent now.
+     * Messages for nodes which are busy are parked on the way.
+     */
+    private SerialMessage pollSendable() {
+        SerialMessage message;
+        while ((message = sendQueue.poll()) != null) {
+            if (isNodeBusy(message)) {
+                park(message);
+                continue;
+            }
+            if (!canSend(message)) {
+                // Put it back, it keeps its place as the order depends on the sequence number
+                sendQueue.add(message);
+                return null;
+            }
+            return message;
+        }
+        return null;
+    }
+
+    private boolean canSend(SerialMessage message) {
+        if (transactions.isEmpty()) {
+            return true;
+        }
+        if (isExclusive(message)) {
+            return false;
+        }
+        for (Transaction transaction : transactions) {
+            // The controller only accepts a new request after the RESPONSE to the last one
+            if (!transaction.responseReceived || isExclusive(transaction.message)) {
+                return false;
+            }
+            // Only one SendData can be transmitted at a time
+            if (message.getMessageClass() == SerialMessageClass.SendData
+                    && transaction.message.getMessageClass() == SerialMessageClass.SendData
+                    && transaction.message.isAckPending()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean isNodeBusy(SerialMessage message) {
+        if (message.getMessageClass() != SerialMessageClass.SendData) {
+            return false;
+        }
+        for (Transaction transaction : transactions) {
+            if (transaction.nodeId == message.getMessageNode()
+                    && transaction.message.getMessageClass() == SerialMessageClass.SendData) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean isExclusive(SerialMessage message) {
+        return message.getMessageClass() != SerialMessageClass.SendData
+                && !RESPONSE_ONLY.contains(message.getMessageClass());
+    }
+
+    private void park(SerialMessage message) {
+        Deque<SerialMessage> queue = parkedMessages.get(message.getMessageNode());
+        if (queue == null) {
+            queue = new ArrayDeque<SerialMessage>();
+            parkedMessages.put(message.getMessageNode(), queue);
+        }
+        queue.add(message);
+        parkedCount++;
+        logger.trace("NODE {}: Node is busy, parking message. Parked messages = {}", message.getMessageNode(),
+                queue.size());
+    }
+
+    private void unpark(int nodeId) {
+        Deque<SerialMessage> queue = parkedMessages.remove(nodeId);
+        if (queue != null) {
+            parkedCount -= queue.size();
+            sendQueue.addAll(queue);
+        }
+    }
+
+    /**
+     * Starts the transaction for a message returned by {@link #takeNext}.
+     *
+     * @param message the message which is about to be sent
+     */
+    public void start(SerialMessage message) {
+        lock.lock();
+        try {
+            transactions.add(new Transaction(message, System.currentTimeMillis()));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Finds the message of the transaction an incoming message belongs to.
+     *
+     * @param incomingMessage the message received from the controller
+     * @return the message of the transaction or null if no transaction matches
+     */
+    public SerialMessage getTransactionMessage(SerialMessage incomingMessage) {
+        lock.lock();
+        try {
+            Transaction transaction = findTransaction(incomingMessage);
+            if (transaction == null) {
+                return null;
+            }
+            if (incomingMessage.getMessageType() == SerialMessageType.Response) {
+                transaction.responseReceived = true;
+            }
+            return transaction.message;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Transaction findTransaction(SerialMessage incomingMessage) {
+        if (incomingMessage.getMessageType() == SerialMessageType.Response) {
+            for (Transaction transaction : transactions) {
+                if (!transaction.responseReceived) {
+                    return transaction;
+                }
+            }
+            return null;
+        }
+
+        byte[] payload = incomingMessage.getMessagePayload();
+        switch (incomingMessage.getMessageClass()) {
+            case SendData:
+                // The SendData callback is identified by the callback ID
+                for (Transaction transaction : transactions) {
+                    if (transaction.message.getMessageClass() == SerialMessageClass.SendData && payload.length > 0
+                            && transaction.message.getCallbackId() == (payload[0] & 0xFF)) {
+                        return transaction;
+                    }
+                }
+                break;
+            case ApplicationCommandHandler:
+                // Replies from a node belong to the transaction of the node
+                for (Transaction transaction : transactions) {
+                    if (transaction.message.getMessageClass() == SerialMessageClass.SendData && payload.length > 1
+                            && transaction.nodeId == (payload[1] & 0xFF)) {
+                        return transaction;
+                    }
+                }
+                break;
+            default:
+                break;
+        }
+
+        for (Transaction transaction : transactions) {
+            if (isExclusive(transaction.message)
+                    || transaction.message.getExpectedReply() == incomingMessage.getMessageClass()) {
+                return transaction;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Completes the transaction of the given message.
+     *
+     * @param message the message of the transaction
+     * @return the response time in milliseconds, or -1 if the transaction is not in progress
+     */
+    public long complete(SerialMessage message) {
+        lock.lock();
+        try {
+            Transaction transaction = removeTransaction(message);
+            if (transaction == null) {
+                return -1;
+            }
+            long responseTime = System.currentTimeMillis() - transaction.startTime;
+            getStatistics(transaction.nodeId).recordResponse(responseTime);
+            totalStatistics.recordResponse(responseTime);
+            unpark(transaction.nodeId);
+            changed.signalAll();
+            return responseTime;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Cancels the transaction which waits for the RESPONSE of the controller,
+     * e.g. because the controller did not accept the request.
+     *
+     * @return the message of the canceled transaction or null
+     */
+    public SerialMessage cancelPendingResponse() {
+        lock.lock();
+        try {
+            for (Transaction transaction : transactions) {
+                if (!transaction.responseReceived) {
+                    removeTransaction(transaction.message);
+                    unpark(transaction.nodeId);
+                    changed.signalAll();
+                    return transaction.message;
+                }
+            }
+            return null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Transaction removeTransaction(SerialMessage message) {
+        Iterator<Transaction> iterator = transactions.iterator();
+        while (iterator.hasNext()) {
+            Transaction transaction = iterator.next();
+            if (transaction.message == message) {
+                iterator.remove();
+                return transaction;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Wakes up the send thread to check whether further messages can be sent,
+     * e.g. after the controller has reported the callback of a SendData request
+     * or a new message has been added to the send queue.
+     */
+    public void notifyChanged() {
+        lock.lock();
+        try {
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes all transactions and parked messages.
+     */
+    public void clear() {
+        lock.lock();
+        try {
+            transactions.clear();
+            parkedMessages.clear();
+            parkedCount = 0;
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of transactions in progress.
+     */
+    public int getTransactionCount() {
+        lock.lock();
+        try {
+            return transactions.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of messages which are parked until their node is no longer busy.
+     */
+    public int getParkedCount() {
+        lock.lock();
+        try {
+            return parkedCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the transaction statistics of a node.
+     *
+     * @param nodeId the node ID, 255 for messages to the controller
+     * @return the statistics of the node
+     */
+    public TransactionStatistics getStatistics(int nodeId) {
+        TransactionStatistics nodeStatistics = statistics.get(nodeId);
+        if (nodeStatistics == null) {
+            nodeStatistics = new TransactionStatistics();
+            TransactionStatistics existing = statistics.putIfAbsent(nodeId, nodeStatistics);
+            if (existing != null) {
+                nodeStatistics = existing;
+            }
+        }
+        return nodeStatistics;
+    }
+
+    /**
+     * Returns the transaction statistics of all nodes and the controller.
+     *
+     * @return the statistics of all transactions
+     */
+    public TransactionStatistics getStatistics() {
+        return totalStatistics;
+    }
+
+    /**
+     * A transaction in progress
+     */
+    private static class Transaction {
+        private final SerialMessage message;
+        private final int nodeId;
+        private final long startTime;
+        private boolean responseReceived = false;
+
+        Transaction(SerialMessage message, long startTime) {
+            this.message = message;
+            this.nodeId = message.getMessageNode();
+            this.startTime = startTime;
+        }
+    }
+
+    /**
+     * Response time and time-out statistics of the transactions with a node.
+     *
+     * @author agent
+     * @since 1.9.0
+     */
+    public static class TransactionStatistics {
+        private int responseCount = 0;
+        private int timeoutCount = 0;
+        private long totalResponseTime = 0;
+        private long longestResponseTime = 0;
+        private long recentResponseTime = 0;
+
+        synchronized void recordResponse(long responseTime) {
+            // Smoothed like the round trip time in TCP, the last response has a weight of 1/8
+            recentResponseTime = responseCount == 0 ? responseTime
+                    : recentResponseTime + (responseTime - recentResponseTime) / 8;
+            responseCount++;
+            totalResponseTime += responseTime;
+            if (responseTime > longestResponseTime) {
+                longestResponseTime = responseTime;
+            }
+        }
+
+        synchronized void recordTimeout() {
+            timeoutCount++;
+        }
+
+        /**
+         * Returns the number of completed transactions.
+         */
+        public synchronized int getResponseCount() {
+            return responseCount;
+        }
+
+        /**
+         * Returns the number of transactions that have timed out.
+         */
+        public synchronized int getTimeoutCount() {
+            return timeoutCount;
+        }
+
+        /**
+         * Returns the average response time of the completed transactions in milliseconds.
+         */
+        public synchronized long getAverageResponseTime() {
+            return responseCount == 0 ? 0 : totalResponseTime / responseCount;
+        }
+
+        /**
+         * Returns the smoothed response time of the recently completed transactions in milliseconds.
+         */
+        public synchronized long getRecentResponseTime() {
+            return recentResponseTime;
+        }
+
+        /**
+         * Returns the longest response time of the completed transactions in milliseconds.
+         */
+        public synchronized long getLongestResponseTime() {
+            return longestResponseTime;
+        }
+    }
+}
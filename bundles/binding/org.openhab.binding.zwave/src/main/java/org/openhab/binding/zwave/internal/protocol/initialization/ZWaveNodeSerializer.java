@@ -8,14 +8,20 @@
  */
 package org.openhab.binding.zwave.internal.protocol.initialization;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.OutputStreamWriter;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 
 import org.openhab.binding.zwave.internal.protocol.ZWaveDeviceClass;
 import org.openhab.binding.zwave.internal.protocol.ZWaveEndpoint;
@@ -27,11 +33,25 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.thoughtworks.xstream.XStream;
+import com.thoughtworks.xstream.XStreamException;
+import com.thoughtworks.xstream.io.HierarchicalStreamWriter;
+import com.thoughtworks.xstream.io.binary.BinaryStreamDriver;
 import com.thoughtworks.xstream.io.xml.PrettyPrintWriter;
 import com.thoughtworks.xstream.io.xml.StaxDriver;
 
 /**
- * ZWaveNodeSerializer class. Serializes nodes to XML and back again.
+ * ZWaveNodeSerializer class. Serializes nodes to a binary node cache and back again.
+ * <p>
+ * Nodes are stored in a compact binary file per node (nodeX.bin) which starts with
+ * a header holding the cache format version. Files with an unknown version are
+ * ignored, so the node is read from XML or initialised again. The XML files
+ * (nodeX.xml) written by earlier versions are imported if there is no binary file,
+ * or if the XML file has been changed after the binary file was written, so that the
+ * XML can still be edited by hand. Writing
+ * of the XML files can be enabled with {@link #setXmlExport(boolean)}.
+ * <p>
+ * The serializer is shared, use {@link #getInstance()} to get it. Setting up the
+ * XStream mapping of all command classes is expensive and only done once.
  *
  * @author Jan-Willem Spuij
  * @since 1.4.0
@@ -39,14 +59,44 @@ import com.thoughtworks.xstream.io.xml.StaxDriver;
 public class ZWaveNodeSerializer {
 
     private static final Logger logger = LoggerFactory.getLogger(ZWaveNodeSerializer.class);
+
+    /**
+     * Magic number at the start of a binary node file ("ZWNC")
+     */
+    private static final int CACHE_MAGIC = 0x5A574E43;
+
+    /**
+     * Version of the binary node file format. This must be increased when the
+     * format of the file changes in an incompatible way.
+     */
+    private static final int CACHE_VERSION = 1;
+
     private final XStream stream = new XStream(new StaxDriver());
+    private final BinaryStreamDriver binaryDriver = new BinaryStreamDriver();
     private String folderName = "etc/zwave";
+    private volatile boolean xmlExport = false;
+
+    /**
+     * Holder of the shared instance, which is created on first use.
+     */
+    private static class InstanceHolder {
+        private static final ZWaveNodeSerializer INSTANCE = new ZWaveNodeSerializer();
+    }
+
+    /**
+     * Returns the shared instance of the {@link ZWaveNodeSerializer}.
+     *
+     * @return the serializer
+     */
+    public static ZWaveNodeSerializer getInstance() {
+        return InstanceHolder.INSTANCE;
+    }
 
     /**
      * Constructor. Creates a new instance of the {@link ZWaveNodeSerializer}
      * class.
      */
-    public ZWaveNodeSerializer() {
+    private ZWaveNodeSerializer() {
         logger.trace("Initializing ZWaveNodeSerializer.");
 
         // Change the folder for OH2
@@ -86,8 +136,18 @@ public class ZWaveNodeSerializer {
     }
 
     /**
-     * Serializes an XML tree of a {@link ZWaveNode}
-     * 
+     * Sets whether nodes are also written to XML files when they are serialized.
+     *
+     * @param xmlExport true to write the XML files
+     */
+    public void setXmlExport(boolean xmlExport) {
+        this.xmlExport = xmlExport;
+    }
+
+    /**
+     * Serializes a {@link ZWaveNode} to the binary node cache, and to XML if
+     * the export is enabled.
+     *
      * @param node
      *            the node to serialize
      */
@@ -101,17 +161,69 @@ public class ZWaveNodeSerializer {
                 return;
             }
 
-            File file = new File(this.folderName, String.format("node%d.xml", node.getNodeId()));
-            BufferedWriter writer = null;
+            File file = getBinaryFile(node.getNodeId());
+            File tempFile = new File(this.folderName, file.getName() + ".tmp");
+            DataOutputStream output = null;
+            boolean written = false;
 
             logger.debug("NODE {}: Serializing to file {}", node.getNodeId(), file.getPath());
 
+            try {
+                // Write to a temporary file first, so a crash doesn't leave a truncated cache
+                output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)));
+                output.writeInt(CACHE_MAGIC);
+                output.writeInt(CACHE_VERSION);
+                HierarchicalStreamWriter writer = binaryDriver.createWriter(output);
+                stream.marshal(node, writer);
+                writer.flush();
+                output.close();
+                output = null;
+                Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                written = true;
+            } catch (IOException e) {
+                logger.error("NODE {}: Error serializing to file: {}", node.getNodeId(), e.getMessage());
+            } finally {
+                if (output != null) {
+                    try {
+                        output.close();
+                    } catch (IOException e) {
+                    }
+                }
+                tempFile.delete();
+            }
+
+            if (xmlExport) {
+                exportXml(node);
+
+                // The exported XML holds the same node as the binary file. Give both the same
+                // time, so that the XML only takes precedence once it has been edited by hand.
+                File xmlFile = getXmlFile(node.getNodeId());
+                if (written && xmlFile.exists()) {
+                    file.setLastModified(xmlFile.lastModified());
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes a {@link ZWaveNode} to an XML file.
+     *
+     * @param node
+     *            the node to export
+     */
+    public void exportXml(ZWaveNode node) {
+        synchronized (stream) {
+            File file = getXmlFile(node.getNodeId());
+            BufferedWriter writer = null;
+
+            logger.debug("NODE {}: Exporting to file {}", node.getNodeId(), file.getPath());
+
             try {
                 writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), "UTF-8"));
                 stream.marshal(node, new PrettyPrintWriter(writer));
                 writer.flush();
             } catch (IOException e) {
-                logger.error("NODE {}: Error serializing to file: {}", node.getNodeId(), e.getMessage());
+                logger.error("NODE {}: Error exporting to file: {}", node.getNodeId(), e.getMessage());
             } finally {
                 if (writer != null) {
                     try {
@@ -124,18 +236,75 @@ public class ZWaveNodeSerializer {
     }
 
     /**
-     * Deserializes an XML tree of a {@link ZWaveNode}
-     * 
+     * Deserializes a {@link ZWaveNode} from the binary node cache. If there is
+     * no valid binary file, or the XML file is newer, the node is imported from XML.
+     *
      * @param nodeId
      *            the number of the node to deserialize
      * @return returns the Node or null in case Serialization failed.
      */
     public ZWaveNode DeserializeNode(int nodeId) {
         synchronized (stream) {
-            File file = new File(this.folderName, String.format("node%d.xml", nodeId));
+            File file = getBinaryFile(nodeId);
+            File xmlFile = getXmlFile(nodeId);
+
+            if (file.exists() && (!xmlFile.exists() || xmlFile.lastModified() <= file.lastModified())) {
+                ZWaveNode node = readBinary(nodeId, file);
+                if (node != null) {
+                    return node;
+                }
+            }
+
+            return importXml(nodeId);
+        }
+    }
+
+    private ZWaveNode readBinary(int nodeId, File file) {
+        DataInputStream input = null;
+
+        logger.debug("NODE {}: Serializing from file {}", nodeId, file.getPath());
+
+        try {
+            input = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+            if (input.readInt() != CACHE_MAGIC) {
+                logger.warn("NODE {}: Ignoring file {}, it is not a node cache file.", nodeId, file.getPath());
+                return null;
+            }
+            int version = input.readInt();
+            if (version != CACHE_VERSION) {
+                logger.info("NODE {}: Ignoring file {} with cache version {}, expected version {}.", nodeId,
+                        file.getPath(), version, CACHE_VERSION);
+                return null;
+            }
+            return (ZWaveNode) stream.unmarshal(binaryDriver.createReader(input));
+        } catch (IOException e) {
+            logger.error("NODE {}: Error serializing from file: {}", nodeId, e.getMessage());
+        } catch (XStreamException e) {
+            logger.error("NODE {}: Error serializing from file: {}", nodeId, e.getMessage());
+        } finally {
+            if (input != null) {
+                try {
+                    input.close();
+                } catch (IOException e) {
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Reads a {@link ZWaveNode} from an XML file.
+     *
+     * @param nodeId
+     *            the number of the node to import
+     * @return returns the Node or null in case the import failed.
+     */
+    public ZWaveNode importXml(int nodeId) {
+        synchronized (stream) {
+            File file = getXmlFile(nodeId);
             BufferedReader reader = null;
 
-            logger.debug("NODE {}: Serializing from file {}", nodeId, file.getPath());
+            logger.debug("NODE {}: Importing from file {}", nodeId, file.getPath());
 
             if (!file.exists()) {
                 logger.debug("NODE {}: Error serializing from file: file does not exist.", nodeId);
@@ -146,7 +315,7 @@ public class ZWaveNodeSerializer {
                 reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), "UTF-8"));
                 return (ZWaveNode) stream.fromXML(reader);
             } catch (IOException e) {
-                logger.error("NODE {}: Error serializing from file: {}", nodeId, e.getMessage());
+                logger.error("NODE {}: Error importing from file: {}", nodeId, e.getMessage());
             } finally {
                 if (reader != null) {
                     try {
@@ -163,13 +332,20 @@ public class ZWaveNodeSerializer {
      * Deletes the persistence store for the specified node.
      * 
      * @param nodeId The node ID to remove
-     * @return true if the file was deleted
+     * @return true if a file was deleted
      */
     public boolean DeleteNode(int nodeId) {
         synchronized (stream) {
-            File file = new File(this.folderName, String.format("node%d.xml", nodeId));
-
-            return file.delete();
+            boolean deleted = getBinaryFile(nodeId).delete();
+            return getXmlFile(nodeId).delete() || deleted;
         }
     }
+
+    private File getBinaryFile(int nodeId) {
+        return new File(this.folderName, String.format("node%d.bin", nodeId));
+    }
+
+    private File getXmlFile(int nodeId) {
+        return new File(this.folderName, String.format("node%d.xml", nodeId));
+    }
 }
@@ -122,7 +122,7 @@ import org.slf4j.LoggerFactory;
  */
 public class ZWaveNodeStageAdvancer implements ZWaveEventListener {
 
-    private static final ZWaveNodeSerializer nodeSerializer = new ZWaveNodeSerializer();
+    private static final ZWaveNodeSerializer nodeSerializer = ZWaveNodeSerializer.getInstance();
     private static final Logger logger = LoggerFactory.getLogger(ZWaveNodeStageAdvancer.class);
 
     private ZWaveNode node;
@@ -146,6 +146,7 @@ public class ZWaveNodeStageAdvancer implements ZWaveEventListener {
     private int wakeupCount;
 
     private Date queryStageTimeStamp;
+    private long initialisationStart;
     private ZWaveNodeInitStage currentStage;
 
     /**
@@ -171,6 +172,7 @@ public class ZWaveNodeStageAdvancer implements ZWaveEventListener {
         // Reset the state variables
         currentStage = ZWaveNodeInitStage.EMPTYNODE;
         queryStageTimeStamp = Calendar.getInstance().getTime();
+        initialisationStart = System.currentTimeMillis();
         retryTimer = BACKOFF_TIMER_START;
 
         // Create the timer and timer task
@@ -846,7 +848,8 @@ public class ZWaveNodeStageAdvancer implements ZWaveEventListener {
                     if (currentStage != ZWaveNodeInitStage.DONE) {
                         break;
                     }
-                    logger.debug("NODE {}: Node advancer: Initialisation complete!", node.getNodeId());
+                    logger.debug("NODE {}: Node advancer: Initialisation complete in {}ms!", node.getNodeId(),
+                            System.currentTimeMillis() - initialisationStart);
 
                     // Stop the retry timer
                     resetIdleTimer();
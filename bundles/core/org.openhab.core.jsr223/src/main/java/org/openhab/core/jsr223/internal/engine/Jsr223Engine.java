@@ -88,6 +88,7 @@ public class Jsr223Engine implements EventHandler, ItemRegistryChangeListener, S
 	public void deactivate() {
 		// execute all scripts that were registered for system shutdown
 		scriptManager.executeRules(triggerManager.getRules(TriggerType.SHUTDOWN), new org.openhab.core.jsr223.internal.shared.Event(TriggerType.SHUTDOWN, null, null, null, null));
+		scriptManager.shutdown();
 		triggerManager.clearAll();
 		triggerManager = null;
 	}
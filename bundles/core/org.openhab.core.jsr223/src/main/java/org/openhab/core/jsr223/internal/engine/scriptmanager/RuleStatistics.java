@@ -0,0 +1,106 @@
+/**
+ * Copyright (c) 2010-2016, openHAB.org and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.core.jsr223.internal.engine.scriptmanager;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Execution metrics of a single rule: the number of pending executions and
+ * the time spent waiting for and running the rule.
+ *
+ * @author agent
+ * @since 1.9.0
+ */
+public class RuleStatistics {
+
+	private final AtomicInteger queueDepth = new AtomicInteger();
+	private final AtomicLong executions = new AtomicLong();
+	private final AtomicLong rejections = new AtomicLong();
+	private final AtomicLong totalExecutionNanos = new AtomicLong();
+	private final AtomicLong maxExecutionNanos = new AtomicLong();
+	private final AtomicLong totalWaitNanos = new AtomicLong();
+
+	void executionQueued() {
+		queueDepth.incrementAndGet();
+	}
+
+	void executionRejected() {
+		rejections.incrementAndGet();
+	}
+
+	void executionFinished(long waitNanos, long executionNanos) {
+		queueDepth.decrementAndGet();
+		executions.incrementAndGet();
+		totalWaitNanos.addAndGet(waitNanos);
+		totalExecutionNanos.addAndGet(executionNanos);
+		long max;
+		do {
+			max = maxExecutionNanos.get();
+		} while (executionNanos > max && !maxExecutionNanos.compareAndSet(max, executionNanos));
+	}
+
+	/**
+	 * @return the number of executions which are waiting or running
+	 */
+	public int getQueueDepth() {
+		return queueDepth.get();
+	}
+
+	/**
+	 * @return the number of finished executions
+	 */
+	public long getExecutionCount() {
+		return executions.get();
+	}
+
+	/**
+	 * @return the number of executions which have been dropped because the
+	 *         queue of the script was full
+	 */
+	public long getRejectionCount() {
+		return rejections.get();
+	}
+
+	/**
+	 * @return the average execution time in milliseconds
+	 */
+	public double getAverageExecutionTime() {
+		long count = executions.get();
+		return count == 0 ? 0 : toMillis(totalExecutionNanos.get()) / count;
+	}
+
+	/**
+	 * @return the longest execution time in milliseconds
+	 */
+	public double getMaxExecutionTime() {
+		return toMillis(maxExecutionNanos.get());
+	}
+
+	/**
+	 * @return the average time in milliseconds an execution waited in the queue
+	 */
+	public double getAverageWaitTime() {
+		long count = executions.get();
+		return count == 0 ? 0 : toMillis(totalWaitNanos.get()) / count;
+	}
+
+	private static double toMillis(long nanos) {
+		return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+	}
+
+	@Override
+	public String toString() {
+		return String.format("queued=%d, executed=%d, rejected=%d, avg=%.1fms, max=%.1fms, avgWait=%.1fms",
+				getQueueDepth(), getExecutionCount(), getRejectionCount(), getAverageExecutionTime(),
+				getMaxExecutionTime(), getAverageWaitTime());
+	}
+
+}
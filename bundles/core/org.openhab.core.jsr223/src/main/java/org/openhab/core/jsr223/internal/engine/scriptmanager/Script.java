@@ -14,6 +14,13 @@ import java.io.FileReader;
 import java.net.URLEncoder;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.script.Invocable;
 import javax.script.ScriptEngine;
@@ -62,17 +69,41 @@ import org.slf4j.LoggerFactory;
  * A Script holds information about a script-file. Furthermore it feeds information and objects to the Jsr223
  * Script-Engine to allow interoperability with openHAB.
  * 
+ * The rules of a script share its engine, which is not thread-safe. They are therefore executed one after
+ * the other on the shared rule executor of the {@link ScriptManager}, while rules of different scripts run
+ * in parallel. As a consequence, a rule which blocks for a long time (e.g. by sleeping or waiting for a
+ * response) delays all other rules of its script until it returns; such waits should be moved to timers or
+ * to a separate script.
+ * 
  * @author Simon Merschjohann
  * @author Helmut Lehmeyer
  * @since 1.7.0
  */
 public class Script{
 	static private final Logger logger = LoggerFactory.getLogger(Script.class);
+
+	/** executions of a script which are waiting for its engine, further ones are dropped */
+	private static final int MAX_PENDING_EXECUTIONS = 1000;
+
+	/** executions run in one turn before the executor thread is handed over to other scripts */
+	private static final int EXECUTIONS_PER_TURN = 10;
+
 	ArrayList<Rule> rules = new ArrayList<Rule>();
 	private ScriptManager scriptManager;
 	private ScriptEngine engine = null;
 	private String fileName;
 
+	private final Queue<RuleExecution> pendingExecutions = new ConcurrentLinkedQueue<RuleExecution>();
+	private final AtomicInteger pendingCount = new AtomicInteger();
+	private final AtomicBoolean scheduled = new AtomicBoolean(false);
+	private final ConcurrentMap<Rule, RuleStatistics> statistics = new ConcurrentHashMap<Rule, RuleStatistics>();
+	private final Runnable executionTurn = new Runnable() {
+		@Override
+		public void run() {
+			runPendingExecutions();
+		}
+	};
+
 	public Script(ScriptManager scriptManager, File file) throws FileNotFoundException, ScriptException, NoSuchMethodException {
 		this.scriptManager = scriptManager;
 		this.fileName = file.getName();
@@ -271,9 +302,68 @@ public class Script{
 		return this.rules;
 	}
 
+	/**
+	 * Queues the execution of the given rule of this script.
+	 * 
+	 * @param rule the rule to execute
+	 * @param event the event which triggered the rule
+	 */
 	public void executeRule(Rule rule, Event event) {
-		Thread t = new Thread(new RuleExecutionRunnable(rule, event));
-		t.start();
+		RuleStatistics ruleStatistics = getStatistics(rule);
+		if (pendingCount.incrementAndGet() > MAX_PENDING_EXECUTIONS) {
+			pendingCount.decrementAndGet();
+			ruleStatistics.executionRejected();
+			logger.warn("Dropping execution of rule {} in script {}, {} executions are pending", rule, fileName,
+					MAX_PENDING_EXECUTIONS);
+			return;
+		}
+		ruleStatistics.executionQueued();
+		pendingExecutions.add(new RuleExecution(rule, event, ruleStatistics));
+		schedule();
+	}
+
+	/**
+	 * Hands this script over to the rule executor, unless it is already waiting for or running its executions.
+	 */
+	private void schedule() {
+		if (!pendingExecutions.isEmpty() && scheduled.compareAndSet(false, true)) {
+			try {
+				scriptManager.getExecutor().execute(executionTurn);
+			} catch (RejectedExecutionException e) {
+				scheduled.set(false);
+				logger.debug("Rule executor has been shut down, not executing pending rules of script {}", fileName);
+			}
+		}
+	}
+
+	private void runPendingExecutions() {
+		try {
+			RuleExecution execution;
+			for (int i = 0; i < EXECUTIONS_PER_TURN && (execution = pendingExecutions.poll()) != null; i++) {
+				pendingCount.decrementAndGet();
+				execution.run();
+			}
+		} finally {
+			scheduled.set(false);
+			// continue with the executions which are left or have been added meanwhile, even if a rule failed
+			schedule();
+		}
+	}
+
+	/**
+	 * @param rule a rule of this script
+	 * @return the execution metrics of the given rule
+	 */
+	public RuleStatistics getStatistics(Rule rule) {
+		RuleStatistics ruleStatistics = statistics.get(rule);
+		if (ruleStatistics == null) {
+			ruleStatistics = new RuleStatistics();
+			RuleStatistics existing = statistics.putIfAbsent(rule, ruleStatistics);
+			if (existing != null) {
+				ruleStatistics = existing;
+			}
+		}
+		return ruleStatistics;
 	}
 
 	public String getFileName() {
@@ -284,4 +374,29 @@ public class Script{
 		return engine;
 	}
 
+	/**
+	 * A queued execution of a rule, which records its waiting and execution time.
+	 */
+	private class RuleExecution {
+		private final Rule rule;
+		private final Event event;
+		private final RuleStatistics ruleStatistics;
+		private final long queuedAt = System.nanoTime();
+
+		RuleExecution(Rule rule, Event event, RuleStatistics ruleStatistics) {
+			this.rule = rule;
+			this.event = event;
+			this.ruleStatistics = ruleStatistics;
+		}
+
+		void run() {
+			long startedAt = System.nanoTime();
+			new RuleExecutionRunnable(rule, event).run();
+			ruleStatistics.executionFinished(startedAt - queuedAt, System.nanoTime() - startedAt);
+			if (logger.isDebugEnabled()) {
+				logger.debug("Executed rule {} of script {}: {}", new Object[] { rule, fileName, ruleStatistics });
+			}
+		}
+	}
+
 }
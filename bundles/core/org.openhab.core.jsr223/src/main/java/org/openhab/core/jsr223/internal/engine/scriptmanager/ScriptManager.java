@@ -12,8 +12,15 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.script.ScriptEngineFactory;
 import javax.script.ScriptEngineManager;
@@ -35,14 +42,25 @@ import org.slf4j.LoggerFactory;
  * loads scripts from the scripts directory
  * and listens for script changes (which lead to script reloading)
  * 
+ * Triggered rules are executed by a bounded pool of threads, each script executes its own rules one after
+ * the other (see {@link Script}).
+ * 
  * @author Simon Merschjohann
  * @since 1.7.0
  */
 public class ScriptManager {
 	static private final Logger logger = LoggerFactory.getLogger(ScriptManager.class);
 
-	public HashMap<String, Script> scripts = new HashMap<String, Script>();
-	public HashMap<Rule, Script> ruleMap = new HashMap<Rule, Script>();
+	/** the number of threads executing rules */
+	private static final int EXECUTOR_THREADS = 5;
+
+	/** the time to wait for the running rules on shutdown in seconds */
+	private static final int SHUTDOWN_TIMEOUT = 10;
+
+	public Map<String, Script> scripts = new ConcurrentHashMap<String, Script>();
+	public Map<Rule, Script> ruleMap = new ConcurrentHashMap<Rule, Script>();
+
+	private final ThreadPoolExecutor executor;
 
 	private ItemRegistry itemRegistry;
 
@@ -55,6 +73,12 @@ public class ScriptManager {
 	public ScriptManager(RuleTriggerManager triggerManager, ItemRegistry itemRegistry) {
 		this.triggerManager = triggerManager;
 		instance = this;
+
+		// each script occupies at most one entry of the queue, so it is bounded by the number of scripts
+		executor = new ThreadPoolExecutor(EXECUTOR_THREADS, EXECUTOR_THREADS, 60L, TimeUnit.SECONDS,
+				new LinkedBlockingQueue<Runnable>(), new RuleThreadFactory());
+		executor.allowCoreThreadTimeOut(true);
+
 		logger.info("Available engines:");
 		for (ScriptEngineFactory f : new ScriptEngineManager().getEngineFactories()) {
 			logger.info(f.getEngineName());
@@ -132,15 +156,54 @@ public class ScriptManager {
 		this.itemRegistry = itemRegistry;
 	}
 
-	public synchronized void executeRules(Rule[] rules, org.openhab.core.jsr223.internal.shared.Event event) {
+	public void executeRules(Rule[] rules, org.openhab.core.jsr223.internal.shared.Event event) {
 		for (Rule rule : rules) {
-			ruleMap.get(rule).executeRule(rule, event);
+			executeRule(rule, event);
 		}
 	}
 
-	public synchronized void executeRules(Iterable<Rule> rules, org.openhab.core.jsr223.internal.shared.Event event) {
+	public void executeRules(Iterable<Rule> rules, org.openhab.core.jsr223.internal.shared.Event event) {
 		for (Rule rule : rules) {
-			ruleMap.get(rule).executeRule(rule, event);
+			executeRule(rule, event);
+		}
+	}
+
+	private void executeRule(Rule rule, org.openhab.core.jsr223.internal.shared.Event event) {
+		Script script = ruleMap.get(rule);
+		if (script != null) {
+			script.executeRule(rule, event);
+		} else {
+			logger.debug("Not executing rule {}, its script has been removed", rule);
+		}
+	}
+
+	/**
+	 * @param rule a loaded rule
+	 * @return the execution metrics of the given rule or null, if its script has been removed
+	 */
+	public RuleStatistics getRuleStatistics(Rule rule) {
+		Script script = ruleMap.get(rule);
+		return script != null ? script.getStatistics(rule) : null;
+	}
+
+	ExecutorService getExecutor() {
+		return executor;
+	}
+
+	/**
+	 * Stops the rule executor after the queued rules have been executed, waiting at most
+	 * {@link #SHUTDOWN_TIMEOUT} seconds for them.
+	 */
+	public void shutdown() {
+		executor.shutdown();
+		try {
+			if (!executor.awaitTermination(SHUTDOWN_TIMEOUT, TimeUnit.SECONDS)) {
+				logger.warn("Rules are still running after {} seconds, interrupting them", SHUTDOWN_TIMEOUT);
+				executor.shutdownNow();
+			}
+		} catch (InterruptedException e) {
+			executor.shutdownNow();
+			Thread.currentThread().interrupt();
 		}
 	}
 
@@ -216,4 +279,15 @@ public class ScriptManager {
 		}
 	}
 
+	private static class RuleThreadFactory implements ThreadFactory {
+		private final AtomicInteger threadNumber = new AtomicInteger(1);
+
+		@Override
+		public Thread newThread(Runnable runnable) {
+			Thread thread = new Thread(runnable, "jsr223-rule-" + threadNumber.getAndIncrement());
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+
 }
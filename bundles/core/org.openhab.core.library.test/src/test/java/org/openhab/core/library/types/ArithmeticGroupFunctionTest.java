@@ -10,6 +10,7 @@ package org.openhab.core.library.types;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Random;
 
 import junit.framework.Assert;
 
@@ -17,6 +18,8 @@ import org.junit.Before;
 import org.junit.Test;
 import org.openhab.core.items.GenericItem;
 import org.openhab.core.items.GroupFunction;
+import org.openhab.core.items.GroupItem;
+import org.openhab.core.items.IncrementalGroupFunction;
 import org.openhab.core.items.Item;
 import org.openhab.core.library.items.DimmerItem;
 import org.openhab.core.library.items.SwitchItem;
@@ -205,6 +208,109 @@ public class ArithmeticGroupFunctionTest {
 		Assert.assertEquals(new DecimalType("234.95"), state);
 	}
 	
+	@Test
+	public void testIncrementalAggregatesMatchCalculate() {
+		Random random = new Random(4711);
+		State[] states = { new DecimalType("1"), new DecimalType("2.50"), new DecimalType("-3.1"),
+				new DecimalType("7"), OpenClosedType.OPEN, OpenClosedType.CLOSED, UnDefType.UNDEF, UnDefType.NULL };
+		for(int i=0; i<20; i++) {
+			items.add(new TestItem("TestItem" + i, states[random.nextInt(states.length)]));
+		}
+		IncrementalGroupFunction[] functions = {
+			new ArithmeticGroupFunction.And(OpenClosedType.OPEN, OpenClosedType.CLOSED),
+			new ArithmeticGroupFunction.Or(OpenClosedType.OPEN, OpenClosedType.CLOSED),
+			new ArithmeticGroupFunction.NAnd(OpenClosedType.OPEN, OpenClosedType.CLOSED),
+			new ArithmeticGroupFunction.NOr(OpenClosedType.OPEN, OpenClosedType.CLOSED),
+			new ArithmeticGroupFunction.Avg(),
+			new ArithmeticGroupFunction.Sum(),
+			new ArithmeticGroupFunction.Min(),
+			new ArithmeticGroupFunction.Max(),
+			new ArithmeticGroupFunction.Count(new StringType("[0-9].*"))
+		};
+		IncrementalGroupFunction.Aggregate[] aggregates = new IncrementalGroupFunction.Aggregate[functions.length];
+		for(int f=0; f<functions.length; f++) {
+			aggregates[f] = functions[f].createAggregate();
+			for(Item item : items) {
+				aggregates[f].add(item);
+			}
+		}
+
+		for(int i=0; i<2000; i++) {
+			TestItem item = (TestItem) items.get(random.nextInt(items.size()));
+			item.setState(states[random.nextInt(states.length)]);
+			for(int f=0; f<functions.length; f++) {
+				aggregates[f].update(item);
+				State expected = functions[f].calculate(items);
+				State actual = aggregates[f].getState();
+				Assert.assertEquals(functions[f].getClass().getSimpleName(), expected, actual);
+				Assert.assertEquals(functions[f].getClass().getSimpleName(), expected.toString(), actual.toString());
+			}
+		}
+
+		// removing all items leads to the state of an empty group
+		for(int f=0; f<functions.length; f++) {
+			for(Item item : items) {
+				aggregates[f].remove(item);
+			}
+			Assert.assertEquals(functions[f].calculate(new ArrayList<Item>()), aggregates[f].getState());
+		}
+	}
+
+	@Test
+	public void testGroupItemWithIncrementalFunction() {
+		GroupItem group = new GroupItem("Group", new NumberItemStub("Base"), new ArithmeticGroupFunction.Max());
+		TestItem item1 = new TestItem("TestItem1", new DecimalType("5"));
+		TestItem item2 = new TestItem("TestItem2", new DecimalType("10"));
+		group.addMember(item1);
+		group.addMember(item2);
+
+		item1.setState(new DecimalType("3"));
+		Assert.assertEquals(new DecimalType("10"), group.getState());
+		item2.setState(new DecimalType("1"));
+		Assert.assertEquals(new DecimalType("3"), group.getState());
+
+		group.removeMember(item1);
+		item2.setState(new DecimalType("2"));
+		Assert.assertEquals(new DecimalType("2"), group.getState());
+	}
+
+	@Test
+	public void testLargeAvgGroupFollowsUpdates() {
+		ArithmeticGroupFunction.Avg function = new ArithmeticGroupFunction.Avg();
+		GroupItem group = new GroupItem("Group", new NumberItemStub("Base"), function);
+		List<Item> members = new ArrayList<Item>();
+		for(int i=0; i<300; i++) {
+			TestItem item = new TestItem("TestItem" + i, new DecimalType(i));
+			members.add(item);
+			group.addMember(item);
+		}
+		for(int i=0; i<3000; i++) {
+			((TestItem) members.get(i % 300)).setState(new DecimalType(i % 1000));
+			if(i % 299 == 0) {
+				Assert.assertEquals(function.calculate(members), group.getState());
+			}
+		}
+		Assert.assertEquals(function.calculate(members), group.getState());
+	}
+
+	class NumberItemStub extends GenericItem {
+
+		public NumberItemStub(String name) {
+			super(name);
+		}
+
+		@Override
+		public List<Class<? extends State>> getAcceptedDataTypes() {
+			return null;
+		}
+
+		@Override
+		public List<Class<? extends Command>> getAcceptedCommandTypes() {
+			return null;
+		}
+
+	}
+
 	class TestItem extends GenericItem {
 
 		public TestItem(String name, State state) {
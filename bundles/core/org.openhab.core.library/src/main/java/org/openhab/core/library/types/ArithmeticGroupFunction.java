@@ -11,10 +11,12 @@ package org.openhab.core.library.types;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.util.List;
+import java.util.TreeMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import org.openhab.core.items.GroupFunction;
+import org.openhab.core.items.IncrementalGroupFunction;
 import org.openhab.core.items.Item;
 import org.openhab.core.types.State;
 import org.openhab.core.types.UnDefType;
@@ -23,6 +25,9 @@ import org.openhab.core.types.UnDefType;
  * This interface is only a container for functions that require the core type library
  * for its calculations.
  * 
+ * All functions are {@link IncrementalGroupFunction}s, so that groups only need to
+ * look at the changed member when one of their members is updated.
+ * 
  * @author Kai Kreuzer
  * @since 0.7.0
  *
@@ -40,7 +45,7 @@ public interface ArithmeticGroupFunction extends GroupFunction {
 	 * @since 0.7.0
 	 *
 	 */
-	static class And implements GroupFunction {
+	static class And implements IncrementalGroupFunction {
 		
 		protected final State activeState;
 		protected final State passiveState;
@@ -102,6 +107,24 @@ public interface ArithmeticGroupFunction extends GroupFunction {
 			return count;
 			
 		}
+
+		/**
+		 * @{inheritDoc
+		 */
+		public Aggregate createAggregate() {
+			return new ActiveCountAggregate(activeState) {
+				public State getState() {
+					return calculate(getActiveCount(), getItemCount());
+				}
+			};
+		}
+
+		/**
+		 * Returns the result of this function for the given number of items in the 'activeState'.
+		 */
+		protected State calculate(int activeCount, int itemCount) {
+			return itemCount > 0 && activeCount == itemCount ? activeState : passiveState;
+		}
 	}
 
 	/**
@@ -115,7 +138,7 @@ public interface ArithmeticGroupFunction extends GroupFunction {
 	 * @since 0.7.0
 	 *
 	 */
-	static class Or implements GroupFunction {
+	static class Or implements IncrementalGroupFunction {
 
 		protected final State activeState;
 		protected final State passiveState;
@@ -169,6 +192,24 @@ public interface ArithmeticGroupFunction extends GroupFunction {
 			}
 			return count;
 		}
+
+		/**
+		 * @{inheritDoc
+		 */
+		public Aggregate createAggregate() {
+			return new ActiveCountAggregate(activeState) {
+				public State getState() {
+					return calculate(getActiveCount(), getItemCount());
+				}
+			};
+		}
+
+		/**
+		 * Returns the result of this function for the given number of items in the 'activeState'.
+		 */
+		protected State calculate(int activeCount, int itemCount) {
+			return activeCount > 0 ? activeState : passiveState;
+		}
 	}
 	
 	/**
@@ -192,6 +233,12 @@ public interface ArithmeticGroupFunction extends GroupFunction {
 				result.equals(activeState) ? passiveState : activeState;
 			return notResult;
 		}
+
+		@Override
+		protected State calculate(int activeCount, int itemCount) {
+			State result = super.calculate(activeCount, itemCount);
+			return result.equals(activeState) ? passiveState : activeState;
+		}
 		
 	}
 
@@ -216,6 +263,12 @@ public interface ArithmeticGroupFunction extends GroupFunction {
 				result.equals(activeState) ? passiveState : activeState;
 			return notResult;
 		}
+
+		@Override
+		protected State calculate(int activeCount, int itemCount) {
+			State result = super.calculate(activeCount, itemCount);
+			return result.equals(activeState) ? passiveState : activeState;
+		}
 		
 	}
 	
@@ -226,7 +279,7 @@ public interface ArithmeticGroupFunction extends GroupFunction {
 	 * @since 0.7.0
 	 *
 	 */
-	static class Avg implements GroupFunction {
+	static class Avg implements IncrementalGroupFunction {
 		
 		public Avg() {}
 
@@ -251,6 +304,21 @@ public interface ArithmeticGroupFunction extends GroupFunction {
 				return UnDefType.UNDEF;
 			}
 		}
+
+		/**
+		 * @{inheritDoc
+		 */
+		public Aggregate createAggregate() {
+			return new SumAggregate() {
+				public State getState() {
+					if(getCount()>0) {
+						return new DecimalType(getSum().divide(new BigDecimal(getCount()), RoundingMode.HALF_UP));
+					} else {
+						return UnDefType.UNDEF;
+					}
+				}
+			};
+		}
 		
 		/**
 		 * @{inheritDoc
@@ -276,7 +344,7 @@ public interface ArithmeticGroupFunction extends GroupFunction {
 	 * @since 1.7.0
 	 *
 	 */
-	static class Count implements GroupFunction {
+	static class Count implements IncrementalGroupFunction {
 		
 		protected final Pattern pattern;
 		
@@ -304,6 +372,31 @@ public interface ArithmeticGroupFunction extends GroupFunction {
 			return new DecimalType(count);
 		}
 
+		/**
+		 * @{inheritDoc
+		 */
+		public Aggregate createAggregate() {
+			return new AbstractAggregate<Boolean>() {
+				private int count = 0;
+
+				protected Boolean getContribution(Item item) {
+					return pattern.matcher(item.getState().toString()).matches() ? Boolean.TRUE : null;
+				}
+
+				protected void addContribution(Boolean contribution) {
+					count++;
+				}
+
+				protected void removeContribution(Boolean contribution) {
+					count--;
+				}
+
+				public State getState() {
+					return new DecimalType(count);
+				}
+			};
+		}
+
 		/**
 		 * @{inheritDoc
 		 */
@@ -324,7 +417,7 @@ public interface ArithmeticGroupFunction extends GroupFunction {
 	 * @since 1.1.0
 	 *
 	 */
-	static class Sum implements GroupFunction {
+	static class Sum implements IncrementalGroupFunction {
 		
 		public Sum() {}
 
@@ -343,6 +436,17 @@ public interface ArithmeticGroupFunction extends GroupFunction {
 			}
 			return new DecimalType(sum);
 		}
+
+		/**
+		 * @{inheritDoc
+		 */
+		public Aggregate createAggregate() {
+			return new SumAggregate() {
+				public State getState() {
+					return new DecimalType(getSum());
+				}
+			};
+		}
 		
 		/**
 		 * @{inheritDoc
@@ -364,7 +468,7 @@ public interface ArithmeticGroupFunction extends GroupFunction {
 	 * @since 0.7.0
 	 *
 	 */
-	static class Min implements GroupFunction {
+	static class Min implements IncrementalGroupFunction {
 		
 		public Min() {}
 
@@ -389,6 +493,17 @@ public interface ArithmeticGroupFunction extends GroupFunction {
 			return UnDefType.UNDEF;
 		}
 
+		/**
+		 * @{inheritDoc
+		 */
+		public Aggregate createAggregate() {
+			return new OrderedAggregate() {
+				public State getState() {
+					return isEmpty() ? UnDefType.UNDEF : new DecimalType(getFirst());
+				}
+			};
+		}
+
 		/**
 		 * @{inheritDoc
 		 */
@@ -409,7 +524,7 @@ public interface ArithmeticGroupFunction extends GroupFunction {
 	 * @since 0.7.0
 	 *
 	 */
-	static class Max implements GroupFunction {
+	static class Max implements IncrementalGroupFunction {
 		
 		public Max() {}
 
@@ -434,6 +549,17 @@ public interface ArithmeticGroupFunction extends GroupFunction {
 			return UnDefType.UNDEF;
 		}
 
+		/**
+		 * @{inheritDoc
+		 */
+		public Aggregate createAggregate() {
+			return new OrderedAggregate() {
+				public State getState() {
+					return isEmpty() ? UnDefType.UNDEF : new DecimalType(getLast());
+				}
+			};
+		}
+
 		/**
 		 * @{inheritDoc
 		 */
@@ -446,6 +572,132 @@ public interface ArithmeticGroupFunction extends GroupFunction {
 			}
 		}
 	}
-	
-	
+
+	/**
+	 * Counts the items which are in a given 'activeState'.
+	 * 
+	 * @author Kai Kreuzer
+	 * @since 1.9.0
+	 *
+	 */
+	static abstract class ActiveCountAggregate extends IncrementalGroupFunction.AbstractAggregate<Boolean> {
+
+		private final State activeState;
+		private int activeCount = 0;
+
+		ActiveCountAggregate(State activeState) {
+			this.activeState = activeState;
+		}
+
+		protected int getActiveCount() {
+			return activeCount;
+		}
+
+		protected Boolean getContribution(Item item) {
+			return activeState.equals(item.getStateAs(activeState.getClass())) ? Boolean.TRUE : null;
+		}
+
+		protected void addContribution(Boolean contribution) {
+			activeCount++;
+		}
+
+		protected void removeContribution(Boolean contribution) {
+			activeCount--;
+		}
+	}
+
+	/**
+	 * Keeps the running sum and count of all item states of decimal type.
+	 * 
+	 * @author Kai Kreuzer
+	 * @since 1.9.0
+	 *
+	 */
+	static abstract class SumAggregate extends IncrementalGroupFunction.AbstractAggregate<BigDecimal> {
+
+		private BigDecimal sum = BigDecimal.ZERO;
+		private int count = 0;
+
+		/** the number of values per scale, the sum must have the largest scale of its current values */
+		private final TreeMap<Integer, Integer> scales = new TreeMap<Integer, Integer>();
+
+		/**
+		 * @return the sum with the same scale as the sum calculated from scratch
+		 */
+		protected BigDecimal getSum() {
+			int scale = scales.isEmpty() ? 0 : Math.max(0, scales.lastKey());
+			return sum.setScale(scale, RoundingMode.UNNECESSARY);
+		}
+
+		protected int getCount() {
+			return count;
+		}
+
+		protected BigDecimal getContribution(Item item) {
+			DecimalType itemState = (DecimalType) item.getStateAs(DecimalType.class);
+			return itemState!=null ? itemState.toBigDecimal() : null;
+		}
+
+		protected void addContribution(BigDecimal contribution) {
+			sum = sum.add(contribution);
+			count++;
+			Integer scaleCount = scales.get(contribution.scale());
+			scales.put(contribution.scale(), scaleCount==null ? 1 : scaleCount + 1);
+		}
+
+		protected void removeContribution(BigDecimal contribution) {
+			sum = sum.subtract(contribution);
+			count--;
+			Integer scaleCount = scales.get(contribution.scale());
+			if(scaleCount==null || scaleCount==1) {
+				scales.remove(contribution.scale());
+			} else {
+				scales.put(contribution.scale(), scaleCount - 1);
+			}
+		}
+	}
+
+	/**
+	 * Keeps all item states of decimal type in order, counting equal values.
+	 * 
+	 * @author Kai Kreuzer
+	 * @since 1.9.0
+	 *
+	 */
+	static abstract class OrderedAggregate extends IncrementalGroupFunction.AbstractAggregate<BigDecimal> {
+
+		private final TreeMap<BigDecimal, Integer> values = new TreeMap<BigDecimal, Integer>();
+
+		protected boolean isEmpty() {
+			return values.isEmpty();
+		}
+
+		protected BigDecimal getFirst() {
+			return values.firstKey();
+		}
+
+		protected BigDecimal getLast() {
+			return values.lastKey();
+		}
+
+		protected BigDecimal getContribution(Item item) {
+			DecimalType itemState = (DecimalType) item.getStateAs(DecimalType.class);
+			return itemState!=null ? itemState.toBigDecimal() : null;
+		}
+
+		protected void addContribution(BigDecimal contribution) {
+			Integer count = values.get(contribution);
+			values.put(contribution, count==null ? 1 : count + 1);
+		}
+
+		protected void removeContribution(BigDecimal contribution) {
+			Integer count = values.get(contribution);
+			if(count==null || count==1) {
+				values.remove(contribution);
+			} else {
+				values.put(contribution, count - 1);
+			}
+		}
+	}
+
 }
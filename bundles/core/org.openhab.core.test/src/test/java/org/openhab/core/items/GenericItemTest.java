@@ -0,0 +1,151 @@
+/**
+ * Copyright (c) 2010-2016, openHAB.org and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.core.items;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+import org.openhab.core.types.Command;
+import org.openhab.core.types.State;
+import org.openhab.core.types.UnDefType;
+
+/**
+ * @author agent
+ * @since 1.9.0
+ */
+public class GenericItemTest {
+
+	@Test
+	public void testListenersAreNotified() {
+		TestItem item = new TestItem("item");
+		CountingListener listener = new CountingListener();
+		item.addStateChangeListener(listener);
+
+		item.setState(UnDefType.UNDEF);
+		item.setState(UnDefType.UNDEF);
+		Assert.assertEquals(2, listener.updates);
+		Assert.assertEquals(1, listener.changes);
+
+		item.removeStateChangeListener(listener);
+		item.setState(UnDefType.NULL);
+		Assert.assertEquals(2, listener.updates);
+		Assert.assertEquals(1, listener.changes);
+	}
+
+	@Test
+	public void testListenerIsAddedOnlyOnce() {
+		TestItem item = new TestItem("item");
+		CountingListener listener = new CountingListener();
+		item.addStateChangeListener(listener);
+		item.addStateChangeListener(listener);
+
+		item.setState(UnDefType.UNDEF);
+		Assert.assertEquals(1, listener.updates);
+	}
+
+	@Test
+	public void testListenerRemovedDuringNotification() {
+		final TestItem item = new TestItem("item");
+		final CountingListener other = new CountingListener();
+		StateChangeListener removing = new CountingListener() {
+			@Override
+			public void stateUpdated(Item item1, State state) {
+				super.stateUpdated(item1, state);
+				item.removeStateChangeListener(other);
+			}
+		};
+		item.addStateChangeListener(removing);
+		item.addStateChangeListener(other);
+
+		// the running notification still reaches the removed listener
+		item.setState(UnDefType.UNDEF);
+		Assert.assertEquals(1, other.updates);
+		item.setState(UnDefType.NULL);
+		Assert.assertEquals(1, other.updates);
+	}
+
+	@Test
+	public void testListenerAddedDuringNotification() {
+		final TestItem item = new TestItem("item");
+		final CountingListener added = new CountingListener();
+		StateChangeListener adding = new CountingListener() {
+			@Override
+			public void stateUpdated(Item item1, State state) {
+				super.stateUpdated(item1, state);
+				item.addStateChangeListener(added);
+			}
+		};
+		item.addStateChangeListener(adding);
+
+		// the running notification doesn't reach the added listener yet
+		item.setState(UnDefType.UNDEF);
+		Assert.assertEquals(0, added.updates);
+		item.setState(UnDefType.NULL);
+		Assert.assertEquals(1, added.updates);
+		Assert.assertEquals(1, added.changes);
+	}
+
+	@Test
+	public void testManyListenersAreNotified() {
+		TestItem item = new TestItem("item");
+		List<CountingListener> listeners = new ArrayList<CountingListener>();
+		for (int i = 0; i < 50; i++) {
+			CountingListener listener = new CountingListener();
+			listeners.add(listener);
+			item.addStateChangeListener(listener);
+		}
+		item.removeStateChangeListener(listeners.remove(10));
+
+		State[] states = { UnDefType.UNDEF, UnDefType.NULL };
+		for (int i = 0; i < 100; i++) {
+			item.setState(states[i & 1]);
+		}
+		for (CountingListener listener : listeners) {
+			Assert.assertEquals(100, listener.updates);
+			Assert.assertEquals(100, listener.changes);
+		}
+	}
+
+	static class CountingListener implements StateChangeListener {
+		int updates;
+		int changes;
+
+		@Override
+		public void stateChanged(Item item, State oldState, State newState) {
+			changes++;
+		}
+
+		@Override
+		public void stateUpdated(Item item, State state) {
+			updates++;
+		}
+	}
+
+	static class TestItem extends GenericItem {
+
+		public TestItem(String name) {
+			super(name);
+		}
+
+		@Override
+		public List<Class<? extends State>> getAcceptedDataTypes() {
+			return null;
+		}
+
+		@Override
+		public List<Class<? extends Command>> getAcceptedCommandTypes() {
+			return null;
+		}
+
+	}
+
+}
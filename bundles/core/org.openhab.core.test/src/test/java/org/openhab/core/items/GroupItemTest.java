@@ -18,6 +18,7 @@ import org.junit.Before;
 import org.junit.Test;
 import org.openhab.core.types.Command;
 import org.openhab.core.types.State;
+import org.openhab.core.types.UnDefType;
 
 
 /**
@@ -54,6 +55,57 @@ public class GroupItemTest {
 	}
 	
 	
+	@Test
+	public void testRecalculationOnEveryUpdate() {
+		GroupItem group = new GroupItem("group");
+		TestItem member = new TestItem("member");
+		group.addMember(member);
+
+		member.setState(UnDefType.UNDEF);
+		Assert.assertEquals(UnDefType.UNDEF, group.getState());
+		member.setState(UnDefType.NULL);
+		Assert.assertEquals(UnDefType.NULL, group.getState());
+		// each state change notifies the group of an update and a change
+		Assert.assertEquals(4, group.getRecalculationCount());
+		Assert.assertEquals(0, group.getSavedRecalculationCount());
+	}
+
+	@Test
+	public void testCoalescedRecalculationOfNestedGroups() {
+		GroupItem house = new GroupItem("house");
+		GroupItem floor = new GroupItem("floor");
+		house.addMember(floor);
+		// the windows never end by themselves during the test, they are flushed instead
+		house.setCoalescingWindow(60000);
+		floor.setCoalescingWindow(60000);
+		for (int i = 0; i < 10; i++) {
+			floor.addMember(new TestItem("sensor" + i));
+		}
+
+		for (int round = 0; round < 5; round++) {
+			for (Item sensor : floor.getMembers()) {
+				((TestItem) sensor).setState(round % 2 == 0 ? UnDefType.UNDEF : UnDefType.NULL);
+			}
+		}
+		Assert.assertEquals(UnDefType.NULL, floor.getState());
+		Assert.assertEquals(0, floor.getRecalculationCount());
+
+		floor.flush();
+		Assert.assertEquals(UnDefType.UNDEF, floor.getState());
+		// the update of the floor is coalesced by the house as well
+		Assert.assertEquals(UnDefType.NULL, house.getState());
+		house.flush();
+		Assert.assertEquals(UnDefType.UNDEF, house.getState());
+
+		// flushing again without new updates does not recalculate
+		floor.flush();
+		house.flush();
+		Assert.assertEquals(100, floor.getMemberUpdateCount());
+		Assert.assertEquals(1, floor.getRecalculationCount());
+		Assert.assertEquals(99, floor.getSavedRecalculationCount());
+		Assert.assertEquals(1, house.getRecalculationCount());
+	}
+	
 	class TestItem extends GenericItem {
 
 		public TestItem(String name) {
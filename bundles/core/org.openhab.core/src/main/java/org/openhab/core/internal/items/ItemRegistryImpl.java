@@ -10,6 +10,7 @@ package org.openhab.core.internal.items;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Dictionary;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
@@ -26,6 +27,8 @@ import org.openhab.core.items.ItemProvider;
 import org.openhab.core.items.ItemRegistry;
 import org.openhab.core.items.ItemRegistryChangeListener;
 import org.openhab.core.items.ItemsChangeListener;
+import org.osgi.service.cm.ConfigurationException;
+import org.osgi.service.cm.ManagedService;
 import org.osgi.service.component.ComponentContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -40,7 +43,7 @@ import org.slf4j.LoggerFactory;
  * @since 0.1.0
  *
  */
-public class ItemRegistryImpl implements ItemRegistry, ItemsChangeListener {
+public class ItemRegistryImpl implements ItemRegistry, ItemsChangeListener, ManagedService {
 	
 	private static final Logger logger = LoggerFactory.getLogger(ItemRegistryImpl.class);
 
@@ -53,6 +56,9 @@ public class ItemRegistryImpl implements ItemRegistry, ItemsChangeListener {
 	/** to keep track of all item change listeners */
 	protected Collection<ItemRegistryChangeListener> listeners = new CopyOnWriteArraySet<ItemRegistryChangeListener>();
 
+	/** the time in milliseconds groups collect member updates before recalculating their state */
+	private volatile long groupCoalescingWindow = 0;
+
 	public void activate(ComponentContext componentContext) {
 	}
 	
@@ -225,9 +231,30 @@ public class ItemRegistryImpl implements ItemRegistry, ItemsChangeListener {
 		if(items!=null) {
 			items.remove(item);
 		}
+		// remove the item from all groups it has been added to
+		for(String groupName : item.getGroupNames()) {
+			try {
+				Item groupItem = getItem(groupName);
+				if(groupItem instanceof GroupItem) {
+					((GroupItem)groupItem).removeMember(item);
+				}
+			} catch (ItemNotFoundException e) {
+				// the group has already been removed
+			}
+		}
+		// a removed group no longer listens to the state of its members
+		if(item instanceof GroupItem) {
+			GroupItem groupItem = (GroupItem) item;
+			for(Item member : new ArrayList<Item>(groupItem.getMembers())) {
+				groupItem.removeMember(member);
+			}
+		}
 		for(ItemRegistryChangeListener listener : listeners) {
 			listener.itemRemoved(item);
 		}
+		if(item instanceof GenericItem) {
+			((GenericItem) item).dispose();
+		}
 	}
 
     @Override
@@ -257,6 +284,7 @@ public class ItemRegistryImpl implements ItemRegistry, ItemsChangeListener {
 			}
 			
 			if(item instanceof GroupItem) {
+				((GroupItem)item).setCoalescingWindow(groupCoalescingWindow);
 				// fill group with its members 
 				for(Item i : getItems()) {
 					if(i.getGroupNames().contains(item.getName())) {
@@ -282,4 +310,34 @@ public class ItemRegistryImpl implements ItemRegistry, ItemsChangeListener {
 			return false;
 		}
 	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void updated(Dictionary<String, ?> config) throws ConfigurationException {
+		long window = 0;
+		if(config!=null) {
+			String windowString = (String) config.get("groupCoalescingWindow");
+			if(windowString!=null && !windowString.trim().isEmpty()) {
+				try {
+					window = Long.parseLong(windowString.trim());
+				} catch(NumberFormatException e) {
+					throw new ConfigurationException("groupCoalescingWindow", "The value must be a number of milliseconds: " + windowString);
+				}
+			}
+		}
+		if(window != groupCoalescingWindow) {
+			groupCoalescingWindow = window;
+			for(Item item : getItems()) {
+				if(item instanceof GroupItem) {
+					GroupItem groupItem = (GroupItem) item;
+					logger.debug("Group '{}' saved {} of {} recalculations so far", new Object[] {
+							groupItem.getName(), groupItem.getSavedRecalculationCount(), groupItem.getMemberUpdateCount() });
+					groupItem.setCoalescingWindow(window);
+				}
+			}
+			logger.debug("Groups collect member updates for {} ms before recalculating their state", window);
+		}
+	}
 }
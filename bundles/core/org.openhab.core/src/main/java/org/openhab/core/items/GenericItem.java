@@ -34,6 +34,12 @@ abstract public class GenericItem implements Item {
 	protected EventPublisher eventPublisher;
 
 	protected Set<StateChangeListener> listeners = new CopyOnWriteArraySet<StateChangeListener>(Collections.newSetFromMap(new WeakHashMap<StateChangeListener, Boolean>()));
+
+	/** 
+	 * snapshot of the listeners which is iterated on every state update, it is
+	 * replaced whenever a listener is added or removed
+	 */
+	private volatile StateChangeListener[] listenerSnapshot = new StateChangeListener[0];
 	
 	protected List<String> groupNames = new ArrayList<String>();
 	
@@ -101,14 +107,15 @@ abstract public class GenericItem implements Item {
 	}
 
 	private void notifyListeners(State oldState, State newState) {
+		// listeners added or removed during the notification are only
+		// considered from the next state update on
+		StateChangeListener[] snapshot = listenerSnapshot;
 		// if nothing has changed, we send update notifications
-		Set<StateChangeListener> clonedListeners = null;
-		clonedListeners = new CopyOnWriteArraySet<StateChangeListener>(listeners);
-		for(StateChangeListener listener : clonedListeners) {
+		for(StateChangeListener listener : snapshot) {
 			listener.stateUpdated(this, newState);
 		}
 		if(!oldState.equals(newState)) {
-			for(StateChangeListener listener : clonedListeners) {
+			for(StateChangeListener listener : snapshot) {
 				listener.stateChanged(this, oldState, newState);
 			}
 		}
@@ -126,13 +133,17 @@ abstract public class GenericItem implements Item {
 
 	public void addStateChangeListener(StateChangeListener listener) {
 		synchronized(listeners) {
-			listeners.add(listener);
+			if(listeners.add(listener)) {
+				listenerSnapshot = listeners.toArray(new StateChangeListener[listeners.size()]);
+			}
 		}
 	}
 	
 	public void removeStateChangeListener(StateChangeListener listener) {
 		synchronized(listeners) {
-			listeners.remove(listener);
+			if(listeners.remove(listener)) {
+				listenerSnapshot = listeners.toArray(new StateChangeListener[listeners.size()]);
+			}
 		}
 	}
 	
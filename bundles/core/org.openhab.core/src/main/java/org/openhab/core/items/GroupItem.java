@@ -1,222 +1,425 @@
-/**
- * Copyright (c) 2010-2016, openHAB.org and others.
- *
- * All rights reserved. This program and the accompanying materials
- * are made available under the terms of the Eclipse Public License v1.0
- * which accompanies this distribution, and is available at
- * http://www.eclipse.org/legal/epl-v10.html
- */
-package org.openhab.core.items;
-
-import java.util.ArrayList;
-import java.util.HashSet;
-import java.util.List;
-import java.util.Set;
-import java.util.concurrent.CopyOnWriteArrayList;
-
-import org.apache.commons.collections.ListUtils;
-import org.openhab.core.types.Command;
-import org.openhab.core.types.State;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-
-public class GroupItem extends GenericItem implements StateChangeListener {
-	
-	private static final Logger logger = LoggerFactory.getLogger(GroupItem.class);
-	
-	protected final GenericItem baseItem;
-	
-	protected final List<Item> members;
-	
-	protected GroupFunction function;
-
-	public GroupItem(String name) {
-		this(name, null);
-	}
-
-	public GroupItem(String name, GenericItem baseItem) {
-		this(name, baseItem, new GroupFunction.Equality());
-	}
-
-	public GroupItem(String name, GenericItem baseItem, GroupFunction function) {
-		super(name);
-		members = new CopyOnWriteArrayList<Item>();
-		this.function = function;
-		this.baseItem = baseItem;
-	}
-	
-	/**
-	 * Returns the base item of this {@link GroupItem}. This method is only 
-	 * intended to allow instance checks of the underlying BaseItem. It must
-	 * not be changed in any way.
-	 * 
-	 * @return the base item of this GroupItem
-	 */
-	public GenericItem getBaseItem() {
-		return baseItem;
-	}
-
-	/**
-	 * Returns the direct members of this {@link GroupItem} regardless if these
-	 * members are {@link GroupItem}s as well.
-	 * 
-	 * @return the direct members of this {@link GroupItem}
-	 */
-	public List<Item> getMembers() {
-		return members;
-	}
-	
-	/**
-	 * Returns the direct members of this {@link GroupItem} and recursively all
-	 * members of the potentially contained {@link GroupItem}s as well. The 
-	 * {@link GroupItem}s itself aren't contained. The returned items are unique.
-	 * 
-	 * @return all members of this and all contained {@link GroupItem}s
-	 */
-	public List<Item> getAllMembers() {
-		Set<Item> allMembers = new HashSet<Item>();
-		collectMembers(allMembers, members);
-		return new ArrayList<Item>(allMembers);
-	}
-	
-	private void collectMembers(Set<Item> allMembers, List<Item> members) {
-		for (Item member : members) {
-			if (member instanceof GroupItem) {
-				collectMembers(allMembers, ((GroupItem) member).members);
-			}
-			else {
-				allMembers.add(member);
-			}
-		}
-	}
-
-	public void addMember(Item item) {
-		members.add(item);
-		if (item instanceof GenericItem) {
-			GenericItem genericItem = (GenericItem) item;
-			genericItem.addStateChangeListener(this);
-		}
-	}
-	
-	public void removeMember(Item item) {
-		members.remove(item);
-		if (item instanceof GenericItem) {
-			GenericItem genericItem = (GenericItem) item;
-			genericItem.removeStateChangeListener(this);
-		}
-	}
-	
-	/** 
-	 * The accepted data types of a group item is the same as of the underlying base item.
-	 * If none is defined, the intersection of all sets of accepted data types of all group
-	 * members is used instead.
-	 * 
-	 * @return the accepted data types of this group item
-	 */
-	@SuppressWarnings("unchecked")
-	public List<Class<? extends State>> getAcceptedDataTypes() {
-		if(baseItem!=null) {
-			return baseItem.getAcceptedDataTypes();
-		} else {
-			List<Class<? extends State>> acceptedDataTypes = null;
-			
-			for(Item item : members) {
-				if(acceptedDataTypes==null) {
-					acceptedDataTypes = item.getAcceptedDataTypes();
-				} else {
-					acceptedDataTypes = ListUtils.intersection(acceptedDataTypes, item.getAcceptedDataTypes());
-				}
-			}
-			return acceptedDataTypes == null ? ListUtils.EMPTY_LIST : acceptedDataTypes;
-		}
-	}
-
-	/** 
-	 * The accepted command types of a group item is the same as of the underlying base item.
-	 * If none is defined, the intersection of all sets of accepted command types of all group
-	 * members is used instead.
-	 * 
-	 * @return the accepted command types of this group item
-	 */
-	@SuppressWarnings("unchecked")
-	public List<Class<? extends Command>> getAcceptedCommandTypes() {
-		if(baseItem!=null) {
-			return baseItem.getAcceptedCommandTypes();
-		} else {
-			List<Class<? extends Command>> acceptedCommandTypes = null;
-			
-			for(Item item : members) {
-				if(acceptedCommandTypes==null) {
-					acceptedCommandTypes = item.getAcceptedCommandTypes();
-				} else {
-					acceptedCommandTypes = ListUtils.intersection(acceptedCommandTypes, item.getAcceptedCommandTypes());
-				}
-			}
-			return acceptedCommandTypes == null ? ListUtils.EMPTY_LIST : acceptedCommandTypes;
-		}
-	}
-	
-	public void send(Command command) {
-		if(getAcceptedCommandTypes().contains(command.getClass())) {
-			internalSend(command);
-		} else {
-			logger.warn("Command '{}' has been ignored for group '{}' as it is not accepted.", command.toString(), getName());
-		}
-	}
-	
-	/**
-	 * @{inheritDoc
-	 */
-	@Override
-	protected void internalSend(Command command) {
-		if(eventPublisher!=null) {
-			for(Item member : members) {
-				// try to send the command to the bus
-				eventPublisher.sendCommand(member.getName(), command);
-			}		
-		}
-	}
-		
-	/**
-	 * @{inheritDoc
-	 */
-	@Override
-	public State getStateAs(Class<? extends State> typeClass) {
-		State newState = function.getStateAs(getAllMembers(), typeClass);
-		if(newState==null && baseItem!=null) {
-			// we use the transformation method from the base item
-			baseItem.setState(state);
-			newState = baseItem.getStateAs(typeClass);
-		} 
-		if(newState==null) {
-			newState = super.getStateAs(typeClass);
-		}
-		return newState;
-	}
-
-	/**
-	 * @{inheritDoc
-	 */
-	@Override
-	public String toString() {
-		return getName() + " (" +
-		"Type=" + getClass().getSimpleName() + ", " +
-		(baseItem != null ? "BaseType=" + baseItem.getClass().getSimpleName() + ", " : "") +
-		"Members=" + members.size() + ", " +
-		"State=" + getState() + ")";
-	}
-
-	/**
-	 * @{inheritDoc
-	 */
-	public void stateChanged(Item item, State oldState, State newState) {
-		setState(function.calculate(members));
-	}
-
-	/**
-	 * @{inheritDoc
-	 */
-	public void stateUpdated(Item item, State state) {
-		setState(function.calculate(members));
-	}
-}
+/**
+ * Copyright (c) 2010-2016, openHAB.org and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.core.items;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.collections.ListUtils;
+import org.openhab.core.types.Command;
+import org.openhab.core.types.State;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class GroupItem extends GenericItem implements StateChangeListener {
+	
+	private static final Logger logger = LoggerFactory.getLogger(GroupItem.class);
+	
+	protected final GenericItem baseItem;
+	
+	protected final List<Item> members;
+	
+	protected GroupFunction function;
+
+	/** incremented whenever the members of any group change */
+	private static final AtomicLong structureVersion = new AtomicLong();
+
+	/** the flattened members of this group and the structure version they have been collected for */
+	private volatile AllMembers allMembers;
+
+	/** the running state of an incremental group function, null if it has to be rebuilt */
+	private IncrementalGroupFunction.Aggregate aggregate;
+
+	private final Object aggregateLock = new Object();
+
+	/** the time in milliseconds member updates are collected before the state is recalculated, 0 to recalculate on every update */
+	private volatile long coalescingWindow = 0;
+
+	/** the members updated since the last recalculation, guarded by the aggregate lock */
+	private final Set<Item> updatedMembers = Collections.newSetFromMap(new IdentityHashMap<Item, Boolean>());
+
+	/** whether a recalculation is scheduled, guarded by the aggregate lock */
+	private boolean recalculationScheduled = false;
+
+	private final AtomicLong memberUpdates = new AtomicLong();
+	private final AtomicLong recalculations = new AtomicLong();
+
+	/** executes the coalesced recalculations of all groups */
+	private static ScheduledExecutorService scheduler;
+
+	public GroupItem(String name) {
+		this(name, null);
+	}
+
+	public GroupItem(String name, GenericItem baseItem) {
+		this(name, baseItem, new GroupFunction.Equality());
+	}
+
+	public GroupItem(String name, GenericItem baseItem, GroupFunction function) {
+		super(name);
+		members = new CopyOnWriteArrayList<Item>();
+		this.function = function;
+		this.baseItem = baseItem;
+	}
+	
+	/**
+	 * Returns the base item of this {@link GroupItem}. This method is only 
+	 * intended to allow instance checks of the underlying BaseItem. It must
+	 * not be changed in any way.
+	 * 
+	 * @return the base item of this GroupItem
+	 */
+	public GenericItem getBaseItem() {
+		return baseItem;
+	}
+
+	/**
+	 * Returns the direct members of this {@link GroupItem} regardless if these
+	 * members are {@link GroupItem}s as well.
+	 * 
+	 * @return the direct members of this {@link GroupItem}
+	 */
+	public List<Item> getMembers() {
+		return members;
+	}
+	
+	/**
+	 * Returns the direct members of this {@link GroupItem} and recursively all
+	 * members of the potentially contained {@link GroupItem}s as well. The 
+	 * {@link GroupItem}s itself aren't contained. The returned items are unique.
+	 * The list is cached until the members of any group change and must not be
+	 * modified.
+	 * 
+	 * @return all members of this and all contained {@link GroupItem}s
+	 */
+	public List<Item> getAllMembers() {
+		long version = structureVersion.get();
+		AllMembers cached = allMembers;
+		if (cached == null || cached.version != version) {
+			Set<Item> allMembers = new HashSet<Item>();
+			collectMembers(allMembers, members);
+			cached = new AllMembers(version, Collections.unmodifiableList(new ArrayList<Item>(allMembers)));
+			this.allMembers = cached;
+		}
+		return cached.items;
+	}
+	
+	private void collectMembers(Set<Item> allMembers, List<Item> members) {
+		for (Item member : members) {
+			if (member instanceof GroupItem) {
+				collectMembers(allMembers, ((GroupItem) member).members);
+			}
+			else {
+				allMembers.add(member);
+			}
+		}
+	}
+
+	public void addMember(Item item) {
+		if (members.contains(item)) {
+			// items are kept across reloads of their provider, add them only once
+			return;
+		}
+		members.add(item);
+		membersChanged();
+		if (item instanceof GenericItem) {
+			GenericItem genericItem = (GenericItem) item;
+			genericItem.addStateChangeListener(this);
+		}
+	}
+	
+	public void removeMember(Item item) {
+		members.remove(item);
+		membersChanged();
+		if (item instanceof GenericItem) {
+			GenericItem genericItem = (GenericItem) item;
+			genericItem.removeStateChangeListener(this);
+		}
+	}
+
+	private void membersChanged() {
+		structureVersion.incrementAndGet();
+		synchronized (aggregateLock) {
+			aggregate = null;
+		}
+	}
+	
+	/** 
+	 * The accepted data types of a group item is the same as of the underlying base item.
+	 * If none is defined, the intersection of all sets of accepted data types of all group
+	 * members is used instead.
+	 * 
+	 * @return the accepted data types of this group item
+	 */
+	@SuppressWarnings("unchecked")
+	public List<Class<? extends State>> getAcceptedDataTypes() {
+		if(baseItem!=null) {
+			return baseItem.getAcceptedDataTypes();
+		} else {
+			List<Class<? extends State>> acceptedDataTypes = null;
+			
+			for(Item item : members) {
+				if(acceptedDataTypes==null) {
+					acceptedDataTypes = item.getAcceptedDataTypes();
+				} else {
+					acceptedDataTypes = ListUtils.intersection(acceptedDataTypes, item.getAcceptedDataTypes());
+				}
+			}
+			return acceptedDataTypes == null ? ListUtils.EMPTY_LIST : acceptedDataTypes;
+		}
+	}
+
+	/** 
+	 * The accepted command types of a group item is the same as of the underlying base item.
+	 * If none is defined, the intersection of all sets of accepted command types of all group
+	 * members is used instead.
+	 * 
+	 * @return the accepted command types of this group item
+	 */
+	@SuppressWarnings("unchecked")
+	public List<Class<? extends Command>> getAcceptedCommandTypes() {
+		if(baseItem!=null) {
+			return baseItem.getAcceptedCommandTypes();
+		} else {
+			List<Class<? extends Command>> acceptedCommandTypes = null;
+			
+			for(Item item : members) {
+				if(acceptedCommandTypes==null) {
+					acceptedCommandTypes = item.getAcceptedCommandTypes();
+				} else {
+					acceptedCommandTypes = ListUtils.intersection(acceptedCommandTypes, item.getAcceptedCommandTypes());
+				}
+			}
+			return acceptedCommandTypes == null ? ListUtils.EMPTY_LIST : acceptedCommandTypes;
+		}
+	}
+	
+	public void send(Command command) {
+		if(getAcceptedCommandTypes().contains(command.getClass())) {
+			internalSend(command);
+		} else {
+			logger.warn("Command '{}' has been ignored for group '{}' as it is not accepted.", command.toString(), getName());
+		}
+	}
+	
+	/**
+	 * @{inheritDoc
+	 */
+	@Override
+	protected void internalSend(Command command) {
+		if(eventPublisher!=null) {
+			for(Item member : members) {
+				// try to send the command to the bus
+				eventPublisher.sendCommand(member.getName(), command);
+			}		
+		}
+	}
+		
+	/**
+	 * @{inheritDoc
+	 */
+	@Override
+	public State getStateAs(Class<? extends State> typeClass) {
+		State newState = function.getStateAs(getAllMembers(), typeClass);
+		if(newState==null && baseItem!=null) {
+			// we use the transformation method from the base item
+			baseItem.setState(state);
+			newState = baseItem.getStateAs(typeClass);
+		} 
+		if(newState==null) {
+			newState = super.getStateAs(typeClass);
+		}
+		return newState;
+	}
+
+	/**
+	 * @{inheritDoc
+	 */
+	@Override
+	public String toString() {
+		return getName() + " (" +
+		"Type=" + getClass().getSimpleName() + ", " +
+		(baseItem != null ? "BaseType=" + baseItem.getClass().getSimpleName() + ", " : "") +
+		"Members=" + members.size() + ", " +
+		"State=" + getState() + ")";
+	}
+
+	/**
+	 * @{inheritDoc
+	 */
+	public void stateChanged(Item item, State oldState, State newState) {
+		memberUpdated(item);
+	}
+
+	/**
+	 * @{inheritDoc
+	 */
+	public void stateUpdated(Item item, State state) {
+		memberUpdated(item);
+	}
+
+	/**
+	 * Sets the time in milliseconds during which updates of members are
+	 * collected before the state of this group is recalculated once. In nested
+	 * groups this keeps a burst of updates from recalculating every level for
+	 * every single update.
+	 * 
+	 * @param coalescingWindow the time in milliseconds, 0 to recalculate the
+	 *            state on every update of a member (the default)
+	 */
+	public void setCoalescingWindow(long coalescingWindow) {
+		this.coalescingWindow = Math.max(0, coalescingWindow);
+	}
+
+	public long getCoalescingWindow() {
+		return coalescingWindow;
+	}
+
+	/**
+	 * @return the number of member updates this group has received
+	 */
+	public long getMemberUpdateCount() {
+		return memberUpdates.get();
+	}
+
+	/**
+	 * @return the number of times the state of this group has been recalculated
+	 */
+	public long getRecalculationCount() {
+		return recalculations.get();
+	}
+
+	/**
+	 * @return the number of recalculations which have been saved by coalescing member updates
+	 */
+	public long getSavedRecalculationCount() {
+		return memberUpdates.get() - recalculations.get();
+	}
+
+	private void memberUpdated(Item item) {
+		memberUpdates.incrementAndGet();
+		long window = coalescingWindow;
+		if (window == 0) {
+			State newState;
+			synchronized (aggregateLock) {
+				newState = calculate(Collections.singleton(item));
+			}
+			recalculations.incrementAndGet();
+			setState(newState);
+			return;
+		}
+		synchronized (aggregateLock) {
+			updatedMembers.add(item);
+			if (recalculationScheduled) {
+				return;
+			}
+			recalculationScheduled = true;
+		}
+		getScheduler().schedule(new Runnable() {
+			public void run() {
+				recalculate();
+			}
+		}, window, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Ends the current coalescing window right away, so that the state of this
+	 * group is recalculated without waiting for the scheduled recalculation.
+	 * Does nothing if no member updates are pending.
+	 */
+	void flush() {
+		recalculate();
+	}
+
+	/**
+	 * Recalculates the state of this group once for all members updated within the coalescing window.
+	 * A scheduled recalculation whose window has already been flushed does nothing.
+	 */
+	private void recalculate() {
+		State newState;
+		int updates;
+		synchronized (aggregateLock) {
+			if (!recalculationScheduled) {
+				return;
+			}
+			recalculationScheduled = false;
+			updates = updatedMembers.size();
+			newState = calculate(updatedMembers);
+			updatedMembers.clear();
+		}
+		recalculations.incrementAndGet();
+		logger.trace("Recalculated state of group '{}' for {} updated members, {} recalculations saved so far",
+				new Object[] { getName(), updates, getSavedRecalculationCount() });
+		try {
+			setState(newState);
+		} catch (RuntimeException e) {
+			logger.error("Error while updating the state of group '{}'", getName(), e);
+		}
+	}
+
+	/**
+	 * Calculates the state of this group after the given members have been
+	 * updated. Incremental group functions only take the new states of these
+	 * members into account, all other functions are calculated from scratch.
+	 * Must be called with the aggregate lock held.
+	 * 
+	 * @param updatedMembers the members which have been updated
+	 * @return the new state of this group
+	 */
+	private State calculate(Collection<Item> updatedMembers) {
+		if (!(function instanceof IncrementalGroupFunction)) {
+			return function.calculate(members);
+		}
+		if (aggregate == null) {
+			aggregate = ((IncrementalGroupFunction) function).createAggregate();
+			for (Item member : members) {
+				aggregate.add(member);
+			}
+		} else {
+			for (Item member : updatedMembers) {
+				aggregate.update(member);
+			}
+		}
+		return aggregate.getState();
+	}
+
+	private static synchronized ScheduledExecutorService getScheduler() {
+		if (scheduler == null) {
+			scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+				public Thread newThread(Runnable runnable) {
+					Thread thread = new Thread(runnable, "GroupItem recalculation");
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+		}
+		return scheduler;
+	}
+
+	private static class AllMembers {
+		private final long version;
+		private final List<Item> items;
+
+		private AllMembers(long version, List<Item> items) {
+			this.version = version;
+			this.items = items;
+		}
+	}
+}
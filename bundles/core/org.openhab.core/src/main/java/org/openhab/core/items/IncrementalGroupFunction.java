@@ -0,0 +1,133 @@
+/**
+ * Copyright (c) 2010-2016, openHAB.org and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.core.items;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import org.openhab.core.types.State;
+
+/**
+ * A group function which can maintain its result incrementally. Instead of
+ * iterating all members whenever one of them changes, a {@link GroupItem}
+ * keeps an {@link Aggregate} of the function which only replaces the
+ * contribution of the changed member.
+ *
+ * @author agent
+ * @since 1.9.0
+ *
+ */
+public interface IncrementalGroupFunction extends GroupFunction {
+
+	/**
+	 * Creates an empty aggregate of this function. The aggregate must return
+	 * the same state as {@link #calculate(java.util.List)} for the items which
+	 * have been added to it.
+	 *
+	 * @return a new aggregate without any items
+	 */
+	public Aggregate createAggregate();
+
+	/**
+	 * The running state of a group function over a set of items. Aggregates
+	 * are not thread-safe, the {@link GroupItem} synchronizes the access.
+	 */
+	public interface Aggregate {
+
+		/**
+		 * Adds the given item with its current state.
+		 */
+		public void add(Item item);
+
+		/**
+		 * Removes the given item and its last recorded state.
+		 */
+		public void remove(Item item);
+
+		/**
+		 * Replaces the last recorded state of the given item by its current
+		 * state. Items which have not been added are ignored.
+		 */
+		public void update(Item item);
+
+		/**
+		 * @return the state of the group function over all added items
+		 */
+		public State getState();
+	}
+
+	/**
+	 * Base class for aggregates which record a contribution per item, e.g.
+	 * its numeric value. Items are identified by identity, as their hash
+	 * code depends on their state.
+	 *
+	 * @param <T> the type of the contributions, null if an item does not contribute
+	 */
+	public abstract class AbstractAggregate<T> implements Aggregate {
+
+		private final Map<Item, T> contributions = new IdentityHashMap<Item, T>();
+
+		/**
+		 * @return the contribution of the current state of the given item or null
+		 */
+		protected abstract T getContribution(Item item);
+
+		/**
+		 * Adds a (non-null) contribution to the aggregated state.
+		 */
+		protected abstract void addContribution(T contribution);
+
+		/**
+		 * Removes a (non-null) contribution from the aggregated state.
+		 */
+		protected abstract void removeContribution(T contribution);
+
+		/**
+		 * @return the number of items in this aggregate
+		 */
+		protected int getItemCount() {
+			return contributions.size();
+		}
+
+		public void add(Item item) {
+			if (contributions.containsKey(item)) {
+				update(item);
+				return;
+			}
+			T contribution = getContribution(item);
+			contributions.put(item, contribution);
+			if (contribution != null) {
+				addContribution(contribution);
+			}
+		}
+
+		public void remove(Item item) {
+			if (contributions.containsKey(item)) {
+				T contribution = contributions.remove(item);
+				if (contribution != null) {
+					removeContribution(contribution);
+				}
+			}
+		}
+
+		public void update(Item item) {
+			if (contributions.containsKey(item)) {
+				T newContribution = getContribution(item);
+				T oldContribution = contributions.put(item, newContribution);
+				if (oldContribution != null) {
+					removeContribution(oldContribution);
+				}
+				if (newContribution != null) {
+					addContribution(newContribution);
+				}
+			}
+		}
+	}
+
+}
@@ -14,6 +14,7 @@ import javax.script.ScriptEngine;
 
 import org.apache.commons.lang.ArrayUtils;
 import org.openhab.core.events.EventPublisher;
+import org.openhab.core.items.GroupItem;
 import org.openhab.core.items.Item;
 import org.openhab.core.items.ItemNotFoundException;
 import org.openhab.core.items.ItemNotUniqueException;
@@ -55,6 +56,8 @@ public class ConsoleInterpreter {
             ConsoleInterpreter.handleUpdate(args, console);
         } else if (arg.equals("status")) {
             ConsoleInterpreter.handleStatus(args, console);
+        } else if (arg.equals("groups")) {
+            ConsoleInterpreter.handleGroups(args, console);
         } else if (arg.equals("say")) {
             ConsoleInterpreter.handleSay(args, console);
         } else if (arg.equals(">")) {
@@ -221,6 +224,35 @@ public class ConsoleInterpreter {
         }
     }
 
+    /**
+     * This method handles a groups command.
+     * 
+     * @param args array which contains the arguments for the groups command
+     * @param console the console for printing messages for the user
+     */
+    static public void handleGroups(String[] args, Console console) {
+        ItemRegistry registry = ConsoleActivator.itemRegistryTracker.getService();
+        if (registry != null) {
+            String pattern = (args.length == 0) ? "*" : args[0];
+            boolean found = false;
+            for (Item item : registry.getItems(pattern)) {
+                if (item instanceof GroupItem) {
+                    GroupItem group = (GroupItem) item;
+                    console.println(group.getName() + ": " + group.getMemberUpdateCount() + " member updates, "
+                            + group.getRecalculationCount() + " recalculations, "
+                            + group.getSavedRecalculationCount() + " saved (coalescing window "
+                            + group.getCoalescingWindow() + " ms)");
+                    found = true;
+                }
+            }
+            if (!found) {
+                console.println("No groups found for this pattern.");
+            }
+        } else {
+            console.println("Sorry, no item registry service available!");
+        }
+    }
+
     /**
      * This method handles a say command.
      * 
@@ -297,8 +329,8 @@ public class ConsoleInterpreter {
 
     /** returns an array of the usage texts for all available commands */
     static public String[] getUsages() {
-        return new String[] { getUpdateUsage(), getCommandUsage(), getStatusUsage(), getItemsUsage(), getSayUsage(),
-                getScriptUsage() };
+        return new String[] { getUpdateUsage(), getCommandUsage(), getStatusUsage(), getItemsUsage(), getGroupsUsage(),
+                getSayUsage(), getScriptUsage() };
     }
 
     static public String getUpdateUsage() {
@@ -317,6 +349,10 @@ public class ConsoleInterpreter {
         return "items [<pattern>] - lists names and types of all items matching the pattern";
     }
 
+    static public String getGroupsUsage() {
+        return "groups [<pattern>] - shows the state recalculations of all groups matching the pattern";
+    }
+
     public static String getSayUsage() {
         return "say <sentence to say> - Says a message through TTS on the host machine";
     }
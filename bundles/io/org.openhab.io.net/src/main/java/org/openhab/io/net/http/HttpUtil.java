@@ -107,6 +107,44 @@ public class HttpUtil {
      */
     public static String executeUrl(String httpMethod, String url, Properties httpHeaders, InputStream content,
             String contentType, int timeout) {
+        return executeUrl(createHttpClient(url), httpMethod, url, httpHeaders, content, contentType, timeout);
+    }
+
+    /**
+     * Executes the given <code>url</code> with the given <code>httpMethod</code>
+     * 
+     * @param httpMethod the HTTP method to use
+     * @param url the url to execute (in milliseconds)
+     * @param httpHeaders optional HTTP headers which has to be set on request
+     * @param content the content to be send to the given <code>url</code> or
+     *            <code>null</code> if no content should be send.
+     * @param contentType the content type of the given <code>content</code>
+     * @param timeout the socket timeout to wait for data
+     * @param proxyHost the hostname of the proxy
+     * @param proxyPort the port of the proxy
+     * @param proxyUser the username to authenticate with the proxy
+     * @param proxyPassword the password to authenticate with the proxy
+     * @param nonProxyHosts the hosts that won't be routed through the proxy
+     * @return the response body or <code>NULL</code> when the request went wrong
+     */
+    public static String executeUrl(String httpMethod, String url, Properties httpHeaders, InputStream content,
+            String contentType, int timeout, String proxyHost, Integer proxyPort, String proxyUser,
+            String proxyPassword, String nonProxyHosts) {
+
+        HttpClient client = createHttpClient(url, proxyHost, proxyPort, proxyUser, proxyPassword, nonProxyHosts);
+        return executeUrl(client, httpMethod, url, httpHeaders, content, contentType, timeout);
+    }
+
+    /**
+     * Creates a {@link HttpClient} for the given <code>url</code>. The
+     * <code>http.proxyXXX</code> System variables are read and set
+     * accordingly, and credentials contained in the <code>url</code> are
+     * used for preemptive authentication.
+     * 
+     * @param url the url the client is going to request
+     * @return the configured client
+     */
+    public static HttpClient createHttpClient(String url) {
         String proxySet = System.getProperty("http.proxySet");
 
         String proxyHost = null;
@@ -130,30 +168,23 @@ public class HttpUtil {
             nonProxyHosts = System.getProperty("http.nonProxyHosts");
         }
 
-        return executeUrl(httpMethod, url, httpHeaders, content, contentType, timeout, proxyHost, proxyPort, proxyUser,
-                proxyPassword, nonProxyHosts);
-
+        return createHttpClient(url, proxyHost, proxyPort, proxyUser, proxyPassword, nonProxyHosts);
     }
 
     /**
-     * Executes the given <code>url</code> with the given <code>httpMethod</code>
+     * Creates a {@link HttpClient} for the given <code>url</code> which uses
+     * the given proxy, and credentials contained in the <code>url</code> for
+     * preemptive authentication.
      * 
-     * @param httpMethod the HTTP method to use
-     * @param url the url to execute (in milliseconds)
-     * @param httpHeaders optional HTTP headers which has to be set on request
-     * @param content the content to be send to the given <code>url</code> or
-     *            <code>null</code> if no content should be send.
-     * @param contentType the content type of the given <code>content</code>
-     * @param timeout the socket timeout to wait for data
+     * @param url the url the client is going to request
      * @param proxyHost the hostname of the proxy
      * @param proxyPort the port of the proxy
      * @param proxyUser the username to authenticate with the proxy
      * @param proxyPassword the password to authenticate with the proxy
      * @param nonProxyHosts the hosts that won't be routed through the proxy
-     * @return the response body or <code>NULL</code> when the request went wrong
+     * @return the configured client
      */
-    public static String executeUrl(String httpMethod, String url, Properties httpHeaders, InputStream content,
-            String contentType, int timeout, String proxyHost, Integer proxyPort, String proxyUser,
+    public static HttpClient createHttpClient(String url, String proxyHost, Integer proxyPort, String proxyUser,
             String proxyPassword, String nonProxyHosts) {
 
         HttpClient client = new HttpClient();
@@ -167,6 +198,18 @@ public class HttpUtil {
             }
         }
 
+        Credentials credentials = extractCredentials(url);
+        if (credentials != null) {
+            client.getParams().setAuthenticationPreemptive(true);
+            client.getState().setCredentials(AuthScope.ANY, credentials);
+        }
+
+        return client;
+    }
+
+    private static String executeUrl(HttpClient client, String httpMethod, String url, Properties httpHeaders,
+            InputStream content, String contentType, int timeout) {
+
         HttpMethod method = HttpUtil.createHttpMethod(httpMethod, url);
         method.getParams().setSoTimeout(timeout);
         method.getParams().setParameter(HttpMethodParams.RETRY_HANDLER, new DefaultHttpMethodRetryHandler(3, false));
@@ -181,12 +224,6 @@ public class HttpUtil {
             eeMethod.setRequestEntity(new InputStreamRequestEntity(content, contentType));
         }
 
-        Credentials credentials = extractCredentials(url);
-        if (credentials != null) {
-            client.getParams().setAuthenticationPreemptive(true);
-            client.getState().setCredentials(AuthScope.ANY, credentials);
-        }
-
         if (logger.isDebugEnabled()) {
             try {
                 logger.debug("About to execute '" + method.getURI().toString() + "'");
@@ -12,13 +12,16 @@ import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.IOException;
 import java.net.SocketException;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
-import java.util.Queue;
-import java.util.concurrent.ConcurrentLinkedQueue;
-import java.util.concurrent.Executor;
-import java.util.concurrent.Executors;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import org.openhab.io.transport.cul.CULCommunicationException;
 import org.openhab.io.transport.cul.CULDeviceException;
@@ -40,7 +43,31 @@ public abstract class AbstractCULHandler implements CULHandler, CULHandlerIntern
     private final static Logger log = LoggerFactory.getLogger(AbstractCULHandler.class);
 
     /**
-     * Thread which sends all queued commands to the CUL.
+     * Minimum credit (in 10ms units) the CUL has to report before the next
+     * command is sent. Sending with less credit would most likely end up in a
+     * LOVF (limit overflow) and the command would be lost.
+     */
+    private final static int MIN_SEND_CREDIT_10MS = 20;
+
+    /**
+     * Time in which the CUL regains one unit of credit: the 1% duty cycle
+     * allows 36 seconds of sending time (3600 units) per hour.
+     */
+    private final static long CREDIT_REGAIN_INTERVAL_MS = 1000;
+
+    /** Time to wait for a requested credit report. */
+    private final static long CREDIT_REPORT_TIMEOUT_MS = 1000;
+
+    /**
+     * Number of received messages which may wait for their delivery to the
+     * listeners before the reading thread is blocked.
+     */
+    private final static int RECEIVE_QUEUE_CAPACITY = 100;
+
+    /**
+     * Thread which sends all queued commands to the CUL. It blocks until a
+     * command is queued and holds it back while the CUL lacks the send credit
+     * of its duty cycle.
      * 
      * @author Till Klocke
      * @since 1.4.0
@@ -50,68 +77,80 @@ public abstract class AbstractCULHandler implements CULHandler, CULHandlerIntern
 
         private final Logger logger = LoggerFactory.getLogger(SendThread.class);
 
+        public SendThread() {
+            super("CUL send thread " + deviceName);
+            setDaemon(true);
+        }
+
         @Override
         public void run() {
             while (!isInterrupted()) {
-                String command = sendQueue.poll();
-                if (command != null) {
+                try {
+                    String command = sendQueue.take();
+                    awaitSendCredit();
                     if (!command.endsWith("\r\n")) {
                         command = command + "\r\n";
                     }
-                    try {
-                        writeMessage(command);
-                    } catch (CULCommunicationException e) {
-                        logger.error("Error while writing command to CUL", e);
-                    }
-                }
-                try {
-                    Thread.sleep(10);
+                    writeMessage(command);
+                } catch (CULCommunicationException e) {
+                    logger.error("Error while writing command to CUL", e);
                 } catch (InterruptedException e) {
-                    logger.debug("Error while sleeping in SendThread", e);
+                    logger.debug("SendThread for {} interrupted", deviceName);
+                    return;
                 }
             }
         }
     }
 
     /**
-     * Wrapper class wraps a CULListener and a received Strings and gets
-     * executed by a executor in its own thread.
+     * Wrapper class wraps the CULListeners and a received String and gets
+     * executed by the receive executor.
      * 
      * @author Till Klocke
      * @since 1.4.0
      * 
      */
-    private static class NotifyDataReceivedRunner implements Runnable {
+    private class NotifyDataReceivedRunner implements Runnable {
 
         private String message;
-        private CULListener listener;
 
-        public NotifyDataReceivedRunner(CULListener listener, String message) {
+        public NotifyDataReceivedRunner(String message) {
             this.message = message;
-            this.listener = listener;
         }
 
         @Override
         public void run() {
-            listener.dataReceived(message);
+            for (CULListener listener : listeners) {
+                try {
+                    listener.dataReceived(message);
+                } catch (RuntimeException e) {
+                    log.error("Error while notifying listener about message '" + message + "'", e);
+                }
+            }
         }
 
     }
 
     /**
-     * Executor to handle received messages. Every listern should be called in
-     * its own thread.
+     * Executor to handle received messages. A single thread delivers the
+     * messages in the order they have been received. If the listeners can't
+     * keep up, the reading thread waits for free space in the queue instead
+     * of dropping messages.
      */
-    protected Executor receiveExecutor = Executors.newCachedThreadPool();
-    protected SendThread sendThread = new SendThread();
+    protected ExecutorService receiveExecutor;
+    protected SendThread sendThread;
 
     protected String deviceName;
     protected CULMode mode;
 
-    protected List<CULListener> listeners = new ArrayList<CULListener>();
+    protected List<CULListener> listeners = new CopyOnWriteArrayList<CULListener>();
 
-    protected Queue<String> sendQueue = new ConcurrentLinkedQueue<String>();
+    protected BlockingQueue<String> sendQueue = new LinkedBlockingQueue<String>();
     protected int credit10ms = 0;
+
+    /** number of credit reports received so far, guarded by {@link #creditLock} */
+    private long creditReportCount = 0;
+    private final Object creditLock = new Object();
     protected BufferedReader br;
     protected BufferedWriter bw;
 
@@ -150,15 +189,46 @@ public abstract class AbstractCULHandler implements CULHandler, CULHandlerIntern
     @Override
     public void open() throws CULDeviceException {
         openHardware();
+        receiveExecutor = createReceiveExecutor();
+        sendThread = new SendThread();
         sendThread.start();
     }
 
     @Override
     public void close() {
-        sendThread.interrupt();
+        if (sendThread != null) {
+            sendThread.interrupt();
+            sendThread = null;
+        }
+        if (receiveExecutor != null) {
+            receiveExecutor.shutdown();
+            receiveExecutor = null;
+        }
         closeHardware();
     }
 
+    /**
+     * Creates the single threaded executor notifying the listeners. Its queue
+     * is bounded, a full queue blocks the submitting (reading) thread.
+     */
+    private ExecutorService createReceiveExecutor() {
+        return new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<Runnable>(RECEIVE_QUEUE_CAPACITY), new RejectedExecutionHandler() {
+                    @Override
+                    public void rejectedExecution(Runnable runnable, ThreadPoolExecutor executor) {
+                        if (executor.isShutdown()) {
+                            throw new RejectedExecutionException("CUL handler " + deviceName + " is closed");
+                        }
+                        try {
+                            executor.getQueue().put(runnable);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            throw new RejectedExecutionException(e);
+                        }
+                    }
+                });
+    }
+
     /**
      * initialize the CUL hardware and open the connection
      * 
@@ -201,13 +271,21 @@ public abstract class AbstractCULHandler implements CULHandler, CULHandlerIntern
     }
 
     /**
-     * Notifies each CULListener about the received data in its own thread.
+     * Notifies the CULListeners about the received data on the receive
+     * executor.
      * 
      * @param data
      */
     protected void notifyDataReceived(String data) {
-        for (final CULListener listener : listeners) {
-            receiveExecutor.execute(new NotifyDataReceivedRunner(listener, data));
+        ExecutorService executor = receiveExecutor;
+        if (executor == null) {
+            log.debug("Dropping message '{}', CUL handler {} is not open", data, deviceName);
+            return;
+        }
+        try {
+            executor.execute(new NotifyDataReceivedRunner(data));
+        } catch (RejectedExecutionException e) {
+            log.debug("Dropping message '{}': {}", data, e.getMessage());
         }
     }
 
@@ -271,10 +349,42 @@ public abstract class AbstractCULHandler implements CULHandler, CULHandlerIntern
     private void processCreditReport(String data) {
         // Credit report received
         String[] report = data.split(" ");
-        credit10ms = Integer.parseInt(report[report.length - 1]);
+        synchronized (creditLock) {
+            credit10ms = Integer.parseInt(report[report.length - 1]);
+            creditReportCount++;
+            creditLock.notifyAll();
+        }
         log.debug("credit10ms = " + credit10ms);
     }
 
+    /**
+     * Blocks while the last reported credit of the CUL is too low to send a
+     * command. The waiting time is estimated from the rate at which the duty
+     * cycle regains credit, afterwards a new credit report is requested. If
+     * the CUL doesn't answer the request, sending goes ahead.
+     *
+     * @throws InterruptedException
+     *             if the send thread is interrupted while waiting
+     */
+    private void awaitSendCredit() throws InterruptedException {
+        synchronized (creditLock) {
+            while (creditReportCount > 0 && credit10ms < MIN_SEND_CREDIT_10MS) {
+                long waitTime = (MIN_SEND_CREDIT_10MS - credit10ms) * CREDIT_REGAIN_INTERVAL_MS;
+                log.info("CUL {} has only {} credit left, holding back {} queued message(s) for {} ms", deviceName,
+                        credit10ms, sendQueue.size() + 1, waitTime);
+                creditLock.wait(waitTime);
+
+                long reportCount = creditReportCount;
+                requestCreditReport();
+                creditLock.wait(CREDIT_REPORT_TIMEOUT_MS);
+                if (reportCount == creditReportCount) {
+                    log.debug("No credit report received from CUL {}, sending anyway", deviceName);
+                    return;
+                }
+            }
+        }
+    }
+
     /**
      * get the remaining send time on channel as seen at the last send/receive
      * event.
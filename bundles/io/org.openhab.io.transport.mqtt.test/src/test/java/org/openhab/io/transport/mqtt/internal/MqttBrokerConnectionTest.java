@@ -0,0 +1,92 @@
+/**
+ * Copyright (c) 2010-2016, openHAB.org and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.io.transport.mqtt.internal;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.paho.client.mqttv3.MqttMessage;
+import org.junit.Test;
+import org.openhab.core.events.EventPublisher;
+import org.openhab.io.transport.mqtt.MqttMessageConsumer;
+
+/**
+ * @author agent
+ * @since 1.9.0
+ */
+public class MqttBrokerConnectionTest {
+
+    private MqttBrokerConnection connection = new MqttBrokerConnection("test");
+
+    @Test
+    public void testMessageIsDispatchedByTopic() throws Exception {
+        TestConsumer kitchen = new TestConsumer("home/kitchen/+");
+        TestConsumer living = new TestConsumer("home/living/+");
+        connection.addConsumer(kitchen);
+        connection.addConsumer(living);
+
+        connection.messageArrived("home/kitchen/temp", new MqttMessage("21".getBytes()));
+
+        assertEquals(1, kitchen.topics.size());
+        assertEquals(0, living.topics.size());
+    }
+
+    @Test
+    public void testConsumerIsRefiledWhenRegisteredAgain() throws Exception {
+        TestConsumer consumer = new TestConsumer("home/kitchen/temp");
+        connection.addConsumer(consumer);
+        consumer.setTopic("home/living/temp");
+
+        // the topic change takes effect when the consumer is registered again
+        connection.messageArrived("home/kitchen/temp", new MqttMessage("21".getBytes()));
+        assertEquals(1, consumer.topics.size());
+        connection.addConsumer(consumer);
+
+        connection.messageArrived("home/kitchen/temp", new MqttMessage("21".getBytes()));
+        connection.messageArrived("home/living/temp", new MqttMessage("22".getBytes()));
+        assertEquals(2, consumer.topics.size());
+        assertEquals("home/living/temp", consumer.topics.get(1));
+
+        connection.removeConsumer(consumer);
+        connection.messageArrived("home/living/temp", new MqttMessage("23".getBytes()));
+        assertEquals(2, consumer.topics.size());
+    }
+
+    private static class TestConsumer implements MqttMessageConsumer {
+
+        private String topic;
+
+        private List<String> topics = new ArrayList<String>();
+
+        TestConsumer(String topic) {
+            this.topic = topic;
+        }
+
+        @Override
+        public void processMessage(String topic, byte[] payload) {
+            topics.add(topic);
+        }
+
+        @Override
+        public String getTopic() {
+            return topic;
+        }
+
+        @Override
+        public void setTopic(String topic) {
+            this.topic = topic;
+        }
+
+        @Override
+        public void setEventPublisher(EventPublisher eventPublisher) {
+        }
+    }
+}
@@ -0,0 +1,127 @@
+/**
+ * Copyright (c) 2010-2016, openHAB.org and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.io.transport.mqtt.internal;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * @author agent
+ * @since 1.9.0
+ */
+public class MqttTopicTreeTest {
+
+    private MqttTopicTree<String> tree = new MqttTopicTree<String>();
+
+    private void assertMatches(String topic, String... expected) {
+        List<String> matches = tree.match(topic);
+        assertEquals("matches for " + topic, new HashSet<String>(Arrays.asList(expected)),
+                new HashSet<String>(matches));
+        assertEquals("number of matches for " + topic, expected.length, matches.size());
+    }
+
+    @Test
+    public void testExactMatch() {
+        tree.add("home/kitchen/temp", "a");
+        tree.add("home/kitchen/humidity", "b");
+
+        assertMatches("home/kitchen/temp", "a");
+        assertMatches("home/kitchen/humidity", "b");
+        assertMatches("home/kitchen");
+        assertMatches("home/kitchen/temp/x");
+        assertMatches("home/living/temp");
+    }
+
+    @Test
+    public void testSingleLevelWildcard() {
+        tree.add("home/+/temp", "a");
+        tree.add("+/+", "b");
+
+        assertMatches("home/kitchen/temp", "a");
+        assertMatches("home//temp", "a");
+        assertMatches("home/kitchen/humidity");
+        assertMatches("home/kitchen", "b");
+        assertMatches("home");
+    }
+
+    @Test
+    public void testMultiLevelWildcard() {
+        tree.add("home/#", "a");
+        tree.add("#", "b");
+
+        assertMatches("home", "a", "b");
+        assertMatches("home/kitchen", "a", "b");
+        assertMatches("home/kitchen/temp", "a", "b");
+        assertMatches("garden", "b");
+    }
+
+    @Test
+    public void testCombinedWildcards() {
+        tree.add("home/+/temp/#", "a");
+        tree.add("home/kitchen/temp", "b");
+
+        assertMatches("home/kitchen/temp", "a", "b");
+        assertMatches("home/living/temp/current", "a");
+        assertMatches("home/living/humidity/current");
+    }
+
+    @Test
+    public void testRemove() {
+        tree.add("home/+/temp", "a");
+        tree.add("home/+/temp", "b");
+
+        assertTrue(tree.remove("home/+/temp", "a"));
+        assertFalse(tree.remove("home/+/temp", "a"));
+        assertFalse(tree.remove("home/kitchen/temp", "b"));
+        assertMatches("home/kitchen/temp", "b");
+
+        assertTrue(tree.remove("home/+/temp", "b"));
+        assertMatches("home/kitchen/temp");
+        assertTrue(tree.isEmpty());
+    }
+
+    /**
+     * Matches messages against 10,000 subscriptions (a mix of exact topics
+     * and wildcards) and checks that the tree finds the same subscriptions as
+     * testing every subscription with a regular expression.
+     */
+    @Test
+    public void testTenThousandSubscriptionsMatchLikeRegex() {
+        int subscriptionCount = 10000;
+        String[] filters = new String[subscriptionCount];
+        for (int i = 0; i < subscriptionCount; i++) {
+            if (i % 10 == 0) {
+                filters[i] = "house/room" + (i % 100) + "/+/state";
+            } else if (i % 10 == 1) {
+                filters[i] = "house/room" + (i % 100) + "/sensor" + i + "/#";
+            } else {
+                filters[i] = "house/room" + (i % 100) + "/sensor" + i + "/state";
+            }
+            tree.add(filters[i], filters[i]);
+        }
+
+        for (int sensor = 0; sensor < subscriptionCount; sensor += 37) {
+            String topic = "house/room" + (sensor % 100) + "/sensor" + sensor + "/state";
+            List<String> expected = new ArrayList<String>();
+            for (String filter : filters) {
+                String regex = filter.replace("+", "[^/]*").replace("/#", "(/.*)?");
+                if (topic.matches(regex)) {
+                    expected.add(filter);
+                }
+            }
+            assertMatches(topic, expected.toArray(new String[expected.size()]));
+        }
+    }
+}
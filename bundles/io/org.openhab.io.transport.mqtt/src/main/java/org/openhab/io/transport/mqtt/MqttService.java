@@ -159,7 +159,9 @@ public class MqttService implements ManagedService {
      * @param brokerName
      *            Name of the broker on which to listen for messages.
      * @param mqttMessageConsumer
-     *            Consumer which will process any received message.
+     *            Consumer which will process any received message. A consumer
+     *            whose topic has changed is registered again to receive the
+     *            messages of its new topic.
      */
     public void registerMessageConsumer(String brokerName, MqttMessageConsumer mqttMessageConsumer) {
 
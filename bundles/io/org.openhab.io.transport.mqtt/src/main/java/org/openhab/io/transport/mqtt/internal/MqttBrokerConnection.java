@@ -10,8 +10,10 @@ package org.openhab.io.transport.mqtt.internal;
 
 import java.security.cert.X509Certificate;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 import java.util.Timer;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 
 import javax.net.ssl.SSLContext;
@@ -77,6 +79,12 @@ public class MqttBrokerConnection implements MqttCallback {
 
     private List<MqttMessageConsumer> consumers = new CopyOnWriteArrayList<MqttMessageConsumer>();
 
+    /** the topics of all consumers, used to dispatch received messages */
+    private MqttTopicTree<MqttMessageConsumer> subscriptions = new MqttTopicTree<MqttMessageConsumer>();
+
+    /** the topic each consumer is filed under in {@link #subscriptions} */
+    private Map<MqttMessageConsumer, String> filedTopics = new ConcurrentHashMap<MqttMessageConsumer, String>();
+
     private List<MqttMessageProducer> producers = new CopyOnWriteArrayList<MqttMessageProducer>();
 
     private Timer reconnectTimer;
@@ -118,6 +126,7 @@ public class MqttBrokerConnection implements MqttCallback {
 
         // start all consumers
         for (MqttMessageConsumer c : consumers) {
+            refileConsumer(c);
             startConsumer(c);
         }
 
@@ -438,13 +447,22 @@ public class MqttBrokerConnection implements MqttCallback {
     }
 
     /**
-     * Add a new message consumer to this connection.
+     * Add a new message consumer to this connection. Adding a consumer which
+     * is already registered files it under its current topic, if the topic
+     * has been changed since.
      * 
      * @param consumer
      *            to add.
      */
     public synchronized void addConsumer(MqttMessageConsumer subscriber) {
+        if (filedTopics.containsKey(subscriber)) {
+            refileConsumer(subscriber);
+            return;
+        }
         consumers.add(subscriber);
+        String topic = subscriber.getTopic();
+        subscriptions.add(topic, subscriber);
+        filedTopics.put(subscriber, topic);
         if (started) {
             startConsumer(subscriber);
         }
@@ -487,17 +505,51 @@ public class MqttBrokerConnection implements MqttCallback {
      *            to remove.
      */
     public synchronized void removeConsumer(MqttMessageConsumer subscriber) {
-        logger.debug("Unsubscribing message consumer for topic '{}' from broker '{}'", subscriber.getTopic(), name);
+        String topic = filedTopics.remove(subscriber);
+        if (topic == null) {
+            topic = subscriber.getTopic();
+        }
+        logger.debug("Unsubscribing message consumer for topic '{}' from broker '{}'", topic, name);
 
         try {
             if (started) {
-                client.unsubscribe(subscriber.getTopic());
+                client.unsubscribe(topic);
             }
         } catch (Exception e) {
             logger.error("Error unsubscribing topic from broker", e);
         }
         consumers.remove(subscriber);
+        subscriptions.remove(topic, subscriber);
+
+    }
+
+    /**
+     * Files a registered consumer under its current topic if the topic has been
+     * changed since it was added, and moves its broker subscription along.
+     * 
+     * @param subscriber
+     *            to file anew.
+     */
+    private synchronized void refileConsumer(MqttMessageConsumer subscriber) {
+        String oldTopic = filedTopics.get(subscriber);
+        String newTopic = subscriber.getTopic();
+        if (oldTopic == null || newTopic == null || oldTopic.equals(newTopic)) {
+            return;
+        }
+        logger.debug("Message consumer for broker '{}' moved from topic '{}' to '{}'", name, oldTopic, newTopic);
+
+        subscriptions.remove(oldTopic, subscriber);
+        subscriptions.add(newTopic, subscriber);
+        filedTopics.put(subscriber, newTopic);
 
+        if (started) {
+            try {
+                client.unsubscribe(oldTopic);
+            } catch (Exception e) {
+                logger.error("Error unsubscribing topic from broker", e);
+            }
+            startConsumer(subscriber);
+        }
     }
 
     /**
@@ -546,45 +598,12 @@ public class MqttBrokerConnection implements MqttCallback {
     @Override
     public void messageArrived(String topic, MqttMessage message) throws Exception {
 
-        logger.trace("Received message on topic '{}' : {}", topic, new String(message.getPayload()));
-        for (MqttMessageConsumer consumer : consumers) {
-            if (isTopicMatch(topic, consumer.getTopic())) {
-                consumer.processMessage(topic, message.getPayload());
-            }
-        }
-    }
-
-    /**
-     * Check if the topic on which a message was received matches provided
-     * target topic. The matching will take into account the + and # wildcards.
-     * 
-     * @param source
-     *            topic from received message
-     * @param target
-     *            topic as defined with possible wildcards.
-     * @return true if both topics match.
-     */
-    private boolean isTopicMatch(String source, String target) {
-        if (source.equals(target)) {
-            return true;
+        if (logger.isTraceEnabled()) {
+            logger.trace("Received message on topic '{}' : {}", topic, new String(message.getPayload()));
         }
-        if (target.indexOf('+') == -1 && target.indexOf('#') == -1) {
-            return false;
-        } else {
-
-            String regex = target;
-            regex = StringUtils.replace(regex, "+", "[^/]*");
-            regex = StringUtils.replace(regex, "#", ".*");
-            boolean result = source.matches(regex);
-            if (result) {
-                logger.trace("Topic match for '{}' and '{}' using regex {}", source, target, regex);
-                return true;
-            } else {
-                logger.trace("No topic match for '{}' and '{}' using regex {}", source, target, regex);
-                return false;
-            }
+        for (MqttMessageConsumer consumer : subscriptions.match(topic)) {
+            consumer.processMessage(topic, message.getPayload());
         }
-
     }
 
     /**
@@ -0,0 +1,152 @@
+/**
+ * Copyright (c) 2010-2016, openHAB.org and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.io.transport.mqtt.internal;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * A tree of MQTT topic filters, one node per topic level. It finds all values
+ * subscribed to a topic with a single walk down the levels of that topic, so
+ * the cost of matching depends on the depth of the topic rather than on the
+ * number of subscriptions.
+ *
+ * The wildcards are handled according to the MQTT specification:
+ * <ul>
+ * <li><code>+</code> matches exactly one (possibly empty) topic level</li>
+ * <li><code>#</code> matches the parent level and any number of sub-levels,
+ * e.g. <code>home/#</code> matches <code>home</code>, <code>home/kitchen</code>
+ * and <code>home/kitchen/temp</code></li>
+ * </ul>
+ *
+ * Lookups are lock-free and may run concurrently with modifications, which
+ * have to be synchronized by the caller.
+ *
+ * @author agent
+ * @since 1.9.0
+ *
+ * @param <T> the type of the subscribed values
+ */
+public class MqttTopicTree<T> {
+
+    private static final String SINGLE_LEVEL_WILDCARD = "+";
+
+    private static final String MULTI_LEVEL_WILDCARD = "#";
+
+    private final Node<T> root = new Node<T>();
+
+    /**
+     * Subscribes <code>value</code> to the given topic filter.
+     *
+     * @param topicFilter
+     *            topic to subscribe to. May contain + or # wildcards.
+     * @param value
+     *            the value to return for matching topics.
+     */
+    public void add(String topicFilter, T value) {
+        Node<T> node = root;
+        for (String level : split(topicFilter)) {
+            Node<T> child = node.children.get(level);
+            if (child == null) {
+                child = new Node<T>();
+                node.children.put(level, child);
+            }
+            node = child;
+        }
+        node.values.add(value);
+    }
+
+    /**
+     * Removes the subscription of <code>value</code> to the given topic filter.
+     *
+     * @param topicFilter
+     *            topic the value has been subscribed to.
+     * @param value
+     *            the value to remove.
+     * @return true if the value was subscribed to the topic filter.
+     */
+    public boolean remove(String topicFilter, T value) {
+        return remove(root, split(topicFilter), 0, value);
+    }
+
+    private boolean remove(Node<T> node, String[] levels, int index, T value) {
+        if (index == levels.length) {
+            return node.values.remove(value);
+        }
+        Node<T> child = node.children.get(levels[index]);
+        if (child == null) {
+            return false;
+        }
+        boolean removed = remove(child, levels, index + 1, value);
+        if (removed && child.isEmpty()) {
+            // prune branches which don't lead to a subscription anymore
+            node.children.remove(levels[index]);
+        }
+        return removed;
+    }
+
+    /**
+     * Returns all values whose topic filter matches the given topic. A value
+     * subscribed with several matching filters is returned once per filter.
+     *
+     * @param topic
+     *            topic on which a message was received (without wildcards).
+     * @return the matching values, never <code>null</code>.
+     */
+    public List<T> match(String topic) {
+        List<T> result = new ArrayList<T>();
+        collect(root, split(topic), 0, result);
+        return result;
+    }
+
+    private void collect(Node<T> node, String[] levels, int index, List<T> result) {
+        Node<T> multiLevel = node.children.get(MULTI_LEVEL_WILDCARD);
+        if (multiLevel != null) {
+            result.addAll(multiLevel.values);
+        }
+        if (index == levels.length) {
+            result.addAll(node.values);
+            return;
+        }
+        Node<T> exact = node.children.get(levels[index]);
+        if (exact != null) {
+            collect(exact, levels, index + 1, result);
+        }
+        Node<T> singleLevel = node.children.get(SINGLE_LEVEL_WILDCARD);
+        if (singleLevel != null && singleLevel != exact) {
+            collect(singleLevel, levels, index + 1, result);
+        }
+    }
+
+    /**
+     * @return true if no value is subscribed to any topic.
+     */
+    public boolean isEmpty() {
+        return root.isEmpty();
+    }
+
+    private static String[] split(String topic) {
+        // keep empty levels, "a//b" has three levels
+        return topic.split("/", -1);
+    }
+
+    private static class Node<T> {
+
+        final Map<String, Node<T>> children = new ConcurrentHashMap<String, Node<T>>();
+
+        final List<T> values = new CopyOnWriteArrayList<T>();
+
+        boolean isEmpty() {
+            return values.isEmpty() && children.isEmpty();
+        }
+    }
+}
@@ -0,0 +1,164 @@
+/**
+ * Copyright (c) 2010-2016, openHAB.org and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.model.core.internal;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import org.apache.commons.io.IOUtils;
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.resource.impl.BinaryResourceImpl;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * An on-disk cache of parsed models in the EMF binary format. The entries are
+ * keyed by the model name and a hash of the model content, so that an unchanged
+ * model file can be restored on startup without parsing and linking it again.
+ *
+ * Only models whose grammar does not need the node model or linking to Java
+ * types after parsing may be cached, the repository decides which ones.
+ *
+ * @author agent
+ * @since 1.9.0
+ *
+ */
+public class ModelCache {
+
+	private static final Logger logger = LoggerFactory.getLogger(ModelCache.class);
+
+	private static final String CACHE_FILE_EXTENSION = ".bin";
+
+	private final File folder;
+
+	public ModelCache() {
+		folder = new File(getUserDataFolder());
+	}
+
+	/**
+	 * Fills the given (empty) resource with the cached contents of the model
+	 * with the given name and content.
+	 *
+	 * @param name the name of the model
+	 * @param content the content of the model file
+	 * @param resource the resource to add the cached contents to
+	 * @return true, if the model has been found in the cache
+	 */
+	public boolean load(String name, byte[] content, Resource resource) {
+		File file = getCacheFile(name, content);
+		if (file == null || !file.exists()) {
+			return false;
+		}
+
+		InputStream inputStream = null;
+		try {
+			inputStream = new FileInputStream(file);
+			Resource cachedResource = new BinaryResourceImpl(URI.createURI(name));
+			cachedResource.load(inputStream, null);
+			if (cachedResource.getContents().isEmpty()) {
+				return false;
+			}
+			resource.getContents().addAll(cachedResource.getContents());
+			return true;
+		} catch (Exception e) {
+			// e.g. the grammar has changed since the model has been cached
+			logger.debug("Cannot restore model '{}' from cache file '{}': {}",
+					new Object[] { name, file.getName(), e.getMessage() });
+			file.delete();
+			return false;
+		} finally {
+			IOUtils.closeQuietly(inputStream);
+		}
+	}
+
+	/**
+	 * Stores the contents of the given resource in the cache, replacing any
+	 * former entry of the model with the given name.
+	 *
+	 * @param name the name of the model
+	 * @param content the content of the model file the resource has been parsed from
+	 * @param resource the parsed and error free resource
+	 */
+	public void save(String name, byte[] content, Resource resource) {
+		File file = getCacheFile(name, content);
+		if (file == null || (!folder.exists() && !folder.mkdirs())) {
+			return;
+		}
+		removeEntries(name);
+
+		File tmpFile = new File(folder, file.getName() + ".tmp");
+		OutputStream outputStream = null;
+		try {
+			Resource cachedResource = new BinaryResourceImpl(URI.createURI(name));
+			cachedResource.getContents().addAll(EcoreUtil.copyAll(resource.getContents()));
+			outputStream = new FileOutputStream(tmpFile);
+			cachedResource.save(outputStream, null);
+			outputStream.close();
+			outputStream = null;
+			if (!tmpFile.renameTo(file)) {
+				tmpFile.delete();
+			}
+		} catch (Exception e) {
+			logger.debug("Cannot write model '{}' to the cache: {}", name, e.getMessage());
+			tmpFile.delete();
+		} finally {
+			IOUtils.closeQuietly(outputStream);
+		}
+	}
+
+	/**
+	 * Removes all cache entries of the model with the given name.
+	 *
+	 * @param name the name of the model
+	 */
+	public void removeEntries(String name) {
+		File[] files = folder.listFiles();
+		if (files == null) {
+			return;
+		}
+		String prefix = name + "-";
+		for (File file : files) {
+			if (file.getName().startsWith(prefix) && file.getName().endsWith(CACHE_FILE_EXTENSION)) {
+				file.delete();
+			}
+		}
+	}
+
+	private File getCacheFile(String name, byte[] content) {
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-1");
+			byte[] hash = digest.digest(content);
+			StringBuilder fileName = new StringBuilder(name).append('-');
+			for (byte b : hash) {
+				fileName.append(String.format("%02x", b));
+			}
+			return new File(folder, fileName.append(CACHE_FILE_EXTENSION).toString());
+		} catch (NoSuchAlgorithmException e) {
+			return null;
+		}
+	}
+
+	private static String getUserDataFolder() {
+		String progArg = System.getProperty("smarthome.userdata");
+		if (progArg != null) {
+			return progArg + File.separator + "modelcache";
+		} else {
+			return "etc" + File.separator + "modelcache";
+		}
+	}
+
+}
@@ -8,12 +8,17 @@
  */
 package org.openhab.model.core.internal;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 
+import org.apache.commons.io.IOUtils;
 import org.eclipse.core.runtime.ListenerList;
 import org.eclipse.emf.common.util.URI;
 import org.eclipse.emf.ecore.EObject;
@@ -33,17 +38,39 @@ import com.google.common.base.Predicate;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 
+/**
+ * Keeps all models in a single resource set.
+ * <p>
+ * Models of the simple grammars listed in {@link #CACHEABLE_MODEL_TYPES} do not
+ * need any linking to other resources. Each of them is parsed in a resource set
+ * of its own, so that several of them can be parsed concurrently, and is then
+ * moved to the shared resource set. They are also stored in a {@link ModelCache}
+ * after parsing, so that an unchanged file is restored from the cache on the
+ * next start. All other models (which e.g. link to Java types) are parsed one
+ * after another in the shared resource set, as before.
+ *
+ * @author Kai Kreuzer
+ * @since 0.3.0
+ *
+ */
 public class ModelRepositoryImpl implements ModelRepository {
 	
 	private static final Logger logger = LoggerFactory.getLogger(ModelRepositoryImpl.class);
+	
+	/** model types which are parsed outside of the shared resource set and cached */
+	private static final Set<String> CACHEABLE_MODEL_TYPES = new HashSet<String>(Arrays.asList("items", "sitemap"));
+	
 	private final ResourceSet resourceSet;
 	
 	private final ListenerList listeners = new ListenerList();
+	
+	/** serializes the notification of the listeners */
+	private final Object notificationLock = new Object();
+	
+	private final ModelCache modelCache = new ModelCache();
 
 	public ModelRepositoryImpl() {
-		XtextResourceSet xtextResourceSet = new SynchronizedXtextResourceSet();
-		xtextResourceSet.addLoadOption(XtextResource.OPTION_RESOLVE_ALL, Boolean.TRUE);
-		this.resourceSet = xtextResourceSet;
+		this.resourceSet = createResourceSet();
 		// don't use XMI as a default
 		Resource.Factory.Registry.INSTANCE.getExtensionToFactoryMap().remove("*");
 	}
@@ -68,55 +95,147 @@ public class ModelRepositoryImpl implements ModelRepository {
 	}
 
 	public boolean addOrRefreshModel(String name, InputStream inputStream) {
+		long start = System.currentTimeMillis();
+		byte[] content;
+		try {
+			content = IOUtils.toByteArray(inputStream);
+		} catch (IOException e) {
+			logger.warn("Configuration model '" + name + "' cannot be read!", e);
+			return false;
+		} finally {
+			IOUtils.closeQuietly(inputStream);
+		}
+		long readTime = System.currentTimeMillis() - start;
+
+		EventType eventType;
+		if(isCacheableModelType(name)) {
+			eventType = loadCacheableModel(name, content);
+		} else {
+			synchronized (resourceSet) {
+				eventType = loadModel(name, content);
+			}
+		}
+		if(eventType==null) {
+			return false;
+		}
+		long loadTime = System.currentTimeMillis() - start - readTime;
+
+		notifyListeners(name, eventType);
+		long notifyTime = System.currentTimeMillis() - start - readTime - loadTime;
+
+		logger.debug("Model '{}' processed in {} ms (read: {} ms, load: {} ms, listeners: {} ms)",
+				new Object[] { name, readTime + loadTime + notifyTime, readTime, loadTime, notifyTime });
+		return true;
+	}
+
+	/**
+	 * Parses the given content into the resource of the model in the shared
+	 * resource set. Must be called while holding the lock of the resource set.
+	 * 
+	 * @return the type of the change or <code>null</code> if the model could not be loaded
+	 */
+	private EventType loadModel(String name, byte[] content) {
 		Resource resource = getResource(name);
+		boolean isNew = resource==null;
+		Map<String, String> options;
+		if(isNew) {
+			// seems to be a new file
+			resource = resourceSet.createResource(URI.createURI(name));
+			if(resource==null) {
+				return null;
+			}
+			logger.info("Loading model '{}'", name);
+			options = new HashMap<String, String>();
+			options.put(XtextResource.OPTION_ENCODING, "UTF-8");
+		} else {
+			logger.info("Refreshing model '{}'", name);
+			resource.unload();
+			options = Collections.emptyMap();
+		}
+
+		long start = System.currentTimeMillis();
+		try {
+			resource.load(new ByteArrayInputStream(content), options);
+		} catch (IOException e) {
+			logger.warn("Configuration model '" + name + "' cannot be parsed correctly!", e);
+			resourceSet.getResources().remove(resource);
+			return null;
+		}
+		logger.debug("Parsed model '{}' in {} ms", name, System.currentTimeMillis() - start);
+		return isNew ? EventType.ADDED : EventType.MODIFIED;
+	}
+
+	/**
+	 * Loads the given content into a new resource, either from the
+	 * {@link ModelCache} or by parsing it in a resource set of its own, and
+	 * replaces the resource of the model in the shared resource set with it.
+	 * 
+	 * @return the type of the change or <code>null</code> if the model could not be loaded
+	 */
+	private EventType loadCacheableModel(String name, byte[] content) {
+		synchronized (resourceSet) {
+			if(getResource(name)==null) {
+				logger.info("Loading model '{}'", name);
+			} else {
+				logger.info("Refreshing model '{}'", name);
+			}
+		}
+
+		Resource resource = createResourceSet().createResource(URI.createURI(name));
 		if(resource==null) {
-			synchronized(resourceSet) {
-				// try again to retrieve the resource as it might have been created by now
-				resource = getResource(name);
-				if(resource==null) {
-					// seems to be a new file
-					resource = resourceSet.createResource(URI.createURI(name));
-					if(resource!=null) {
-						logger.info("Loading model '{}'", name);
-						try {
-							Map<String, String> options = new HashMap<String, String>();
-							options.put(XtextResource.OPTION_ENCODING, "UTF-8");
-							resource.load(inputStream, options);
-							notifyListeners(name, EventType.ADDED);
-							return true;
-						} catch (IOException e) {
-							logger.warn("Configuration model '" + name + "' cannot be parsed correctly!", e);
-							resourceSet.getResources().remove(resource);
-						}
+			return null;
+		}
+
+		long start = System.currentTimeMillis();
+		if(modelCache.load(name, content, resource)) {
+			logger.debug("Restored model '{}' from the cache in {} ms", name, System.currentTimeMillis() - start);
+		} else {
+			try {
+				Map<String, String> options = new HashMap<String, String>();
+				options.put(XtextResource.OPTION_ENCODING, "UTF-8");
+				resource.load(new ByteArrayInputStream(content), options);
+			} catch (IOException e) {
+				logger.warn("Configuration model '" + name + "' cannot be parsed correctly!", e);
+				synchronized (resourceSet) {
+					Resource oldResource = getResource(name);
+					if(oldResource!=null) {
+						resourceSet.getResources().remove(oldResource);
 					}
 				}
+				return null;
 			}
-		} else {
-			synchronized(resourceSet) {
-				resource.unload();
-				try {
-					logger.info("Refreshing model '{}'", name);
-					resource.load(inputStream, Collections.EMPTY_MAP);
-					notifyListeners(name, EventType.MODIFIED);
-					return true;
-				} catch (IOException e) {
-					logger.warn("Configuration model '" + name + "' cannot be parsed correctly!", e);
-					resourceSet.getResources().remove(resource);
-				}
+			long parseTime = System.currentTimeMillis() - start;
+			if(resource.getErrors().isEmpty() && !resource.getContents().isEmpty()) {
+				modelCache.save(name, content, resource);
 			}
+			logger.debug("Parsed model '{}' in {} ms (cache update: {} ms)", new Object[] { name, parseTime,
+					System.currentTimeMillis() - start - parseTime });
+		}
+
+		synchronized (resourceSet) {
+			Resource oldResource = getResource(name);
+			if(oldResource!=null) {
+				resourceSet.getResources().remove(oldResource);
+			}
+			// adding the resource moves it from its own resource set to the shared one
+			resourceSet.getResources().add(resource);
+			return oldResource==null ? EventType.ADDED : EventType.MODIFIED;
 		}
-		return false;
 	}
 
 	public boolean removeModel(String name) {
-		Resource resource = getResource(name);
+		Resource resource;
+		synchronized (resourceSet) {
+			resource = getResource(name);
+		}
 		if(resource!=null) {
+			// do not physically delete it, but remove it from the resource set
+			notifyListeners(name, EventType.REMOVED);
 			synchronized(resourceSet) {
-				// do not physically delete it, but remove it from the resource set
-				notifyListeners(name, EventType.REMOVED);
 				resourceSet.getResources().remove(resource);
-				return true;
 			}
+			modelCache.removeEntries(name);
+			return true;
 		} else {
 			return false;
 		}
@@ -153,10 +272,24 @@ public class ModelRepositoryImpl implements ModelRepository {
 		 return resourceSet.getResource(URI.createURI(name), false);
 	}
 
+	private boolean isCacheableModelType(String name) {
+		String modelType = URI.createURI(name).fileExtension();
+		return modelType!=null && CACHEABLE_MODEL_TYPES.contains(modelType.toLowerCase());
+	}
+
+	private static XtextResourceSet createResourceSet() {
+		XtextResourceSet xtextResourceSet = new SynchronizedXtextResourceSet();
+		xtextResourceSet.addLoadOption(XtextResource.OPTION_RESOLVE_ALL, Boolean.TRUE);
+		return xtextResourceSet;
+	}
+
 	private void notifyListeners(String name, EventType type) {
-		for(Object listener : listeners.getListeners()) {
-			ModelRepositoryChangeListener changeListener = (ModelRepositoryChangeListener) listener;
-			changeListener.modelChanged(name, type);
+		// models may be loaded concurrently, but the listeners are notified one after another
+		synchronized (notificationLock) {
+			for(Object listener : listeners.getListeners()) {
+				ModelRepositoryChangeListener changeListener = (ModelRepositoryChangeListener) listener;
+				changeListener.modelChanged(name, type);
+			}
 		}
 	}
 
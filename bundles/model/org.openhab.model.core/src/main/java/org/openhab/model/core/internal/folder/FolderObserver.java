@@ -8,15 +8,36 @@
  */
 package org.openhab.model.core.internal.folder;
 
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
 import java.util.Dictionary;
 import java.util.Enumeration;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang.ArrayUtils;
@@ -30,9 +51,15 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * This class is able to observe multiple folders for changes. It checks the
- * last modified date in a configurable frequency and notifies the model repository
- * about every change, so that it can update itself.
+ * This class is able to observe multiple folders for changes and notifies the
+ * model repository about every change, so that it can update itself.
+ * 
+ * Folders are registered with a {@link WatchService}, so that changes are
+ * detected as soon as they happen. The events of a burst of changes (e.g. an
+ * editor writing a temporary file and renaming it) are collected until the
+ * folder has been quiet for a short time and then handled by a single check of
+ * the folder. If a folder cannot be watched, its last modified dates are
+ * checked in the configured frequency instead.
  * 
  * This logic is run as a separate thread, so that it can always detect changes.
  * 
@@ -66,6 +93,18 @@ public class FolderObserver extends Thread implements ManagedService {
 	/* a counter to know which folders need to be refreshed when waking up */
 	private int refreshCount = 0;
 	
+	/* the time in milliseconds a watched folder has to be quiet before it is checked */
+	private static final long DEBOUNCE_TIME = 500;
+	
+	/* the service notifying about changes in the folders, null if it is not available */
+	private volatile WatchService watchService;
+	
+	/* map that stores the folder name of each registered watch key */
+	private final Map<WatchKey, String> watchedFolders = new ConcurrentHashMap<WatchKey, String>();
+	
+	/* the threads which load the models of changed files concurrently */
+	private ExecutorService loaderPool;
+	
 	/* the model repository is provided as a service */
 	private ModelRepository modelRepo = null;
 	
@@ -81,12 +120,34 @@ public class FolderObserver extends Thread implements ManagedService {
 	public void unsetModelRepository(ModelRepository modelRepo) {
 		this.modelRepo = null;
 	}
+	
+	public synchronized void deactivate() {
+		if(loaderPool != null) {
+			loaderPool.shutdown();
+			loaderPool = null;
+		}
+		if(watchService != null) {
+			// a thread waiting for changes stops with a ClosedWatchServiceException
+			try {
+				watchService.close();
+			} catch (IOException e) {
+				logger.debug("Error while closing the watch service: {}", e.getMessage());
+			}
+			watchService = null;
+			watchedFolders.clear();
+		}
+	}
 
 	@Override
 	public void run() {
 		while(!folderRefreshMap.isEmpty()) { // keep the thread running as long as there are folders to observe
 			try {
+				List<String> dueFolders = new ArrayList<String>();
 				for(String foldername : folderRefreshMap.keySet()) {
+					// if folder has been checked at least once and changes are reported by the watch service, skip
+					if( lastFileNames.get(foldername) != null && watchedFolders.containsValue(foldername)) {
+						continue;
+					}
 					// if folder has been checked at least once and it is not time yet to refresh, skip
 					if( lastFileNames.get(foldername) != null  && 
 							(refreshCount % folderRefreshMap.get(foldername) > 0)) {										
@@ -96,7 +157,12 @@ public class FolderObserver extends Thread implements ManagedService {
 					} 
 					
 					logger.debug("Refreshing folder '{}'", foldername);
-					checkFolder(foldername);
+					dueFolders.add(foldername);
+				}
+				if(!dueFolders.isEmpty()) {
+					synchronized (FolderObserver.this) {
+						checkFolders(dueFolders);
+					}
 				}
 
 				// increase the counter and set it to 0, if it reaches the max value
@@ -106,16 +172,144 @@ public class FolderObserver extends Thread implements ManagedService {
 			}			
 			try {
 				if(gcdRefresh <= 0) break;
-				synchronized(FolderObserver.this) {
-					wait(gcdRefresh * 1000L);
+				WatchService service = watchService;
+				if(service != null) {
+					waitForChanges(service, gcdRefresh * 1000L);
+				} else {
+					synchronized(FolderObserver.this) {
+						wait(gcdRefresh * 1000L);
+					}
 				}
 			} catch (InterruptedException e) {
 				break;
+			} catch (ClosedWatchServiceException e) {
+				// the observer has been deactivated
+				break;
 			}
 		}
 	}
 	
+	/**
+	 * Waits for changes in the watched folders and checks the changed folders
+	 * as soon as no further changes have been reported for {@link #DEBOUNCE_TIME}.
+	 * 
+	 * @param service the watch service to wait on
+	 * @param timeout the maximum time to wait for a change in milliseconds
+	 * @throws InterruptedException if the thread has been interrupted while waiting
+	 * @throws ClosedWatchServiceException if the watch service has been closed
+	 */
+	private void waitForChanges(WatchService service, long timeout) throws InterruptedException {
+		WatchKey key = service.poll(timeout, TimeUnit.MILLISECONDS);
+		if(key == null) {
+			return;
+		}
+		
+		Set<String> changedFolders = new HashSet<String>();
+		while(key != null) {
+			String foldername = watchedFolders.get(key);
+			for(WatchEvent<?> event : key.pollEvents()) {
+				logger.trace("Received {} for '{}' in folder '{}'",
+						new Object[] { event.kind().name(), event.context(), foldername });
+				if(event.kind() == OVERFLOW) {
+					// events have been lost, so all folders have to be checked
+					changedFolders.addAll(watchedFolders.values());
+				}
+			}
+			if(foldername != null) {
+				changedFolders.add(foldername);
+			}
+			if(!key.reset()) {
+				// the folder is not accessible anymore, check it by polling from now on
+				watchedFolders.remove(key);
+			}
+			key = service.poll(DEBOUNCE_TIME, TimeUnit.MILLISECONDS);
+		}
+		
+		changedFolders.retainAll(folderFileExtMap.keySet());
+		logger.debug("Refreshing changed folders {}", changedFolders);
+		synchronized (FolderObserver.this) {
+			checkFolders(changedFolders);
+		}
+	}
+	
+	/**
+	 * Registers the given folder with the watch service, so that changes are
+	 * reported without polling. If this fails, the folder is polled.
+	 * 
+	 * @param foldername the folder to watch
+	 */
+	private void watchFolder(String foldername) {
+		if(watchService == null) {
+			try {
+				watchService = FileSystems.getDefault().newWatchService();
+			} catch (IOException e) {
+				logger.warn("Cannot create a watch service, folders will be polled for changes: {}", e.getMessage());
+				return;
+			}
+		}
+		if(watchedFolders.containsValue(foldername)) {
+			return;
+		}
+		try {
+			WatchKey key = getFolder(foldername).toPath().register(watchService, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY);
+			watchedFolders.put(key, foldername);
+		} catch (IOException e) {
+			logger.warn("Cannot watch folder '{}', it will be polled for changes: {}", foldername, e.getMessage());
+		}
+	}
+	
+	/**
+	 * Stops watching all folders.
+	 */
+	private void unwatchFolders() {
+		for(WatchKey key : watchedFolders.keySet()) {
+			key.cancel();
+		}
+		watchedFolders.clear();
+	}
+	
 	private void checkFolder(String foldername) {
+		checkFolders(Collections.singleton(foldername));
+	}
+	
+	/**
+	 * Checks the given folders for new, changed and deleted files and updates
+	 * the model repository accordingly. The changed files of all folders are
+	 * loaded concurrently.
+	 * 
+	 * @param foldernames the folders to check
+	 */
+	private void checkFolders(Collection<String> foldernames) {
+		long start = System.currentTimeMillis();
+		boolean initialCheck = false;
+		
+		List<File> changedFiles = new ArrayList<File>();
+		for(String foldername : foldernames) {
+			initialCheck |= lastFileNames.get(foldername) == null;
+			collectChangedFiles(foldername, changedFiles);
+		}
+		if(changedFiles.isEmpty()) {
+			return;
+		}
+		long scanTime = System.currentTimeMillis() - start;
+		
+		int loadedModels = loadModels(changedFiles);
+		
+		if(initialCheck) {
+			logger.info("Loaded {} models of folders {} in {} ms (scan: {} ms)",
+					new Object[] { loadedModels, foldernames, System.currentTimeMillis() - start, scanTime });
+		} else {
+			logger.debug("Loaded {} models of folders {} in {} ms (scan: {} ms)",
+					new Object[] { loadedModels, foldernames, System.currentTimeMillis() - start, scanTime });
+		}
+	}
+	
+	/**
+	 * Adds all files of the given folder which are new or changed since the
+	 * last check to {@code changedFiles} and removes the models of deleted
+	 * files from the model repository.
+	 */
+	private void collectChangedFiles(String foldername, List<File> changedFiles) {
 		File folder = getFolder(foldername);
 		if(!folder.exists()) {
 			return;
@@ -137,15 +331,7 @@ public class FolderObserver extends Thread implements ManagedService {
 			Long timeLastCheck = lastCheckedMap.get(file.getName());
 			if(timeLastCheck==null) timeLastCheck = 0L;
 			if(FileUtils.isFileNewer(file, timeLastCheck)) {
-				if(modelRepo!=null) {
-					try {
-						if(modelRepo.addOrRefreshModel(file.getName(), FileUtils.openInputStream(file))) {
-							lastCheckedMap.put(file.getName(), new Date().getTime());							
-						}
-					} catch (IOException e) {
-						logger.warn("Cannot open file '"+ file.getAbsolutePath() + "' for reading.", e);
-					}
-				}
+				changedFiles.add(file);
 			}
 		}
 		
@@ -163,6 +349,75 @@ public class FolderObserver extends Thread implements ManagedService {
 		}
 		lastFileNames.put(foldername, currentFileNames);
 	}
+	
+	/**
+	 * Adds or refreshes the models of the given files in the model repository.
+	 * Several files are loaded concurrently, the repository decides which
+	 * models can actually be parsed in parallel.
+	 * 
+	 * @return the number of models which have been loaded successfully
+	 */
+	private int loadModels(List<File> files) {
+		if(modelRepo == null) {
+			return 0;
+		}
+		
+		if(files.size() == 1) {
+			return loadModel(files.get(0)) ? 1 : 0;
+		}
+		
+		List<Future<Boolean>> results = new ArrayList<Future<Boolean>>();
+		for(final File file : files) {
+			results.add(getLoaderPool().submit(new Callable<Boolean>() {
+				public Boolean call() {
+					return loadModel(file);
+				}
+			}));
+		}
+		
+		int loadedModels = 0;
+		for(Future<Boolean> result : results) {
+			try {
+				if(result.get()) {
+					loadedModels++;
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				break;
+			} catch (ExecutionException e) {
+				logger.error("An unexpected exception has occured while loading a model", e.getCause());
+			}
+		}
+		return loadedModels;
+	}
+	
+	private boolean loadModel(File file) {
+		ModelRepository repo = modelRepo;
+		if(repo == null) {
+			return false;
+		}
+		try {
+			if(repo.addOrRefreshModel(file.getName(), FileUtils.openInputStream(file))) {
+				lastCheckedMap.put(file.getName(), new Date().getTime());
+				return true;
+			}
+		} catch (IOException e) {
+			logger.warn("Cannot open file '"+ file.getAbsolutePath() + "' for reading.", e);
+		}
+		return false;
+	}
+	
+	private synchronized ExecutorService getLoaderPool() {
+		if(loaderPool == null) {
+			int threads = Runtime.getRuntime().availableProcessors();
+			ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+					new LinkedBlockingQueue<Runnable>());
+			// the threads are only needed while models are loaded
+			pool.allowCoreThreadTimeOut(true);
+			loaderPool = pool;
+		}
+		return loaderPool;
+	}
 
 	private String getExtension(String filename) {
 		String fileExt = filename.substring(filename.lastIndexOf(".") + 1);
@@ -177,6 +432,7 @@ public class FolderObserver extends Thread implements ManagedService {
 			lastCheckedMap.clear();
 			folderFileExtMap.clear();
 			folderRefreshMap.clear();
+			unwatchFolders();
 			
 			Enumeration keys = config.keys();
 			while (keys.hasMoreElements()) {
@@ -191,6 +447,7 @@ public class FolderObserver extends Thread implements ManagedService {
 						folderFileExtMap.put(foldername, fileExts);
 						if (refreshValue > 0) {
 							folderRefreshMap.put(foldername, refreshValue);
+							watchFolder(foldername);
 							if(!this.isAlive()) {
 								// seems we have the first folder to observe, so let's start the thread
 								this.start();
@@ -12,6 +12,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -63,6 +64,9 @@ public class GenericItemProvider implements ItemProvider, ModelRepositoryChangeL
 	
 	private Collection<ItemFactory> itemFactorys = new ArrayList<ItemFactory>();
 	
+	/** the items created from each model together with their definition, to keep unchanged items on a reload */
+	private Map<String, Map<String, ItemEntry>> itemsByModel = new HashMap<String, Map<String, ItemEntry>>();
+	
 	
 	public GenericItemProvider() {
 		// make sure that the DSL is correctly registered with EMF before we
@@ -119,35 +123,103 @@ public class GenericItemProvider implements ItemProvider, ModelRepositoryChangeL
 	
 	/**
 	 * {@inheritDoc}
+	 * <p>
+	 * Items whose definition did not change since they were created are returned
+	 * as the same instances, so that they keep their state.
 	 */
 	@Override
-	public Collection<Item> getItems() {
+	public synchronized Collection<Item> getItems() {
 		List<Item> items = new ArrayList<Item>();
+		if (modelRepository == null) {
+			return items;
+		}
+		
+		Collection<String> modelNames = new HashSet<String>();
 		for (String name : modelRepository.getAllModelNamesOfType("items")) {
-			items.addAll(getItemsFromModel(name));
+			modelNames.add(name);
+			updateItemsFromModel(name, null, null);
+			for (ItemEntry entry : itemsByModel.get(name).values()) {
+				items.add(entry.item);
+			}
 		}
+		itemsByModel.keySet().retainAll(modelNames);
 		return items;
 	}
 	
-	private Collection<Item> getItemsFromModel(String modelName) {
+	/**
+	 * Compares the items of the given model with the items created from it
+	 * before. Items with an unchanged definition are kept, items which are new
+	 * or whose definition changed are created and added to {@code addedItems},
+	 * items which no longer exist or have been replaced are added to
+	 * {@code removedItems}.
+	 * 
+	 * @param modelName the name of the items model
+	 * @param addedItems collects the created items, may be <code>null</code>
+	 * @param removedItems collects the removed items, may be <code>null</code>
+	 */
+	private synchronized void updateItemsFromModel(String modelName, Collection<Item> addedItems, Collection<Item> removedItems) {
 		logger.debug("Read items from model '{}'", modelName);
 		
-		List<Item> items = new ArrayList<Item>();
-		if (modelRepository != null) {
-			ItemModel model = (ItemModel) modelRepository.getModel(modelName);
-			if (model != null) {
-				for(ModelItem modelItem : model.getItems()) {
+		Map<String, ItemEntry> oldEntries = itemsByModel.get(modelName);
+		if (oldEntries == null) {
+			oldEntries = new HashMap<String, ItemEntry>();
+		}
+		Map<String, ItemEntry> newEntries = new LinkedHashMap<String, ItemEntry>();
+		
+		ItemModel model = modelRepository != null ? (ItemModel) modelRepository.getModel(modelName) : null;
+		if (model != null) {
+			for (ModelItem modelItem : model.getItems()) {
+				String definition = getDefinition(modelItem);
+				ItemEntry entry = oldEntries.remove(modelItem.getName());
+				if (entry != null && !entry.definition.equals(definition)) {
+					if (removedItems != null) {
+						removedItems.add(entry.item);
+					}
+					entry = null;
+				}
+				if (entry == null) {
 					Item item = createItemFromModelItem(modelItem);
-					if (item != null) {
-						for (String groupName : modelItem.getGroups()) {
-							item.getGroupNames().add(groupName);
-						}
-						items.add(item);
+					if (item == null) {
+						continue;
+					}
+					for (String groupName : modelItem.getGroups()) {
+						item.getGroupNames().add(groupName);
+					}
+					entry = new ItemEntry(item, definition);
+					if (addedItems != null) {
+						addedItems.add(item);
 					}
 				}
+				newEntries.put(modelItem.getName(), entry);
 			}
 		}
-		return items;
+		
+		if (removedItems != null) {
+			for (ItemEntry entry : oldEntries.values()) {
+				removedItems.add(entry.item);
+			}
+		}
+		itemsByModel.put(modelName, newEntries);
+	}
+	
+	/**
+	 * Returns a textual representation of everything which is used to create
+	 * an item from the given model item. Two model items with the same
+	 * definition result in equal items.
+	 */
+	private String getDefinition(ModelItem modelItem) {
+		StringBuilder definition = new StringBuilder();
+		if (modelItem instanceof ModelGroupItem) {
+			ModelGroupItem modelGroupItem = (ModelGroupItem) modelItem;
+			definition.append("Group:").append(modelGroupItem.getType());
+			definition.append(':').append(modelGroupItem.getFunction());
+			definition.append(modelGroupItem.getArgs());
+		} else {
+			definition.append(modelItem.getType());
+		}
+		definition.append(' ').append(modelItem.getName());
+		definition.append(' ').append(modelItem.getGroups());
+		return definition.toString();
 	}
 
 	private void processBindingConfigsFromModel(String modelName) {
@@ -164,9 +236,14 @@ public class GenericItemProvider implements ItemProvider, ModelRepositoryChangeL
 				reader.removeConfigurations(modelName);
 			}
 
-			// create items and read new binding configuration
+			// read new binding configuration of the current items
+			Map<String, ItemEntry> entries;
+			synchronized (this) {
+				entries = itemsByModel.get(modelName);
+			}
 			for (ModelItem modelItem : model.getItems()) {
-				Item item = createItemFromModelItem(modelItem);
+				ItemEntry entry = entries != null ? entries.get(modelItem.getName()) : null;
+				Item item = entry != null ? entry.item : createItemFromModelItem(modelItem);
 				if (item != null) {
 					internalDispatchBindings(modelName, item, modelItem.getBindings());
 				}
@@ -380,17 +457,41 @@ public class GenericItemProvider implements ItemProvider, ModelRepositoryChangeL
 	/**
 	 * {@inheritDoc}
 	 * <p>
-	 * Dispatches all binding configs and
-	 * fires all {@link ItemsChangeListener}s if {@code modelName} ends with "items".
+	 * Dispatches all binding configs and notifies all {@link ItemsChangeListener}s
+	 * about the items which have been removed, added or changed if {@code modelName}
+	 * ends with "items". A changed item is reported as removed and added again,
+	 * unchanged items are kept as they are.
 	 */
 	@Override
 	public void modelChanged(String modelName, EventType type) {
 		if (modelName.endsWith("items")) {
+			List<Item> addedItems = new ArrayList<Item>();
+			List<Item> removedItems = new ArrayList<Item>();
+			
+			synchronized (this) {
+				if (type == EventType.REMOVED) {
+					Map<String, ItemEntry> entries = itemsByModel.remove(modelName);
+					if (entries != null) {
+						for (ItemEntry entry : entries.values()) {
+							removedItems.add(entry.item);
+						}
+					}
+				} else {
+					updateItemsFromModel(modelName, addedItems, removedItems);
+				}
+			}
+			logger.debug("Model '{}' changed: {} items added/changed, {} items removed/changed",
+					new Object[] { modelName, addedItems.size(), removedItems.size() });
 
 			processBindingConfigsFromModel(modelName);
 			
 			for (ItemsChangeListener listener : listeners) {
-			 	listener.allItemsChanged(this, null);
+				for (Item item : removedItems) {
+					listener.itemRemoved(this, item);
+				}
+				for (Item item : addedItems) {
+					listener.itemAdded(this, item);
+				}
 			}
 		}
 	}
@@ -420,4 +521,19 @@ public class GenericItemProvider implements ItemProvider, ModelRepositoryChangeL
 		return null;
 	}
 
+	/**
+	 * An item together with the definition it has been created from.
+	 */
+	private static class ItemEntry {
+		
+		private final Item item;
+		
+		private final String definition;
+		
+		public ItemEntry(Item item, String definition) {
+			this.item = item;
+			this.definition = definition;
+		}
+	}
+
 }
@@ -11,7 +11,9 @@ package org.openhab.model.script.internal.engine;
 import static com.google.common.collect.Iterables.filter;
 
 import java.io.IOException;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.eclipse.emf.common.util.EList;
 import org.eclipse.emf.common.util.URI;
@@ -33,6 +35,8 @@ import org.openhab.core.scriptengine.ScriptEngine;
 import org.openhab.core.scriptengine.ScriptExecutionException;
 import org.openhab.core.scriptengine.ScriptParsingException;
 import org.openhab.model.script.ScriptStandaloneSetup;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import com.google.common.base.Predicate;
 import com.google.inject.Injector;
@@ -40,6 +44,11 @@ import com.google.inject.Injector;
 /**
  * This is the implementation of a {@link ScriptEngine} which is made available as an OSGi service.
  * 
+ * Scripts created from a string are parsed and validated only once: the
+ * resulting {@link XExpression}s are kept in a LRU cache keyed by the script
+ * text. The synthetic resource of a script is removed from the resource set
+ * when it is evicted from the cache or when it cannot be parsed.
+ * 
  * @author Kai Kreuzer
  * @since 0.9.0
  *
@@ -47,8 +56,27 @@ import com.google.inject.Injector;
 @SuppressWarnings("restriction")
 public class ScriptEngineImpl implements ScriptEngine {
 
+	private static final Logger logger = LoggerFactory.getLogger(ScriptEngineImpl.class);
+	
+	/** the maximum number of parsed scripts which are kept in the cache */
+	private static final int MAX_CACHED_SCRIPTS = 100;
+
 	protected Injector guiceInjector;
 	protected XtextResourceSet resourceSet;
+	
+	/** the parsed scripts by their text, in the order of their last use */
+	private final Map<String, XExpression> scriptCache = new LinkedHashMap<String, XExpression>(16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, XExpression> eldest) {
+			if(size() > MAX_CACHED_SCRIPTS) {
+				releaseResource(eldest.getValue().eResource());
+				return true;
+			}
+			return false;
+		}
+	};
 
 	public ScriptEngineImpl() {}
 	
@@ -59,6 +87,12 @@ public class ScriptEngineImpl implements ScriptEngine {
 	}
 	
 	public void deactivate() {
+		synchronized (scriptCache) {
+			for(XExpression expression : scriptCache.values()) {
+				releaseResource(expression.eResource());
+			}
+			scriptCache.clear();
+		}
 		this.guiceInjector = null;
 		this.resourceSet = null;
 	}
@@ -68,7 +102,7 @@ public class ScriptEngineImpl implements ScriptEngine {
 	 */
 	public Script newScriptFromString(String scriptAsString)
 			throws ScriptParsingException {
-		return newScriptFromXExpression(parseScriptIntoXTextEObject(scriptAsString));
+		return newScriptFromXExpression(getParsedScript(scriptAsString));
 	}
 
 	/**
@@ -88,16 +122,37 @@ public class ScriptEngineImpl implements ScriptEngine {
 		return newScriptFromString(scriptAsString).execute();
 	}
 
+	/**
+	 * Returns the parsed and validated expression of the given script, from the
+	 * cache if the same script has been parsed before.
+	 */
+	private XExpression getParsedScript(String scriptAsString) throws ScriptParsingException {
+		synchronized (scriptCache) {
+			XExpression expression = scriptCache.get(scriptAsString);
+			if(expression == null) {
+				expression = parseScriptIntoXTextEObject(scriptAsString);
+				if(expression != null) {
+					scriptCache.put(scriptAsString, expression);
+				}
+			} else {
+				logger.trace("Using cached expression for script '{}'", scriptAsString);
+			}
+			return expression;
+		}
+	}
+
 	private XExpression parseScriptIntoXTextEObject(String scriptAsString) throws ScriptParsingException {
 		Resource resource = resourceSet.createResource(computeUnusedUri(resourceSet)); // IS-A XtextResource
 		try {
 			resource.load(new StringInputStream(scriptAsString), resourceSet.getLoadOptions());
 		} catch (IOException e) {
+			releaseResource(resource);
 			throw new ScriptParsingException("Unexpected IOException; from close() of a String-based ByteArrayInputStream, no real I/O; how is that possible???", scriptAsString, e);
 		}
 		
 		List<Diagnostic> errors = resource.getErrors();
 		if (errors.size() != 0) {
+			releaseResource(resource);
 			throw new ScriptParsingException("Failed to parse expression (due to managed SyntaxError/s)", scriptAsString).addDiagnosticErrors(errors);
 		}
 		
@@ -108,12 +163,24 @@ public class ScriptEngineImpl implements ScriptEngine {
 			if(!validationErrors.iterator().hasNext()) {
 				return (XExpression) contents.get(0);
 			} else {
+				releaseResource(resource);
 				throw new ScriptParsingException("Failed to parse expression (due to managed ValidationError/s)", scriptAsString).addValidationIssues(validationErrors);
 			}
 		} else {
+			releaseResource(resource);
 			return null;
 		}
 	}
+	
+	/**
+	 * Removes the given synthetic resource from the resource set. Scripts which
+	 * are still executed keep working on the detached expression.
+	 */
+	private void releaseResource(Resource resource) {
+		if(resource != null && resourceSet != null) {
+			resourceSet.getResources().remove(resource);
+		}
+	}
 
 	protected URI computeUnusedUri(ResourceSet resourceSet) {
 		String name = "__synthetic";
@@ -0,0 +1,116 @@
+/**
+ * Copyright (c) 2010-2016, openHAB.org and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.ui.webapp.internal.render;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import junit.framework.Assert;
+
+import org.apache.commons.lang.StringUtils;
+import org.junit.Test;
+
+/**
+ * @author agent
+ * @since 1.9.0
+ */
+public class SnippetTemplateTest {
+
+	private static final String SWITCH_SNIPPET = "<li class=\"iSwitch\" id=\"%id%\" style=\"width:100%\">"
+			+ "<img src=\"../images/%icon%.png\"/><label style=\"%labelstyle%\">%label%</label>"
+			+ "<input type=\"checkbox\" name=\"%item%\" %checked% onchange=\"WA.Request('%servletname%/CMD?%item%=' "
+			+ "+ (this.checked ? 'ON' : 'OFF'))\"/>%children%</li>\n";
+
+	@Test
+	public void testRender() {
+		SnippetTemplate template = SnippetTemplate.compile(SWITCH_SNIPPET);
+		Map<String, String> values = createValues();
+
+		Assert.assertEquals(renderByReplace(values), template.render(values));
+	}
+
+	@Test
+	public void testMissingValuesAreKept() {
+		SnippetTemplate template = SnippetTemplate.compile("a%b%c%d");
+		Assert.assertEquals("a%b%c%d", template.render(Collections.<String, String> emptyMap()));
+		Assert.assertEquals("a%b%c%d", template.toString());
+		Assert.assertEquals("axc%d", template.render(Collections.singletonMap("b", "x")));
+	}
+
+	@Test
+	public void testPercentSigns() {
+		SnippetTemplate template = SnippetTemplate.compile("100% %%label% 50 %");
+		Assert.assertTrue(template.contains("label"));
+		Assert.assertEquals("100% %x 50 %", template.render(Collections.singletonMap("label", "x")));
+	}
+
+	@Test
+	public void testValuesAreNotParsed() {
+		SnippetTemplate template = SnippetTemplate.compile("%label%%id%");
+		Map<String, String> values = new HashMap<String, String>();
+		values.put("label", "%id%");
+		values.put("id", "1");
+		Assert.assertEquals("%id%1", template.render(values));
+	}
+
+	@Test
+	public void testBindAndSplit() {
+		SnippetTemplate template = SnippetTemplate.compile(SWITCH_SNIPPET);
+		Map<String, String> values = createValues();
+		SnippetTemplate[] parts = template.bind(Collections.singletonMap("id", values.get("id"))).split("children");
+
+		Assert.assertEquals(2, parts.length);
+		Assert.assertFalse(parts[0].contains("id"));
+		Assert.assertTrue(parts[0].contains("label"));
+		Assert.assertEquals(renderByReplace(values), parts[0].render(values) + "%children%" + parts[1].render(values));
+		Assert.assertEquals(1, template.split("unknown").length);
+	}
+
+	@Test
+	public void testRenderManyWidgetsIntoOneBuilder() {
+		SnippetTemplate template = SnippetTemplate.compile(SWITCH_SNIPPET);
+		Map<String, String> values = createValues();
+
+		StringBuilder expected = new StringBuilder();
+		StringBuilder actual = new StringBuilder();
+		for (int i = 0; i < 200; i++) {
+			values.put("id", "0000_" + i);
+			values.put("checked", i % 2 == 0 ? "checked=true" : "");
+			expected.append(renderByReplace(values));
+			template.render(actual, values);
+		}
+		Assert.assertEquals(expected.toString(), actual.toString());
+	}
+
+	private static Map<String, String> createValues() {
+		Map<String, String> values = new HashMap<String, String>();
+		values.put("id", "0000_1_2");
+		values.put("icon", "light");
+		values.put("labelstyle", "color:red");
+		values.put("label", "Ceiling light <span style=\"\">ON</span>");
+		values.put("item", "Light_Ceiling");
+		values.put("checked", "checked=true");
+		values.put("servletname", "/openhab.app");
+		return values;
+	}
+
+	private static String renderByReplace(Map<String, String> values) {
+		String snippet = SWITCH_SNIPPET;
+		snippet = StringUtils.replace(snippet, "%id%", values.get("id"));
+		snippet = StringUtils.replace(snippet, "%icon%", values.get("icon"));
+		snippet = StringUtils.replace(snippet, "%item%", values.get("item"));
+		snippet = StringUtils.replace(snippet, "%label%", values.get("label"));
+		snippet = StringUtils.replace(snippet, "%servletname%", values.get("servletname"));
+		snippet = snippet.replaceAll("%checked%", values.get("checked"));
+		snippet = StringUtils.replace(snippet, "%labelstyle%", values.get("labelstyle"));
+		return snippet;
+	}
+
+}
@@ -0,0 +1,217 @@
+/**
+ * Copyright (c) 2010-2016, openHAB.org and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.ui.webapp.internal.servlet;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import junit.framework.Assert;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.openhab.core.items.GenericItem;
+import org.openhab.core.types.Command;
+import org.openhab.core.types.State;
+import org.openhab.core.types.UnDefType;
+
+/**
+ * @author agent
+ * @since 1.9.0
+ */
+public class PollRequestTest {
+
+	private static final int POLLERS = 500;
+
+	/** the request threads of the container, far less than there are pollers */
+	private ExecutorService requestThreads;
+
+	/** renders the responses, like the poll executor of the servlet */
+	private ExecutorService responseThreads;
+
+	private List<TestItem> items;
+
+	@Before
+	public void setup() {
+		requestThreads = Executors.newFixedThreadPool(20);
+		responseThreads = Executors.newFixedThreadPool(4);
+		items = new ArrayList<TestItem>();
+		for (int i = 0; i < 20; i++) {
+			items.add(new TestItem("item" + i));
+		}
+	}
+
+	@After
+	public void tearDown() {
+		requestThreads.shutdownNow();
+		responseThreads.shutdownNow();
+	}
+
+	@Test
+	public void testConcurrentPollersAreAnsweredOnce() throws Exception {
+		final AtomicIntegerArray responses = new AtomicIntegerArray(POLLERS);
+		final CountDownLatch answered = new CountDownLatch(POLLERS);
+
+		// the pollers arrive concurrently; every page shows item0 and one other item
+		List<Future<PollRequest>> started = new ArrayList<Future<PollRequest>>();
+		for (int i = 0; i < POLLERS; i++) {
+			final int poller = i;
+			started.add(requestThreads.submit(new Callable<PollRequest>() {
+				public PollRequest call() {
+					Set<GenericItem> pageItems = new HashSet<GenericItem>();
+					pageItems.add(items.get(0));
+					pageItems.add(items.get(1 + poller % 19));
+					PollRequest request = new PollRequest(pageItems, responseThreads, new Runnable() {
+						public void run() {
+							responses.incrementAndGet(poller);
+							answered.countDown();
+						}
+					});
+					request.start();
+					return request;
+				}
+			}));
+		}
+		// 20 request threads could only have parked 20 pollers if they had to wait
+		List<PollRequest> requests = new ArrayList<PollRequest>();
+		for (Future<PollRequest> future : started) {
+			requests.add(future.get(10, TimeUnit.SECONDS));
+		}
+		Assert.assertEquals(POLLERS, answered.getCount());
+
+		// all items are updated at the same time from several threads
+		final CountDownLatch go = new CountDownLatch(1);
+		List<Future<?>> updates = new ArrayList<Future<?>>();
+		for (final TestItem item : items) {
+			updates.add(requestThreads.submit(new Callable<Void>() {
+				public Void call() throws Exception {
+					go.await();
+					item.setState(UnDefType.UNDEF);
+					item.setState(UnDefType.NULL);
+					return null;
+				}
+			}));
+		}
+		go.countDown();
+		for (Future<?> update : updates) {
+			update.get(10, TimeUnit.SECONDS);
+		}
+
+		Assert.assertTrue("not all pollers have been answered", answered.await(10, TimeUnit.SECONDS));
+		for (int i = 0; i < POLLERS; i++) {
+			Assert.assertEquals("responses of poller " + i, 1, responses.get(i));
+		}
+		// answered requests can not time out anymore and have left their items
+		for (PollRequest request : requests) {
+			Assert.assertFalse(request.cancel());
+		}
+		for (TestItem item : items) {
+			Assert.assertEquals(0, item.listenerCount());
+		}
+	}
+
+	@Test
+	public void testConcurrentTimeoutsAndUpdates() throws Exception {
+		final AtomicInteger responses = new AtomicInteger();
+		final AtomicInteger timeouts = new AtomicInteger();
+		final TestItem item = items.get(0);
+		Set<GenericItem> pageItems = Collections.<GenericItem> singleton(item);
+
+		final List<PollRequest> requests = new ArrayList<PollRequest>();
+		for (int i = 0; i < POLLERS; i++) {
+			PollRequest request = new PollRequest(pageItems, responseThreads, new Runnable() {
+				public void run() {
+					responses.incrementAndGet();
+				}
+			});
+			request.start();
+			requests.add(request);
+		}
+
+		// the container times the requests out while the item is updated
+		final CountDownLatch go = new CountDownLatch(1);
+		Future<?> timeout = requestThreads.submit(new Callable<Void>() {
+			public Void call() throws Exception {
+				go.await();
+				for (PollRequest request : requests) {
+					if (request.cancel()) {
+						timeouts.incrementAndGet();
+					}
+				}
+				return null;
+			}
+		});
+		Future<?> update = requestThreads.submit(new Callable<Void>() {
+			public Void call() throws Exception {
+				go.await();
+				item.setState(UnDefType.UNDEF);
+				return null;
+			}
+		});
+		go.countDown();
+		timeout.get(10, TimeUnit.SECONDS);
+		update.get(10, TimeUnit.SECONDS);
+		responseThreads.shutdown();
+		Assert.assertTrue(responseThreads.awaitTermination(10, TimeUnit.SECONDS));
+
+		// every request has either been answered or timed out
+		Assert.assertEquals(POLLERS, responses.get() + timeouts.get());
+		Assert.assertEquals(0, item.listenerCount());
+	}
+
+	@Test
+	public void testStoppedExecutorDoesNotFailTheUpdate() {
+		TestItem item = items.get(0);
+		responseThreads.shutdown();
+		PollRequest request = new PollRequest(Collections.<GenericItem> singleton(item), responseThreads,
+				new Runnable() {
+					public void run() {
+						Assert.fail("the response must not run");
+					}
+				});
+		request.start();
+
+		item.setState(UnDefType.UNDEF);
+		Assert.assertFalse(request.cancel());
+		Assert.assertEquals(0, item.listenerCount());
+	}
+
+	private static class TestItem extends GenericItem {
+
+		public TestItem(String name) {
+			super(name);
+		}
+
+		int listenerCount() {
+			return listeners.size();
+		}
+
+		@Override
+		public List<Class<? extends State>> getAcceptedDataTypes() {
+			return null;
+		}
+
+		@Override
+		public List<Class<? extends Command>> getAcceptedCommandTypes() {
+			return null;
+		}
+	}
+
+}
@@ -52,6 +52,9 @@ abstract public class AbstractWidgetRenderer implements WidgetRenderer {
 
 	/* a local cache so we do not have to read the snippets over and over again from the bundle */
 	protected static final Map<String, String> snippetCache = new HashMap<String, String>();
+
+	/* the compiled snippets, so that they do not have to be parsed for every widget */
+	protected static final Map<String, SnippetTemplate> templateCache = new HashMap<String, SnippetTemplate>();
 	
 	protected boolean useSnippetCache = true;
 
@@ -102,6 +105,27 @@ abstract public class AbstractWidgetRenderer implements WidgetRenderer {
 		}
 		return snippet;
 	}
+
+	/**
+	 * This method provides the compiled html snippet for a given elementType of the sitemap model.
+	 * 
+	 * @param elementType the name of the model type (e.g. "Group" or "Switch")
+	 * @return the template to render the html snippet with
+	 * @throws RenderException if snippet could not be read 
+	 */
+	protected SnippetTemplate getTemplate(String elementType) throws RenderException {
+		elementType = elementType.toLowerCase();
+		synchronized (templateCache) {
+			SnippetTemplate template = templateCache.get(elementType);
+			if(template==null) {
+				template = SnippetTemplate.compile(getSnippet(elementType));
+				if (useSnippetCache) {
+					templateCache.put(elementType, template);
+				}
+			}
+			return template;
+		}
+	}
  
 	/**
 	 * Retrieves the label for a widget and formats it for the WebApp.Net framework
@@ -119,6 +143,18 @@ abstract public class AbstractWidgetRenderer implements WidgetRenderer {
 		return label;
 	}
 
+	/**
+	 * Retrieves the label for a widget like {@link #getLabel(Widget)}, but with
+	 * the value style of the given template values already filled in.
+	 * 
+	 * @param w the widget to retrieve the label for
+	 * @param values the template values created by {@link #createValues(Widget)}
+	 * @return the label to use for the widget
+	 */
+	protected String getLabel(Widget w, Map<String, String> values) {
+		return StringUtils.replace(getLabel(w), "%valuestyle%", values.get("valuestyle"));
+	}
+
 	/**
 	 * Escapes the path part of a URL as defined in RFC2396. This means, that for example the
 	 * path "/hello world" gets escaped to "/hello%20world".
@@ -145,18 +181,27 @@ abstract public class AbstractWidgetRenderer implements WidgetRenderer {
 	 * @return The updated snippet
 	 */
 	protected String processColor(Widget w, String snippet) {
-		String style = "";
-		String color = itemUIRegistry.getLabelColor(w);
-		if(color != null)
-			style = "color:"+ color;
-		snippet = StringUtils.replace(snippet, "%labelstyle%", style);
-
-		style = "";
-		color = itemUIRegistry.getValueColor(w);
-		if(color != null)
-			style = "color:"+ color;
-		snippet = StringUtils.replace(snippet, "%valuestyle%", style);
-		
+		snippet = StringUtils.replace(snippet, "%labelstyle%", getStyle(itemUIRegistry.getLabelColor(w)));
+		snippet = StringUtils.replace(snippet, "%valuestyle%", getStyle(itemUIRegistry.getValueColor(w)));
 		return snippet;
 	}
+
+	/**
+	 * Creates the placeholder values for the template of a widget, which
+	 * already contain the color tags - labelcolor and valuecolor
+	 * 
+	 * @param w
+	 *            The widget to process
+	 * @return The values, to which the renderer adds its own placeholders
+	 */
+	protected Map<String, String> createValues(Widget w) {
+		Map<String, String> values = new HashMap<String, String>();
+		values.put("labelstyle", getStyle(itemUIRegistry.getLabelColor(w)));
+		values.put("valuestyle", getStyle(itemUIRegistry.getValueColor(w)));
+		return values;
+	}
+
+	private String getStyle(String color) {
+		return color != null ? "color:" + color : "";
+	}
 }
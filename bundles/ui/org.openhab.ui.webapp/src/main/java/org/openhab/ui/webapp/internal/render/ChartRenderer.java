@@ -8,7 +8,9 @@
  */
 package org.openhab.ui.webapp.internal.render;
 
-import org.apache.commons.lang.StringUtils;
+import java.util.HashMap;
+import java.util.Map;
+
 import org.eclipse.emf.common.util.EList;
 import org.openhab.core.items.GroupItem;
 import org.openhab.core.items.Item;
@@ -58,21 +60,22 @@ public class ChartRenderer extends AbstractWidgetRenderer {
 			if(chart.getService() != null)
 				url += "&service=" + chart.getService();
 			
-			String snippet = getSnippet("image");			
+			SnippetTemplate template = getTemplate("image");			
+			Map<String, String> values = new HashMap<String, String>();
+
+			String widgetId = itemUIRegistry.getWidgetId(w);
+			values.put("id", widgetId);
+			values.put("url", url);
 
 			if(chart.getRefresh()>0) {
-				snippet = StringUtils.replace(snippet, "%setrefresh%", "<script type=\"text/javascript\">imagesToRefreshOnPage=1</script>");
-				snippet = StringUtils.replace(snippet, "%refresh%", "id=\"%id%\" onload=\"setTimeout('reloadImage(\\'%url%\\', \\'%id%\\')', " + chart.getRefresh() + ")\"");
+				values.put("setrefresh", "<script type=\"text/javascript\">imagesToRefreshOnPage=1</script>");
+				values.put("refresh", "id=\"" + widgetId + "\" onload=\"setTimeout('reloadImage(\\'" + url + "\\', \\'" + widgetId + "\\')', " + chart.getRefresh() + ")\"");
 			} else {
-				snippet = StringUtils.replace(snippet, "%setrefresh%", "");
-				snippet = StringUtils.replace(snippet, "%refresh%", "");
+				values.put("setrefresh", "");
+				values.put("refresh", "");
 			}
-
-			snippet = StringUtils.replace(snippet, "%id%", itemUIRegistry.getWidgetId(w));
-			snippet = StringUtils.replace(snippet, "%url%", url);
-			snippet = StringUtils.replace(snippet, "%refresh%", Integer.toString(chart.getRefresh()));
 			
-			sb.append(snippet);
+			template.render(sb, values);
 		} catch (ItemNotFoundException e) {
 			logger.warn("Chart cannot be rendered as item '{}' does not exist.", chart.getItem());
 		}
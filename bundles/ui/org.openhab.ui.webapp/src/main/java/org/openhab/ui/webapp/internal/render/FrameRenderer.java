@@ -8,8 +8,9 @@
  */
 package org.openhab.ui.webapp.internal.render;
 
+import java.util.Map;
+
 import org.apache.commons.lang.StringEscapeUtils;
-import org.apache.commons.lang.StringUtils;
 import org.eclipse.emf.common.util.EList;
 import org.openhab.model.sitemap.Frame;
 import org.openhab.model.sitemap.Widget;
@@ -36,14 +37,14 @@ public class FrameRenderer extends AbstractWidgetRenderer {
 	 * {@inheritDoc}
 	 */
 	public EList<Widget> renderWidget(Widget w, StringBuilder sb) throws RenderException {
-		String snippet = getSnippet("frame");
-
-		snippet = StringUtils.replace(snippet, "%label%", StringEscapeUtils.escapeHtml(getLabel(w)));
+		SnippetTemplate template = getTemplate("frame");
 
 		// Process the color tags
-		snippet = processColor(w, snippet);
+		Map<String, String> values = createValues(w);
+
+		values.put("label", StringEscapeUtils.escapeHtml(getLabel(w, values)));
 
-		sb.append(snippet);
+		template.render(sb, values);
 		return ((Frame)w).getChildren();
 	}
 }
@@ -8,7 +8,8 @@
  */
 package org.openhab.ui.webapp.internal.render;
 
-import org.apache.commons.lang.StringUtils;
+import java.util.Map;
+
 import org.eclipse.emf.common.util.EList;
 import org.openhab.model.sitemap.Group;
 import org.openhab.model.sitemap.Widget;
@@ -36,16 +37,16 @@ public class GroupRenderer extends AbstractWidgetRenderer {
 	 * {@inheritDoc}
 	 */
 	public EList<Widget> renderWidget(Widget w, StringBuilder sb) throws RenderException {
-		String snippet = getSnippet("group");
-
-		snippet = StringUtils.replace(snippet, "%id%", itemUIRegistry.getWidgetId(w));
-		snippet = StringUtils.replace(snippet, "%icon%", escapeURLPath(itemUIRegistry.getIcon(w)));
-		snippet = StringUtils.replace(snippet, "%label%", getLabel(w));
+		SnippetTemplate template = getTemplate("group");
 
 		// Process the color tags
-		snippet = processColor(w, snippet);
+		Map<String, String> values = createValues(w);
+
+		values.put("id", itemUIRegistry.getWidgetId(w));
+		values.put("icon", escapeURLPath(itemUIRegistry.getIcon(w)));
+		values.put("label", getLabel(w, values));
 
-		sb.append(snippet);
+		template.render(sb, values);
 		return null;
 	}
 }
@@ -9,8 +9,9 @@
 package org.openhab.ui.webapp.internal.render;
 
 import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
 
-import org.apache.commons.lang.StringUtils;
 import org.eclipse.emf.common.util.EList;
 import org.openhab.model.sitemap.Image;
 import org.openhab.model.sitemap.Widget;
@@ -39,26 +40,27 @@ public class ImageRenderer extends AbstractWidgetRenderer {
 	 */
 	public EList<Widget> renderWidget(Widget w, StringBuilder sb) throws RenderException {
 		Image image = (Image) w;
-		String snippet = (image.getChildren().size() > 0) ? 
-				getSnippet("image_link") : getSnippet("image");			
+		SnippetTemplate template = (image.getChildren().size() > 0) ? 
+				getTemplate("image_link") : getTemplate("image");			
+		Map<String, String> values = new HashMap<String, String>();
 
-		if(image.getRefresh()>0) {
-			snippet = StringUtils.replace(snippet, "%setrefresh%", "<script type=\"text/javascript\">imagesToRefreshOnPage=1</script>");
-			snippet = StringUtils.replace(snippet, "%refresh%", "id=\"%id%\" onload=\"setTimeout('reloadImage(\\'%url%\\', \\'%id%\\')', " + image.getRefresh() + ")\"");
-		} else {
-			snippet = StringUtils.replace(snippet, "%setrefresh%", "");
-			snippet = StringUtils.replace(snippet, "%refresh%", "");
-		}
-		
 		String widgetId = itemUIRegistry.getWidgetId(w);
-		snippet = StringUtils.replace(snippet, "%id%", widgetId);
+		values.put("id", widgetId);
 		
 		String sitemap = w.eResource().getURI().path();
 		
 		String url = "proxy?sitemap=" + sitemap + "&widgetId=" + widgetId + "&t=" + (new Date()).getTime();
-		snippet = StringUtils.replace(snippet, "%url%", url);
+		values.put("url", url);
+
+		if(image.getRefresh()>0) {
+			values.put("setrefresh", "<script type=\"text/javascript\">imagesToRefreshOnPage=1</script>");
+			values.put("refresh", "id=\"" + widgetId + "\" onload=\"setTimeout('reloadImage(\\'" + url + "\\', \\'" + widgetId + "\\')', " + image.getRefresh() + ")\"");
+		} else {
+			values.put("setrefresh", "");
+			values.put("refresh", "");
+		}
 		
-		sb.append(snippet);
+		template.render(sb, values);
 		return null;
 	}
 }
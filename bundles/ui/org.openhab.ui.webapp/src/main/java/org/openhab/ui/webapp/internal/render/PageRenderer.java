@@ -9,12 +9,17 @@
 package org.openhab.ui.webapp.internal.render;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
-import org.apache.commons.lang.StringEscapeUtils;
-import org.apache.commons.lang.StringUtils;
 import org.eclipse.emf.common.util.EList;
 import org.eclipse.emf.ecore.EObject;
+import org.openhab.model.core.EventType;
+import org.openhab.model.core.ModelRepository;
+import org.openhab.model.core.ModelRepositoryChangeListener;
 import org.openhab.model.sitemap.Frame;
 import org.openhab.model.sitemap.Sitemap;
 import org.openhab.model.sitemap.Widget;
@@ -35,12 +40,34 @@ import org.slf4j.LoggerFactory;
  * @since 0.6.0
  *
  */
-public class PageRenderer extends AbstractWidgetRenderer {
+public class PageRenderer extends AbstractWidgetRenderer implements ModelRepositoryChangeListener {
 
 	private final static Logger logger = LoggerFactory.getLogger(PageRenderer.class);
 
+	private static final String CHILDREN = "children";
+
+	private static final String CHILDREN_PLACEHOLDER = "%" + CHILDREN + "%";
+
+	private static final int INITIAL_PAGE_CAPACITY = 16 * 1024;
+
 	List<WidgetRenderer> widgetRenderers = new ArrayList<WidgetRenderer>();
 
+	/* the page skeletons by sitemap and page id; they only depend on the snippets, but are
+	   dropped when a sitemap changes, so that pages which no longer exist do not remain */
+	private final Map<String, SnippetTemplate[]> pageCache = new ConcurrentHashMap<String, SnippetTemplate[]>();
+
+	/* the frame around widgets without an explicit frame */
+	private volatile String[] frameParts;
+
+	public void setModelRepository(ModelRepository modelRepository) {
+		modelRepository.addModelRepositoryChangeListener(this);
+	}
+
+	public void unsetModelRepository(ModelRepository modelRepository) {
+		modelRepository.removeModelRepositoryChangeListener(this);
+		pageCache.clear();
+	}
+
 	public void addWidgetRenderer(WidgetRenderer widgetRenderer) {
 		widgetRenderers.add(widgetRenderer);
 	}
@@ -62,8 +89,8 @@ public class PageRenderer extends AbstractWidgetRenderer {
 	 */
 	public StringBuilder processPage(String id, String sitemap, String label, EList<Widget> children, boolean async) throws RenderException {
 		
-		String snippet = getSnippet(async ? "layer" : "main");
-		snippet = snippet.replaceAll("%id%", id);
+		String snippetName = async ? "layer" : "main";
+		SnippetTemplate[] parts = getPageParts(snippetName, id, sitemap);
 
 		// if the label contains a value span, we remove this span as
 		// the title of a page/layer cannot deal with this
@@ -73,40 +100,57 @@ public class PageRenderer extends AbstractWidgetRenderer {
 		if(label.contains("[") && label.endsWith("]")) {
 			label = label.replace("[", "").replace("]", "");
 		}
-		snippet = StringUtils.replace(snippet, "%label%", label);
-		snippet = StringUtils.replace(snippet, "%servletname%", WebAppServlet.SERVLET_PATH);
-		snippet = StringUtils.replace(snippet, "%sitemap%", sitemap);
+		Map<String, String> values = Collections.singletonMap("label", label);
 
-		String[] parts = snippet.split("%children%");
-
-		StringBuilder pre_children = new StringBuilder(parts[0]);
-		StringBuilder post_children = new StringBuilder(parts[1]);
-		
+		// all widgets are rendered into this single string builder
+		StringBuilder sb = new StringBuilder(INITIAL_PAGE_CAPACITY);
+		parts[0].render(sb, values);
 		if(parts.length==2) {
-			processChildren(pre_children, post_children, children);
+			processChildren(sb, children);
 		} else if(parts.length > 2){
-			logger.error("Snippet '{}' contains multiple %children% sections, but only one is allowed!", async ? "layer" : "main");
+			logger.error("Snippet '{}' contains multiple %children% sections, but only one is allowed!", snippetName);
+		}
+		if(parts.length > 1) {
+			parts[1].render(sb, values);
+		}
+		return sb;
+	}
+
+	/**
+	 * Provides the parts of the page skeleton before and after the children.
+	 * Everything but the label of the page is already filled in, as it only
+	 * depends on the sitemap.
+	 */
+	private SnippetTemplate[] getPageParts(String snippetName, String id, String sitemap) throws RenderException {
+		String key = snippetName + "/" + sitemap + "/" + id;
+		SnippetTemplate[] parts = pageCache.get(key);
+		if(parts==null) {
+			Map<String, String> values = new HashMap<String, String>();
+			values.put("id", id);
+			values.put("servletname", WebAppServlet.SERVLET_PATH);
+			values.put("sitemap", sitemap);
+			parts = getTemplate(snippetName).bind(values).split(CHILDREN);
+			if (useSnippetCache) {
+				pageCache.put(key, parts);
+			}
 		}
-		return pre_children.append(post_children);
+		return parts;
 	}
 
-	private void processChildren(StringBuilder sb_pre, StringBuilder sb_post,
-			EList<Widget> children) throws RenderException {
+	private void processChildren(StringBuilder sb, EList<Widget> children) throws RenderException {
 		
 		// put a single frame around all children widgets, if there are no explicit frames 
+		String framePost = "";
 		if(!children.isEmpty()) {
 			EObject firstChild = children.get(0);
 			EObject parent = firstChild.eContainer();
 			if(!(firstChild instanceof Frame || parent instanceof Frame || parent instanceof Sitemap || parent instanceof List)) {
-				String frameSnippet = getSnippet("frame");
-				frameSnippet = StringUtils.replace(frameSnippet, "%label%", "");
-				
-				String[] parts = frameSnippet.split("%children%");
+				String[] parts = getFrameParts();
 				if(parts.length>1) {
-					sb_pre.append(parts[0]);
+					sb.append(parts[0]);
 				}
 				if(parts.length>2) {
-					sb_post.insert(0, parts[1]);
+					framePost = parts[1];
 				} 
 				if(parts.length > 2){
 					logger.error("Snippet 'frame' contains multiple %children% sections, but only one is allowed!");
@@ -115,34 +159,52 @@ public class PageRenderer extends AbstractWidgetRenderer {
 		}
 
 		for(Widget w : children) {
-			StringBuilder new_pre = new StringBuilder();
-			StringBuilder new_post = new StringBuilder();
-			StringBuilder widgetSB = new StringBuilder();
-			EList<Widget> nextChildren = renderWidget(w, widgetSB);
+			int start = sb.length();
+			EList<Widget> nextChildren = renderWidget(w, sb);
 			if(nextChildren!=null) {
-				String[] parts = widgetSB.toString().split("%children%");
-				// no %children% placeholder found or at the end
-				if(parts.length==1) {
-					new_pre.append(widgetSB);
+				// the widget has been appended up to its %children% section,
+				// the rest is appended after its children
+				String post = "";
+				int index = sb.indexOf(CHILDREN_PLACEHOLDER, start);
+				if(index >= 0) {
+					post = sb.substring(index + CHILDREN_PLACEHOLDER.length());
+					sb.setLength(index);
+					// multiple %children% sections found -> log an error and ignore all code starting from the second occurance
+					int next = post.indexOf(CHILDREN_PLACEHOLDER);
+					if(next >= 0) {
+						String widgetType = w.eClass().getInstanceTypeName().substring(w.eClass().getInstanceTypeName().lastIndexOf(".")+1);
+						logger.error("Snippet for widget '{}' contains multiple %children% sections, but only one is allowed!", widgetType);
+						post = post.substring(0, next);
+					}
 				}
-				// %children% section found 
-				if(parts.length>1) {
-					new_pre.append(parts[0]);
-					new_post.insert(0, parts[1]);
-				} 
-				// multiple %children% sections found -> log an error and ignore all code starting from the second occurance
-				if(parts.length > 2){
-					String widgetType = w.eClass().getInstanceTypeName().substring(w.eClass().getInstanceTypeName().lastIndexOf(".")+1);
-					logger.error("Snippet for widget '{}' contains multiple %children% sections, but only one is allowed!", widgetType);
-				}
-				processChildren(new_pre, new_post, nextChildren);
-				sb_pre.append(new_pre);
-				sb_pre.append(new_post);
-			} else {
-				sb_pre.append(widgetSB);
+				processChildren(sb, nextChildren);
+				sb.append(post);
 			}
 		}
-		
+		sb.append(framePost);
+	}
+
+	/**
+	 * Provides the parts of the frame, which is put around widgets without an explicit frame.
+	 */
+	private String[] getFrameParts() throws RenderException {
+		String[] parts = frameParts;
+		if(parts==null) {
+			parts = getTemplate("frame").bind(Collections.singletonMap("label", "")).toString().split(CHILDREN_PLACEHOLDER);
+			if (useSnippetCache) {
+				frameParts = parts;
+			}
+		}
+		return parts;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void modelChanged(String modelName, EventType type) {
+		if(modelName.endsWith(".sitemap")) {
+			pageCache.clear();
+		}
 	}
 
 	/**
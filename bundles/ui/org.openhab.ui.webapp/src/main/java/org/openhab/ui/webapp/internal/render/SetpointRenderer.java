@@ -10,8 +10,8 @@ package org.openhab.ui.webapp.internal.render;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.util.Map;
 
-import org.apache.commons.lang.StringUtils;
 import org.eclipse.emf.common.util.EList;
 import org.openhab.core.library.types.DecimalType;
 import org.openhab.core.types.State;
@@ -79,24 +79,24 @@ public class SetpointRenderer extends AbstractWidgetRenderer {
 		}
 		
 		String snippetName = "setpoint";
-		String snippet = getSnippet(snippetName);
+		SnippetTemplate template = getTemplate(snippetName);
 
-		snippet = StringUtils.replace(snippet, "%id%", itemUIRegistry.getWidgetId(w));
-		snippet = StringUtils.replace(snippet, "%icon%", escapeURLPath(itemUIRegistry.getIcon(w)));
-		snippet = StringUtils.replace(snippet, "%item%", w.getItem());
-		snippet = StringUtils.replace(snippet, "%state%", state.toString());
-		snippet = StringUtils.replace(snippet, "%newlowerstate%", newLowerState);
-		snippet = StringUtils.replace(snippet, "%newhigherstate%", newHigherState);
-		snippet = StringUtils.replace(snippet, "%label%", getLabel(w));
-		snippet = StringUtils.replace(snippet, "%servletname%", WebAppServlet.SERVLET_PATH);
-		snippet = StringUtils.replace(snippet, "%minValue%", minValue.toString());
-		snippet = StringUtils.replace(snippet, "%maxValue%", maxValue.toString());
-		snippet = StringUtils.replace(snippet, "%step%", step.toString());
-		
 		// Process the color tags
-		snippet = processColor(w, snippet);
+		Map<String, String> values = createValues(w);
+
+		values.put("id", itemUIRegistry.getWidgetId(w));
+		values.put("icon", escapeURLPath(itemUIRegistry.getIcon(w)));
+		values.put("item", w.getItem());
+		values.put("state", state.toString());
+		values.put("newlowerstate", newLowerState);
+		values.put("newhigherstate", newHigherState);
+		values.put("label", getLabel(w, values));
+		values.put("servletname", WebAppServlet.SERVLET_PATH);
+		values.put("minValue", minValue.toString());
+		values.put("maxValue", maxValue.toString());
+		values.put("step", step.toString());
 
-		sb.append(snippet);
+		template.render(sb, values);
 		return null;
 	}
 }
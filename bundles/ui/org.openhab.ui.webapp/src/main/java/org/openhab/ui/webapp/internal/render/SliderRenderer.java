@@ -8,7 +8,8 @@
  */
 package org.openhab.ui.webapp.internal.render;
 
-import org.apache.commons.lang.StringUtils;
+import java.util.Map;
+
 import org.eclipse.emf.common.util.EList;
 import org.openhab.model.sitemap.Slider;
 import org.openhab.model.sitemap.Widget;
@@ -44,24 +45,24 @@ public class SliderRenderer extends AbstractWidgetRenderer {
 		
 		String snippetName = "slider";
 
-		String snippet = getSnippet(snippetName);
+		SnippetTemplate template = getTemplate(snippetName);
 
 		// set the default send-update frequency to 200ms  
 		String frequency = s.getFrequency()==0 ? "200" : Integer.toString(s.getFrequency());
 
-		snippet = StringUtils.replace(snippet, "%id%", itemUIRegistry.getWidgetId(s));
-		snippet = StringUtils.replace(snippet, "%icon%", escapeURLPath(itemUIRegistry.getIcon(s)));
-		snippet = StringUtils.replace(snippet, "%item%", w.getItem());
-		snippet = StringUtils.replace(snippet, "%label%", getLabel(s));
-		snippet = StringUtils.replace(snippet, "%state%", itemUIRegistry.getState(s).toString());
-		snippet = StringUtils.replace(snippet, "%frequency%", frequency);
-		snippet = StringUtils.replace(snippet, "%switch%", s.isSwitchEnabled() ? "1" : "0");
-		snippet = StringUtils.replace(snippet, "%servletname%", WebAppServlet.SERVLET_PATH);
-
 		// Process the color tags
-		snippet = processColor(w, snippet);
+		Map<String, String> values = createValues(w);
+
+		values.put("id", itemUIRegistry.getWidgetId(s));
+		values.put("icon", escapeURLPath(itemUIRegistry.getIcon(s)));
+		values.put("item", w.getItem());
+		values.put("label", getLabel(s, values));
+		values.put("state", itemUIRegistry.getState(s).toString());
+		values.put("frequency", frequency);
+		values.put("switch", s.isSwitchEnabled() ? "1" : "0");
+		values.put("servletname", WebAppServlet.SERVLET_PATH);
 
-		sb.append(snippet);
+		template.render(sb, values);
 		return null;
 	}
 }
@@ -0,0 +1,201 @@
+/**
+ * Copyright (c) 2010-2016, openHAB.org and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.ui.webapp.internal.render;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A precompiled html snippet. The snippet is split once into literal text and
+ * placeholders like <code>%label%</code>, so that rendering it only appends
+ * the segments to a {@link StringBuilder} instead of searching and copying the
+ * whole snippet for every placeholder.
+ *
+ * Placeholder names consist of letters and underscores. Placeholders without a
+ * value are rendered unchanged, so that e.g. <code>%children%</code> is still
+ * contained in the output. Values are inserted as they are, placeholders
+ * within values are not replaced.
+ *
+ * Templates are immutable and can be shared between threads.
+ *
+ * @author agent
+ * @since 1.9.0
+ *
+ */
+public class SnippetTemplate {
+
+	private static final Map<String, String> NO_VALUES = Collections.emptyMap();
+
+	/* the literal text before, between and after the placeholders */
+	private final String[] literals;
+
+	/* the placeholder names (without the % signs) */
+	private final String[] names;
+
+	private final int literalLength;
+
+	private SnippetTemplate(List<String> literals, List<String> names) {
+		this.literals = literals.toArray(new String[literals.size()]);
+		this.names = names.toArray(new String[names.size()]);
+		int length = 0;
+		for (String literal : literals) {
+			length += literal.length();
+		}
+		this.literalLength = length;
+	}
+
+	/**
+	 * Compiles the given snippet into a template.
+	 *
+	 * @param snippet the html snippet with placeholders
+	 * @return the compiled template
+	 */
+	public static SnippetTemplate compile(String snippet) {
+		List<String> literals = new ArrayList<String>();
+		List<String> names = new ArrayList<String>();
+		int literalStart = 0;
+		int start = snippet.indexOf('%');
+		while (start >= 0) {
+			int end = snippet.indexOf('%', start + 1);
+			if (end < 0) {
+				break;
+			}
+			if (isName(snippet, start + 1, end)) {
+				literals.add(snippet.substring(literalStart, start));
+				names.add(snippet.substring(start + 1, end));
+				literalStart = end + 1;
+				start = snippet.indexOf('%', literalStart);
+			} else {
+				// a single % sign, e.g. in a css width, the next one might start a placeholder
+				start = end;
+			}
+		}
+		literals.add(snippet.substring(literalStart));
+		return new SnippetTemplate(literals, names);
+	}
+
+	private static boolean isName(String snippet, int start, int end) {
+		if (start == end) {
+			return false;
+		}
+		for (int i = start; i < end; i++) {
+			char c = snippet.charAt(i);
+			if (!(Character.isLetter(c) || c == '_')) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Appends the snippet to the given string builder.
+	 *
+	 * @param sb the string builder to append to
+	 * @param values the values of the placeholders
+	 */
+	public void render(StringBuilder sb, Map<String, String> values) {
+		sb.ensureCapacity(sb.length() + literalLength + 32 * names.length);
+		sb.append(literals[0]);
+		for (int i = 0; i < names.length; i++) {
+			String value = values.get(names[i]);
+			if (value != null) {
+				sb.append(value);
+			} else {
+				sb.append('%').append(names[i]).append('%');
+			}
+			sb.append(literals[i + 1]);
+		}
+	}
+
+	/**
+	 * Renders the snippet into a new string.
+	 *
+	 * @param values the values of the placeholders
+	 * @return the rendered snippet
+	 */
+	public String render(Map<String, String> values) {
+		StringBuilder sb = new StringBuilder();
+		render(sb, values);
+		return sb.toString();
+	}
+
+	/**
+	 * Creates a template in which the placeholders with the given values are
+	 * replaced by the values. This can be used to prepare the parts of a
+	 * snippet which do not change between requests.
+	 *
+	 * @param values the values of the placeholders to replace
+	 * @return a template with the remaining placeholders
+	 */
+	public SnippetTemplate bind(Map<String, String> values) {
+		List<String> newLiterals = new ArrayList<String>();
+		List<String> newNames = new ArrayList<String>();
+		StringBuilder literal = new StringBuilder(literals[0]);
+		for (int i = 0; i < names.length; i++) {
+			String value = values.get(names[i]);
+			if (value != null) {
+				literal.append(value);
+			} else {
+				newLiterals.add(literal.toString());
+				newNames.add(names[i]);
+				literal.setLength(0);
+			}
+			literal.append(literals[i + 1]);
+		}
+		newLiterals.add(literal.toString());
+		return new SnippetTemplate(newLiterals, newNames);
+	}
+
+	/**
+	 * Splits the template at each occurrence of the given placeholder, e.g.
+	 * into the parts before and after <code>%children%</code>.
+	 *
+	 * @param name the name of the placeholder (without the % signs)
+	 * @return the parts of the template, a single part if the placeholder
+	 *         is not contained
+	 */
+	public SnippetTemplate[] split(String name) {
+		List<SnippetTemplate> parts = new ArrayList<SnippetTemplate>();
+		List<String> partLiterals = new ArrayList<String>();
+		List<String> partNames = new ArrayList<String>();
+		partLiterals.add(literals[0]);
+		for (int i = 0; i < names.length; i++) {
+			if (names[i].equals(name)) {
+				parts.add(new SnippetTemplate(partLiterals, partNames));
+				partLiterals = new ArrayList<String>();
+				partNames = new ArrayList<String>();
+			} else {
+				partNames.add(names[i]);
+			}
+			partLiterals.add(literals[i + 1]);
+		}
+		parts.add(new SnippetTemplate(partLiterals, partNames));
+		return parts.toArray(new SnippetTemplate[parts.size()]);
+	}
+
+	/**
+	 * @return true, if the template contains the given placeholder
+	 */
+	public boolean contains(String name) {
+		for (String n : names) {
+			if (n.equals(name)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Override
+	public String toString() {
+		return render(NO_VALUES);
+	}
+
+}
@@ -8,7 +8,9 @@
  */
 package org.openhab.ui.webapp.internal.render;
 
-import org.apache.commons.lang.StringUtils;
+import java.util.HashMap;
+import java.util.Map;
+
 import org.eclipse.emf.common.util.EList;
 import org.openhab.model.sitemap.Video;
 import org.openhab.model.sitemap.Widget;
@@ -37,22 +39,23 @@ public class VideoRenderer extends AbstractWidgetRenderer {
 	 */
 	public EList<Widget> renderWidget(Widget w, StringBuilder sb) throws RenderException {
 		Video videoWidget = (Video) w;
-		String snippet = null;
+		SnippetTemplate template = null;
+		Map<String, String> values = new HashMap<String, String>();
 		
 		String widgetId = itemUIRegistry.getWidgetId(w);		
 		String sitemap = w.eResource().getURI().path();
 		
 		if(videoWidget.getEncoding() !=null && videoWidget.getEncoding().contains("mjpeg")) {
 			// we handle mjpeg streams as an html image as browser can usually handle this
-			snippet = getSnippet("image");
-			snippet = StringUtils.replace(snippet, "%setrefresh%", "");
-			snippet = StringUtils.replace(snippet, "%refresh%", "");
+			template = getTemplate("image");
+			values.put("setrefresh", "");
+			values.put("refresh", "");
 		} else {
-			snippet = getSnippet("video");			
+			template = getTemplate("video");			
 		}
 		String url = "proxy?sitemap=" + sitemap + "&widgetId=" + widgetId;
-		snippet = StringUtils.replace(snippet, "%url%", url);
-		sb.append(snippet);
+		values.put("url", url);
+		template.render(sb, values);
 		return null;
 	}
 }
@@ -0,0 +1,101 @@
+/**
+ * Copyright (c) 2010-2016, openHAB.org and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.ui.webapp.internal.servlet;
+
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.openhab.core.items.GenericItem;
+import org.openhab.core.items.Item;
+import org.openhab.core.items.StateChangeListener;
+import org.openhab.core.types.State;
+
+/**
+ * A suspended polling request of the WebApp UI. It does not occupy a thread
+ * while it waits, instead it listens to the items of the polled page and
+ * hands the response to an executor as soon as one of them is updated.
+ *
+ * @author agent
+ * @since 1.9.0
+ *
+ */
+class PollRequest implements StateChangeListener {
+
+	private final Set<GenericItem> items;
+	private final Executor executor;
+	private final Runnable changeResponse;
+	private final AtomicBoolean done = new AtomicBoolean(false);
+
+	/**
+	 * @param items the items to wait for
+	 * @param executor runs the response, so that the thread which updated the item is not kept busy
+	 * @param changeResponse writes the response after an item has been updated
+	 */
+	PollRequest(Set<GenericItem> items, Executor executor, Runnable changeResponse) {
+		this.items = items;
+		this.executor = executor;
+		this.changeResponse = changeResponse;
+	}
+
+	/**
+	 * Starts listening to the items of the page.
+	 */
+	void start() {
+		for(GenericItem item : items) {
+			item.addStateChangeListener(this);
+		}
+	}
+
+	/**
+	 * Stops waiting, e.g. because the request has timed out or the client has gone.
+	 *
+	 * @return true, if the request was still waiting and no response has been started
+	 */
+	boolean cancel() {
+		if(done.compareAndSet(false, true)) {
+			removeListeners();
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void stateChanged(Item item, State oldState, State newState) {
+		respond();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void stateUpdated(Item item, State state) {
+		respond();
+	}
+
+	private void respond() {
+		if(done.compareAndSet(false, true)) {
+			removeListeners();
+			try {
+				executor.execute(changeResponse);
+			} catch (RejectedExecutionException e) {
+				// the servlet has been stopped, the request is cancelled by Atmosphere
+			}
+		}
+	}
+
+	private void removeListeners() {
+		for(GenericItem item : items) {
+			item.removeStateChangeListener(this);
+		}
+	}
+
+}
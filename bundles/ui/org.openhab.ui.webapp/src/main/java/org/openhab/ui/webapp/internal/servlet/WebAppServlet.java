@@ -9,15 +9,21 @@
 package org.openhab.ui.webapp.internal.servlet;
 
 import java.io.IOException;
-import java.util.Date;
+import java.util.Dictionary;
 import java.util.HashSet;
 import java.util.Hashtable;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import javax.servlet.ServletException;
 import javax.servlet.ServletRequest;
 import javax.servlet.ServletResponse;
 
+import org.atmosphere.cpr.AtmosphereHandler;
+import org.atmosphere.cpr.AtmosphereResource;
+import org.atmosphere.cpr.AtmosphereResourceEvent;
+import org.atmosphere.cpr.AtmosphereServlet;
 import org.eclipse.emf.common.util.EList;
 import org.openhab.core.items.GenericItem;
 import org.openhab.core.items.Item;
@@ -38,11 +44,13 @@ import org.slf4j.LoggerFactory;
 /**
  * This is the main servlet for the WebApp UI. 
  * It serves the Html code based on the sitemap model.
+ * It is run by Atmosphere, so that polling requests can be suspended
+ * without occupying a thread while they wait.
  * 
  * @author Kai Kreuzer
  *
  */
-public class WebAppServlet extends BaseServlet {
+public class WebAppServlet extends BaseServlet implements AtmosphereHandler {
 
 	private static final Logger logger = LoggerFactory.getLogger(WebAppServlet.class);
 
@@ -51,6 +59,12 @@ public class WebAppServlet extends BaseServlet {
 	 */
 	private static final long TIMEOUT_IN_MS = 10000L;
 
+	/** the number of threads which render the responses to polling requests */
+	private static final int POLL_THREADS = 4;
+
+	/** the request attribute which holds the {@link PollRequest} of a suspended request */
+	private static final String POLL_REQUEST_ATTRIBUTE = PollRequest.class.getName();
+
 	/** the name of the servlet to be used in the URL */
 	public static final String SERVLET_NAME = "/openhab.app";
 	
@@ -58,6 +72,7 @@ public class WebAppServlet extends BaseServlet {
 		
 	private PageRenderer renderer;
 	protected SitemapProvider sitemapProvider;
+	private ExecutorService pollExecutor;
 	
 	
 	public void setSitemapProvider(SitemapProvider sitemapProvider) {
@@ -74,8 +89,10 @@ public class WebAppServlet extends BaseServlet {
 	
 	protected void activate() {
 		try {			
-			Hashtable<String, String> props = new Hashtable<String, String>();
-			httpService.registerServlet(SERVLET_NAME, this, props, createHttpContext());
+			pollExecutor = Executors.newFixedThreadPool(POLL_THREADS);
+			AtmosphereServlet servlet = new AtmosphereServlet();
+			servlet.framework().addAtmosphereHandler("/*", this);
+			httpService.registerServlet(SERVLET_NAME, servlet, getAtmosphereParams(), createHttpContext());
 			httpService.registerResources(WEBAPP_ALIAS, "web", null);
 			logger.info("Started Classic UI at " + SERVLET_PATH);
 		} catch (NamespaceException e) {
@@ -88,14 +105,63 @@ public class WebAppServlet extends BaseServlet {
 	protected void deactivate() {
 		httpService.unregister(SERVLET_PATH);
 		httpService.unregister(WEBAPP_ALIAS);
+		if(pollExecutor!=null) {
+			pollExecutor.shutdown();
+		}
 		logger.info("Stopped Classic UI");
 	}
-	
+
+	private Dictionary<String, String> getAtmosphereParams() {
+		Dictionary<String, String> params = new Hashtable<String, String>();
+		// the HttpService does not enable async support, so requests are suspended with Jetty's continuations
+		params.put("org.atmosphere.useNative", "true");
+		// we write plain pages, so none of the default interceptors is needed
+		params.put("org.atmosphere.cpr.AtmosphereInterceptor.disableDefaults", "true");
+		return params;
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
 	public void service(ServletRequest req, ServletResponse res)
 			throws ServletException, IOException {
+		handleRequest(req, res, null);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void onRequest(AtmosphereResource resource) throws IOException {
+		try {
+			handleRequest(resource.getRequest(), resource.getResponse(), resource);
+		} catch (ServletException e) {
+			throw new IOException(e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * Answers a polling request with the timeout response, if no item on its
+	 * page has changed while it was suspended.
+	 * 
+	 * {@inheritDoc}
+	 */
+	public void onStateChange(AtmosphereResourceEvent event) throws IOException {
+		AtmosphereResource resource = event.getResource();
+		PollRequest request = (PollRequest) resource.getRequest().getAttribute(POLL_REQUEST_ATTRIBUTE);
+		if(request!=null && request.cancel() && event.isResumedOnTimeout()) {
+			// we have reached the timeout, so we do not return any content as nothing has changed
+			writeTimeoutResponse(resource.getResponse());
+		}
+	}
+
+	/**
+	 * Serves a request of the WebApp UI.
+	 * 
+	 * @param resource the Atmosphere resource of the request or <code>null</code>,
+	 *        if the request can not be suspended
+	 */
+	private void handleRequest(ServletRequest req, ServletResponse res, AtmosphereResource resource)
+			throws ServletException, IOException {
 		logger.debug("Servlet request received!");
 
 		// read request parameters
@@ -107,8 +173,6 @@ public class WebAppServlet extends BaseServlet {
 		// if there are no parameters, display the "default" sitemap
 		if(sitemapName==null) sitemapName = "default";
 		
-		StringBuilder result = new StringBuilder();
-		
 		Sitemap sitemap = sitemapProvider.getSitemap(sitemapName);
 		try {
 			if(sitemap==null) {
@@ -119,12 +183,11 @@ public class WebAppServlet extends BaseServlet {
 				// we are at the homepage, so we render the children of the sitemap root node
 				String label = sitemap.getLabel()!=null ? sitemap.getLabel() : sitemapName;
 				EList<Widget> children = sitemap.getChildren();
-				if(poll && waitForChanges(children)==false) {
-					// we have reached the timeout, so we do not return any content as nothing has changed
-					res.getWriter().append(getTimeoutResponse()).close();
-					return;
+				if(poll) {
+					pollPage(resource, res, "Home", sitemapName, label, children, async);
+				} else {
+					writePage(res, "Home", sitemapName, label, children, async);
 				}
-				result.append(renderer.processPage("Home", sitemapName, label, sitemap.getChildren(), async));
 			} else if(!widgetId.equals("Colorpicker")) {
 				// we are on some subpage, so we have to render the children of the widget that has been selected
 				Widget w = renderer.getItemUIRegistry().getWidget(sitemap, widgetId);
@@ -133,22 +196,75 @@ public class WebAppServlet extends BaseServlet {
 						throw new RenderException("Widget '" + w + "' can not have any content");
 					}
 					EList<Widget> children = renderer.getItemUIRegistry().getChildren((LinkableWidget) w);
-					if(poll && waitForChanges(children)==false) {
-						// we have reached the timeout, so we do not return any content as nothing has changed
-						res.getWriter().append(getTimeoutResponse()).close();
-						return;
-					}
 					String label = renderer.getItemUIRegistry().getLabel(w);
 					if (label==null) label = "undefined";
-					result.append(renderer.processPage(renderer.getItemUIRegistry().getWidgetId(w), sitemapName, label, children, async));
+					String pageId = renderer.getItemUIRegistry().getWidgetId(w);
+					if(poll) {
+						pollPage(resource, res, pageId, sitemapName, label, children, async);
+					} else {
+						writePage(res, pageId, sitemapName, label, children, async);
+					}
+				} else {
+					writeResponse(res, "", async);
 				}
-				
-			} else if (widgetId.equals("Colorpicker")) {
-				result.append("<root></root>");
+			} else if (widgetId.equals("Colorpicker")) {
+				writeResponse(res, "<root></root>", async);
 			}
 		} catch(RenderException e) {
 			throw new ServletException(e.getMessage(), e);
 		}
+	}
+
+	/**
+	 * Responds to a polling request as soon as an item on the page changes or
+	 * the polling timeout has been reached. If the request is run by Atmosphere,
+	 * it is suspended and no thread is occupied while waiting, otherwise the
+	 * calling thread waits.
+	 */
+	private void pollPage(AtmosphereResource resource, ServletResponse res, String pageId,
+			String sitemapName, String label, EList<Widget> children, boolean async)
+			throws RenderException, IOException {
+		Set<GenericItem> items = getAllItems(children);
+		if(resource!=null) {
+			suspend(resource, items, pageId, sitemapName, label, children, async);
+		} else if(waitForChanges(items)) {
+			writePage(res, pageId, sitemapName, label, children, async);
+		} else {
+			// we have reached the timeout, so we do not return any content as nothing has changed
+			writeTimeoutResponse(res);
+		}
+	}
+
+	/**
+	 * Suspends a polling request until an item on the page changes. The page is then
+	 * rendered by the poll executor and the request is resumed. If nothing changes,
+	 * Atmosphere resumes the request after the timeout, see {@link #onStateChange}.
+	 */
+	private void suspend(final AtmosphereResource resource, Set<GenericItem> items, final String pageId,
+			final String sitemapName, final String label, final EList<Widget> children, final boolean async) {
+		Runnable changeResponse = new Runnable() {
+			public void run() {
+				try {
+					writePage(resource.getResponse(), pageId, sitemapName, label, children, async);
+				} catch (Exception e) {
+					logger.error("Error while rendering page '{}' of sitemap '{}'", pageId, sitemapName, e);
+				} finally {
+					resource.resume();
+				}
+			}
+		};
+		PollRequest request = new PollRequest(items, pollExecutor, changeResponse);
+		resource.getRequest().setAttribute(POLL_REQUEST_ATTRIBUTE, request);
+		resource.suspend(TIMEOUT_IN_MS);
+		request.start();
+	}
+
+	private void writePage(ServletResponse res, String pageId, String sitemapName, String label,
+			EList<Widget> children, boolean async) throws RenderException, IOException {
+		writeResponse(res, renderer.processPage(pageId, sitemapName, label, children, async), async);
+	}
+
+	private void writeResponse(ServletResponse res, CharSequence result, boolean async) throws IOException {
 		if(async) {
 			res.setContentType("application/xml;charset=UTF-8");
 		} else {
@@ -158,6 +274,10 @@ public class WebAppServlet extends BaseServlet {
 		res.getWriter().close();
 	}
 
+	private void writeTimeoutResponse(ServletResponse res) throws IOException {
+		res.getWriter().append(getTimeoutResponse()).close();
+	}
+
 	/**
 	 * Defines the response to return on a polling timeout.
 	 * 
@@ -169,31 +289,29 @@ public class WebAppServlet extends BaseServlet {
 
 	/**
 	 * This method only returns when a change has occurred to any item on the page to display
+	 * or the polling timeout has been reached. The calling thread waits on a monitor which
+	 * is notified by the state change listener. It is only used if the request is not run
+	 * by Atmosphere.
 	 * 
-	 * @param widgets the widgets of the page to observe
+	 * @param items the items of the page to observe
+	 * @return false, if the timeout has been reached
 	 */
-	private boolean waitForChanges(EList<Widget> widgets) {
-		long startTime = (new Date()).getTime();
-		boolean timeout = false;
+	private boolean waitForChanges(Set<GenericItem> items) {
 		BlockingStateChangeListener listener = new BlockingStateChangeListener();
-		// let's get all items for these widgets
-		Set<GenericItem> items = getAllItems(widgets);
 		for(GenericItem item : items) {			
 			item.addStateChangeListener(listener);
 		}
-		do {
-			timeout = (new Date()).getTime() - startTime > TIMEOUT_IN_MS;
-			try {
-				Thread.sleep(500);
-			} catch (InterruptedException e) {
-				timeout = true;
-				break;
-			}
-		} while(!listener.hasChangeOccurred() && !timeout);
+		boolean changed;
+		try {
+			changed = listener.awaitChange(TIMEOUT_IN_MS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			changed = false;
+		}
 		for(GenericItem item : items) {
 			item.removeStateChangeListener(listener);
 		}
-		return !timeout;
+		return changed;
 	}
 
 	/**
@@ -242,15 +360,22 @@ public class WebAppServlet extends BaseServlet {
 		 * {@inheritDoc}
 		 */
 		public void stateChanged(Item item, State oldState, State newState) {
-			changed = true;
+			notifyChange();
 		}
 
 		/**
-		 * determines, whether a state change has occurred since its creation
+		 * waits until a state change has occurred since its creation
 		 * 
+		 * @param timeout the maximum time to wait in milliseconds
 		 * @return true, if a state has changed
 		 */
-		public boolean hasChangeOccurred() {
+		public synchronized boolean awaitChange(long timeout) throws InterruptedException {
+			long deadline = System.currentTimeMillis() + timeout;
+			long remaining = timeout;
+			while(!changed && remaining > 0) {
+				wait(remaining);
+				remaining = deadline - System.currentTimeMillis();
+			}
 			return changed;
 		}
 
@@ -258,7 +383,12 @@ public class WebAppServlet extends BaseServlet {
 		 * {@inheritDoc}
 		 */
 		public void stateUpdated(Item item, State state) {
+			notifyChange();
+		}
+
+		private synchronized void notifyChange() {
 			changed = true;
+			notifyAll();
 		}
 		
 	}